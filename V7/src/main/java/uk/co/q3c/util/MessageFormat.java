@@ -12,13 +12,14 @@
  */
 package uk.co.q3c.util;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.helpers.MessageFormatter;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 /**
  * The native Java {@link java.text.MessageFormat} has some quirky behaviour especially when using the apostrophe
  * (single quote) character. The {@link MessageFormatter} from sl4j claims much faster performance, but expects the
@@ -27,7 +28,8 @@ import org.slf4j.helpers.MessageFormatter;
  * <p>
  * Neither is completely suited to I18N translation
  * <p>
- * 
+ * Patterns are compiled to a {@link MessagePattern} on first use, and held in a bounded cache keyed by the pattern
+ * string, so repeated use of the same pattern does not scan it again.
  * 
  * @author David Sowerby 10 Feb 2013
  * 
@@ -36,8 +38,34 @@ public class MessageFormat {
 	private static Logger log = LoggerFactory.getLogger(MessageFormat.class);
 
 	/**
-	 * This method uses {@link MessageFormatter} for speed and resilience, but acts as an intermediary and takes a
-	 * pattern string of the format:
+	 * The maximum number of compiled patterns held. Patterns come from code and translation bundles, so the number in
+	 * use is normally well below this, but a pattern built at run time would otherwise fill the cache without limit.
+	 */
+	public static final int CACHE_SIZE = 2048;
+
+	/**
+	 * Builders larger than this are not kept for re-use, so that one very long message does not hold on to a large
+	 * buffer for the life of the thread
+	 */
+	private static final int MAX_RETAINED_CAPACITY = 1024;
+
+	private static final LoadingCache<String, MessagePattern> patterns = CacheBuilder.newBuilder()
+			.maximumSize(CACHE_SIZE).build(new CacheLoader<String, MessagePattern>() {
+				@Override
+				public MessagePattern load(String pattern) {
+					return MessagePattern.compile(pattern);
+				}
+			});
+
+	/**
+	 * Plain ThreadLocal (no initialValue override), so that no class from this application is held by the container's
+	 * threads. The builder is removed while in use, so that a format called from an argument's toString() gets a
+	 * builder of its own.
+	 */
+	private static final ThreadLocal<StringBuilder> buffers = new ThreadLocal<>();
+
+	/**
+	 * This method acts as an intermediary and takes a pattern string of the format:
 	 * <p>
 	 * <ul>
 	 * <em>this is a {1} pattern where the {0} can be in any {2}</i>
@@ -50,10 +78,8 @@ public class MessageFormat {
 	 * <ul>
 	 * <i>this is a simple pattern where the parameters can be in any order</i>
 	 * </ul>
-	 * This is done by sorting the arguments into the same order as they are required by the pattern. No claims are made
-	 * for efficiency or performance - {@link MessageFormatter} is fast, but this utility has not been optimised. This
-	 * method is deliberately not tolerant of errors in the pattern structure - substitution will simply not occur, and
-	 * the unmodified pattern returned.
+	 * This method is deliberately not tolerant of errors in the pattern structure - substitution will simply not
+	 * occur, and the unmodified pattern returned.
 	 * <p>
 	 * If you want to include a "{" in the output, simply escape it "\\{". This will escape the whole placeholder
 	 * <p>
@@ -61,71 +87,74 @@ public class MessageFormat {
 	 * matched by the same number of arguments.
 	 */
 	public static String format(String pattern, Object... arguments) {
-		List<Integer> parameters = new ArrayList<>();
-		try {
-			String strippedPattern = scanForParameters(pattern, parameters);
-			Object[] sortedArguments = sortArguments(parameters, arguments, pattern);
-			return MessageFormatter.arrayFormat(strippedPattern, sortedArguments).getMessage();
-		} catch (Exception e) {
-			return pattern;
-		}
+		return format(compile(pattern), arguments);
 	}
 
-	private static String scanForParameters(String pattern, List<Integer> parameters) {
-		int i = 0;
-		StringBuilder strippedPattern = new StringBuilder();
-		while (i < pattern.length()) {
-			char c = pattern.charAt(i);
-			// if the '{' has been escaped this moves the scan beyond it, thereby ignoring it
-			if (c == '\\') {
-				i++;
-				c = pattern.charAt(i);
-				if (c == '{') {
-					strippedPattern.append('{');
-					i++;
-					c = pattern.charAt(i);
-					strippedPattern.append(c);
-				}
-			} else {
-				strippedPattern.append(c);
-			}
-			// find an opening brace
-			if (c == '{') {
-				// find the closing '}' and extract
-				StringBuilder placeholder = new StringBuilder();
-				boolean done = false;
-
-				while (!done) {
-					i++;
-					c = pattern.charAt(i);
-
-					if (c == '}') {
-						parameters.add(Integer.valueOf(placeholder.toString()));
-						strippedPattern.append(c);
-						done = true;
-					} else {
-						placeholder.append(c);
-					}
-				}
-			}
+	/**
+	 * As {@link #format(String, Object...)}, for a pattern already compiled by {@link #compile(String)}
+	 * 
+	 * @param compiled
+	 * @param arguments
+	 * @return
+	 */
+	public static String format(MessagePattern compiled, Object... arguments) {
+		if (!check(compiled, arguments)) {
+			return compiled.getPattern();
+		}
+		StringBuilder buf = buffers.get();
+		if (buf == null) {
+			buf = new StringBuilder(64);
+		} else {
+			buffers.set(null);
+			buf.setLength(0);
+		}
+		compiled.appendTo(buf, arguments);
+		String result = buf.toString();
+		if (buf.capacity() <= MAX_RETAINED_CAPACITY) {
+			buffers.set(buf);
+		}
+		return result;
+	}
 
-			i++;
+	/**
+	 * As {@link #format(String, Object...)}, but appends the result to {@code target} instead of returning it
+	 * 
+	 * @param target
+	 * @param pattern
+	 * @param arguments
+	 * @return target
+	 */
+	public static StringBuilder formatTo(StringBuilder target, String pattern, Object... arguments) {
+		MessagePattern compiled = compile(pattern);
+		if (check(compiled, arguments)) {
+			compiled.appendTo(target, arguments);
+		} else {
+			target.append(pattern);
 		}
-		return strippedPattern.toString();
+		return target;
+	}
+
+	/**
+	 * Returns the compiled form of {@code pattern}, from the cache if it has been used before
+	 * 
+	 * @param pattern
+	 * @return
+	 */
+	public static MessagePattern compile(String pattern) {
+		return patterns.getUnchecked(pattern);
 	}
 
-	private static Object[] sortArguments(List<Integer> parameters, Object[] arguments, String pattern) {
-		if (parameters.size() != arguments.length) {
-			Object[] args = new Object[] { parameters.size(), arguments.length, pattern };
+	private static boolean check(MessagePattern compiled, Object[] arguments) {
+		if (compiled.accepts(arguments)) {
+			return true;
+		}
+		if (compiled.isValid()) {
+			Object[] args = new Object[] { compiled.getParameterCount(), (arguments == null) ? 0 : arguments.length,
+					compiled.getPattern() };
 			log.warn(
 					"Message pattern and arguments do not match, there are {} parameters in the pattern, and {} arguments. The pattern is: '{}'",
 					args);
-			throw new RuntimeException();
-		}
-		List<Object> sortedArguments = new ArrayList<>();
-		for (Integer i : parameters) {
-			sortedArguments.add(arguments[i]);
 		}
-		return sortedArguments.toArray();
+		return false;
 	}
 }
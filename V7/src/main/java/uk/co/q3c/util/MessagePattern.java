@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A pattern for {@link MessageFormat}, compiled once into the literal segments between placeholders and the argument
+ * index of each placeholder. Formatting is then a walk of two arrays, with no scanning of the pattern.
+ * <p>
+ * For a pattern with n placeholders there are n+1 segments, any of which may be empty. A pattern which cannot be
+ * parsed (an unclosed brace, or a placeholder which is not a non-negative integer) compiles to an invalid pattern, and
+ * formats to the original pattern unchanged.
+ * <p>
+ * Compilation also notes whether the pattern uses {@link java.text.MessageFormat} syntax which this class does not
+ * support - see {@link #isJavaTextSyntax()} - so that a caller which can fall back to that class need not scan the
+ * pattern itself.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author David Sowerby
+ *
+ */
+public final class MessagePattern {
+
+	private final String pattern;
+	private final String[] segments;
+	private final int[] parameters;
+	private final int maxIndex;
+	private final int literalLength;
+	private final boolean valid;
+	private final boolean javaTextSyntax;
+
+	private MessagePattern(String pattern, String[] segments, int[] parameters, boolean valid) {
+		this.pattern = pattern;
+		this.segments = segments;
+		this.parameters = parameters;
+		this.valid = valid;
+		this.javaTextSyntax = usesJavaTextSyntax(pattern);
+		int max = -1;
+		for (int index : parameters) {
+			max = Math.max(max, index);
+		}
+		this.maxIndex = max;
+		int length = 0;
+		for (String segment : segments) {
+			length += segment.length();
+		}
+		this.literalLength = length;
+	}
+
+	/**
+	 * Compiles {@code pattern}. A '{' preceded by a backslash is output as a literal '{', and does not start a
+	 * placeholder.
+	 *
+	 * @param pattern
+	 * @return
+	 */
+	public static MessagePattern compile(String pattern) {
+		List<String> segments = new ArrayList<>();
+		List<Integer> parameters = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		int length = pattern.length();
+		int i = 0;
+		while (i < length) {
+			char c = pattern.charAt(i);
+			if ((c == '\\') && (i + 1 < length) && (pattern.charAt(i + 1) == '{')) {
+				literal.append('{');
+				i += 2;
+			} else if (c == '{') {
+				int close = pattern.indexOf('}', i + 1);
+				int index = (close < 0) ? -1 : parseIndex(pattern, i + 1, close);
+				if (index < 0) {
+					return new MessagePattern(pattern, new String[] { pattern }, new int[0], false);
+				}
+				segments.add(literal.toString());
+				literal.setLength(0);
+				parameters.add(index);
+				i = close + 1;
+			} else {
+				literal.append(c);
+				i++;
+			}
+		}
+		segments.add(literal.toString());
+
+		int[] params = new int[parameters.size()];
+		for (int p = 0; p < params.length; p++) {
+			params[p] = parameters.get(p);
+		}
+		return new MessagePattern(pattern, segments.toArray(new String[segments.size()]), params, true);
+	}
+
+	/**
+	 * Returns the integer between {@code start} (inclusive) and {@code end} (exclusive), or -1 if that is empty or is
+	 * not all digits
+	 */
+	private static int parseIndex(String pattern, int start, int end) {
+		if ((end == start) || (end - start > 9)) {
+			return -1;
+		}
+		int index = 0;
+		for (int i = start; i < end; i++) {
+			char c = pattern.charAt(i);
+			if ((c < '0') || (c > '9')) {
+				return -1;
+			}
+			index = (index * 10) + (c - '0');
+		}
+		return index;
+	}
+
+	/**
+	 * Returns true if {@code pattern} contains a quoted apostrophe, or a placeholder with a format type
+	 */
+	private static boolean usesJavaTextSyntax(String pattern) {
+		if (pattern.contains("''")) {
+			return true;
+		}
+		int length = pattern.length();
+		int brace = pattern.indexOf('{');
+		while (brace >= 0) {
+			int i = brace + 1;
+			while ((i < length) && Character.isDigit(pattern.charAt(i))) {
+				i++;
+			}
+			if ((i > brace + 1) && (i < length) && (pattern.charAt(i) == ',')) {
+				return true;
+			}
+			brace = pattern.indexOf('{', i);
+		}
+		return false;
+	}
+
+	/**
+	 * True if the pattern uses syntax of {@link java.text.MessageFormat} which this class does not support: a
+	 * placeholder with a format type, such as "{0,number,#.##}", or a quoted apostrophe ("''"). Such a pattern is
+	 * usually invalid here, or would be output with its quotes doubled.
+	 *
+	 * @return
+	 */
+	public boolean isJavaTextSyntax() {
+		return javaTextSyntax;
+	}
+
+	/**
+	 * True if the pattern was parsed successfully
+	 *
+	 * @return
+	 */
+	public boolean isValid() {
+		return valid;
+	}
+
+	/**
+	 * The number of placeholders in the pattern
+	 *
+	 * @return
+	 */
+	public int getParameterCount() {
+		return parameters.length;
+	}
+
+	/**
+	 * True if {@code arguments} can be applied to this pattern - the pattern is valid, there is one argument for each
+	 * placeholder, and every placeholder refers to an argument which exists
+	 *
+	 * @param arguments
+	 * @return
+	 */
+	public boolean accepts(Object[] arguments) {
+		int count = (arguments == null) ? 0 : arguments.length;
+		return valid && (count == parameters.length) && (maxIndex < count);
+	}
+
+	/**
+	 * Appends the formatted message to {@code target}. The caller should check {@link #accepts(Object[])} first.
+	 *
+	 * @param target
+	 * @param arguments
+	 */
+	public void appendTo(StringBuilder target, Object[] arguments) {
+		target.ensureCapacity(target.length() + literalLength + (parameters.length * 8));
+		target.append(segments[0]);
+		for (int i = 0; i < parameters.length; i++) {
+			appendArgument(target, arguments[parameters[i]]);
+			target.append(segments[i + 1]);
+		}
+	}
+
+	private void appendArgument(StringBuilder target, Object argument) {
+		if (argument == null) {
+			target.append("null");
+		} else if (argument.getClass().isArray()) {
+			String value = Arrays.deepToString(new Object[] { argument });
+			target.append(value, 1, value.length() - 1);
+		} else {
+			try {
+				target.append(argument.toString());
+			} catch (RuntimeException e) {
+				target.append("[FAILED toString()]");
+			}
+		}
+	}
+
+	/**
+	 * The pattern as originally supplied
+	 *
+	 * @return
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+}
@@ -24,5 +24,21 @@ public class ConfigKeys {
 
 	public static final String SITEMAP_SOURCES = "sitemap.sources";
 	public static final String SERVER_PUSH_ENABLED = "server.pushEnabled";
+	public static final String PUSH_DELIVERY_SHARDS = "push.deliveryShards";
+	public static final String PUSH_INBOX_WINDOW = "push.inboxWindow";
+	public static final String PUSH_INBOX_BATCH_SIZE = "push.inboxBatchSize";
+	public static final String PUSH_INBOX_CAPACITY = "push.inboxCapacity";
+	public static final String PUSH_INBOX_OVERFLOW = "push.inboxOverflow";
+	public static final String PUSH_TRANSPORT_BATCH_SIZE = "push.transportBatchSize";
+	public static final String PUSH_TRANSPORT_BATCH_WINDOW = "push.transportBatchWindow";
+	public static final String PUSH_TRANSPORT_DIRECTORY = "push.transportDirectory";
+	public static final String PUSH_REPLAY_CAPACITY = "push.replayCapacity";
+	public static final String PUSH_REPLAY_TOPICS = "push.replayTopics";
+	public static final String PUSH_SATURATION_THRESHOLD = "push.saturationThreshold";
+	public static final String SCOPE_MONITOR_LOG_INTERVAL = "scope.monitorLogInterval";
+	public static final String UI_KEY_NODE_ID = "uiKey.nodeId";
+	public static final String I18N_SUPPORTED_LOCALES = "i18n.supportedLocales";
+	public static final String I18N_EXTERNAL_DIRECTORY = "i18n.externalDirectory";
+	public static final String I18N_USAGE_LOG_INTERVAL = "i18n.usageLogInterval";
 
 }
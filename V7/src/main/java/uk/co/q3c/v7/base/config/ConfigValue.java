@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.config;
+
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cached configuration value, for code which reads a value so often (on every broadcast, for example) that the cost
+ * of looking it up in the {@link InheritingConfiguration} matters - a lookup scans each of the configurations it is
+ * composed of. Reading {@link #get()} is a single volatile read.
+ * <p>
+ * The value is read when the handle is created, and again whenever the {@link InheritingConfiguration} changes: when a
+ * configuration is added or removed, when a property is set or cleared, and when one of its component configurations
+ * reports a change (a file based configuration which reloads, for example). A change to a component configuration
+ * which does not report changes is only seen after a call to {@link InheritingConfiguration#refresh()}.
+ * <p>
+ * Create a handle once and hold it, using one of the static {@code forXxx} methods. Handles are held weakly by the
+ * configuration, so one which is no longer referenced is simply forgotten. If the configured value cannot be converted
+ * to the required type, the default is used.
+ *
+ * @author David Sowerby
+ *
+ */
+public abstract class ConfigValue<T> {
+	private static Logger log = LoggerFactory.getLogger(ConfigValue.class);
+
+	private final String key;
+	private final T defaultValue;
+	private volatile T value;
+
+	protected ConfigValue(String key, T defaultValue) {
+		super();
+		this.key = key;
+		this.defaultValue = defaultValue;
+		this.value = defaultValue;
+	}
+
+	public static ConfigValue<Boolean> forBoolean(InheritingConfiguration configuration, final String key,
+			final boolean defaultValue) {
+		return track(configuration, new ConfigValue<Boolean>(key, defaultValue) {
+			@Override
+			protected Boolean read(Configuration configuration) {
+				return configuration.getBoolean(key, defaultValue);
+			}
+		});
+	}
+
+	public static ConfigValue<Integer> forInt(InheritingConfiguration configuration, final String key,
+			final int defaultValue) {
+		return track(configuration, new ConfigValue<Integer>(key, defaultValue) {
+			@Override
+			protected Integer read(Configuration configuration) {
+				return configuration.getInt(key, defaultValue);
+			}
+		});
+	}
+
+	public static ConfigValue<Long> forLong(InheritingConfiguration configuration, final String key,
+			final long defaultValue) {
+		return track(configuration, new ConfigValue<Long>(key, defaultValue) {
+			@Override
+			protected Long read(Configuration configuration) {
+				return configuration.getLong(key, defaultValue);
+			}
+		});
+	}
+
+	public static ConfigValue<String> forString(InheritingConfiguration configuration, final String key,
+			final String defaultValue) {
+		return track(configuration, new ConfigValue<String>(key, defaultValue) {
+			@Override
+			protected String read(Configuration configuration) {
+				return configuration.getString(key, defaultValue);
+			}
+		});
+	}
+
+	private static <T> ConfigValue<T> track(InheritingConfiguration configuration, ConfigValue<T> value) {
+		configuration.track(value);
+		value.refresh(configuration);
+		return value;
+	}
+
+	/**
+	 * Reads the value from {@code configuration}
+	 *
+	 * @param configuration
+	 * @return
+	 */
+	protected abstract T read(Configuration configuration);
+
+	void refresh(Configuration configuration) {
+		try {
+			T newValue = read(configuration);
+			value = (newValue == null) ? defaultValue : newValue;
+		} catch (RuntimeException e) {
+			log.warn("Configuration value for '{}' is not valid, using the default of {}", key, defaultValue);
+			value = defaultValue;
+		}
+	}
+
+	/**
+	 * The current value, or the default if there is no valid value for the key
+	 *
+	 * @return
+	 */
+	public T get() {
+		return value;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public T getDefaultValue() {
+		return defaultValue;
+	}
+
+	@Override
+	public String toString() {
+		return key + "=" + value;
+	}
+
+}
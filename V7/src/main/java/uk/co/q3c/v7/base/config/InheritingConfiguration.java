@@ -12,11 +12,18 @@
  */
 package uk.co.q3c.v7.base.config;
 
+import java.util.Collections;
+import java.util.Set;
+
 import org.apache.commons.configuration.CompositeConfiguration;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.HierarchicalINIConfiguration;
 import org.apache.commons.configuration.SubnodeConfiguration;
+import org.apache.commons.configuration.event.ConfigurationEvent;
+import org.apache.commons.configuration.event.ConfigurationListener;
+import org.apache.commons.configuration.event.EventSource;
 
+import com.google.common.collect.MapMaker;
 import com.google.inject.Inject;
 
 /**
@@ -26,6 +33,9 @@ import com.google.inject.Inject;
  * <p>
  * A change to the in-memory configuration (by using {@link CompositeConfiguration#setProperty(String, Object))} will
  * always take precedence, even if another configuration is added after setProperty has been called
+ * <p>
+ * Values which are read very frequently can be held as a {@link ConfigValue}, which this configuration keeps up to
+ * date as it changes.
  * 
  * @author David Sowerby
  * 
@@ -33,9 +43,80 @@ import com.google.inject.Inject;
 
 public class InheritingConfiguration extends CompositeConfiguration {
 
+	private final Set<ConfigValue<?>> values = Collections.newSetFromMap(new MapMaker().weakKeys()
+			.<ConfigValue<?>, Boolean> makeMap());
+	private final ConfigurationListener changeListener = new ConfigurationListener() {
+		@Override
+		public void configurationChanged(ConfigurationEvent event) {
+			if (!event.isBeforeUpdate()) {
+				refresh();
+			}
+		}
+	};
+
 	@Inject
 	protected InheritingConfiguration() {
 		super();
+		// setProperty, clearProperty and so on
+		addConfigurationListener(changeListener);
+	}
+
+	/**
+	 * Adds {@code config}, and if it can report changes (a file based configuration which reloads, for example) listens
+	 * to it so that any {@link ConfigValue} is updated when it changes
+	 */
+	@Override
+	public void addConfiguration(Configuration config, boolean asInMemory) {
+		super.addConfiguration(config, asInMemory);
+		if (config instanceof EventSource) {
+			((EventSource) config).addConfigurationListener(changeListener);
+		}
+		refresh();
+	}
+
+	@Override
+	public void removeConfiguration(Configuration config) {
+		super.removeConfiguration(config);
+		if (config instanceof EventSource) {
+			((EventSource) config).removeConfigurationListener(changeListener);
+		}
+		refresh();
+	}
+
+	@Override
+	public void clear() {
+		// called by the super class constructor, before the fields have been initialised
+		if (changeListener != null) {
+			for (int i = 0; i < getNumberOfConfigurations(); i++) {
+				Configuration config = getConfiguration(i);
+				if (config instanceof EventSource) {
+					((EventSource) config).removeConfigurationListener(changeListener);
+				}
+			}
+		}
+		super.clear();
+		refresh();
+	}
+
+	/**
+	 * Re-reads every {@link ConfigValue} created for this configuration. Changes made through this configuration are
+	 * seen automatically, call this after changing one of the component configurations directly.
+	 */
+	public void refresh() {
+		if (values == null) {
+			return;
+		}
+		synchronized (values) {
+			for (ConfigValue<?> value : values) {
+				value.refresh(this);
+			}
+		}
+	}
+
+	void track(ConfigValue<?> value) {
+		synchronized (values) {
+			values.add(value);
+		}
 	}
 
 	/**
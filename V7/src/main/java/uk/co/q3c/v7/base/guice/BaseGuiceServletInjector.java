@@ -26,12 +26,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import uk.co.q3c.v7.base.config.ApplicationConfigurationModule;
+import uk.co.q3c.v7.base.guice.scopemonitor.ScopeMonitorModule;
 import uk.co.q3c.v7.base.guice.threadscope.ThreadScopeModule;
 import uk.co.q3c.v7.base.guice.uiscope.UIScopeModule;
 import uk.co.q3c.v7.base.guice.vsscope.VaadinSessionScopeModule;
 import uk.co.q3c.v7.base.navigate.sitemap.Sitemap;
 import uk.co.q3c.v7.base.navigate.sitemap.SitemapServiceModule;
 import uk.co.q3c.v7.base.navigate.sitemap.StandardPagesModule;
+import uk.co.q3c.v7.base.push.Broadcaster;
+import uk.co.q3c.v7.base.push.transport.BroadcastTransportModule;
 import uk.co.q3c.v7.base.services.ServicesMonitor;
 import uk.co.q3c.v7.base.services.ServicesMonitorModule;
 import uk.co.q3c.v7.base.shiro.ShiroVaadinModule;
@@ -40,6 +43,9 @@ import uk.co.q3c.v7.base.user.UserModule;
 import uk.co.q3c.v7.base.view.ViewModule;
 import uk.co.q3c.v7.base.view.component.StandardComponentModule;
 import uk.co.q3c.v7.i18n.I18NModule;
+import uk.co.q3c.v7.i18n.external.ExternalTranslationModule;
+import uk.co.q3c.v7.i18n.usage.TranslationUsageModule;
+import uk.co.q3c.v7.i18n.warmup.I18NWarmupModule;
 
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -86,12 +92,17 @@ public abstract class BaseGuiceServletInjector extends GuiceServletContextListen
 		List<Module> baseModules = new ArrayList<>();
 
 		baseModules.add(new I18NModule());
+		baseModules.add(i18nWarmupModule());
+		baseModules.add(externalTranslationModule());
+		baseModules.add(translationUsageModule());
+		baseModules.add(broadcastTransportModule());
 		baseModules.add(applicationConfigurationModule());
 		baseModules.add(new SitemapServiceModule());
 
 		baseModules.add(new ThreadScopeModule());
 		baseModules.add(new UIScopeModule());
 		baseModules.add(new VaadinSessionScopeModule());
+		baseModules.add(scopeMonitorModule());
 
 		baseModules.add(new ServicesMonitorModule());
 
@@ -114,6 +125,43 @@ public abstract class BaseGuiceServletInjector extends GuiceServletContextListen
 		return baseModules;
 	}
 
+	/**
+	 * Override this if you have sub-classed {@link ScopeMonitorModule} to change the service or the sizer it uses
+	 */
+	protected Module scopeMonitorModule() {
+		return new ScopeMonitorModule();
+	}
+
+	/**
+	 * Override this if you have sub-classed {@link I18NWarmupModule} to add your own I18NKey classes, or to change
+	 * the warm-up service
+	 */
+	protected Module i18nWarmupModule() {
+		return new I18NWarmupModule();
+	}
+
+	/**
+	 * Override this if you have sub-classed {@link ExternalTranslationModule} to change the external translation
+	 * service
+	 */
+	protected Module externalTranslationModule() {
+		return new ExternalTranslationModule();
+	}
+
+	/**
+	 * Override this if you have sub-classed {@link TranslationUsageModule} to change the usage report service
+	 */
+	protected Module translationUsageModule() {
+		return new TranslationUsageModule();
+	}
+
+	/**
+	 * Override this if you have sub-classed {@link BroadcastTransportModule} to change the transport between nodes
+	 */
+	protected Module broadcastTransportModule() {
+		return new BroadcastTransportModule();
+	}
+
 	protected Module applicationConfigurationModule() {
 		return new ApplicationConfigurationModule();
 	}
@@ -202,6 +250,11 @@ public abstract class BaseGuiceServletInjector extends GuiceServletContextListen
 		} catch (Exception e) {
 			log.error("Exception while stopping services", e);
 		}
+		try {
+			getInjector().getInstance(Broadcaster.class).shutdown();
+		} catch (Exception e) {
+			log.error("Exception while shutting down the broadcaster", e);
+		}
 		super.contextDestroyed(servletContextEvent);
 	}
 }
\ No newline at end of file
@@ -17,7 +17,9 @@ import java.util.Properties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.co.q3c.v7.base.guice.vsscope.VaadinSessionScope;
 import uk.co.q3c.v7.base.ui.ScopedUIProvider;
+import uk.co.q3c.v7.i18n.warmup.I18NWarmupService;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -32,15 +34,25 @@ public class BaseServlet extends VaadinServlet implements SessionInitListener {
 	private static Logger log = LoggerFactory.getLogger(BaseServlet.class);
 
 	private final ScopedUIProvider uiProvider;
+	private final I18NWarmupService warmupService;
 
 	@Inject
-	public BaseServlet(ScopedUIProvider uiProvider) {
+	public BaseServlet(ScopedUIProvider uiProvider, I18NWarmupService warmupService) {
 		this.uiProvider = uiProvider;
+		this.warmupService = warmupService;
 	}
 
 	@Override
 	protected void servletInitialized() {
 		getService().addSessionInitListener(this);
+		// release session scoped objects when the session is destroyed
+		getService().addSessionDestroyListener(VaadinSessionScope.getCurrent());
+		// the warm-up needs the VaadinService to locate the configuration, so cannot start any earlier
+		try {
+			warmupService.start();
+		} catch (Exception e) {
+			log.error("I18N warm-up failed, translations will be loaded on first use", e);
+		}
 	}
 
 	@Override
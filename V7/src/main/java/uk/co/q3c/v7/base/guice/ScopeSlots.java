@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.guice;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
+import com.google.inject.Key;
+
+/**
+ * Allocates the slot (an index into a {@link ScopeStore}) used by each binding in a scope. The same key always has
+ * the same slot, so repeated calls to Scope.scope(Key, Provider) for a key do not use extra slots.
+ *
+ * @author David Sowerby
+ *
+ */
+public class ScopeSlots {
+
+	private final ConcurrentMap<Key<?>, Integer> slots = new MapMaker().makeMap();
+	private final AtomicInteger nextSlot = new AtomicInteger();
+
+	/**
+	 * Returns the slot allocated to {@code key}, allocating a new one if the key has not been seen before.
+	 *
+	 * @param key
+	 * @return
+	 */
+	public int slotFor(Key<?> key) {
+		Integer slot = slots.get(key);
+		if (slot == null) {
+			Integer newSlot = nextSlot.getAndIncrement();
+			slot = slots.putIfAbsent(key, newSlot);
+			if (slot == null) {
+				slot = newSlot;
+			}
+		}
+		return slot;
+	}
+
+	/**
+	 * Returns a snapshot of the keys and their slots
+	 *
+	 * @return
+	 */
+	public ImmutableMap<Key<?>, Integer> getSlots() {
+		return ImmutableMap.copyOf(slots);
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.guice;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import uk.co.q3c.v7.base.guice.uiscope.UIScope;
+import uk.co.q3c.v7.base.guice.vsscope.VaadinSessionScope;
+
+import com.google.inject.Provider;
+
+/**
+ * Holds the scoped instances for a single instance of a scope - one UI for {@link UIScope}, one VaadinSession for
+ * {@link VaadinSessionScope}. Each scoped binding is allocated a slot by {@link ScopeSlots} when the binding is scoped,
+ * and the instance for that binding is held at the slot index. The store is owned by whatever represents the scope
+ * instance (the UIKey or the VaadinSession), so it becomes eligible for garbage collection together with its owner.
+ * <p>
+ * Reads take no lock - the array is replaced (copy on write) whenever an instance is added, so a reader always sees a
+ * fully published array. Instances are only created once per scope instance per binding, so writes are rare.
+ * <p>
+ * The store is {@link Serializable} only so that it can be held as a session attribute. The instances themselves are
+ * not serialized, and will be re-created on demand after deserialization.
+ *
+ * @author David Sowerby
+ *
+ */
+public class ScopeStore implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	private static final Object[] EMPTY = new Object[0];
+
+	private transient volatile Object[] slots = EMPTY;
+	private transient volatile boolean registered;
+	private final long createdAt = System.currentTimeMillis();
+
+	/**
+	 * Returns the instance held at {@code slot}, or null if there is none
+	 *
+	 * @param slot
+	 * @return
+	 */
+	public Object get(int slot) {
+		Object[] current = slots;
+		return (slot < current.length) ? current[slot] : null;
+	}
+
+	/**
+	 * Returns the instance held at {@code slot}, creating it from {@code unscoped} if there is none.
+	 *
+	 * @param slot
+	 * @param unscoped
+	 * @return
+	 */
+	public <T> T get(int slot, Provider<T> unscoped) {
+		@SuppressWarnings("unchecked")
+		T instance = (T) get(slot);
+		if (instance != null) {
+			return instance;
+		}
+		synchronized (this) {
+			// check again, another thread may have created it while we waited
+			@SuppressWarnings("unchecked")
+			T existing = (T) get(slot);
+			if (existing != null) {
+				return existing;
+			}
+			instance = unscoped.get();
+			Object[] current = slots;
+			Object[] updated = Arrays.copyOf(current, Math.max(current.length, slot + 1));
+			updated[slot] = instance;
+			slots = updated;
+			return instance;
+		}
+	}
+
+	/**
+	 * The number of instances currently held
+	 *
+	 * @return
+	 */
+	public int size() {
+		int count = 0;
+		for (Object instance : slots) {
+			if (instance != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public synchronized void clear() {
+		slots = EMPTY;
+	}
+
+	/**
+	 * True if the scope which uses this store is currently tracking it
+	 *
+	 * @return
+	 */
+	public boolean isRegistered() {
+		return registered;
+	}
+
+	public void setRegistered(boolean registered) {
+		this.registered = registered;
+	}
+
+	/**
+	 * The time in milliseconds at which this store was created
+	 *
+	 * @return
+	 */
+	public long getCreatedAt() {
+		return createdAt;
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		slots = EMPTY;
+	}
+
+}
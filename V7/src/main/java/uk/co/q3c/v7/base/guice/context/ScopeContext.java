@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.guice.context;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+
+import uk.co.q3c.v7.base.guice.threadscope.ThreadCache;
+import uk.co.q3c.v7.base.guice.threadscope.ThreadScoped;
+import uk.co.q3c.v7.base.guice.uiscope.UIKey;
+import uk.co.q3c.v7.base.guice.uiscope.UIScoped;
+import uk.co.q3c.v7.base.guice.vsscope.VaadinSessionScoped;
+import uk.co.q3c.v7.base.ui.ScopedUI;
+
+import com.vaadin.server.VaadinSession;
+import com.vaadin.ui.UI;
+import com.vaadin.util.CurrentInstance;
+
+/**
+ * An immutable snapshot of the context which scoped injection and security depend on, so that work handed to another
+ * thread behaves as it would have done on the thread which handed it over. {@link #capture()} takes the snapshot, and
+ * {@link #run(Runnable)} / {@link #call(Callable)} restore it around the work, putting back whatever was there before
+ * when the work completes, so pooled threads are left clean. The snapshot contains:
+ * <ul>
+ * <li>the Vaadin CurrentInstance values - including the UI, the VaadinSession and the {@link UIKey}, which
+ * {@link UIScoped} and {@link VaadinSessionScoped} injection rely on
+ * <li>the Shiro thread context, and the Subject
+ * <li>the Locale, which is made available to the work as CurrentInstance.get(Locale.class)
+ * <li>a copy of the {@link ThreadScoped} instances - new instances created by the work are not passed back
+ * </ul>
+ * Restoration uses only plain thread locals, which are set and cleared around each piece of work, so this works for any
+ * kind of thread. See {@link ScopeContextExecutorService} for an executor which does this automatically.
+ * 
+ * @author David Sowerby
+ * 
+ */
+public class ScopeContext {
+
+	private static final ThreadCache threadCache = new ThreadCache();
+
+	private final Map<Class<?>, CurrentInstance> vaadinInstances;
+	// CurrentInstance holds its values weakly, so the values scoping depends on are held strongly here as well
+	private final UI ui;
+	private final VaadinSession session;
+	private final UIKey uiKey;
+	private final Map<Object, Object> shiroResources;
+	private final Subject subject;
+	private final Locale locale;
+	private final ThreadCache.Cache threadScoped;
+
+	private ScopeContext(Map<Class<?>, CurrentInstance> vaadinInstances, UI ui, VaadinSession session, UIKey uiKey,
+			Map<Object, Object> shiroResources, Subject subject, Locale locale, ThreadCache.Cache threadScoped) {
+		super();
+		this.vaadinInstances = vaadinInstances;
+		this.ui = ui;
+		this.session = session;
+		this.uiKey = uiKey;
+		this.shiroResources = shiroResources;
+		this.subject = subject;
+		this.locale = locale;
+		this.threadScoped = threadScoped;
+	}
+
+	/**
+	 * Takes a snapshot of the context of the current thread
+	 * 
+	 * @return
+	 */
+	public static ScopeContext capture() {
+		Map<Class<?>, CurrentInstance> vaadinInstances = CurrentInstance.getInstances(false);
+		UI ui = UI.getCurrent();
+		VaadinSession session = VaadinSession.getCurrent();
+		UIKey uiKey = CurrentInstance.get(UIKey.class);
+		if (uiKey == null && ui instanceof ScopedUI) {
+			uiKey = ((ScopedUI) ui).getInstanceKey();
+		}
+		Subject subject = ThreadContext.getSubject();
+		if (subject == null && session != null && session.hasLock()) {
+			// V7SecurityManager keeps the Subject in the session
+			subject = session.getAttribute(Subject.class);
+		}
+		return new ScopeContext(vaadinInstances, ui, session, uiKey, ThreadContext.getResources(), subject,
+				currentLocale(ui, session), new ThreadCache.Cache(threadCache.getCache()));
+	}
+
+	private static Locale currentLocale(UI ui, VaadinSession session) {
+		Locale locale = CurrentInstance.get(Locale.class);
+		if (locale != null) {
+			return locale;
+		}
+		if (ui != null && ui.getLocale() != null) {
+			return ui.getLocale();
+		}
+		return (session == null) ? null : session.getLocale();
+	}
+
+	/**
+	 * Runs {@code task} on the current thread, with this context in place
+	 * 
+	 * @param task
+	 */
+	public void run(Runnable task) {
+		Restorer restorer = apply();
+		try {
+			task.run();
+		} finally {
+			restorer.restore();
+		}
+	}
+
+	/**
+	 * Calls {@code task} on the current thread, with this context in place
+	 * 
+	 * @param task
+	 * @return the result of the task
+	 * @throws Exception
+	 *             if the task throws one
+	 */
+	public <T> T call(Callable<T> task) throws Exception {
+		Restorer restorer = apply();
+		try {
+			return task.call();
+		} finally {
+			restorer.restore();
+		}
+	}
+
+	/**
+	 * Returns a Runnable which will run {@code task} with this context in place, on whichever thread runs it
+	 * 
+	 * @param task
+	 * @return
+	 */
+	public Runnable wrap(final Runnable task) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				ScopeContext.this.run(task);
+			}
+		};
+	}
+
+	/**
+	 * Returns a Callable which will call {@code task} with this context in place, on whichever thread calls it
+	 * 
+	 * @param task
+	 * @return
+	 */
+	public <T> Callable<T> wrap(final Callable<T> task) {
+		return new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				return ScopeContext.this.call(task);
+			}
+		};
+	}
+
+	private Restorer apply() {
+		Restorer restorer = new Restorer();
+		CurrentInstance.clearAll();
+		CurrentInstance.restoreInstances(vaadinInstances);
+		if (ui != null) {
+			CurrentInstance.set(UI.class, ui);
+		}
+		if (session != null) {
+			CurrentInstance.set(VaadinSession.class, session);
+		}
+		if (uiKey != null) {
+			CurrentInstance.set(UIKey.class, uiKey);
+		}
+		if (locale != null) {
+			CurrentInstance.set(Locale.class, locale);
+		}
+		ThreadContext.remove();
+		if (shiroResources != null) {
+			ThreadContext.setResources(shiroResources);
+		}
+		if (subject != null) {
+			ThreadContext.bind(subject);
+		}
+		threadCache.setCache(new ThreadCache.Cache(threadScoped));
+		return restorer;
+	}
+
+	public UI getUI() {
+		return ui;
+	}
+
+	public VaadinSession getVaadinSession() {
+		return session;
+	}
+
+	public UIKey getUIKey() {
+		return uiKey;
+	}
+
+	public Subject getSubject() {
+		return subject;
+	}
+
+	public Locale getLocale() {
+		return locale;
+	}
+
+	/**
+	 * Holds the context of the executing thread as it was before a {@link ScopeContext} was applied, so that it can be
+	 * put back afterwards
+	 */
+	private static class Restorer {
+		private final Map<Class<?>, CurrentInstance> vaadinInstances = CurrentInstance.getInstances(false);
+		private final Map<Object, Object> shiroResources = ThreadContext.getResources();
+		private final ThreadCache.Cache threadScoped = threadCache.getCache();
+
+		void restore() {
+			CurrentInstance.clearAll();
+			CurrentInstance.restoreInstances(vaadinInstances);
+			ThreadContext.remove();
+			if (shiroResources != null) {
+				ThreadContext.setResources(shiroResources);
+			}
+			threadCache.setCache(threadScoped);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.guice.context;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps an {@link ExecutorService} so that every task runs with the {@link ScopeContext} of the thread which submitted
+ * it. The context is captured at the time of submission (on the submitting thread), and restored around the task on
+ * the thread which executes it. Use this for any background work which needs scoped injection, the Subject or the
+ * Locale of the request which started it.
+ * 
+ * @author David Sowerby
+ * 
+ */
+public class ScopeContextExecutorService extends AbstractExecutorService {
+
+	private final ExecutorService delegate;
+
+	public ScopeContextExecutorService(ExecutorService delegate) {
+		super();
+		this.delegate = delegate;
+	}
+
+	/**
+	 * All the submit and invoke methods of {@link AbstractExecutorService} call this on the submitting thread, so the
+	 * context is always captured there.
+	 * 
+	 * @see java.util.concurrent.Executor#execute(java.lang.Runnable)
+	 */
+	@Override
+	public void execute(Runnable command) {
+		delegate.execute(ScopeContext.capture().wrap(command));
+	}
+
+	@Override
+	public void shutdown() {
+		delegate.shutdown();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		return delegate.shutdownNow();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return delegate.isShutdown();
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return delegate.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return delegate.awaitTermination(timeout, unit);
+	}
+
+}
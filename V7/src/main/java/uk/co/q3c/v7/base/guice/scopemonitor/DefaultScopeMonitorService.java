@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.guice.scopemonitor;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.q3c.v7.base.config.ApplicationConfiguration;
+import uk.co.q3c.v7.base.config.ConfigKeys;
+import uk.co.q3c.v7.base.guice.uiscope.UIScope;
+import uk.co.q3c.v7.base.guice.vsscope.VaadinSessionScope;
+import uk.co.q3c.v7.base.services.AbstractServiceI18N;
+import uk.co.q3c.v7.i18n.DescriptionKey;
+import uk.co.q3c.v7.i18n.LabelKey;
+import uk.co.q3c.v7.i18n.Translate;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Default implementation for {@link ScopeMonitorService}. The interval between log summaries is taken from the
+ * application configuration ({@link ConfigKeys#SCOPE_MONITOR_LOG_INTERVAL}, in seconds, default 300). An interval of 0
+ * or less disables the periodic log, but reports are still available from {@link #getReports()}.
+ * 
+ * @author David Sowerby
+ * 
+ */
+@Singleton
+public class DefaultScopeMonitorService extends AbstractServiceI18N implements ScopeMonitorService {
+
+	private static Logger log = LoggerFactory.getLogger(DefaultScopeMonitorService.class);
+
+	private final ScopeInstanceSizer sizer;
+	private final ApplicationConfiguration applicationConfiguration;
+	private ScheduledExecutorService executor;
+
+	@Inject
+	protected DefaultScopeMonitorService(Translate translate, ScopeInstanceSizer sizer,
+			ApplicationConfiguration applicationConfiguration) {
+		super(translate);
+		this.sizer = sizer;
+		this.applicationConfiguration = applicationConfiguration;
+		configure();
+	}
+
+	/**
+	 * Override this method if you want to change the name or description keys.
+	 */
+	protected void configure() {
+		setNameKey(LabelKey.Scope_Monitor_Service);
+		setDescriptionKey(DescriptionKey.Scope_Monitor_Service);
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		int interval = applicationConfiguration.getInt(ConfigKeys.SCOPE_MONITOR_LOG_INTERVAL, 300);
+		if (interval <= 0) {
+			log.info("Scope monitor log is disabled");
+			return;
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "V7 scope monitor");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				logSummary();
+			}
+		}, interval, interval, TimeUnit.SECONDS);
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	protected void logSummary() {
+		try {
+			log.info(summary());
+			for (ScopeInstanceReport report : getStaleReports()) {
+				log.warn("Possible leak, scope entry remains after its owner has gone: {}", report);
+			}
+		} catch (Exception e) {
+			// don't let an exception stop the schedule
+			log.error("Unable to produce scope summary", e);
+		}
+	}
+
+	@Override
+	public ImmutableList<ScopeInstanceReport> getReports() {
+		ImmutableList.Builder<ScopeInstanceReport> reports = ImmutableList.builder();
+		reports.addAll(UIScope.getCurrent().report(sizer));
+		reports.addAll(VaadinSessionScope.getCurrent().report(sizer));
+		return reports.build();
+	}
+
+	@Override
+	public ImmutableList<ScopeInstanceReport> getStaleReports() {
+		ImmutableList.Builder<ScopeInstanceReport> stale = ImmutableList.builder();
+		for (ScopeInstanceReport report : getReports()) {
+			if (report.isStale()) {
+				stale.add(report);
+			}
+		}
+		return stale.build();
+	}
+
+	@Override
+	public String summary() {
+		int uis = 0;
+		int sessions = 0;
+		int instances = 0;
+		int staleCount = 0;
+		long size = 0;
+		for (ScopeInstanceReport report : getReports()) {
+			if (report.getScopeName().equals("UIScope")) {
+				uis++;
+			} else {
+				sessions++;
+			}
+			instances += report.getInstanceCount();
+			size += report.getApproximateSize();
+			if (report.isStale()) {
+				staleCount++;
+			}
+		}
+		return "Scope summary: UIs=" + uis + ", sessions=" + sessions + ", scoped instances=" + instances
+				+ ", approximate size=" + size + " bytes, stale=" + staleCount;
+	}
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.guice.scopemonitor;
+
+import java.util.Map;
+
+import uk.co.q3c.v7.base.guice.ScopeStore;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Key;
+
+/**
+ * An immutable snapshot of a single instance of a scope (one UI for UIScope, one VaadinSession for
+ * VaadinSessionScope), as reported by {@link ScopeMonitorService}.
+ * <p>
+ * A report is marked as stale if the UI or session the scope instance belongs to has gone (or is closing), but the
+ * scope still holds an entry for it - this is usually a sign of a leak.
+ * 
+ * @author David Sowerby
+ * 
+ */
+public class ScopeInstanceReport {
+
+	public static final long UNKNOWN = -1;
+
+	private final String scopeName;
+	private final String scopeInstanceId;
+	private final ImmutableMap<Key<?>, Integer> instanceCounts;
+	private final long approximateSize;
+	private final long age;
+	private final long idleTime;
+	private final boolean stale;
+
+	public ScopeInstanceReport(String scopeName, String scopeInstanceId, ImmutableMap<Key<?>, Integer> instanceCounts,
+			long approximateSize, long age, long idleTime, boolean stale) {
+		super();
+		this.scopeName = scopeName;
+		this.scopeInstanceId = scopeInstanceId;
+		this.instanceCounts = instanceCounts;
+		this.approximateSize = approximateSize;
+		this.age = age;
+		this.idleTime = idleTime;
+		this.stale = stale;
+	}
+
+	/**
+	 * Builds a report from the contents of {@code store}
+	 * 
+	 * @param scopeName
+	 *            the name of the scope, for example "UIScope"
+	 * @param scopeInstanceId
+	 *            identifies the UI or session
+	 * @param store
+	 *            the store holding the scoped instances
+	 * @param slots
+	 *            the slot allocated to each key (see ScopeSlots)
+	 * @param sizer
+	 *            used to estimate the size of each instance
+	 * @param lastAccessed
+	 *            time in milliseconds at which the UI or session was last accessed, or {@link #UNKNOWN}
+	 * @param stale
+	 *            true if the owner of the scope instance has gone, or is closing
+	 * @return
+	 */
+	public static ScopeInstanceReport create(String scopeName, String scopeInstanceId, ScopeStore store,
+			Map<Key<?>, Integer> slots, ScopeInstanceSizer sizer, long lastAccessed, boolean stale) {
+		ImmutableMap.Builder<Key<?>, Integer> counts = ImmutableMap.builder();
+		long size = 0;
+		for (Map.Entry<Key<?>, Integer> entry : slots.entrySet()) {
+			Object instance = store.get(entry.getValue());
+			if (instance != null) {
+				counts.put(entry.getKey(), 1);
+				size += sizer.sizeOf(instance);
+			}
+		}
+		long now = System.currentTimeMillis();
+		long idleTime = (lastAccessed > 0) ? now - lastAccessed : UNKNOWN;
+		return new ScopeInstanceReport(scopeName, scopeInstanceId, counts.build(), size, now - store.getCreatedAt(),
+				idleTime, stale);
+	}
+
+	public String getScopeName() {
+		return scopeName;
+	}
+
+	public String getScopeInstanceId() {
+		return scopeInstanceId;
+	}
+
+	/**
+	 * The number of scoped objects held, by binding key
+	 * 
+	 * @return
+	 */
+	public ImmutableMap<Key<?>, Integer> getInstanceCounts() {
+		return instanceCounts;
+	}
+
+	/**
+	 * The total number of scoped objects held
+	 * 
+	 * @return
+	 */
+	public int getInstanceCount() {
+		int count = 0;
+		for (Integer c : instanceCounts.values()) {
+			count += c;
+		}
+		return count;
+	}
+
+	/**
+	 * The approximate size in bytes of the scoped objects, as estimated by the {@link ScopeInstanceSizer}
+	 * 
+	 * @return
+	 */
+	public long getApproximateSize() {
+		return approximateSize;
+	}
+
+	/**
+	 * Time in milliseconds since the scope instance was created
+	 * 
+	 * @return
+	 */
+	public long getAge() {
+		return age;
+	}
+
+	/**
+	 * Time in milliseconds since the UI or session was last accessed, or {@link #UNKNOWN}
+	 * 
+	 * @return
+	 */
+	public long getIdleTime() {
+		return idleTime;
+	}
+
+	public boolean isStale() {
+		return stale;
+	}
+
+	@Override
+	public String toString() {
+		return scopeName + " [" + scopeInstanceId + "] instances=" + getInstanceCount() + ", size~" + approximateSize
+				+ "b, age=" + age + "ms, idle=" + idleTime + "ms" + (stale ? ", STALE" : "");
+	}
+
+}
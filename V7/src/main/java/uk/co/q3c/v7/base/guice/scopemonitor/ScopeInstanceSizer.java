@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.guice.scopemonitor;
+
+/**
+ * Estimates the heap used by a scoped instance, for the reports produced by {@link ScopeMonitorService}. The estimate
+ * is only as good as the implementation - the default, {@link ShallowScopeInstanceSizer}, is cheap but only measures
+ * the instance itself. Bind your own implementation in a sub-class of {@link ScopeMonitorModule} (for example one
+ * using an instrumentation agent) if you need something closer to the real retained size.
+ * 
+ * @author David Sowerby
+ * 
+ */
+public interface ScopeInstanceSizer {
+
+	/**
+	 * Returns the approximate size in bytes of {@code instance}, or 0 if {@code instance} is null
+	 * 
+	 * @param instance
+	 * @return
+	 */
+	long sizeOf(Object instance);
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.guice.scopemonitor;
+
+import uk.co.q3c.v7.base.guice.uiscope.UIScope;
+import uk.co.q3c.v7.base.guice.vsscope.VaadinSessionScope;
+import uk.co.q3c.v7.base.services.ServiceI18N;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Reports on the objects held by {@link UIScope} and {@link VaadinSessionScope}, so that the memory used per UI and
+ * per session can be seen, and leaks identified. While the service is started, a summary is also logged periodically.
+ * 
+ * @author David Sowerby
+ * 
+ */
+public interface ScopeMonitorService extends ServiceI18N {
+
+	/**
+	 * Returns a report for every UI and session currently held by the scopes
+	 * 
+	 * @return
+	 */
+	ImmutableList<ScopeInstanceReport> getReports();
+
+	/**
+	 * Returns only those reports which are stale - that is, the UI or session has gone, but the scope still holds an
+	 * entry for it
+	 * 
+	 * @return
+	 */
+	ImmutableList<ScopeInstanceReport> getStaleReports();
+
+	/**
+	 * A short summary of the current reports, as used for the periodic log
+	 * 
+	 * @return
+	 */
+	String summary();
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.guice.scopemonitor;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * A {@link ScopeInstanceSizer} which estimates the shallow size of an instance - its object header and fields, but not
+ * the objects the fields refer to. Sizes assume a 64 bit JVM with compressed references, and are rounded up to 8 byte
+ * alignment. The field layout is calculated once per class and cached.
+ * 
+ * @author David Sowerby
+ * 
+ */
+public class ShallowScopeInstanceSizer implements ScopeInstanceSizer {
+
+	private static final int HEADER = 12;
+	private static final int ARRAY_HEADER = 16;
+	private static final int REFERENCE = 4;
+
+	private final ConcurrentMap<Class<?>, Long> classSizes = new MapMaker().weakKeys().makeMap();
+
+	@Override
+	public long sizeOf(Object instance) {
+		if (instance == null) {
+			return 0;
+		}
+		Class<?> clazz = instance.getClass();
+		if (clazz.isArray()) {
+			int length = Array.getLength(instance);
+			return align(ARRAY_HEADER + (long) length * fieldSize(clazz.getComponentType()));
+		}
+		Long size = classSizes.get(clazz);
+		if (size == null) {
+			size = instanceSize(clazz);
+			classSizes.put(clazz, size);
+		}
+		return size;
+	}
+
+	private long instanceSize(Class<?> clazz) {
+		long size = HEADER;
+		Class<?> c = clazz;
+		while (c != null) {
+			for (Field field : c.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers())) {
+					size += fieldSize(field.getType());
+				}
+			}
+			c = c.getSuperclass();
+		}
+		return align(size);
+	}
+
+	private int fieldSize(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return REFERENCE;
+		}
+		if (type == long.class || type == double.class) {
+			return 8;
+		}
+		if (type == int.class || type == float.class) {
+			return 4;
+		}
+		if (type == short.class || type == char.class) {
+			return 2;
+		}
+		return 1;
+	}
+
+	private long align(long size) {
+		return (size + 7) & ~7L;
+	}
+}
@@ -30,6 +30,20 @@ public class ThreadCache {
 		return THREAD_LOCAL.get();
 	}
 
+	/**
+	 * Replaces the cache for the current thread - used to carry ThreadScoped instances across to another thread. If
+	 * {@code cache} is null, the cache for the current thread is removed
+	 * 
+	 * @param cache
+	 */
+	public void setCache(Cache cache) {
+		if (cache == null) {
+			THREAD_LOCAL.remove();
+		} else {
+			THREAD_LOCAL.set(cache);
+		}
+	}
+
 	/**
 	 * Execute this if you plan to reuse the same thread, e.g. in a servlet environment threads might get reused.
 	 * Preferably, call this method in a finally block to make sure that it executes, so that you avoid possible memory
@@ -48,6 +62,16 @@ public class ThreadCache {
 		public Cache() {
 		}
 
+		/**
+		 * Creates a cache with the same contents as {@code source}. Instances added to the copy are not added to the
+		 * source.
+		 * 
+		 * @param source
+		 */
+		public Cache(Cache source) {
+			map.putAll(source.map);
+		}
+
 		// suppress warnings because the add method
 		// captures the type
 		@SuppressWarnings("unchecked")
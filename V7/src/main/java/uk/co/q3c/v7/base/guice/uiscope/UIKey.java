@@ -12,6 +12,12 @@
  */
 package uk.co.q3c.v7.base.guice.uiscope;
 
+import java.lang.ref.WeakReference;
+
+import uk.co.q3c.v7.base.guice.ScopeStore;
+
+import com.vaadin.ui.UI;
+
 /**
  * This class is entirely passive - it is a surrogate for the UI itself during the IoC process in support of
  * {@link UIScoped}. <br>
@@ -22,28 +28,69 @@ package uk.co.q3c.v7.base.guice.uiscope;
  * by a {@link UIKey}, which is available from the start of UI construction. The UI itself, and any UIScoped injections
  * are then linked by that {@link UIKey} instance.<br>
  * <br>
- * The counter value is set by the {@link UIKeyProvider}
+ * The counter value is set by the {@link UIKeyProvider}, and is a 64 bit value which includes a component identifying
+ * the server instance which created it, so that keys are unique across a cluster and across restarts.<br>
+ * <br>
+ * The key also owns the {@link ScopeStore} which holds the UIScoped instances for its UI, so those instances are
+ * released for garbage collection along with the UI itself.
  */
 public class UIKey implements Comparable<UIKey> {
-	private final int counter;
+	private final long counter;
+	private final ScopeStore scopeStore = new ScopeStore();
+	private volatile WeakReference<UI> ui;
 
-	public UIKey(int counter) {
+	public UIKey(long counter) {
 		super();
 		this.counter = counter;
 	}
 
-	public int getCounter() {
+	public long getCounter() {
 		return counter;
 	}
 
+	ScopeStore getScopeStore() {
+		return scopeStore;
+	}
+
+	/**
+	 * The UI this key represents, held weakly and used only for diagnostics. Null if no UI has been set, and the
+	 * reference will be cleared if the UI has been garbage collected.
+	 * 
+	 * @return
+	 */
+	WeakReference<UI> getUIReference() {
+		return ui;
+	}
+
+	void setUI(UI ui) {
+		this.ui = new WeakReference<UI>(ui);
+	}
+
 	@Override
 	public String toString() {
-		return "UIKey:" + counter;
+		return "UIKey:" + Long.toHexString(counter);
 	}
 
 	@Override
 	public int compareTo(UIKey other) {
-		return this.getCounter() - other.getCounter();
+		// subtraction would overflow for 64 bit values
+		return Long.compare(this.counter, other.counter);
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (counter ^ (counter >>> 32));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof UIKey)) {
+			return false;
+		}
+		return counter == ((UIKey) obj).counter;
 	}
 
 }
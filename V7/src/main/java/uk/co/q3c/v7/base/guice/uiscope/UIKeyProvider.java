@@ -12,15 +12,78 @@
  */
 package uk.co.q3c.v7.base.guice.uiscope;
 
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.co.q3c.v7.base.config.ApplicationConfiguration;
+import uk.co.q3c.v7.base.config.ConfigKeys;
+import uk.co.q3c.v7.base.config.V7ConfigurationException;
+
+import com.google.inject.Inject;
 import com.google.inject.Provider;
 
+/**
+ * Provides a unique {@link UIKey} for each UI. The 64 bit key value is made up of:
+ * <ol>
+ * <li>the top 24 bits: a node identifier, which distinguishes this server instance from other nodes in a cluster
+ * <li>the lower 40 bits: a sequence number, incremented without locking for each key
+ * </ol>
+ * The node identifier is taken from {@link ConfigKeys#UI_KEY_NODE_ID}, and must be in the range 0 to 2<sup>24</sup>-1.
+ * Keys are only guaranteed unique across a cluster when each node is configured with a different value. The sequence
+ * starts again when a node restarts, so a configured node reissues keys from its previous run; that is safe only
+ * because UI scoped state does not survive a restart.
+ * <p>
+ * If no node identifier is configured, one is chosen at random when this class is loaded. Random identifiers are drawn
+ * from only 2<sup>24</sup> values, so among n node starts the chance of two sharing an identifier is roughly
+ * n<sup>2</sup>/2<sup>25</sup> - about 1% after 580 starts and 50% after 4,800 - and keys from those starts may then
+ * collide. Configure the identifier wherever keys must be unique beyond a single node.
+ * <p>
+ * The sequence allows for about 10<sup>12</sup> UIs before it wraps, which it could only do after a very long uptime.
+ * 
+ * @author David Sowerby
+ */
 public class UIKeyProvider implements Provider<UIKey> {
-	private static int counter = 0;
+	static final int SEQUENCE_BITS = 40;
+	static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+	static final int NODE_ID_BITS = 24;
+	private static final long RANDOM_NODE_ID = new SecureRandom().nextInt(1 << NODE_ID_BITS);
+	private static final AtomicLong sequence = new AtomicLong();
+	private final long instanceId;
+
+	/**
+	 * Uses a random node identifier, see the class description
+	 */
+	public UIKeyProvider() {
+		instanceId = RANDOM_NODE_ID;
+	}
+
+	@Inject
+	protected UIKeyProvider(ApplicationConfiguration applicationConfiguration) {
+		if (applicationConfiguration.containsKey(ConfigKeys.UI_KEY_NODE_ID)) {
+			long nodeId = applicationConfiguration.getLong(ConfigKeys.UI_KEY_NODE_ID);
+			if ((nodeId < 0) || (nodeId >= (1L << NODE_ID_BITS))) {
+				throw new V7ConfigurationException(ConfigKeys.UI_KEY_NODE_ID + " must be between 0 and "
+						+ ((1L << NODE_ID_BITS) - 1) + ", but is " + nodeId);
+			}
+			instanceId = nodeId;
+		} else {
+			instanceId = RANDOM_NODE_ID;
+		}
+	}
 
 	@Override
 	public UIKey get() {
-		counter++;
-		return new UIKey(counter);
+		long next = sequence.incrementAndGet() & SEQUENCE_MASK;
+		return new UIKey((instanceId << SEQUENCE_BITS) | next);
+	}
+
+	/**
+	 * The identifier of this server instance, as embedded in each key
+	 * 
+	 * @return
+	 */
+	public long getInstanceId() {
+		return instanceId;
 	}
 
 }
@@ -12,21 +12,34 @@
  */
 package uk.co.q3c.v7.base.guice.uiscope;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.TreeMap;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.co.q3c.v7.base.guice.ScopeSlots;
+import uk.co.q3c.v7.base.guice.ScopeStore;
+import uk.co.q3c.v7.base.guice.scopemonitor.ScopeInstanceReport;
+import uk.co.q3c.v7.base.guice.scopemonitor.ScopeInstanceSizer;
 import uk.co.q3c.v7.base.ui.ScopedUI;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
 import com.google.inject.Key;
 import com.google.inject.Provider;
 import com.google.inject.Scope;
+import com.vaadin.ui.UI;
 
 /**
- * Provides a Guice scope based on a Vaadin UI, generally equivalent to a browser tab
+ * Provides a Guice scope based on a Vaadin UI, generally equivalent to a browser tab.
+ * <p>
+ * Each {@link UIScoped} binding is allocated an index ("slot") when it is scoped - normally as the injector is built -
+ * and each UI holds its instances in a {@link ScopeStore} owned by its {@link UIKey}. Retrieving a scoped instance is
+ * therefore just an array read. Because the store belongs to the {@link UIKey}, instances are released when the UI is
+ * garbage collected, even if the UI is never detached. The scope also keeps a weakly keyed register of the UIs it has
+ * seen, which does not prevent that collection.
  * 
  * @author Will Temperley 2014
  * @author David Sowerby 2013
@@ -38,30 +51,39 @@ public class UIScope implements Scope {
 
 	private static volatile UIScope current;
 
-	private final Map<UIKey, Map<Key<?>, Object>> cache = new TreeMap<UIKey, Map<Key<?>, Object>>();
+	private final ScopeSlots slots = new ScopeSlots();
+	// the value must not be the store, as a strongly held value which refers (through a scoped object) to its own UI
+	// would prevent the weak key from ever being collected
+	private final ConcurrentMap<UIKey, Boolean> cache = new MapMaker().weakKeys().makeMap();
 
 	public UIScope() {
 		super();
 		log.debug("creating UIScope {}", this);
 	}
 
-	<T> Map<Key<?>, Object> getScopedObjectMap(UIKey uiKey) {
-		// return an existing cache instance
-		if (cache.containsKey(uiKey)) {
-			Map<Key<?>, Object> scopedObjects = cache.get(uiKey);
-			log.debug("scope cache retrieved for UI key: {}", uiKey);
-			return scopedObjects;
-		} else {
-
-			return createCacheEntry(uiKey);
+	/**
+	 * Returns the store for {@code uiKey}, registering it with this scope if it is not already registered
+	 * 
+	 * @param uiKey
+	 * @return
+	 */
+	ScopeStore getStore(UIKey uiKey) {
+		ScopeStore store = uiKey.getScopeStore();
+		if (!store.isRegistered()) {
+			createCacheEntry(uiKey);
 		}
+		return store;
 	}
 
-	private Map<Key<?>, Object> createCacheEntry(UIKey uiKey) {
-		Map<Key<?>, Object> uiEntry = new HashMap<Key<?>, Object>();
-		cache.put(uiKey, uiEntry);
+	private void createCacheEntry(UIKey uiKey) {
+		ScopeStore store = uiKey.getScopeStore();
+		store.setRegistered(true);
+		cache.put(uiKey, Boolean.TRUE);
 		log.debug("created a scope cache for UIScope with key: {}", uiKey);
-		return uiEntry;
+	}
+
+	int slotFor(Key<?> key) {
+		return slots.slotFor(key);
 	}
 
 	public void startScope(UIKey uiKey) {
@@ -70,6 +92,17 @@ public class UIScope implements Scope {
 		}
 	}
 
+	/**
+	 * Associates {@code ui} with {@code uiKey}. The UI is held weakly, and used only to report on the state of the
+	 * scope (see {@link #report(ScopeInstanceSizer)}
+	 * 
+	 * @param uiKey
+	 * @param ui
+	 */
+	public void registerUI(UIKey uiKey, UI ui) {
+		uiKey.setUI(ui);
+	}
+
 	public boolean cacheHasEntryFor(UIKey uiKey) {
 		return cache.containsKey(uiKey);
 	}
@@ -79,6 +112,12 @@ public class UIScope implements Scope {
 	}
 
 	public void releaseScope(UIKey uiKey) {
+		if (uiKey == null) {
+			return;
+		}
+		ScopeStore store = uiKey.getScopeStore();
+		store.setRegistered(false);
+		store.clear();
 		cache.remove(uiKey);
 	}
 
@@ -101,11 +140,35 @@ public class UIScope implements Scope {
 	 * Removes all entries in the cache
 	 */
 	public void flush() {
-		cache.clear();
+		for (UIKey uiKey : cache.keySet()) {
+			releaseScope(uiKey);
+		}
+	}
+
+	/**
+	 * Returns a report for each UI currently held in the scope. A report is marked stale if its UI has been garbage
+	 * collected or is closing, but the scope has not been released.
+	 * 
+	 * @param sizer
+	 *            used to estimate the size of scoped instances
+	 * @return
+	 */
+	public ImmutableList<ScopeInstanceReport> report(ScopeInstanceSizer sizer) {
+		ImmutableMap<Key<?>, Integer> slotMap = slots.getSlots();
+		ImmutableList.Builder<ScopeInstanceReport> reports = ImmutableList.builder();
+		for (UIKey uiKey : cache.keySet()) {
+			WeakReference<UI> uiRef = uiKey.getUIReference();
+			UI ui = (uiRef == null) ? null : uiRef.get();
+			boolean stale = (uiRef != null) && ((ui == null) || ui.isClosing());
+			long lastAccessed = (ui == null) ? ScopeInstanceReport.UNKNOWN : ui.getLastHeartbeatTimestamp();
+			reports.add(ScopeInstanceReport.create("UIScope", uiKey.toString(), uiKey.getScopeStore(), slotMap, sizer,
+					lastAccessed, stale));
+		}
+		return reports.build();
 	}
 
 	@Override
 	public <T> Provider<T> scope(Key<T> key, Provider<T> unscoped) {
-		return new UIScopeProvider<T>(this, key, unscoped);
+		return new UIScopeProvider<T>(this, key, slotFor(key), unscoped);
 	}
 }
\ No newline at end of file
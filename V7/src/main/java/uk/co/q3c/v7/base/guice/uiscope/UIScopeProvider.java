@@ -12,11 +12,10 @@
  */
 package uk.co.q3c.v7.base.guice.uiscope;
 
-import java.util.Map;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.co.q3c.v7.base.guice.ScopeStore;
 import uk.co.q3c.v7.base.ui.ScopedUI;
 
 import com.google.inject.Key;
@@ -33,11 +32,13 @@ class UIScopeProvider<T> implements Provider<T> {
 	private static Logger log = LoggerFactory.getLogger(UIScopeProvider.class);
 	private final UIScope uiScope;
 	private final Key<T> key;
+	private final int slot;
 	private final Provider<T> unscoped;
 
-	UIScopeProvider(UIScope uiScope, Key<T> key, Provider<T> unscoped) {
+	UIScopeProvider(UIScope uiScope, Key<T> key, int slot, Provider<T> unscoped) {
 		this.uiScope = uiScope;
 		this.key = key;
+		this.slot = slot;
 		this.unscoped = unscoped;
 	}
 
@@ -72,13 +73,13 @@ class UIScopeProvider<T> implements Provider<T> {
 			}
 		}
 
-		log.debug("looking for cache for key: " + uiKey);
-		Map<Key<?>, Object> scopedObjects = this.uiScope.getScopedObjectMap(uiKey);
+		log.debug("looking for cache for key: {}", uiKey);
+		ScopeStore scopedObjects = this.uiScope.getStore(uiKey);
 
 		// retrieve an existing instance if possible
 
 		@SuppressWarnings("unchecked")
-		T current = (T) scopedObjects.get(key);
+		T current = (T) scopedObjects.get(slot);
 
 		if (current != null) {
 			log.debug("returning existing instance of " + current.getClass().getSimpleName());
@@ -86,8 +87,7 @@ class UIScopeProvider<T> implements Provider<T> {
 		}
 
 		// or create the first instance and cache it
-		current = unscoped.get();
-		scopedObjects.put(key, current);
+		current = scopedObjects.get(slot, unscoped);
 		log.debug("new instance of " + current.getClass().getSimpleName() + " created, as none in cache");
 		return current;
 	}
@@ -12,61 +12,99 @@
  */
 package uk.co.q3c.v7.base.guice.vsscope;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.co.q3c.v7.base.guice.ScopeSlots;
+import uk.co.q3c.v7.base.guice.ScopeStore;
+import uk.co.q3c.v7.base.guice.scopemonitor.ScopeInstanceReport;
+import uk.co.q3c.v7.base.guice.scopemonitor.ScopeInstanceSizer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
 import com.google.inject.Key;
 import com.google.inject.Provider;
 import com.google.inject.Scope;
 import com.google.inject.servlet.SessionScoped;
+import com.vaadin.server.SessionDestroyEvent;
+import com.vaadin.server.SessionDestroyListener;
 import com.vaadin.server.VaadinSession;
 
 /**
  * Provides a Guice scope based on a {@link VaadinSession}. This was necessary because the standard
  * {@link SessionScoped} will only work with a UI (and not things like Views, which where a session scope is most
  * useful) if a UI has server push enabled. See https://github.com/davidsowerby/v7/issues/241
+ * <p>
+ * The scoped instances for a session are held in a {@link ScopeStore}, which is itself held as a session attribute, so
+ * its lifetime is the lifetime of the session. Lookups go through a concurrent map with weak keys and weak values,
+ * which takes no lock and does not hold on to either the session or the store. The scope is also a
+ * {@link SessionDestroyListener} (registered by the BaseServlet), so a session's instances are released as soon as
+ * the session is destroyed, rather than waiting for garbage collection.
  * 
  * @author David Sowerby 2014
  * 
  */
-public class VaadinSessionScope implements Scope {
+public class VaadinSessionScope implements Scope, SessionDestroyListener {
 
 	private static Logger log = LoggerFactory.getLogger(VaadinSessionScope.class);
 
 	private static volatile VaadinSessionScope current;
 
-	private final Map<VaadinSession, Map<Key<?>, Object>> cache = new HashMap<>();
+	private final ScopeSlots slots = new ScopeSlots();
+	private final ConcurrentMap<VaadinSession, ScopeStore> cache = new MapMaker().weakKeys().weakValues().makeMap();
+	// there is no session to hold the store when running outside a session (for example in some tests)
+	private final ScopeStore noSessionStore = new ScopeStore();
 
 	public VaadinSessionScope() {
 		super();
 		log.debug("creating VaadinSessionScope {}", this);
 	}
 
-	<T> Map<Key<?>, Object> getScopedObjectMap(VaadinSession vaadinSession) {
+	ScopeStore getStore(VaadinSession vaadinSession) {
+		if (vaadinSession == null) {
+			return noSessionStore;
+		}
 		// return an existing cache instance
-		if (cache.containsKey(vaadinSession)) {
-			Map<Key<?>, Object> scopedObjects = cache.get(vaadinSession);
-			log.debug("scope cache retrieved for VaadinSession: {}", vaadinSession);
-			return scopedObjects;
-		} else {
-			return createCacheEntry(vaadinSession);
+		ScopeStore store = cache.get(vaadinSession);
+		if (store != null) {
+			return store;
 		}
+		return createCacheEntry(vaadinSession);
 	}
 
-	private Map<Key<?>, Object> createCacheEntry(VaadinSession vaadinSession) {
-		Map<Key<?>, Object> sessionEntry = new HashMap<Key<?>, Object>();
-		cache.put(vaadinSession, sessionEntry);
+	private ScopeStore createCacheEntry(VaadinSession vaadinSession) {
+		ScopeStore sessionEntry = new ScopeStore();
+		ScopeStore existing = cache.putIfAbsent(vaadinSession, sessionEntry);
+		if (existing != null) {
+			return existing;
+		}
+		sessionEntry.setRegistered(true);
+		// the session attribute is what keeps the store alive - the cache holds it only weakly
+		boolean locked = vaadinSession.hasLock();
+		if (!locked) {
+			vaadinSession.lock();
+		}
+		try {
+			vaadinSession.setAttribute(ScopeStore.class, sessionEntry);
+		} finally {
+			if (!locked) {
+				vaadinSession.unlock();
+			}
+		}
 		log.debug("created a scope cache for VaadinSessionScope with key: {}", vaadinSession);
 		return sessionEntry;
 	}
 
+	int slotFor(Key<?> key) {
+		return slots.slotFor(key);
+	}
+
 	public void startScope(VaadinSession vaadinSession) {
-		if (!cacheHasEntryFor(vaadinSession)) {
-			createCacheEntry(vaadinSession);
-		}
+		getStore(vaadinSession);
 	}
 
 	public boolean cacheHasEntryFor(VaadinSession vaadinSession) {
@@ -74,7 +112,84 @@ public class VaadinSessionScope implements Scope {
 	}
 
 	public void releaseScope(VaadinSession vaadinSession) {
-		cache.remove(vaadinSession);
+		if (vaadinSession == null) {
+			return;
+		}
+		ScopeStore store = cache.remove(vaadinSession);
+		if (store != null) {
+			store.setRegistered(false);
+			store.clear();
+			log.debug("released VaadinSessionScope for {}", vaadinSession);
+		}
+	}
+
+	/**
+	 * Releases the scoped instances for the session being destroyed. The session is already locked when this is called
+	 * by Vaadin.
+	 * 
+	 * @see com.vaadin.server.SessionDestroyListener#sessionDestroy(com.vaadin.server.SessionDestroyEvent)
+	 */
+	@Override
+	public void sessionDestroy(SessionDestroyEvent event) {
+		VaadinSession vaadinSession = event.getSession();
+		releaseScope(vaadinSession);
+		if (vaadinSession.getAttribute(ScopeStore.class) != null) {
+			vaadinSession.setAttribute(ScopeStore.class, null);
+		}
+	}
+
+	/**
+	 * The number of live scoped instances for each session currently in scope. This is a snapshot, and sessions may
+	 * be created or destroyed while it is being taken.
+	 * 
+	 * @return
+	 */
+	public ImmutableMap<VaadinSession, Integer> liveInstanceCounts() {
+		ImmutableMap.Builder<VaadinSession, Integer> builder = ImmutableMap.builder();
+		for (Map.Entry<VaadinSession, ScopeStore> entry : cache.entrySet()) {
+			builder.put(entry.getKey(), entry.getValue().size());
+		}
+		return builder.build();
+	}
+
+	/**
+	 * The number of live scoped instances for {@code vaadinSession}
+	 * 
+	 * @param vaadinSession
+	 * @return
+	 */
+	public int liveInstanceCount(VaadinSession vaadinSession) {
+		ScopeStore store = (vaadinSession == null) ? noSessionStore : cache.get(vaadinSession);
+		return (store == null) ? 0 : store.size();
+	}
+
+	/**
+	 * The number of sessions which currently have a scope cache
+	 * 
+	 * @return
+	 */
+	public int sessionCount() {
+		return cache.size();
+	}
+
+	/**
+	 * Returns a report for each session currently held in the scope. A report is marked stale if its session is closing
+	 * or has lost its underlying HTTP session, but the scope has not been released.
+	 * 
+	 * @param sizer
+	 *            used to estimate the size of scoped instances
+	 * @return
+	 */
+	public ImmutableList<ScopeInstanceReport> report(ScopeInstanceSizer sizer) {
+		ImmutableMap<Key<?>, Integer> slotMap = slots.getSlots();
+		ImmutableList.Builder<ScopeInstanceReport> reports = ImmutableList.builder();
+		for (Map.Entry<VaadinSession, ScopeStore> entry : cache.entrySet()) {
+			VaadinSession vaadinSession = entry.getKey();
+			boolean stale = vaadinSession.isClosing() || (vaadinSession.getSession() == null);
+			reports.add(ScopeInstanceReport.create("VaadinSessionScope", vaadinSession.toString(), entry.getValue(),
+					slotMap, sizer, vaadinSession.getLastRequestTimestamp(), stale));
+		}
+		return reports.build();
 	}
 
 	public static VaadinSessionScope getCurrent() {
@@ -96,11 +211,14 @@ public class VaadinSessionScope implements Scope {
 	 * Removes all entries in the cache
 	 */
 	public void flush() {
-		cache.clear();
+		for (VaadinSession vaadinSession : cache.keySet()) {
+			releaseScope(vaadinSession);
+		}
+		noSessionStore.clear();
 	}
 
 	@Override
 	public <T> Provider<T> scope(Key<T> key, Provider<T> unscoped) {
-		return new VaadinSessionScopeProvider<T>(this, key, unscoped);
+		return new VaadinSessionScopeProvider<T>(this, key, slotFor(key), unscoped);
 	}
 }
\ No newline at end of file
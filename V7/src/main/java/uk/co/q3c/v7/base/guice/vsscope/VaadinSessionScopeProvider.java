@@ -12,11 +12,11 @@
  */
 package uk.co.q3c.v7.base.guice.vsscope;
 
-import java.util.Map;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.co.q3c.v7.base.guice.ScopeStore;
+
 import com.google.inject.Key;
 import com.google.inject.Provider;
 import com.vaadin.server.VaadinSession;
@@ -30,11 +30,13 @@ class VaadinSessionScopeProvider<T> implements Provider<T> {
 	private static Logger log = LoggerFactory.getLogger(VaadinSessionScopeProvider.class);
 	private final VaadinSessionScope vaadinSessionScope;
 	private final Key<T> key;
+	private final int slot;
 	private final Provider<T> unscoped;
 
-	VaadinSessionScopeProvider(VaadinSessionScope vaadinSessionScope, Key<T> key, Provider<T> unscoped) {
+	VaadinSessionScopeProvider(VaadinSessionScope vaadinSessionScope, Key<T> key, int slot, Provider<T> unscoped) {
 		this.vaadinSessionScope = vaadinSessionScope;
 		this.key = key;
+		this.slot = slot;
 		this.unscoped = unscoped;
 	}
 
@@ -47,12 +49,12 @@ class VaadinSessionScopeProvider<T> implements Provider<T> {
 		VaadinSession vaadinSession = VaadinSession.getCurrent();
 
 		log.debug("looking for cache for key in current VaadinSession ");
-		Map<Key<?>, Object> scopedObjects = this.vaadinSessionScope.getScopedObjectMap(vaadinSession);
+		ScopeStore scopedObjects = this.vaadinSessionScope.getStore(vaadinSession);
 
 		// retrieve an existing instance if possible
 
 		@SuppressWarnings("unchecked")
-		T current = (T) scopedObjects.get(key);
+		T current = (T) scopedObjects.get(slot);
 
 		if (current != null) {
 			log.debug("returning existing instance of " + current.getClass().getSimpleName());
@@ -60,8 +62,7 @@ class VaadinSessionScopeProvider<T> implements Provider<T> {
 		}
 
 		// or create the first instance and cache it
-		current = unscoped.get();
-		scopedObjects.put(key, current);
+		current = scopedObjects.get(slot, unscoped);
 		log.debug("new instance of {} created, as none in cache", current.getClass().getSimpleName());
 		return current;
 	}
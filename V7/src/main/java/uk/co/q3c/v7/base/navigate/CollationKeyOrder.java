@@ -13,6 +13,7 @@
 package uk.co.q3c.v7.base.navigate;
 
 import java.util.Comparator;
+import java.util.Locale;
 
 import uk.co.q3c.v7.base.navigate.sitemap.SitemapNode;
 
@@ -20,12 +21,29 @@ import uk.co.q3c.v7.base.navigate.sitemap.SitemapNode;
  * Comparator which can be used to sort SitemapNode by collation key order, based on
  * {@link SitemapNode#getCollationKey()()}. This enables sorting by Locale sensitive labels, as the collation key is set
  * to reflect the current locale
+ * <p>
+ * If a locale is given, {@link SitemapNode#getCollationKey(Locale)} is used instead, so that nodes are sorted by their
+ * labels in that locale rather than in the locale used when the sitemap was loaded.
  */
 public class CollationKeyOrder implements Comparator<SitemapNode> {
 
+	private final Locale locale;
+
+	public CollationKeyOrder() {
+		this(null);
+	}
+
+	public CollationKeyOrder(Locale locale) {
+		super();
+		this.locale = locale;
+	}
+
 	@Override
 	public int compare(SitemapNode o1, SitemapNode o2) {
-		return o1.getCollationKey().compareTo(o2.getCollationKey());
+		if (locale == null) {
+			return o1.getCollationKey().compareTo(o2.getCollationKey());
+		}
+		return o1.getCollationKey(locale).compareTo(o2.getCollationKey(locale));
 	}
 
 }
@@ -75,9 +75,8 @@ public class LoaderReportBuilder {
 						report.append("\n");
 
 						for (LoaderErrorEntry lee : errorList) {
-							String msg = MessageFormat.format(lee.msgPattern, lee.msgParams);
 							report.append("\t");
-							report.append(msg);
+							MessageFormat.formatTo(report, lee.msgPattern, lee.msgParams);
 							report.append("\n");
 						}
 					}
@@ -93,9 +92,8 @@ public class LoaderReportBuilder {
 						report.append("\n");
 
 						for (LoaderWarningEntry lee : warningList) {
-							String msg = MessageFormat.format(lee.msgPattern, lee.msgParams);
 							report.append("\t");
-							report.append(msg);
+							MessageFormat.formatTo(report, lee.msgPattern, lee.msgParams);
 							report.append("\n");
 						}
 					}
@@ -111,9 +109,8 @@ public class LoaderReportBuilder {
 						report.append("\n");
 
 						for (LoaderInfoEntry lee : infoList) {
-							String msg = MessageFormat.format(lee.msgPattern, lee.msgParams);
 							report.append("\t");
-							report.append(msg);
+							MessageFormat.formatTo(report, lee.msgPattern, lee.msgParams);
 							report.append("\n");
 						}
 					}
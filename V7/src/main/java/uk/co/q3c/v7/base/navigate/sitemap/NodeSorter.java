@@ -14,6 +14,7 @@ package uk.co.q3c.v7.base.navigate.sitemap;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,16 +26,29 @@ public class NodeSorter {
 	private static Logger log = LoggerFactory.getLogger(NodeSorter.class);
 	private final List<SitemapNode> nodeList;
 	private final boolean sorted;
+	private final Locale locale;
 
 	public NodeSorter(List<SitemapNode> nodeList, boolean sorted) {
+		this(nodeList, sorted, null);
+	}
+
+	/**
+	 * If {@code locale} is not null, a sort by collation key uses the keys for that locale
+	 * 
+	 * @param nodeList
+	 * @param sorted
+	 * @param locale
+	 */
+	public NodeSorter(List<SitemapNode> nodeList, boolean sorted, Locale locale) {
 		this.nodeList = nodeList;
 		this.sorted = sorted;
+		this.locale = locale;
 	}
 
 	public void sort() {
 		if (sorted) {
 			log.debug("'sorted' is true, sorting by collation key");
-			Collections.sort(nodeList, new CollationKeyOrder());
+			Collections.sort(nodeList, new CollationKeyOrder(locale));
 		} else {
 			log.debug("'sorted' is false, using insertion order");
 			Collections.sort(nodeList, new InsertionOrder());
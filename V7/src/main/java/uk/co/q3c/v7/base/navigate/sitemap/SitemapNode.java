@@ -14,10 +14,12 @@ package uk.co.q3c.v7.base.navigate.sitemap;
 
 import java.text.CollationKey;
 import java.text.Collator;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -29,6 +31,7 @@ import uk.co.q3c.v7.i18n.LabelKey;
 import uk.co.q3c.v7.i18n.Translate;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.MapMaker;
 
 /**
  * Represents a node in the site map (equivalent to a web site 'page'). It contains a URI segment (this is just one part
@@ -50,6 +53,10 @@ import com.google.common.collect.ImmutableList;
  * be updated if locale or labelKey changes. This approach also takes advantage of the improved performance of the
  * collation key sorting (http://docs.oracle.com/javase/tutorial/i18n/text/perform.html)
  * <p>
+ * The label and collation key for other locales are available from {@link #getLabel(Locale)} and
+ * {@link #getCollationKey(Locale)}. These are created the first time a locale is requested, and then held by the node,
+ * so that all sessions using the same locale share them, and sorting requires no translation or Collator work.
+ * <p>
  * The type of user access control applied to the page is determined by {@link #pageAccessControl}. Note that these are
  * mutually exclusive, so a page cannot require both roles and permissions. This control is applied by the
  * {@link V7Navigator} during page changes, thereby disallowing access to an authorised page.
@@ -59,12 +66,16 @@ import com.google.common.collect.ImmutableList;
  */
 public class SitemapNode {
 
+	private static final LocalisedLabel[] NO_LABELS = new LocalisedLabel[0];
+	private static final ConcurrentMap<Locale, Collator> collators = new MapMaker().makeMap();
+
 	private int id;
 	private String uriSegment;
 	private Class<? extends V7View> viewClass;
 	private I18NKey<?> labelKey;
 	private String label;
 	private CollationKey collationKey;
+	private volatile LocalisedLabel[] localisedLabels = NO_LABELS;
 	private Translate translate;
 	private PageAccessControl pageAccessControl;
 	/**
@@ -107,21 +118,27 @@ public class SitemapNode {
 	 */
 	public void setLabelKey(I18NKey<?> labelKey, Locale locale, Collator collator) {
 		this.labelKey = labelKey;
-		label = translate.from(labelKey, locale);
+		label = translate.fromNoArgs(labelKey, locale);
 		collationKey = collator.getCollationKey(label);
+		localisedLabels = new LocalisedLabel[] { new LocalisedLabel(locale, label, collationKey) };
 	}
 
 	/**
 	 * Sets {@link LabelKey} and {@link #label}, using supplied {@code translate} for translation and Collator for the
-	 * collation key. CurrentLocale is assumed.
+	 * collation key. CurrentLocale is assumed. {@code translate} is also used for the labels of other locales if
+	 * {@link #translate} has not been set.
 	 * 
 	 * @param labelKey
 	 * @param locale
 	 */
 	public void setLabelKey(I18NKey<?> labelKey, Translate translate, Collator collator) {
 		this.labelKey = labelKey;
-		label = translate.from(labelKey);
+		if (this.translate == null) {
+			this.translate = translate;
+		}
+		label = translate.fromNoArgs(labelKey);
 		collationKey = collator.getCollationKey(label);
+		localisedLabels = NO_LABELS;
 	}
 
 	public Class<? extends V7View> getViewClass() {
@@ -204,6 +221,83 @@ public class SitemapNode {
 		return collationKey;
 	}
 
+	/**
+	 * Returns the label for {@code locale}, translating it on first use. If there is no label key, or no
+	 * {@link #translate} to translate it with, {@link #getLabel()} is returned
+	 * 
+	 * @param locale
+	 * @return
+	 */
+	public String getLabel(Locale locale) {
+		LocalisedLabel localised = localised(locale);
+		return (localised == null) ? label : localised.label;
+	}
+
+	/**
+	 * Returns the collation key of the label for {@code locale}, creating it on first use. If there is no label key,
+	 * or no {@link #translate} to translate it with, {@link #getCollationKey()} is returned
+	 * 
+	 * @param locale
+	 * @return
+	 */
+	public CollationKey getCollationKey(Locale locale) {
+		LocalisedLabel localised = localised(locale);
+		return (localised == null) ? collationKey : localised.collationKey;
+	}
+
+	/**
+	 * Discards the labels held for each locale, so that they are translated again on next use
+	 */
+	public void clearLocalisedLabels() {
+		localisedLabels = NO_LABELS;
+	}
+
+	/**
+	 * The node serves only a handful of locales, so a linear search of a copy on write array is both faster and smaller
+	 * than a map
+	 */
+	private LocalisedLabel localised(Locale locale) {
+		for (LocalisedLabel localised : localisedLabels) {
+			if (localised.locale.equals(locale)) {
+				return localised;
+			}
+		}
+		if ((labelKey == null) || (translate == null)) {
+			return null;
+		}
+		synchronized (this) {
+			LocalisedLabel[] current = localisedLabels;
+			for (LocalisedLabel localised : current) {
+				if (localised.locale.equals(locale)) {
+					return localised;
+				}
+			}
+			String localisedLabel = translate.fromNoArgs(labelKey, locale);
+			LocalisedLabel localised = new LocalisedLabel(locale, localisedLabel, collator(locale).getCollationKey(
+					localisedLabel));
+			LocalisedLabel[] updated = Arrays.copyOf(current, current.length + 1);
+			updated[current.length] = localised;
+			localisedLabels = updated;
+			return localised;
+		}
+	}
+
+	/**
+	 * Collator.getInstance returns a new copy each time, so one is kept for each locale. The standard (rule based)
+	 * Collator synchronizes its own methods, so the same instance can be used by any thread.
+	 */
+	private static Collator collator(Locale locale) {
+		Collator collator = collators.get(locale);
+		if (collator == null) {
+			collator = Collator.getInstance(locale);
+			Collator existing = collators.putIfAbsent(locale, collator);
+			if (existing != null) {
+				collator = existing;
+			}
+		}
+		return collator;
+	}
+
 	public Translate getTranslate() {
 		return translate;
 	}
@@ -242,4 +336,16 @@ public class SitemapNode {
 		return ImmutableList.copyOf(roles);
 	}
 
+	private static class LocalisedLabel {
+		private final Locale locale;
+		private final String label;
+		private final CollationKey collationKey;
+
+		LocalisedLabel(Locale locale, String label, CollationKey collationKey) {
+			this.locale = locale;
+			this.label = label;
+			this.collationKey = collationKey;
+		}
+	}
+
 }
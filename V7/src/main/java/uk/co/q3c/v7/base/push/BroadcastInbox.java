@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Collects broadcast messages for a single recipient (typically a UI) so that a burst of messages is delivered in one
+ * batch - for a UI, one {@code UI.access} call and one push - rather than one at a time.
+ * <p>
+ * When a message arrives at an empty inbox, the {@link Target} is asked to dispatch after the collection window has
+ * elapsed, or immediately once the batch size is reached. The target then calls {@link #drain()}, usually from
+ * within {@code UI.access}, and receives everything which has arrived by then - so messages arriving while the target
+ * waits for the session lock join the same batch. No further dispatch is requested until the inbox has been drained.
+ * <p>
+ * The inbox holds at most {@code capacity} messages; when it is full the {@link InboxOverflowPolicy} decides what is
+ * discarded. A window of 0 or less dispatches on every message, although messages can still accumulate while a
+ * dispatch waits to be drained.
+ * <p>
+ * The time each message waits in the inbox is recorded, and is reported with the totals for all inboxes by
+ * {@link BroadcastMetrics}, for inboxes created by {@link Broadcaster#newInbox(Target)}.
+ *
+ * @author David Sowerby
+ *
+ */
+public class BroadcastInbox {
+	private static Logger log = LoggerFactory.getLogger(BroadcastInbox.class);
+
+	/**
+	 * The recipient of a {@link BroadcastInbox}
+	 */
+	public interface Target {
+		/**
+		 * Called when the inbox has messages ready. The implementation should call {@link BroadcastInbox#drain()},
+		 * which it may do asynchronously
+		 *
+		 * @param inbox
+		 */
+		void dispatch(BroadcastInbox inbox);
+	}
+
+	private final Target target;
+	private final ScheduledExecutorService scheduler;
+	private final long window;
+	private final int batchSize;
+	private final int capacity;
+	private final InboxOverflowPolicy overflowPolicy;
+	private final InboxCounters counters;
+	private final ArrayDeque<BroadcastMessage> messages = new ArrayDeque<>();
+	private final Runnable windowElapsed = new Runnable() {
+		@Override
+		public void run() {
+			synchronized (BroadcastInbox.this) {
+				if (dispatched) {
+					return;
+				}
+				timer = null;
+				dispatched = true;
+			}
+			dispatch();
+		}
+	};
+
+	private ScheduledFuture<?> timer;
+	private boolean dispatched;
+	private long received;
+	private long dropped;
+	private long batches;
+
+	/**
+	 * @param target
+	 *            the recipient of the messages
+	 * @param scheduler
+	 *            used to time the collection window
+	 * @param window
+	 *            the collection window in milliseconds
+	 * @param batchSize
+	 *            the number of messages which causes a dispatch before the window has elapsed
+	 * @param capacity
+	 *            the maximum number of messages held
+	 * @param overflowPolicy
+	 *            what to discard when the inbox is full
+	 */
+	public BroadcastInbox(Target target, ScheduledExecutorService scheduler, long window, int batchSize, int capacity,
+			InboxOverflowPolicy overflowPolicy) {
+		this(target, scheduler, window, batchSize, capacity, overflowPolicy, new InboxCounters());
+	}
+
+	BroadcastInbox(Target target, ScheduledExecutorService scheduler, long window, int batchSize, int capacity,
+			InboxOverflowPolicy overflowPolicy, InboxCounters counters) {
+		super();
+		this.target = target;
+		this.scheduler = scheduler;
+		this.window = window;
+		this.capacity = Math.max(1, capacity);
+		this.batchSize = Math.max(1, Math.min(batchSize, this.capacity));
+		this.overflowPolicy = overflowPolicy;
+		this.counters = counters;
+	}
+
+	public void offer(String group, String message) {
+		offer(group, BroadcastPayload.ofText(message));
+	}
+
+	public void offer(String group, BroadcastPayload<?> payload) {
+		offer(new BroadcastMessage(group, payload));
+	}
+
+	/**
+	 * Adds {@code message}, keeping its sequence number
+	 * 
+	 * @param message
+	 */
+	public void offer(BroadcastMessage message) {
+		synchronized (this) {
+			received++;
+			add(new BroadcastMessage(message, System.nanoTime()));
+			if (dispatched) {
+				return;
+			}
+			if ((window > 0) && (messages.size() < batchSize)) {
+				if (timer == null) {
+					timer = scheduler.schedule(windowElapsed, window, TimeUnit.MILLISECONDS);
+				}
+				return;
+			}
+			if (timer != null) {
+				timer.cancel(false);
+				timer = null;
+			}
+			dispatched = true;
+		}
+		dispatch();
+	}
+
+	private void add(BroadcastMessage message) {
+		if (messages.size() >= capacity) {
+			dropped++;
+			counters.dropped.incrementAndGet();
+			switch (overflowPolicy) {
+			case DROP_NEWEST:
+				return;
+			case COLLAPSE_GROUP:
+				if (!removeOldest(message.getGroup())) {
+					messages.removeFirst();
+				}
+				break;
+			default:
+				messages.removeFirst();
+			}
+			// one removed, one added
+			messages.addLast(message);
+			return;
+		}
+		messages.addLast(message);
+		counters.held.incrementAndGet();
+	}
+
+	private boolean removeOldest(String group) {
+		Iterator<BroadcastMessage> iterator = messages.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().getGroup().equals(group)) {
+				iterator.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void dispatch() {
+		try {
+			target.dispatch(this);
+		} catch (RuntimeException e) {
+			// the target cannot take the messages (a UI which has been detached, for example), so they are lost
+			synchronized (this) {
+				dropped += messages.size();
+				counters.dropped.addAndGet(messages.size());
+				counters.held.addAndGet(-messages.size());
+				counters.dispatchFailures.incrementAndGet();
+				messages.clear();
+				dispatched = false;
+			}
+			log.warn("Unable to dispatch broadcast messages to " + target, e);
+		}
+	}
+
+	/**
+	 * Removes and returns all the messages held, in the order in which they arrived, and records how long each has
+	 * waited
+	 *
+	 * @return
+	 */
+	public synchronized ImmutableList<BroadcastMessage> drain() {
+		ImmutableList<BroadcastMessage> batch = ImmutableList.copyOf(messages);
+		messages.clear();
+		counters.held.addAndGet(-batch.size());
+		long now = System.nanoTime();
+		for (BroadcastMessage message : batch) {
+			counters.latency.record(now - message.getArrived());
+		}
+		dispatched = false;
+		if (!batch.isEmpty()) {
+			batches++;
+		}
+		return batch;
+	}
+
+	public synchronized int size() {
+		return messages.size();
+	}
+
+	/**
+	 * The number of messages offered to this inbox
+	 *
+	 * @return
+	 */
+	public synchronized long getReceived() {
+		return received;
+	}
+
+	/**
+	 * The number of messages discarded because the inbox was full, or could not be dispatched
+	 *
+	 * @return
+	 */
+	public synchronized long getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * The number of non-empty batches drained
+	 *
+	 * @return
+	 */
+	public synchronized long getBatches() {
+		return batches;
+	}
+
+	public long getWindow() {
+		return window;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public InboxOverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+/**
+ * A message broadcast to a group, as held by a {@link BroadcastInbox} or replayed by
+ * {@link Broadcaster#replay(String, long)}
+ *
+ * @author David Sowerby
+ *
+ */
+public class BroadcastMessage {
+
+	private final long sequence;
+	private final String group;
+	private final BroadcastPayload<?> payload;
+	private final long time;
+	private final long arrived;
+
+	public BroadcastMessage(String group, String message) {
+		this(0, group, BroadcastPayload.ofText(message));
+	}
+
+	public BroadcastMessage(String group, BroadcastPayload<?> payload) {
+		this(0, group, payload);
+	}
+
+	public BroadcastMessage(long sequence, String group, String message) {
+		this(sequence, group, BroadcastPayload.ofText(message));
+	}
+
+	public BroadcastMessage(long sequence, String group, BroadcastPayload<?> payload) {
+		this(sequence, group, payload, System.currentTimeMillis());
+	}
+
+	/**
+	 * @param sequence
+	 * @param group
+	 * @param payload
+	 * @param time
+	 *            the time at which the message was broadcast, in milliseconds since the epoch
+	 */
+	public BroadcastMessage(long sequence, String group, BroadcastPayload<?> payload, long time) {
+		this(sequence, group, payload, time, 0);
+	}
+
+	/**
+	 * A copy of {@code message}, which arrived in an inbox at {@code arrived}
+	 */
+	BroadcastMessage(BroadcastMessage message, long arrived) {
+		this(message.sequence, message.group, message.payload, message.time, arrived);
+	}
+
+	private BroadcastMessage(long sequence, String group, BroadcastPayload<?> payload, long time, long arrived) {
+		super();
+		this.sequence = sequence;
+		this.group = group;
+		this.payload = payload;
+		this.time = time;
+		this.arrived = arrived;
+	}
+
+	/**
+	 * The sequence number given to the message by the {@link Broadcaster}, or 0 if it is not known
+	 *
+	 * @return
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * The time at which the message was broadcast, in milliseconds since the epoch. A message which came from another
+	 * node has the time it was received by this one, and a message not created by a {@link Broadcaster} the time it was
+	 * created.
+	 *
+	 * @return
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	public String getGroup() {
+		return group;
+	}
+
+	/**
+	 * The text of the payload
+	 *
+	 * @return
+	 */
+	public String getMessage() {
+		return payload.getText();
+	}
+
+	public BroadcastPayload<?> getPayload() {
+		return payload;
+	}
+
+	/**
+	 * The {@link System#nanoTime()} at which the message arrived in a {@link BroadcastInbox}, or 0 if it did not come
+	 * from an inbox
+	 */
+	long getArrived() {
+		return arrived;
+	}
+
+	@Override
+	public String toString() {
+		return group + ":" + getMessage();
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Reports whether broadcast delivery is keeping up. Implemented by {@link Broadcaster}. Values are read from counters
+ * which are updated while messages are being delivered, so they are only approximately consistent with each other.
+ *
+ * @author David Sowerby
+ *
+ */
+public interface BroadcastMetrics {
+
+	/**
+	 * The number of messages queued by the delivery shards but not yet delivered (a message queued by several shards
+	 * is counted by each)
+	 *
+	 * @return
+	 */
+	long getQueueDepth();
+
+	/**
+	 * The number of messages waiting in inboxes to be pushed to their UIs
+	 *
+	 * @return
+	 */
+	long getInboxDepth();
+
+	/**
+	 * The time from a call to broadcast until every listener on this node has been given the message
+	 *
+	 * @return
+	 */
+	LatencyDistribution getFanOutLatency();
+
+	/**
+	 * The time from a message arriving in a UI's inbox until it is passed to the UI within {@code UI.access} - added
+	 * to {@link #getFanOutLatency()}, this is the time for a message to reach a UI
+	 *
+	 * @return
+	 */
+	LatencyDistribution getDeliveryLatency();
+
+	/**
+	 * The number of messages discarded by inboxes, because they were full or could not be dispatched
+	 *
+	 * @return
+	 */
+	long getDropped();
+
+	/**
+	 * The number of registrations for UIs which are closing, and will be removed by the next delivery to reach them
+	 *
+	 * @return
+	 */
+	int getStaleCount();
+
+	/**
+	 * The number of stale registrations removed during delivery
+	 *
+	 * @return
+	 */
+	long getPruned();
+
+	/**
+	 * The number of calls to listeners which threw an exception
+	 *
+	 * @return
+	 */
+	long getListenerFailures();
+
+	/**
+	 * The number of times an inbox could not dispatch to its UI - usually because {@code UI.access} failed for a UI
+	 * which had been detached
+	 *
+	 * @return
+	 */
+	long getAccessFailures();
+
+	/**
+	 * The delivery statistics of each shard
+	 *
+	 * @return
+	 */
+	ImmutableList<BroadcastShardStats> getShardStats();
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+/**
+ * The content of a broadcast message: a value, which must be immutable because the same instance is given to every
+ * recipient, and its text form. The text is only produced if a recipient asks for it, and is then kept, so a message
+ * is formatted at most once however many UIs receive it - and a recipient which uses the value directly does not need
+ * to parse the text at all.
+ * <p>
+ * A message broadcast as text is a payload whose value is the text.
+ *
+ * @author David Sowerby
+ *
+ * @param <T>
+ *            the value type
+ */
+public final class BroadcastPayload<T> {
+
+	private static final PayloadFormatter<Object> toStringFormatter = new PayloadFormatter<Object>() {
+		@Override
+		public String format(Object value) {
+			return String.valueOf(value);
+		}
+	};
+
+	private final T value;
+	private final PayloadFormatter<? super T> formatter;
+	private volatile String text;
+
+	private BroadcastPayload(T value, PayloadFormatter<? super T> formatter, String text) {
+		super();
+		this.value = value;
+		this.formatter = formatter;
+		this.text = text;
+	}
+
+	/**
+	 * A payload whose text is produced by {@code formatter}
+	 *
+	 * @param value
+	 * @param formatter
+	 * @return
+	 */
+	public static <T> BroadcastPayload<T> of(T value, PayloadFormatter<? super T> formatter) {
+		return new BroadcastPayload<T>(value, formatter, null);
+	}
+
+	/**
+	 * A payload whose text is {@code value.toString()}
+	 *
+	 * @param value
+	 * @return
+	 */
+	public static <T> BroadcastPayload<T> of(T value) {
+		return new BroadcastPayload<T>(value, toStringFormatter, null);
+	}
+
+	public static BroadcastPayload<String> ofText(String text) {
+		return new BroadcastPayload<String>(text, toStringFormatter, text);
+	}
+
+	public T getValue() {
+		return value;
+	}
+
+	/**
+	 * Returns the value if it is of type {@code type}, otherwise null - for a recipient which only handles one type
+	 *
+	 * @param type
+	 * @return
+	 */
+	public <V> V getValue(Class<V> type) {
+		return type.isInstance(value) ? type.cast(value) : null;
+	}
+
+	/**
+	 * Returns the text, formatting it on the first call. Listeners in different delivery shards may ask at the same
+	 * time, so the first caller formats while holding a lock and any others wait for its result.
+	 *
+	 * @return
+	 */
+	public String getText() {
+		String result = text;
+		if (result == null) {
+			synchronized (this) {
+				result = text;
+				if (result == null) {
+					result = formatter.format(value);
+					text = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return getText();
+	}
+
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.q3c.v7.base.push.Broadcaster.BroadcastListener;
+import uk.co.q3c.v7.base.push.Broadcaster.PayloadListener;
+
+import com.google.common.collect.Iterators;
+import com.vaadin.ui.UI;
+
+/**
+ * One partition of the {@link Broadcaster} listeners, with its own delivery thread. A listener is always held by the
+ * same shard, and the {@link Broadcaster} queues messages in sequence order, so it receives them in that order.
+ * <p>
+ * The listener sets are concurrent, so registration never waits for a delivery, and a delivery iterates over the
+ * listeners present when it reaches them. Listeners are held in a {@link TopicTrie}, so a group may be a
+ * hierarchical topic, and a registration may use wildcards.
+ * <p>
+ * Listeners are held weakly, so a listener which is no longer referenced elsewhere disappears without being
+ * unregistered. A {@link UI} which is closing is stale - it can no longer be pushed to - and is removed when a delivery
+ * reaches it. When a delivery finds a subscription with no listeners left, the shard's empty subscriptions are
+ * discarded on its delivery thread, as they are before statistics are taken, so per-entity topics do not accumulate.
+ *
+ * @author David Sowerby
+ *
+ */
+class BroadcastShard {
+	private static Logger log = LoggerFactory.getLogger(BroadcastShard.class);
+
+	private final int index;
+	private final ExecutorService executor;
+	private final TopicTrie<BroadcastListener> subscriptions = new TopicTrie<>(true);
+
+	private final AtomicLong messages = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong deliveries = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong totalLatency = new AtomicLong();
+	private final AtomicLong maxLatency = new AtomicLong();
+	private final AtomicLong pruned = new AtomicLong();
+	private final AtomicBoolean pruneScheduled = new AtomicBoolean();
+	private final Runnable pruneTask = new Runnable() {
+		@Override
+		public void run() {
+			pruneScheduled.set(false);
+			prune();
+		}
+	};
+
+	BroadcastShard(final int index) {
+		super();
+		this.index = index;
+		executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "V7 broadcast shard " + index);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	void register(String group, BroadcastListener listener) {
+		subscriptions.subscribe(group, listener);
+	}
+
+	void unregister(String group, BroadcastListener listener) {
+		subscriptions.unsubscribe(group, listener);
+	}
+
+	/**
+	 * Queues a single task to deliver {@code message} to every listener in this shard for its group, unless there are
+	 * none
+	 *
+	 * @param message
+	 * @param fanOut
+	 *            tracks the delivery of the message by all shards, and holds the time at which it was broadcast
+	 */
+	void deliver(final BroadcastMessage message, final FanOut fanOut) {
+		final List<Set<BroadcastListener>> listenerGroups = subscriptions.resolve(message.getGroup());
+		if (isEmpty(listenerGroups)) {
+			if (!listenerGroups.isEmpty()) {
+				// there are subscriptions for the group, but their listeners have all gone
+				schedulePrune();
+			}
+			return;
+		}
+		messages.incrementAndGet();
+		fanOut.shardQueued();
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				boolean emptied = false;
+				for (Set<BroadcastListener> listenerGroup : listenerGroups) {
+					emptied |= !deliver(listenerGroup, message);
+				}
+				if (emptied) {
+					schedulePrune();
+				}
+				recordLatency(System.nanoTime() - fanOut.getBroadcastTime());
+				fanOut.shardDone();
+			}
+		});
+	}
+
+	private static boolean isEmpty(List<Set<BroadcastListener>> listenerGroups) {
+		for (Set<BroadcastListener> listenerGroup : listenerGroups) {
+			if (!listenerGroup.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns false if {@code listeners} turned out to have no live listeners
+	 */
+	private boolean deliver(Set<BroadcastListener> listeners, BroadcastMessage message) {
+		boolean live = false;
+		Iterator<BroadcastListener> iterator = listeners.iterator();
+		while (iterator.hasNext()) {
+			BroadcastListener listener = iterator.next();
+			if (isStale(listener)) {
+				iterator.remove();
+				pruned.incrementAndGet();
+				log.debug("Removed stale broadcast listener {}", listener);
+				continue;
+			}
+			live = true;
+			try {
+				if (listener instanceof PayloadListener) {
+					((PayloadListener) listener).receivePayload(message);
+				} else {
+					listener.receiveBroadcast(message.getGroup(), message.getMessage());
+				}
+				deliveries.incrementAndGet();
+			} catch (Exception e) {
+				// one failing listener must not stop delivery to the others
+				failures.incrementAndGet();
+				log.error("Broadcast listener " + listener + " failed to receive message", e);
+			}
+		}
+		return live;
+	}
+
+	/**
+	 * Queues a task to discard the subscriptions which no longer have any listeners, unless one is already queued
+	 */
+	private void schedulePrune() {
+		if (!pruneScheduled.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			executor.execute(pruneTask);
+		} catch (RejectedExecutionException e) {
+			// shut down
+			pruneScheduled.set(false);
+		}
+	}
+
+	private static boolean isStale(BroadcastListener listener) {
+		return (listener instanceof UI) && ((UI) listener).isClosing();
+	}
+
+	private void recordLatency(long latency) {
+		completed.incrementAndGet();
+		totalLatency.addAndGet(latency);
+		long max = maxLatency.get();
+		while ((latency > max) && !maxLatency.compareAndSet(max, latency)) {
+			max = maxLatency.get();
+		}
+	}
+
+	/**
+	 * The number of messages queued but not yet delivered
+	 */
+	long pending() {
+		// completed first, so that pending can never be negative
+		long done = completed.get();
+		return messages.get() - done;
+	}
+
+	/**
+	 * Stops the delivery thread, discarding any messages not yet delivered
+	 */
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	long prunedCount() {
+		return pruned.get();
+	}
+
+	long failureCount() {
+		return failures.get();
+	}
+
+	/**
+	 * Discards the subscriptions which no longer have any listeners
+	 * 
+	 * @return the number discarded
+	 */
+	int prune() {
+		int removed = subscriptions.prune();
+		if (removed > 0) {
+			log.debug("Shard {} discarded {} empty subscriptions", index, removed);
+		}
+		return removed;
+	}
+
+	/**
+	 * The number of subscriptions held, including any whose listeners have gone but which have not yet been discarded
+	 */
+	int subscriptionCount() {
+		return subscriptions.allSubscribers().size();
+	}
+
+	/**
+	 * Counts by iterating, because the size of a weak set includes listeners which have been collected but not yet
+	 * cleaned up
+	 */
+	int listenerCount() {
+		int count = 0;
+		for (Set<BroadcastListener> listenerGroup : subscriptions.allSubscribers()) {
+			count += Iterators.size(listenerGroup.iterator());
+		}
+		return count;
+	}
+
+	int staleCount() {
+		int count = 0;
+		for (Set<BroadcastListener> listenerGroup : subscriptions.allSubscribers()) {
+			count += staleCount(listenerGroup);
+		}
+		return count;
+	}
+
+	private static int staleCount(Set<BroadcastListener> listeners) {
+		int count = 0;
+		for (BroadcastListener listener : listeners) {
+			if (isStale(listener)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	BroadcastShardStats stats() {
+		prune();
+		// completed first, so that pending can never be negative
+		long done = completed.get();
+		long queued = messages.get();
+		long mean = (done == 0) ? 0 : totalLatency.get() / done;
+		return new BroadcastShardStats(index, listenerCount(), staleCount(), pruned.get(), queued, queued - done,
+				deliveries.get(), failures.get(), mean, maxLatency.get());
+	}
+
+}
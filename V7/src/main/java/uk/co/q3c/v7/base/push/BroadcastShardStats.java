@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable snapshot of the activity of one {@link Broadcaster} delivery shard. Latency is measured from the call to
+ * {@link Broadcaster#broadcast(String, String)} to the end of delivery to every listener in the shard, so it includes
+ * the time the message waited behind earlier messages.
+ * 
+ * @author David Sowerby
+ * 
+ */
+public class BroadcastShardStats {
+
+	private final int shard;
+	private final int listenerCount;
+	private final int staleCount;
+	private final long pruned;
+	private final long messages;
+	private final long pending;
+	private final long deliveries;
+	private final long failures;
+	private final long meanLatency;
+	private final long maxLatency;
+
+	public BroadcastShardStats(int shard, int listenerCount, int staleCount, long pruned, long messages, long pending,
+			long deliveries, long failures, long meanLatency, long maxLatency) {
+		super();
+		this.shard = shard;
+		this.listenerCount = listenerCount;
+		this.staleCount = staleCount;
+		this.pruned = pruned;
+		this.messages = messages;
+		this.pending = pending;
+		this.deliveries = deliveries;
+		this.failures = failures;
+		this.meanLatency = meanLatency;
+		this.maxLatency = maxLatency;
+	}
+
+	public int getShard() {
+		return shard;
+	}
+
+	/**
+	 * The number of registrations held by the shard. A listener registered for more than one group is counted once
+	 * for each.
+	 * 
+	 * @return
+	 */
+	public int getListenerCount() {
+		return listenerCount;
+	}
+
+	/**
+	 * The number of registrations (included in {@link #getListenerCount()}) for a UI which is closing, and will be
+	 * removed by the next delivery to reach it
+	 * 
+	 * @return
+	 */
+	public int getStaleCount() {
+		return staleCount;
+	}
+
+	/**
+	 * The number of live registrations - {@link #getListenerCount()} less {@link #getStaleCount()}
+	 * 
+	 * @return
+	 */
+	public int getLiveCount() {
+		return listenerCount - staleCount;
+	}
+
+	/**
+	 * The number of stale registrations removed during delivery since the shard was created. Listeners which have been
+	 * garbage collected are removed without being counted.
+	 * 
+	 * @return
+	 */
+	public long getPruned() {
+		return pruned;
+	}
+
+	/**
+	 * The number of messages queued for delivery by this shard - one for each broadcast which had at least one
+	 * listener in the shard
+	 * 
+	 * @return
+	 */
+	public long getMessages() {
+		return messages;
+	}
+
+	/**
+	 * The number of messages queued but not yet delivered
+	 * 
+	 * @return
+	 */
+	public long getPending() {
+		return pending;
+	}
+
+	/**
+	 * The number of calls to listeners which completed normally
+	 * 
+	 * @return
+	 */
+	public long getDeliveries() {
+		return deliveries;
+	}
+
+	/**
+	 * The number of calls to listeners which threw an exception
+	 * 
+	 * @return
+	 */
+	public long getFailures() {
+		return failures;
+	}
+
+	/**
+	 * Mean delivery latency, in nanoseconds
+	 * 
+	 * @return
+	 */
+	public long getMeanLatency() {
+		return meanLatency;
+	}
+
+	/**
+	 * Maximum delivery latency, in nanoseconds
+	 * 
+	 * @return
+	 */
+	public long getMaxLatency() {
+		return maxLatency;
+	}
+
+	@Override
+	public String toString() {
+		return "shard=" + shard + ", listeners=" + listenerCount + ", stale=" + staleCount + ", pruned=" + pruned
+				+ ", messages=" + messages + ", pending=" + pending
+				+ ", deliveries=" + deliveries + ", failures=" + failures + ", mean latency="
+				+ TimeUnit.NANOSECONDS.toMicros(meanLatency) + "us, max latency="
+				+ TimeUnit.NANOSECONDS.toMicros(maxLatency) + "us";
+	}
+
+}
@@ -1,107 +1,412 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
 package uk.co.q3c.v7.base.push;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import uk.co.q3c.v7.base.config.ApplicationConfiguration;
 import uk.co.q3c.v7.base.config.ConfigKeys;
+import uk.co.q3c.v7.base.config.ConfigValue;
 
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
+/**
+ * Delivers messages to registered {@link BroadcastListener}s, typically one for each UI.
+ * <p>
+ * Listeners are partitioned by identity hash into a number of shards, taken from the application configuration
+ * ({@link ConfigKeys#PUSH_DELIVERY_SHARDS}, default is the number of processors). Each shard has its own delivery
+ * thread, and a broadcast queues one task per shard (for shards with a listener for the message) rather than one per
+ * listener. A listener always belongs to the same shard, so it receives messages in sequence order.
+ * <p>
+ * Registration takes no lock, so registering a new UI never waits for a broadcast to be queued. A broadcast holds a
+ * short lock while it is numbered, held for replay and queued by each shard, so that concurrent broadcasts are queued
+ * - and therefore delivered to each listener - in sequence order.
+ * Delivery statistics, including latency, are available for each shard from {@link #getShardStats()}.
+ * <p>
+ * Registrations are weak: the Broadcaster does not keep a listener alive, so a caller must hold a reference to its
+ * listener for as long as it wants to receive messages (a UI is held by its session). A listener which has been
+ * garbage collected, or a UI which is closing, is dropped automatically - a UI does not therefore need to unregister,
+ * though {@link uk.co.q3c.v7.base.ui.ScopedUI} does so when it is detached.
+ * <p>
+ * A listener which wants messages in batches can use an inbox from {@link #newInbox(BroadcastInbox.Target)}, which is
+ * configured by {@link ConfigKeys#PUSH_INBOX_WINDOW} (milliseconds, default 50), {@link ConfigKeys#PUSH_INBOX_BATCH_SIZE}
+ * (default 50), {@link ConfigKeys#PUSH_INBOX_CAPACITY} (default 500) and {@link ConfigKeys#PUSH_INBOX_OVERFLOW} (an
+ * {@link InboxOverflowPolicy} name, default DROP_OLDEST).
+ * <p>
+ * Broadcasts are disabled when {@link ConfigKeys#SERVER_PUSH_ENABLED} is false. This and the inbox settings are held
+ * as {@link ConfigValue}s, so they are not looked up in the configuration for every message or UI, but do follow
+ * changes to it. The other settings are read once, when the Broadcaster is created.
+ * <p>
+ * A Broadcaster only reaches listeners in its own JVM. To reach other nodes, a {@link Relay} (usually the
+ * {@link uk.co.q3c.v7.base.push.transport.BroadcastTransportService}) is given each message broadcast, and passes
+ * messages from other nodes to {@link #deliverLocally(String, String)}.
+ * <p>
+ * Every message delivered is given a sequence number, and the most recent messages for each topic are kept so that a
+ * UI which opens later can catch up with {@link #replay(String, long)}. The number kept per topic is
+ * {@link ConfigKeys#PUSH_REPLAY_CAPACITY} (default 16, rounded up to a power of 2, 0 disables replay), for at most
+ * {@link ConfigKeys#PUSH_REPLAY_TOPICS} topics (default 1000).
+ * <p>
+ * Delivery is reported by the {@link BroadcastMetrics} methods: queue depths, fan-out and inbox latency
+ * distributions, and counts of dropped messages, stale listeners and failures. A broadcast returns
+ * {@link PublishResult#SATURATED} when a shard has at least {@link ConfigKeys#PUSH_SATURATION_THRESHOLD} messages
+ * waiting (default 1000), so that a producer can slow down - the message is still delivered.
+ * <p>
+ * The delivery and inbox threads run until {@link #shutdown()} is called, which the
+ * {@link uk.co.q3c.v7.base.guice.BaseGuiceServletInjector} does when the application is stopped.
+ */
 @Singleton
-public class Broadcaster {
+public class Broadcaster implements BroadcastMetrics {
 	private static Logger log = LoggerFactory.getLogger(Broadcaster.class);
 	public static final String ALL_MESSAGES = "all";
 
-	private final ExecutorService executorService;
-	private final Map<String, List<BroadcastListener>> groups = new HashMap<>();
-	private final List<BroadcastListener> allGroup = new ArrayList<>();
-	private final ApplicationConfiguration applicationConfiguration;
+	private final BroadcastShard[] shards;
+	private final ConfigValue<Boolean> pushEnabled;
+	private final ConfigValue<Long> inboxWindow;
+	private final ConfigValue<Integer> inboxBatchSize;
+	private final ConfigValue<Integer> inboxCapacity;
+	private final ConfigValue<String> inboxOverflow;
+	private final ScheduledExecutorService inboxScheduler;
+	private final InboxCounters inboxCounters = new InboxCounters();
+	private final LatencyHistogram fanOutLatency = new LatencyHistogram();
+	private final long saturationThreshold;
+
+	private final ReplayBuffer replayBuffer;
+	private final AtomicLong sequence = new AtomicLong();
+	/**
+	 * Held while a message is numbered, added to the replay buffer and queued, so that these happen in sequence order
+	 */
+	private final Object publishLock = new Object();
+	private volatile Relay relay;
+	private volatile boolean shutdown;
 
 	public interface BroadcastListener {
 		void receiveBroadcast(String group, String message);
 	}
 
+	/**
+	 * A {@link BroadcastListener} which receives the {@link BroadcastMessage} - including its {@link BroadcastPayload}
+	 * and sequence number - rather than its text, so that it can use the value without parsing, and knows where to
+	 * {@link Broadcaster#replay(String, long)} from. Only {@link #receivePayload(BroadcastMessage)} is called, a
+	 * message broadcast as text arrives as a payload whose value is the text. Every listener is given the same
+	 * instance.
+	 */
+	public interface PayloadListener extends BroadcastListener {
+		void receivePayload(BroadcastMessage message);
+	}
+
+	/**
+	 * Passes messages broadcast on this node to other nodes
+	 */
+	public interface Relay {
+		/**
+		 * Called for every message broadcast on this node, on the broadcasting thread, so should not block
+		 * 
+		 * @param group
+		 * @param payload
+		 */
+		void relay(String group, BroadcastPayload<?> payload);
+	}
+
 	@Inject
 	protected Broadcaster(ApplicationConfiguration applicationConfiguration) {
-		this.applicationConfiguration = applicationConfiguration;
-		executorService = Executors.newSingleThreadExecutor();
+		pushEnabled = ConfigValue.forBoolean(applicationConfiguration, ConfigKeys.SERVER_PUSH_ENABLED, true);
+		inboxWindow = ConfigValue.forLong(applicationConfiguration, ConfigKeys.PUSH_INBOX_WINDOW, 50);
+		inboxBatchSize = ConfigValue.forInt(applicationConfiguration, ConfigKeys.PUSH_INBOX_BATCH_SIZE, 50);
+		inboxCapacity = ConfigValue.forInt(applicationConfiguration, ConfigKeys.PUSH_INBOX_CAPACITY, 500);
+		inboxOverflow = ConfigValue.forString(applicationConfiguration, ConfigKeys.PUSH_INBOX_OVERFLOW,
+				InboxOverflowPolicy.DROP_OLDEST.name());
+		int shardCount = applicationConfiguration.getInt(ConfigKeys.PUSH_DELIVERY_SHARDS, Runtime.getRuntime()
+				.availableProcessors());
+		shards = new BroadcastShard[Math.max(1, shardCount)];
+		for (int i = 0; i < shards.length; i++) {
+			shards[i] = new BroadcastShard(i);
+		}
+		replayBuffer = new ReplayBuffer(applicationConfiguration.getInt(ConfigKeys.PUSH_REPLAY_CAPACITY, 16),
+				applicationConfiguration.getInt(ConfigKeys.PUSH_REPLAY_TOPICS, 1000));
+		saturationThreshold = Math.max(1, applicationConfiguration.getLong(ConfigKeys.PUSH_SATURATION_THRESHOLD, 1000));
+		inboxScheduler = Executors.newScheduledThreadPool(shards.length, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "V7 broadcast inbox " + count.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
 	}
 
 	/**
 	 * Register a listener to receive messages for {@code group}. If you want the listener to receive all messages call
-	 * with {@code group}= {@link PushMessageRouter#ALL_MESSAGES}. If you want to register for more than one group, make
+	 * with {@code group}= {@link #ALL_MESSAGES}. {@code group} may be a hierarchical topic with wildcards, for example
+	 * "orders/eu/*". Segments are separated by "/", "*" matches any one segment, and "**" (only as the last segment)
+	 * matches any number of segments. If you want to register for more than one group, make
 	 * multiple calls.
 	 * 
 	 * @param group
 	 * @param listener
 	 */
-	public synchronized void register(String group, BroadcastListener listener) {
+	public void register(String group, BroadcastListener listener) {
 		log.debug("adding listener: {}", listener.getClass().getName());
-		if (group == ALL_MESSAGES) {
-			allGroup.add(listener);
-		} else {
-			List<BroadcastListener> listenerGroup = groups.get(group);
-			if (listenerGroup == null) {
-				listenerGroup = new ArrayList<>();
-				groups.put(group, listenerGroup);
-			}
-			listenerGroup.add(listener);
-		}
+		shardFor(listener).register(group, listener);
+	}
 
+	/**
+	 * Unregister a listener to receive messages for {@code group}. {@code group} must be the same as when it was
+	 * registered.
+	 */
+	public void unregister(String group, BroadcastListener listener) {
+		shardFor(listener).unregister(group, listener);
 	}
 
 	/**
-	 * Unregister a listener to receive messages for {@code group}.
+	 * Send a message to registered listeners. Delivery is asynchronous, this method returns once the message has been
+	 * queued by each shard.
+	 * 
+	 * @param group
+	 * @param message
+	 * @return whether the message was accepted, and whether delivery is falling behind
 	 */
-	public synchronized void unregister(String group, BroadcastListener listener) {
-		if (group == ALL_MESSAGES) {
-			allGroup.remove(listener);
-		} else {
-			List<BroadcastListener> listenerGroup = groups.get(group);
-			if (listenerGroup != null) {
-				listenerGroup.remove(listener);
-			}
+	public PublishResult broadcast(String group, String message) {
+		return broadcast(group, BroadcastPayload.ofText(message));
+	}
+
+	/**
+	 * Send a payload to registered listeners. A {@link PayloadListener} receives {@code payload} itself - the same
+	 * instance for every listener - and any other listener receives its text, which is formatted once when first
+	 * needed. Delivery is asynchronous, this method returns once the message has been queued by each shard.
+	 * 
+	 * @param group
+	 * @param payload
+	 * @return whether the message was accepted, and whether delivery is falling behind
+	 */
+	public PublishResult broadcast(String group, BroadcastPayload<?> payload) {
+		if (shutdown || !pushEnabled.get()) {
+			log.debug("server push is disabled, message not broadcast");
+			return PublishResult.DISABLED;
+		}
+		log.debug("broadcasting message: {}", payload);
+		boolean saturated = fanOut(group, payload);
+		Relay currentRelay = relay;
+		if (currentRelay != null) {
+			currentRelay.relay(group, payload);
 		}
+		return saturated ? PublishResult.SATURATED : PublishResult.ACCEPTED;
 	}
 
 	/**
-	 * Send a message to registered listeners
+	 * Send a message to listeners on this node only - used for messages which have been broadcast on another node
 	 * 
 	 * @param group
 	 * @param message
 	 */
-	public synchronized void broadcast(final String group, final String message) {
-		if (applicationConfiguration.getBoolean(ConfigKeys.SERVER_PUSH_ENABLED, true)) {
-			log.debug("broadcasting message: {}", message);
-			List<BroadcastListener> listenerGroup = groups.get(group);
-			if (listenerGroup != null) {
-				for (final BroadcastListener listener : listenerGroup)
-					executorService.execute(new Runnable() {
-						@Override
-						public void run() {
-							listener.receiveBroadcast(group, message);
-						}
-					});
+	public void deliverLocally(String group, String message) {
+		if (!shutdown && pushEnabled.get()) {
+			fanOut(group, BroadcastPayload.ofText(message));
+		}
+	}
+
+	/**
+	 * Returns true if any shard has reached the saturation threshold
+	 */
+	private boolean fanOut(String group, BroadcastPayload<?> payload) {
+		FanOut fanOut = new FanOut(System.nanoTime(), fanOutLatency);
+		boolean saturated = false;
+		synchronized (publishLock) {
+			BroadcastMessage message = new BroadcastMessage(sequence.incrementAndGet(), group, payload);
+			replayBuffer.add(message);
+			for (BroadcastShard shard : shards) {
+				shard.deliver(message, fanOut);
+				saturated |= shard.pending() >= saturationThreshold;
 			}
-			for (final BroadcastListener listener : allGroup)
-				executorService.execute(new Runnable() {
-					@Override
-					public void run() {
-						listener.receiveBroadcast(group, message);
-					}
-				});
-		} else {
-			log.debug("server push is disabled, message not broadcast");
 		}
+		fanOut.shardDone();
+		return saturated;
+	}
+
+	/**
+	 * Returns the recent messages for topics matching {@code pattern} (which may use wildcards, as for
+	 * {@link #register(String, BroadcastListener)}) with a sequence number greater than {@code sequence}, in the order
+	 * they were delivered. Call with {@code sequence} of 0 for all the messages held, and keep the sequence number of
+	 * the last message received to catch up again later. Only messages still in the replay buffer are returned, so
+	 * there may be a gap if more than the buffer capacity have been delivered for a topic since {@code sequence}.
+	 *
+	 * @param pattern
+	 * @param sequence
+	 * @return
+	 */
+	public ImmutableList<BroadcastMessage> replay(String pattern, long sequence) {
+		return replayBuffer.since(pattern, sequence);
+	}
+
+	/**
+	 * The sequence number of the most recent message delivered
+	 *
+	 * @return
+	 */
+	public long getSequence() {
+		return sequence.get();
+	}
+
+	public Relay getRelay() {
+		return relay;
+	}
+
+	/**
+	 * Sets the relay to other nodes, or removes it if {@code relay} is null
+	 * 
+	 * @param relay
+	 */
+	public void setRelay(Relay relay) {
+		this.relay = relay;
+	}
+
+	/**
+	 * Creates an inbox for {@code target}, configured from the application configuration. The inbox is not
+	 * registered, the caller passes messages to it from its {@link BroadcastListener}.
+	 *
+	 * @param target
+	 * @return
+	 */
+	public BroadcastInbox newInbox(BroadcastInbox.Target target) {
+		return new BroadcastInbox(target, inboxScheduler, inboxWindow.get(), inboxBatchSize.get(), inboxCapacity.get(),
+				overflowPolicy(), inboxCounters);
+	}
+
+	private InboxOverflowPolicy overflowPolicy() {
+		String policy = inboxOverflow.get();
+		try {
+			return InboxOverflowPolicy.valueOf(policy.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			log.warn("Unknown inbox overflow policy '{}', using {}", policy, InboxOverflowPolicy.DROP_OLDEST);
+			return InboxOverflowPolicy.DROP_OLDEST;
+		}
+	}
+
+	private BroadcastShard shardFor(BroadcastListener listener) {
+		// spread the bits, identity hashes are not always well distributed in the low bits
+		int hash = System.identityHashCode(listener);
+		hash ^= (hash >>> 16);
+		return shards[(hash & 0x7fffffff) % shards.length];
+	}
+
+	/**
+	 * Stops the delivery and inbox threads. Messages not yet delivered are discarded, and anything broadcast afterwards
+	 * is ignored. Call when the application is stopped, so that its threads do not outlive it.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		for (BroadcastShard shard : shards) {
+			shard.shutdown();
+		}
+		inboxScheduler.shutdownNow();
+		log.debug("Broadcaster shut down");
+	}
+
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	public int getShardCount() {
+		return shards.length;
+	}
+
+	public long getSaturationThreshold() {
+		return saturationThreshold;
+	}
+
+	/**
+	 * Returns a snapshot of the delivery statistics of each shard
+	 * 
+	 * @return
+	 */
+	@Override
+	public ImmutableList<BroadcastShardStats> getShardStats() {
+		ImmutableList.Builder<BroadcastShardStats> stats = ImmutableList.builder();
+		for (BroadcastShard shard : shards) {
+			stats.add(shard.stats());
+		}
+		return stats.build();
+	}
+
+	@Override
+	public long getQueueDepth() {
+		long depth = 0;
+		for (BroadcastShard shard : shards) {
+			depth += shard.pending();
+		}
+		return depth;
+	}
+
+	@Override
+	public long getInboxDepth() {
+		return inboxCounters.held.get();
+	}
+
+	@Override
+	public LatencyDistribution getFanOutLatency() {
+		return fanOutLatency.snapshot();
+	}
+
+	@Override
+	public LatencyDistribution getDeliveryLatency() {
+		return inboxCounters.latency.snapshot();
+	}
+
+	@Override
+	public long getDropped() {
+		return inboxCounters.dropped.get();
+	}
+
+	@Override
+	public int getStaleCount() {
+		int count = 0;
+		for (BroadcastShard shard : shards) {
+			count += shard.staleCount();
+		}
+		return count;
+	}
+
+	@Override
+	public long getPruned() {
+		long count = 0;
+		for (BroadcastShard shard : shards) {
+			count += shard.prunedCount();
+		}
+		return count;
+	}
+
+	@Override
+	public long getListenerFailures() {
+		long count = 0;
+		for (BroadcastShard shard : shards) {
+			count += shard.failureCount();
+		}
+		return count;
+	}
+
+	@Override
+	public long getAccessFailures() {
+		return inboxCounters.dispatchFailures.get();
 	}
 
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the delivery of one message by all the shards which queued it, so that the time until the last of them
+ * finishes can be recorded. The broadcasting thread holds one count while it queues the message, so the message cannot
+ * be seen as complete before every shard has queued it.
+ *
+ * @author David Sowerby
+ *
+ */
+class FanOut {
+
+	private final long broadcastTime;
+	private final LatencyHistogram latency;
+	private final AtomicInteger outstanding = new AtomicInteger(1);
+	private volatile boolean queued;
+
+	FanOut(long broadcastTime, LatencyHistogram latency) {
+		super();
+		this.broadcastTime = broadcastTime;
+		this.latency = latency;
+	}
+
+	long getBroadcastTime() {
+		return broadcastTime;
+	}
+
+	/**
+	 * Called by a shard before it queues the message
+	 */
+	void shardQueued() {
+		queued = true;
+		outstanding.incrementAndGet();
+	}
+
+	/**
+	 * Called by a shard when it has delivered the message, and by the broadcasting thread when every shard has been
+	 * given the message
+	 */
+	void shardDone() {
+		if ((outstanding.decrementAndGet() == 0) && queued) {
+			latency.record(System.nanoTime() - broadcastTime);
+		}
+	}
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Totals shared by all the {@link BroadcastInbox}es created by a {@link Broadcaster}, so that they can be reported
+ * without keeping a reference to each inbox
+ *
+ * @author David Sowerby
+ *
+ */
+class InboxCounters {
+
+	final AtomicLong held = new AtomicLong();
+	final AtomicLong dropped = new AtomicLong();
+	final AtomicLong dispatchFailures = new AtomicLong();
+	/**
+	 * from arrival in an inbox to being drained by its target
+	 */
+	final LatencyHistogram latency = new LatencyHistogram();
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+/**
+ * What a {@link BroadcastInbox} does with a message which arrives when it is full
+ *
+ * @author David Sowerby
+ *
+ */
+public enum InboxOverflowPolicy {
+	/**
+	 * Discard the oldest message waiting, and keep the new one
+	 */
+	DROP_OLDEST,
+	/**
+	 * Discard the new message
+	 */
+	DROP_NEWEST,
+	/**
+	 * Replace the oldest message waiting for the same group with the new one, so that only the most recent value for
+	 * a group is delivered. If there is no message waiting for the group, the oldest message is discarded.
+	 */
+	COLLAPSE_GROUP
+}
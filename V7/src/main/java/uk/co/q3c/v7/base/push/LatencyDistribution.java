@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable snapshot of a distribution of latencies, in nanoseconds. Samples are held in buckets whose bounds are
+ * powers of 2, so a percentile is the upper bound of the bucket it falls in (but never more than the maximum) - it
+ * may overstate the true value by up to a factor of 2.
+ *
+ * @author David Sowerby
+ *
+ */
+public class LatencyDistribution {
+
+	private final long[] buckets;
+	private final long count;
+	private final long total;
+	private final long max;
+
+	LatencyDistribution(long[] buckets, long total, long max) {
+		super();
+		this.buckets = buckets;
+		long sum = 0;
+		for (long bucket : buckets) {
+			sum += bucket;
+		}
+		// counted from the buckets, so that percentiles are consistent with the count
+		this.count = sum;
+		this.total = total;
+		this.max = max;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Mean latency, in nanoseconds, or 0 if there are no samples
+	 *
+	 * @return
+	 */
+	public long getMean() {
+		return (count == 0) ? 0 : total / count;
+	}
+
+	/**
+	 * Maximum latency, in nanoseconds
+	 *
+	 * @return
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the latency, in nanoseconds, below which {@code percentile} percent of the samples fall, or 0 if there
+	 * are no samples
+	 *
+	 * @param percentile
+	 *            from 0 to 100
+	 * @return
+	 */
+	public long getPercentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(count * Math.max(0, Math.min(100, percentile)) / 100);
+		long seen = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+			if ((seen >= rank) && (seen > 0)) {
+				long upper = (i == 0) ? 0 : (i >= 63) ? Long.MAX_VALUE : (1L << i) - 1;
+				return Math.min(upper, max);
+			}
+		}
+		return max;
+	}
+
+	public long getP50() {
+		return getPercentile(50);
+	}
+
+	public long getP90() {
+		return getPercentile(90);
+	}
+
+	public long getP99() {
+		return getPercentile(99);
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + count + ", mean=" + micros(getMean()) + "us, p50=" + micros(getP50()) + "us, p90="
+				+ micros(getP90()) + "us, p99=" + micros(getP99()) + "us, max=" + micros(max) + "us";
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+
+}
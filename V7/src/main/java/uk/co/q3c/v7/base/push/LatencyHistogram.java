@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records latencies into buckets whose upper bounds are powers of 2 nanoseconds, so that recording is a few atomic
+ * increments and allocates nothing, whatever the number of samples. A percentile read from the buckets is therefore
+ * accurate to within a factor of 2, which is enough to see whether delivery is falling behind.
+ *
+ * @author David Sowerby
+ *
+ */
+class LatencyHistogram {
+
+	static final int BUCKETS = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * @param latency
+	 *            in nanoseconds, a negative value is recorded as 0
+	 */
+	void record(long latency) {
+		long value = Math.max(0, latency);
+		buckets.incrementAndGet(bucket(value));
+		count.incrementAndGet();
+		total.addAndGet(value);
+		long current = max.get();
+		while ((value > current) && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * The bucket holding values from 2^(n-1) up to 2^n - 1, with 0 in bucket 0
+	 */
+	static int bucket(long value) {
+		return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+	}
+
+	LatencyDistribution snapshot() {
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+		}
+		return new LatencyDistribution(counts, total.get(), max.get());
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+/**
+ * The result of {@link Broadcaster#broadcast(String, BroadcastPayload)}. A producer which broadcasts in bulk (a
+ * scheduled job, for example) should slow down when it sees {@link #SATURATED}.
+ *
+ * @author David Sowerby
+ *
+ */
+public enum PublishResult {
+	/**
+	 * The message has been queued for delivery
+	 */
+	ACCEPTED,
+	/**
+	 * The message has been queued for delivery, but at least one delivery shard has reached the saturation threshold
+	 * - further messages will wait behind those already queued
+	 */
+	SATURATED,
+	/**
+	 * Server push is disabled, or the {@link Broadcaster} has been shut down - the message has not been broadcast
+	 */
+	DISABLED;
+
+	/**
+	 * True unless the message was not broadcast at all
+	 *
+	 * @return
+	 */
+	public boolean isAccepted() {
+		return this != DISABLED;
+	}
+}
@@ -12,20 +12,22 @@
  */
 package uk.co.q3c.v7.base.push;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 import uk.co.q3c.v7.base.guice.uiscope.UIScoped;
 
+/**
+ * Routes messages within a UI to the {@link PushMessageListener}s registered for them. Groups are hierarchical
+ * topics, and a registration may use wildcards as described for
+ * {@link Broadcaster#register(String, Broadcaster.BroadcastListener)}, so listeners receive only the messages they
+ * want, rather than filtering everything themselves.
+ */
 @UIScoped
 public class PushMessageRouter {
 
 	public static final String ALL_MESSAGES = "all";
 
-	private final Map<String, List<PushMessageListener>> groups = new HashMap<>();
-	private final List<PushMessageListener> allGroup = new ArrayList<>();
+	private final TopicTrie<PushMessageListener> subscriptions = new TopicTrie<>(false);
 
 	/**
 	 * Pass a message to the router for it then to pass it on to its listeners
@@ -34,51 +36,57 @@ public class PushMessageRouter {
 	 * @param message
 	 */
 	public void messageIn(String group, String message) {
-		List<PushMessageListener> listenerGroup = groups.get(group);
-		if (listenerGroup != null) {
+		messageIn(group, BroadcastPayload.ofText(message));
+	}
+
+	/**
+	 * Pass a message to the router for it then to pass it on to its listeners
+	 * 
+	 * @param group
+	 * @param payload
+	 */
+	public void messageIn(String group, BroadcastPayload<?> payload) {
+		messageIn(new BroadcastMessage(group, payload));
+	}
+
+	/**
+	 * Pass a message to the router for it then to pass it on to its listeners. A {@link PushPayloadListener} receives
+	 * the message itself, any other listener receives its group and text.
+	 * 
+	 * @param message
+	 */
+	public void messageIn(BroadcastMessage message) {
+		for (Set<PushMessageListener> listenerGroup : subscriptions.resolve(message.getGroup())) {
 			for (PushMessageListener listener : listenerGroup) {
-				listener.receiveMessage(group, message);
+				if (listener instanceof PushPayloadListener) {
+					((PushPayloadListener) listener).receivePayload(message);
+				} else {
+					listener.receiveMessage(message.getGroup(), message.getMessage());
+				}
 			}
 		}
-		for (PushMessageListener listener : allGroup) {
-			listener.receiveMessage(group, message);
-		}
 	}
 
 	/**
 	 * Register a listener to receive messages for {@code group}. If you want the listener to receive all messages call
-	 * with {@code group}= {@link PushMessageRouter#ALL_MESSAGES}. If you want to register for more than one group, make
-	 * multiple calls.
+	 * with {@code group}= {@link PushMessageRouter#ALL_MESSAGES}. {@code group} may be a hierarchical topic with
+	 * wildcards, for example "orders/eu/*". If you want to register for more than one group, make multiple calls.
+	 * Registering a listener again for the same group has no effect - it still receives each message once, and a
+	 * single call to {@link #unregister(String, PushMessageListener)} removes it.
 	 * 
 	 * @param group
 	 * @param listener
 	 */
 	public void register(String group, PushMessageListener listener) {
-		if (group == ALL_MESSAGES) {
-			allGroup.add(listener);
-		} else {
-			List<PushMessageListener> listenerGroup = groups.get(group);
-			if (listenerGroup == null) {
-				listenerGroup = new ArrayList<>();
-				groups.put(group, listenerGroup);
-			}
-			listenerGroup.add(listener);
-		}
-
+		subscriptions.subscribe(group, listener);
 	}
 
 	/**
-	 * Unregister a listener to receive messages for {@code group}.
+	 * Unregister a listener to receive messages for {@code group}. {@code group} must be the same as when it was
+	 * registered.
 	 */
 	public void unregister(String group, PushMessageListener listener) {
-		if (group == ALL_MESSAGES) {
-			allGroup.remove(listener);
-		} else {
-			List<PushMessageListener> listenerGroup = groups.get(group);
-			if (listenerGroup != null) {
-				listenerGroup.remove(listener);
-			}
-		}
+		subscriptions.unsubscribe(group, listener);
 	}
 
 }
@@ -0,0 +1,27 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+/**
+ * A {@link PushMessageListener} which receives the {@link BroadcastMessage} - including its {@link BroadcastPayload}
+ * and sequence number - rather than its text, so that it can use the value without parsing. The router calls only
+ * {@link #receivePayload(BroadcastMessage)}, a message passed to it as text arrives as a payload whose value is the
+ * text.
+ *
+ * @author David Sowerby
+ *
+ */
+public interface PushPayloadListener extends PushMessageListener {
+
+	void receivePayload(BroadcastMessage message);
+}
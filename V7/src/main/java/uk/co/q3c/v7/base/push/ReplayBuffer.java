@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Keeps the most recent messages for each topic, so that a UI which opens (or reconnects) after a message was
+ * broadcast can still be given it. Each topic has a ring of fixed capacity - parallel arrays of sequence numbers, times
+ * and payloads, indexed by a masked count - so the memory used by a topic does not grow, and recording a message
+ * allocates nothing. The number of topics is also limited; the least recently used topic is discarded to make room for
+ * a new one.
+ *
+ * @author David Sowerby
+ *
+ */
+class ReplayBuffer {
+
+	private static final Comparator<BroadcastMessage> bySequence = new Comparator<BroadcastMessage>() {
+		@Override
+		public int compare(BroadcastMessage o1, BroadcastMessage o2) {
+			return Long.compare(o1.getSequence(), o2.getSequence());
+		}
+	};
+
+	/**
+	 * The recent messages for one topic
+	 */
+	private static class Ring {
+		private final long[] sequences;
+		private final long[] times;
+		private final BroadcastPayload<?>[] payloads;
+		private final int mask;
+		private long count;
+
+		Ring(int capacity) {
+			super();
+			sequences = new long[capacity];
+			times = new long[capacity];
+			payloads = new BroadcastPayload<?>[capacity];
+			mask = capacity - 1;
+		}
+
+		synchronized void add(BroadcastMessage message) {
+			int index = (int) (count++ & mask);
+			sequences[index] = message.getSequence();
+			times[index] = message.getTime();
+			payloads[index] = message.getPayload();
+		}
+
+		synchronized void since(String topic, long sequence, List<BroadcastMessage> result) {
+			long first = Math.max(0, count - sequences.length);
+			for (long i = first; i < count; i++) {
+				int index = (int) (i & mask);
+				if (sequences[index] > sequence) {
+					result.add(new BroadcastMessage(sequences[index], topic, payloads[index], times[index]));
+				}
+			}
+		}
+	}
+
+	private final int capacity;
+	private final Cache<String, Ring> rings;
+
+	/**
+	 * @param capacity
+	 *            the number of messages kept for each topic, rounded up to a power of 2. 0 or less keeps none.
+	 * @param topics
+	 *            the maximum number of topics
+	 */
+	ReplayBuffer(int capacity, int topics) {
+		super();
+		this.capacity = roundUp(capacity);
+		rings = CacheBuilder.newBuilder().maximumSize(Math.max(1, topics)).build();
+	}
+
+	/**
+	 * Rounds {@code capacity} up to a power of 2, at most 2^30, or 0 if it is 0 or less
+	 */
+	static int roundUp(int capacity) {
+		if (capacity <= 0) {
+			return 0;
+		}
+		int c = Math.min(capacity, 1 << 30);
+		return (c == 1) ? 1 : Integer.highestOneBit(c - 1) << 1;
+	}
+
+	void add(BroadcastMessage message) {
+		if (capacity == 0) {
+			return;
+		}
+		String topic = message.getGroup();
+		Ring ring = rings.getIfPresent(topic);
+		if (ring == null) {
+			synchronized (this) {
+				ring = rings.getIfPresent(topic);
+				if (ring == null) {
+					ring = new Ring(capacity);
+					rings.put(topic, ring);
+				}
+			}
+		}
+		ring.add(message);
+	}
+
+	/**
+	 * Returns the messages held for topics matching {@code pattern} with a sequence number greater than
+	 * {@code sequence}, in sequence order
+	 *
+	 * @param pattern
+	 * @param sequence
+	 * @return
+	 */
+	ImmutableList<BroadcastMessage> since(String pattern, long sequence) {
+		List<BroadcastMessage> result = new ArrayList<>();
+		for (Map.Entry<String, Ring> entry : rings.asMap().entrySet()) {
+			if (TopicTrie.matches(pattern, entry.getKey())) {
+				entry.getValue().since(entry.getKey(), sequence, result);
+			}
+		}
+		Collections.sort(result, bySequence);
+		return ImmutableList.copyOf(result);
+	}
+
+	int getCapacity() {
+		return capacity;
+	}
+
+}
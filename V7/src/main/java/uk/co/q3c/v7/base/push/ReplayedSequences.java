@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The sequence numbers of the messages replayed to a recipient by {@link Broadcaster#replay(String, long)}, so that
+ * the live copy of a message which has already been replayed can be recognised and skipped. A recipient registers
+ * before it replays, so a message broadcast in between may reach it both ways.
+ * <p>
+ * Only the sequences actually replayed are skipped - a live message which was not replayed, because it is for a topic
+ * which was not replayed or had already left the replay buffer, is still delivered, whatever its sequence number.
+ * Live messages reach a recipient in sequence order, so once one arrives which is newer than anything replayed, the
+ * replayed sequences are no longer needed and are discarded.
+ * <p>
+ * Not thread safe; a UI uses it with the session locked.
+ *
+ * @author David Sowerby
+ *
+ */
+public class ReplayedSequences {
+
+	private final Set<Long> sequences = new HashSet<>();
+	private long last;
+
+	/**
+	 * Records that {@code message} has been replayed
+	 * 
+	 * @param message
+	 */
+	public void replayed(BroadcastMessage message) {
+		long sequence = message.getSequence();
+		if (sequence > 0) {
+			sequences.add(sequence);
+			last = Math.max(last, sequence);
+		}
+	}
+
+	/**
+	 * Returns true if {@code message}, which has arrived live, has already been replayed
+	 * 
+	 * @param message
+	 * @return
+	 */
+	public boolean isRepeat(BroadcastMessage message) {
+		if (sequences.isEmpty()) {
+			return false;
+		}
+		long sequence = message.getSequence();
+		if (sequences.remove(sequence)) {
+			return true;
+		}
+		if (sequence > last) {
+			sequences.clear();
+		}
+		return false;
+	}
+
+	/**
+	 * The highest sequence number replayed, or 0 if there has been none
+	 * 
+	 * @return
+	 */
+	public long getLast() {
+		return last;
+	}
+
+	/**
+	 * The number of replayed sequences still held, waiting for a live copy or a newer message
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return sequences.size();
+	}
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.MapMaker;
+
+/**
+ * Subscriptions to hierarchical topics, held as a trie with one level per topic segment. Segments are separated by
+ * {@link #SEPARATOR}, and a subscription may use wildcards: {@link #ANY_SEGMENT} matches exactly one segment, and
+ * {@link #ANY_SEGMENTS}, which may only be the last segment, matches any number of segments (including none). So
+ * "orders/eu/*" matches "orders/eu/fr" but not "orders/eu/fr/paris", which "orders/eu/**" matches. The group
+ * {@link Broadcaster#ALL_MESSAGES} is equivalent to "**". A topic without a separator is a single segment, so plain
+ * group names behave as they always have.
+ * <p>
+ * {@link #resolve(String)} returns the subscriber sets of every subscription matching a topic. The result is cached by
+ * topic until the subscriptions change, so that publishing to the same topic repeatedly does not walk the trie each
+ * time. The subscriber sets themselves are live, so listeners which are added to an existing subscription, or are
+ * garbage collected from a weak one, are seen without invalidating the cache. A listener which has more than one
+ * matching subscription appears in more than one set, and receives the message once for each.
+ * <p>
+ * Topic strings are interned, so that the many routers holding the same topics share them.
+ * <p>
+ * Changes to the subscriptions are synchronized, resolution from the cache is not.
+ *
+ * @author David Sowerby
+ *
+ * @param <L>
+ *            the listener type
+ */
+class TopicTrie<L> {
+
+	public static final String SEPARATOR = "/";
+	public static final String ANY_SEGMENT = "*";
+	public static final String ANY_SEGMENTS = "**";
+
+	private static final int MAX_CACHED_TOPICS = 1000;
+	private static final Splitter splitter = Splitter.on(SEPARATOR);
+	private static final Interner<String> topics = Interners.newWeakInterner();
+
+	private class Node {
+		private final Map<String, Node> children = new HashMap<>();
+		private Node anySegment;
+		private Node anySegments;
+		private Set<L> subscribers;
+
+		Set<L> subscribers() {
+			if (subscribers == null) {
+				subscribers = newSubscriberSet();
+				allSubscribers.add(subscribers);
+			}
+			return subscribers;
+		}
+
+		Node child(String segment) {
+			switch (segment) {
+			case ANY_SEGMENT:
+				if (anySegment == null) {
+					anySegment = new Node();
+				}
+				return anySegment;
+			case ANY_SEGMENTS:
+				if (anySegments == null) {
+					anySegments = new Node();
+				}
+				return anySegments;
+			default:
+				Node child = children.get(segment);
+				if (child == null) {
+					child = new Node();
+					children.put(topics.intern(segment), child);
+				}
+				return child;
+			}
+		}
+
+		void remove(String segment) {
+			switch (segment) {
+			case ANY_SEGMENT:
+				anySegment = null;
+				break;
+			case ANY_SEGMENTS:
+				anySegments = null;
+				break;
+			default:
+				children.remove(segment);
+			}
+		}
+
+		boolean isEmpty() {
+			return (subscribers == null) && children.isEmpty() && (anySegment == null) && (anySegments == null);
+		}
+
+		Node find(String segment) {
+			switch (segment) {
+			case ANY_SEGMENT:
+				return anySegment;
+			case ANY_SEGMENTS:
+				return anySegments;
+			default:
+				return children.get(segment);
+			}
+		}
+	}
+
+	private final boolean weak;
+	private final Node root = new Node();
+	private final List<Set<L>> allSubscribers = new CopyOnWriteArrayList<>();
+	private final Cache<String, ImmutableList<Set<L>>> resolved = CacheBuilder.newBuilder()
+			.maximumSize(MAX_CACHED_TOPICS).build();
+
+	/**
+	 * @param weak
+	 *            if true, subscribers are held weakly and compared by identity, and the subscriber sets support removal
+	 *            during iteration. Otherwise subscribers are held strongly, in the order in which they subscribed.
+	 */
+	TopicTrie(boolean weak) {
+		super();
+		this.weak = weak;
+	}
+
+	private Set<L> newSubscriberSet() {
+		if (weak) {
+			return Collections.newSetFromMap(new MapMaker().weakKeys().<L, Boolean> makeMap());
+		}
+		return new CopyOnWriteArraySet<>();
+	}
+
+	synchronized void subscribe(String pattern, L listener) {
+		List<String> segments = segments(pattern);
+		for (int i = 0; i < segments.size() - 1; i++) {
+			if (segments.get(i).equals(ANY_SEGMENTS)) {
+				throw new IllegalArgumentException(ANY_SEGMENTS + " can only be the last segment of " + pattern);
+			}
+		}
+		Node node = root;
+		for (String segment : segments) {
+			node = node.child(segment);
+		}
+		if (node.subscribers == null) {
+			// a new subscriber set may match topics already resolved
+			node.subscribers();
+			resolved.invalidateAll();
+		}
+		node.subscribers.add(listener);
+	}
+
+	/**
+	 * Removes {@code listener} from the subscription {@code pattern}. When that leaves the subscription empty, its
+	 * subscriber set is discarded, along with any nodes which no longer lead to a subscription, so that topics which
+	 * come and go do not accumulate in the trie.
+	 *
+	 * @param pattern
+	 * @param listener
+	 */
+	synchronized void unsubscribe(String pattern, L listener) {
+		List<String> segments = segments(pattern);
+		List<Node> path = new ArrayList<>();
+		Node node = root;
+		for (String segment : segments) {
+			path.add(node);
+			node = node.find(segment);
+			if (node == null) {
+				return;
+			}
+		}
+		if ((node.subscribers == null) || !node.subscribers.remove(listener) || !node.subscribers.isEmpty()) {
+			return;
+		}
+		removeSubscriberSet(node.subscribers);
+		node.subscribers = null;
+		for (int i = segments.size() - 1; (i >= 0) && node.isEmpty(); i--) {
+			node = path.get(i);
+			node.remove(segments.get(i));
+		}
+		// cached results may still refer to the discarded set
+		resolved.invalidateAll();
+	}
+
+	/**
+	 * Discards every subscriber set which has no subscribers, and the nodes which then no longer lead to a
+	 * subscription. In a weak trie, a set can be emptied by garbage collection without anything being unsubscribed, and
+	 * would otherwise be kept, and walked by {@link #allSubscribers()}, for ever.
+	 *
+	 * @return the number of subscriber sets discarded
+	 */
+	synchronized int prune() {
+		int removed = prune(root);
+		if (removed > 0) {
+			// cached results may still refer to the discarded sets
+			resolved.invalidateAll();
+		}
+		return removed;
+	}
+
+	private int prune(Node node) {
+		int removed = 0;
+		// by iteration, as the size of a weak set includes subscribers which have been collected
+		if ((node.subscribers != null) && !node.subscribers.iterator().hasNext()) {
+			removeSubscriberSet(node.subscribers);
+			node.subscribers = null;
+			removed++;
+		}
+		Iterator<Node> children = node.children.values().iterator();
+		while (children.hasNext()) {
+			Node child = children.next();
+			removed += prune(child);
+			if (child.isEmpty()) {
+				children.remove();
+			}
+		}
+		if (node.anySegment != null) {
+			removed += prune(node.anySegment);
+			if (node.anySegment.isEmpty()) {
+				node.anySegment = null;
+			}
+		}
+		if (node.anySegments != null) {
+			removed += prune(node.anySegments);
+			if (node.anySegments.isEmpty()) {
+				node.anySegments = null;
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes {@code subscribers} by identity, as any two empty sets are equal - and a weak set whose listeners have
+	 * all been collected is empty without having been unsubscribed
+	 */
+	private void removeSubscriberSet(Set<L> subscribers) {
+		for (int i = 0; i < allSubscribers.size(); i++) {
+			if (allSubscribers.get(i) == subscribers) {
+				allSubscribers.remove(i);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the subscriber sets of all the subscriptions which match {@code topic}. Wildcards in {@code topic} are
+	 * not expanded.
+	 *
+	 * @param topic
+	 * @return
+	 */
+	ImmutableList<Set<L>> resolve(String topic) {
+		ImmutableList<Set<L>> result = resolved.getIfPresent(topic);
+		if (result != null) {
+			return result;
+		}
+		synchronized (this) {
+			result = resolved.getIfPresent(topic);
+			if (result == null) {
+				List<Set<L>> matches = new ArrayList<>();
+				List<String> segments = new ArrayList<>();
+				for (String segment : splitter.split(topic)) {
+					segments.add(segment);
+				}
+				match(root, segments, 0, matches);
+				result = ImmutableList.copyOf(matches);
+				resolved.put(topics.intern(topic), result);
+			}
+			return result;
+		}
+	}
+
+	private void match(Node node, List<String> segments, int index, List<Set<L>> matches) {
+		if ((node.anySegments != null) && (node.anySegments.subscribers != null)) {
+			matches.add(node.anySegments.subscribers);
+		}
+		if (index == segments.size()) {
+			if (node.subscribers != null) {
+				matches.add(node.subscribers);
+			}
+			return;
+		}
+		Node child = node.children.get(segments.get(index));
+		if (child != null) {
+			match(child, segments, index + 1, matches);
+		}
+		if (node.anySegment != null) {
+			match(node.anySegment, segments, index + 1, matches);
+		}
+	}
+
+	private static List<String> segments(String pattern) {
+		List<String> segments = new ArrayList<>();
+		if (Broadcaster.ALL_MESSAGES.equals(pattern)) {
+			segments.add(ANY_SEGMENTS);
+			return segments;
+		}
+		for (String segment : splitter.split(pattern)) {
+			segments.add(segment);
+		}
+		return segments;
+	}
+
+	/**
+	 * Returns true if {@code topic} matches the subscription {@code pattern}, by the same rules as
+	 * {@link #resolve(String)} - for use where there are topics to test rather than subscriptions to look up
+	 *
+	 * @param pattern
+	 * @param topic
+	 * @return
+	 */
+	static boolean matches(String pattern, String topic) {
+		List<String> patternSegments = segments(pattern);
+		List<String> topicSegments = new ArrayList<>();
+		for (String segment : splitter.split(topic)) {
+			topicSegments.add(segment);
+		}
+		int last = patternSegments.size() - 1;
+		boolean anySegments = patternSegments.get(last).equals(ANY_SEGMENTS);
+		int fixed = anySegments ? last : patternSegments.size();
+		if ((topicSegments.size() < fixed) || (!anySegments && (topicSegments.size() > fixed))) {
+			return false;
+		}
+		for (int i = 0; i < fixed; i++) {
+			String segment = patternSegments.get(i);
+			if (!segment.equals(ANY_SEGMENT) && !segment.equals(topicSegments.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns every subscriber set, whether or not it has subscribers
+	 *
+	 * @return
+	 */
+	List<Set<L>> allSubscribers() {
+		return allSubscribers;
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Encodes a batch of {@link BroadcastEnvelope}s as bytes, for a {@link BroadcastTransport}. The format is a version
+ * byte and a count, followed by each envelope as binary fields, with the group and message as length prefixed UTF-8.
+ * There is no per-field naming, so a batch of small messages is little larger than the text it carries.
+ * <p>
+ * Data read from a transport may be truncated or corrupt, so every count and length is checked against the bytes
+ * remaining (and a string against {@link #MAX_STRING_BYTES}) before anything is allocated for it.
+ *
+ * @author David Sowerby
+ *
+ */
+public final class BroadcastCodec {
+
+	private static final byte VERSION = 1;
+	/**
+	 * The smallest encoded envelope: origin, sequence, timestamp and two empty strings
+	 */
+	private static final int MIN_ENVELOPE_BYTES = 16 + 8 + 8 + 4 + 4;
+	/**
+	 * The largest group or message which will be decoded
+	 */
+	public static final int MAX_STRING_BYTES = 16 * 1024 * 1024;
+
+	private BroadcastCodec() {
+		super();
+	}
+
+	public static byte[] encode(List<BroadcastEnvelope> batch) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * batch.size());
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(VERSION);
+			out.writeInt(batch.size());
+			for (BroadcastEnvelope envelope : batch) {
+				out.writeLong(envelope.getOrigin().getMostSignificantBits());
+				out.writeLong(envelope.getOrigin().getLeastSignificantBits());
+				out.writeLong(envelope.getSequence());
+				out.writeLong(envelope.getTimestamp());
+				writeString(out, envelope.getGroup());
+				writeString(out, envelope.getMessage());
+			}
+		} catch (IOException e) {
+			// cannot happen writing to memory
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * @param data
+	 * @return
+	 * @throws IOException
+	 *             if {@code data} is not a batch in a format this version can read, or is truncated or corrupt
+	 */
+	public static ImmutableList<BroadcastEnvelope> decode(byte[] data) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			byte version = in.readByte();
+			if (version != VERSION) {
+				throw new IOException("Unsupported broadcast batch version " + version);
+			}
+			int count = in.readInt();
+			if ((count < 0) || (count > in.available() / MIN_ENVELOPE_BYTES)) {
+				throw new IOException("Invalid broadcast batch count " + count + " for " + data.length + " bytes");
+			}
+			List<BroadcastEnvelope> batch = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				UUID origin = new UUID(in.readLong(), in.readLong());
+				long sequence = in.readLong();
+				long timestamp = in.readLong();
+				String group = readString(in);
+				String message = readString(in);
+				batch.add(new BroadcastEnvelope(origin, sequence, timestamp, group, message));
+			}
+			return ImmutableList.copyOf(batch);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if ((length < 0) || (length > MAX_STRING_BYTES) || (length > in.available())) {
+			throw new IOException("Invalid broadcast string length " + length);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
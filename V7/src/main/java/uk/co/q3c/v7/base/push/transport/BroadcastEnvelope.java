@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push.transport;
+
+import java.util.UUID;
+
+import uk.co.q3c.v7.base.push.BroadcastPayload;
+
+/**
+ * A broadcast message as sent between nodes. The id - the originating node and its sequence number for the message -
+ * identifies the message on every node, so that a message received more than once is delivered only once.
+ * <p>
+ * An envelope created from a {@link BroadcastPayload} does not format it until the text is needed, so that
+ * formatting happens on the publishing thread rather than the broadcasting one.
+ *
+ * @author David Sowerby
+ *
+ */
+public class BroadcastEnvelope {
+
+	private final UUID origin;
+	private final long sequence;
+	private final long timestamp;
+	private final String group;
+	private final BroadcastPayload<?> payload;
+
+	public BroadcastEnvelope(UUID origin, long sequence, long timestamp, String group, String message) {
+		this(origin, sequence, timestamp, group, BroadcastPayload.ofText(message));
+	}
+
+	public BroadcastEnvelope(UUID origin, long sequence, long timestamp, String group, BroadcastPayload<?> payload) {
+		super();
+		this.origin = origin;
+		this.sequence = sequence;
+		this.timestamp = timestamp;
+		this.group = group;
+		this.payload = payload;
+	}
+
+	public UUID getOrigin() {
+		return origin;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * The time at which the message was broadcast, in milliseconds, by the clock of the originating node
+	 *
+	 * @return
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public String getGroup() {
+		return group;
+	}
+
+	public String getMessage() {
+		return payload.getText();
+	}
+
+	public String getId() {
+		return origin + ":" + sequence;
+	}
+
+	@Override
+	public String toString() {
+		return getId() + " " + group + ":" + getMessage();
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push.transport;
+
+import java.io.IOException;
+
+/**
+ * Carries encoded batches of broadcast messages between the nodes of a cluster. A transport only moves bytes: the
+ * {@link BroadcastTransportService} encodes, batches and deduplicates messages, so an implementation need not deliver
+ * exactly once, or preserve order between batches. An implementation should not return a batch to the node which
+ * published it, though if it does the batch is ignored.
+ *
+ * @author David Sowerby
+ *
+ */
+public interface BroadcastTransport {
+
+	/**
+	 * Receives batches published by other nodes
+	 */
+	interface Receiver {
+		void receive(byte[] batch);
+	}
+
+	/**
+	 * Starts receiving. Batches published by other nodes from now on are passed to {@code receiver}
+	 *
+	 * @param receiver
+	 * @throws IOException
+	 */
+	void open(Receiver receiver) throws IOException;
+
+	/**
+	 * Sends a batch to all other nodes
+	 *
+	 * @param batch
+	 * @throws IOException
+	 */
+	void publish(byte[] batch) throws IOException;
+
+	/**
+	 * Stops receiving and releases any resources
+	 *
+	 * @throws IOException
+	 */
+	void close() throws IOException;
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push.transport;
+
+import com.google.inject.AbstractModule;
+
+/**
+ * The Guice module used to configure the {@link BroadcastTransportService} and the {@link BroadcastTransport} it uses
+ *
+ * @author David Sowerby
+ *
+ */
+public class BroadcastTransportModule extends AbstractModule {
+
+	@Override
+	protected void configure() {
+		bindTransport();
+		bindTransportService();
+	}
+
+	/**
+	 * Override this method to use a different {@link BroadcastTransport}, for example {@link FileBroadcastTransport}
+	 * to test several nodes on one machine, or your own implementation for a cluster
+	 */
+	protected void bindTransport() {
+		bind(BroadcastTransport.class).to(LoopbackBroadcastTransport.class);
+	}
+
+	/**
+	 * Override this method to provide your own implementation of {@link BroadcastTransportService}
+	 */
+	protected void bindTransportService() {
+		bind(BroadcastTransportService.class).to(DefaultBroadcastTransportService.class);
+	}
+
+}
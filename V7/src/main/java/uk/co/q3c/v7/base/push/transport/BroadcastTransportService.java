@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push.transport;
+
+import java.util.UUID;
+
+import uk.co.q3c.v7.base.push.Broadcaster;
+import uk.co.q3c.v7.base.services.ServiceI18N;
+
+/**
+ * Connects the {@link Broadcaster} of this node to those of other nodes through a {@link BroadcastTransport}. While
+ * the service is started, messages broadcast on this node are published to other nodes, and messages published by
+ * other nodes are delivered to listeners on this node.
+ *
+ * @author David Sowerby
+ *
+ */
+public interface BroadcastTransportService extends ServiceI18N {
+
+	/**
+	 * The identity of this node, carried by every message it publishes
+	 *
+	 * @return
+	 */
+	UUID getNodeId();
+
+	/**
+	 * The number of messages published to other nodes
+	 *
+	 * @return
+	 */
+	long getPublished();
+
+	/**
+	 * The number of batches published to other nodes
+	 *
+	 * @return
+	 */
+	long getBatches();
+
+	/**
+	 * The number of messages received from other nodes and delivered on this node
+	 *
+	 * @return
+	 */
+	long getReceived();
+
+	/**
+	 * The number of messages received which had already been received, or originated on this node, and were ignored
+	 *
+	 * @return
+	 */
+	long getDuplicates();
+
+	/**
+	 * The number of messages which could not be published, because the transport failed or the queue was full
+	 *
+	 * @return
+	 */
+	long getDropped();
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push.transport;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.q3c.v7.base.config.ApplicationConfiguration;
+import uk.co.q3c.v7.base.config.ApplicationConfigurationService;
+import uk.co.q3c.v7.base.config.ConfigKeys;
+import uk.co.q3c.v7.base.push.BroadcastPayload;
+import uk.co.q3c.v7.base.push.Broadcaster;
+import uk.co.q3c.v7.base.push.Broadcaster.Relay;
+import uk.co.q3c.v7.base.services.AbstractServiceI18N;
+import uk.co.q3c.v7.base.services.Dependency;
+import uk.co.q3c.v7.i18n.DescriptionKey;
+import uk.co.q3c.v7.i18n.LabelKey;
+import uk.co.q3c.v7.i18n.Translate;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Default implementation for {@link BroadcastTransportService}.
+ * <p>
+ * Messages broadcast on this node are queued (up to {@link #queueCapacity()}, beyond which they are dropped) and
+ * published by a daemon thread in batches. A batch is published when it reaches
+ * {@link ConfigKeys#PUSH_TRANSPORT_BATCH_SIZE} messages (default 100), or
+ * {@link ConfigKeys#PUSH_TRANSPORT_BATCH_WINDOW} milliseconds (default 5) after its first message, whichever is
+ * sooner.
+ * <p>
+ * Received messages are ignored if they originated on this node, or if their id is one of the last
+ * {@link #dedupCapacity()} received.
+ *
+ * @author David Sowerby
+ *
+ */
+@Singleton
+public class DefaultBroadcastTransportService extends AbstractServiceI18N implements BroadcastTransportService, Relay,
+		BroadcastTransport.Receiver {
+
+	private static Logger log = LoggerFactory.getLogger(DefaultBroadcastTransportService.class);
+
+	@Dependency
+	private final ApplicationConfigurationService configurationService;
+	private final ApplicationConfiguration configuration;
+	private final Broadcaster broadcaster;
+	private final BroadcastTransport transport;
+	private final UUID nodeId = UUID.randomUUID();
+	private final AtomicLong sequence = new AtomicLong();
+	private final BlockingQueue<BroadcastEnvelope> outgoing;
+	private final Set<String> recentIds;
+	private final AtomicLong published = new AtomicLong();
+	private final AtomicLong batches = new AtomicLong();
+	private final AtomicLong received = new AtomicLong();
+	private final AtomicLong duplicates = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private Thread publishThread;
+
+	@Inject
+	protected DefaultBroadcastTransportService(Translate translate,
+			ApplicationConfigurationService configurationService, ApplicationConfiguration configuration,
+			Broadcaster broadcaster, BroadcastTransport transport) {
+		super(translate);
+		this.configurationService = configurationService;
+		this.configuration = configuration;
+		this.broadcaster = broadcaster;
+		this.transport = transport;
+		outgoing = new LinkedBlockingQueue<>(queueCapacity());
+		final int dedupCapacity = dedupCapacity();
+		recentIds = Collections.newSetFromMap(new LinkedHashMap<String, Boolean>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+				return size() > dedupCapacity;
+			}
+		});
+		configure();
+	}
+
+	/**
+	 * Override this method if you want to change the name or description keys.
+	 */
+	protected void configure() {
+		setNameKey(LabelKey.Broadcast_Transport_Service);
+		setDescriptionKey(DescriptionKey.Broadcast_Transport_Service);
+	}
+
+	/**
+	 * The maximum number of messages waiting to be published. Override to change it.
+	 *
+	 * @return
+	 */
+	protected int queueCapacity() {
+		return 10000;
+	}
+
+	/**
+	 * The number of recently received message ids remembered to detect duplicates. Override to change it.
+	 *
+	 * @return
+	 */
+	protected int dedupCapacity() {
+		return 10000;
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		final int batchSize = Math.max(1, configuration.getInt(ConfigKeys.PUSH_TRANSPORT_BATCH_SIZE, 100));
+		final long batchWindow = TimeUnit.MILLISECONDS.toNanos(configuration.getLong(
+				ConfigKeys.PUSH_TRANSPORT_BATCH_WINDOW, 5));
+		transport.open(this);
+		publishThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				publish(batchSize, batchWindow);
+			}
+		}, "V7 broadcast publisher");
+		publishThread.setDaemon(true);
+		publishThread.start();
+		broadcaster.setRelay(this);
+		log.info("Broadcast transport started for node {} using {}", nodeId, transport.getClass().getSimpleName());
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		broadcaster.setRelay(null);
+		if (publishThread != null) {
+			publishThread.interrupt();
+			publishThread.join(1000);
+			publishThread = null;
+		}
+		transport.close();
+		outgoing.clear();
+	}
+
+	@Override
+	public void relay(String group, BroadcastPayload<?> payload) {
+		BroadcastEnvelope envelope = new BroadcastEnvelope(nodeId, sequence.incrementAndGet(),
+				System.currentTimeMillis(), group, payload);
+		if (!outgoing.offer(envelope)) {
+			dropped.incrementAndGet();
+			log.warn("Broadcast publish queue is full, message {} not published to other nodes", envelope.getId());
+		}
+	}
+
+	private void publish(int batchSize, long batchWindow) {
+		try {
+			while (true) {
+				List<BroadcastEnvelope> batch = new ArrayList<>(batchSize);
+				batch.add(outgoing.take());
+				long deadline = System.nanoTime() + batchWindow;
+				while (batch.size() < batchSize) {
+					long remaining = deadline - System.nanoTime();
+					BroadcastEnvelope envelope = (remaining > 0) ? outgoing.poll(remaining, TimeUnit.NANOSECONDS)
+							: outgoing.poll();
+					if (envelope == null) {
+						break;
+					}
+					batch.add(envelope);
+				}
+				try {
+					transport.publish(BroadcastCodec.encode(batch));
+					batches.incrementAndGet();
+					published.addAndGet(batch.size());
+				} catch (IOException | RuntimeException e) {
+					dropped.addAndGet(batch.size());
+					log.error("Unable to publish " + batch.size() + " broadcast messages", e);
+				}
+			}
+		} catch (InterruptedException e) {
+			log.debug("Broadcast publisher stopped");
+		}
+	}
+
+	@Override
+	public void receive(byte[] data) {
+		List<BroadcastEnvelope> batch;
+		try {
+			batch = BroadcastCodec.decode(data);
+		} catch (IOException e) {
+			log.error("Unable to decode broadcast batch of " + data.length + " bytes", e);
+			return;
+		}
+		for (BroadcastEnvelope envelope : batch) {
+			if (nodeId.equals(envelope.getOrigin()) || !firstReceipt(envelope.getId())) {
+				duplicates.incrementAndGet();
+				continue;
+			}
+			received.incrementAndGet();
+			broadcaster.deliverLocally(envelope.getGroup(), envelope.getMessage());
+		}
+	}
+
+	private boolean firstReceipt(String id) {
+		synchronized (recentIds) {
+			return recentIds.add(id);
+		}
+	}
+
+	@Override
+	public UUID getNodeId() {
+		return nodeId;
+	}
+
+	@Override
+	public long getPublished() {
+		return published.get();
+	}
+
+	@Override
+	public long getBatches() {
+		return batches.get();
+	}
+
+	@Override
+	public long getReceived() {
+		return received.get();
+	}
+
+	@Override
+	public long getDuplicates() {
+		return duplicates.get();
+	}
+
+	@Override
+	public long getDropped() {
+		return dropped.get();
+	}
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push.transport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.q3c.v7.base.config.ApplicationConfiguration;
+import uk.co.q3c.v7.base.config.ConfigKeys;
+
+import com.google.inject.Inject;
+
+/**
+ * A {@link BroadcastTransport} which exchanges batches as files in a shared directory, intended for testing several
+ * nodes (separate JVMs) on one machine. The directory is taken from the application configuration (
+ * {@link ConfigKeys#PUSH_TRANSPORT_DIRECTORY}), and defaults to "v7-broadcast" in the system temporary directory.
+ * <p>
+ * Each batch is written to a temporary file and then renamed, so that a reader never sees part of a batch. A daemon
+ * thread polls the directory every {@link #pollInterval()} and reads files from other nodes which it has not seen
+ * before. Files which were present when the transport was opened are ignored. Each node deletes its own files once
+ * they are older than {@link #retention()}, by which time other nodes are expected to have read them.
+ *
+ * @author David Sowerby
+ *
+ */
+public class FileBroadcastTransport implements BroadcastTransport {
+	private static Logger log = LoggerFactory.getLogger(FileBroadcastTransport.class);
+
+	private static final String SUFFIX = ".batch";
+
+	private final File directory;
+	private final String prefix = UUID.randomUUID().toString() + "-";
+	private final AtomicLong sequence = new AtomicLong();
+	private final Set<String> seen = new HashSet<>();
+	private volatile Thread pollThread;
+
+	@Inject
+	public FileBroadcastTransport(ApplicationConfiguration configuration) {
+		this(new File(configuration.getString(ConfigKeys.PUSH_TRANSPORT_DIRECTORY, new File(
+				System.getProperty("java.io.tmpdir"), "v7-broadcast").getAbsolutePath())));
+	}
+
+	public FileBroadcastTransport(File directory) {
+		super();
+		this.directory = directory;
+	}
+
+	@Override
+	public void open(final Receiver receiver) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Unable to create broadcast directory " + directory.getAbsolutePath());
+		}
+		for (String name : list()) {
+			seen.add(name);
+		}
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				poll(receiver);
+			}
+		}, "V7 file broadcast transport");
+		thread.setDaemon(true);
+		pollThread = thread;
+		thread.start();
+	}
+
+	private String[] list() {
+		String[] names = directory.list();
+		return (names == null) ? new String[0] : names;
+	}
+
+	private void poll(Receiver receiver) {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				Set<String> present = new HashSet<>();
+				for (String name : list()) {
+					if (!name.endsWith(SUFFIX)) {
+						continue;
+					}
+					present.add(name);
+					if (name.startsWith(prefix)) {
+						deleteIfExpired(new File(directory, name));
+					} else if (seen.add(name)) {
+						read(receiver, new File(directory, name));
+					}
+				}
+				// forget files which have been deleted, so that the set does not grow
+				seen.retainAll(present);
+				Thread.sleep(pollInterval());
+			}
+		} catch (InterruptedException e) {
+			log.debug("File broadcast transport stopped");
+		}
+	}
+
+	private void read(Receiver receiver, File file) {
+		try {
+			receiver.receive(Files.readAllBytes(file.toPath()));
+		} catch (IOException e) {
+			// the originating node may have deleted it already
+			log.debug("Unable to read broadcast batch {}", file.getName());
+		} catch (RuntimeException e) {
+			log.error("Broadcast receiver failed on batch " + file.getName(), e);
+		}
+	}
+
+	private void deleteIfExpired(File file) {
+		if ((System.currentTimeMillis() - file.lastModified()) > retention()) {
+			if (!file.delete()) {
+				log.debug("Unable to delete broadcast batch {}", file.getName());
+			}
+		}
+	}
+
+	@Override
+	public void publish(byte[] batch) throws IOException {
+		String name = prefix + sequence.incrementAndGet();
+		File temp = new File(directory, name + ".tmp");
+		Files.write(temp.toPath(), batch);
+		Files.move(temp.toPath(), new File(directory, name + SUFFIX).toPath(), StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	@Override
+	public void close() throws IOException {
+		Thread thread = pollThread;
+		if (thread != null) {
+			thread.interrupt();
+			try {
+				thread.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			pollThread = null;
+		}
+		for (String name : list()) {
+			if (name.startsWith(prefix)) {
+				new File(directory, name).delete();
+			}
+		}
+	}
+
+	/**
+	 * The time between polls of the directory, in milliseconds. Override to change it.
+	 *
+	 * @return
+	 */
+	protected long pollInterval() {
+		return 20;
+	}
+
+	/**
+	 * The time for which a node keeps the files it has published, in milliseconds. Override to change it.
+	 *
+	 * @return
+	 */
+	protected long retention() {
+		return 10000;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push.transport;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.inject.Inject;
+
+/**
+ * A {@link BroadcastTransport} between nodes in the same JVM, connected by a {@link Hub}. A batch is passed directly to
+ * the receiver of every other open transport on the hub, on the publishing thread.
+ * <p>
+ * With a single node this does nothing, so it is the default transport. It is also useful for testing several nodes
+ * in one JVM, each with its own hub member.
+ *
+ * @author David Sowerby
+ *
+ */
+public class LoopbackBroadcastTransport implements BroadcastTransport {
+
+	/**
+	 * Connects loopback transports
+	 */
+	public static class Hub {
+		private final List<LoopbackBroadcastTransport> members = new CopyOnWriteArrayList<>();
+	}
+
+	private static final Hub DEFAULT_HUB = new Hub();
+
+	private final Hub hub;
+	private volatile Receiver receiver;
+
+	/**
+	 * Creates a transport on the hub shared by the JVM
+	 */
+	@Inject
+	public LoopbackBroadcastTransport() {
+		this(DEFAULT_HUB);
+	}
+
+	public LoopbackBroadcastTransport(Hub hub) {
+		super();
+		this.hub = hub;
+	}
+
+	@Override
+	public void open(Receiver receiver) {
+		this.receiver = receiver;
+		hub.members.add(this);
+	}
+
+	@Override
+	public void publish(byte[] batch) {
+		for (LoopbackBroadcastTransport member : hub.members) {
+			Receiver memberReceiver = member.receiver;
+			if ((member != this) && (memberReceiver != null)) {
+				memberReceiver.receive(batch);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		hub.members.remove(this);
+		receiver = null;
+	}
+
+}
@@ -47,7 +47,7 @@ public abstract class AbstractServiceI18N extends AbstractService implements Ser
 
 	@Override
 	public String getName() {
-		return translate.from(nameKey);
+		return translate.fromNoArgs(nameKey);
 	}
 
 	/**
@@ -61,7 +61,7 @@ public abstract class AbstractServiceI18N extends AbstractService implements Ser
 		if (descriptionKey == null) {
 			return "";
 		}
-		return translate.from(descriptionKey);
+		return translate.fromNoArgs(descriptionKey);
 	}
 
 	@Override
@@ -56,7 +56,7 @@ public class DefaultSubjectIdentifier implements SubjectIdentifier {
 		Subject subject = subjectProvider.get();
 		boolean authenticated = subject.isAuthenticated();
 		boolean remembered = subject.isRemembered();
-		String name = (authenticated) ? subject.getPrincipal().toString() : translate.from(LabelKey.Guest);
+		String name = (authenticated) ? subject.getPrincipal().toString() : translate.fromNoArgs(LabelKey.Guest);
 		name = (remembered) ? subject.getPrincipal().toString() + "?" : name;
 		return name;
 
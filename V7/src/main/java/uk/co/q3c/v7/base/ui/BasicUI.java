@@ -1,6 +1,7 @@
 package uk.co.q3c.v7.base.ui;
 
 import uk.co.q3c.v7.base.navigate.V7Navigator;
+import uk.co.q3c.v7.base.push.BroadcastMessage;
 import uk.co.q3c.v7.base.push.Broadcaster;
 import uk.co.q3c.v7.base.push.PushMessageRouter;
 import uk.co.q3c.v7.i18n.Translate;
@@ -35,7 +36,7 @@ public class BasicUI extends ScopedUI {
 	}
 
 	@Override
-	protected void processBroadcastMessage(String group, String message) {
+	protected void processBroadcast(BroadcastMessage message) {
 		// TODO Auto-generated method stub
 
 	}
@@ -20,9 +20,12 @@ import uk.co.q3c.v7.base.guice.uiscope.UIKey;
 import uk.co.q3c.v7.base.guice.uiscope.UIScope;
 import uk.co.q3c.v7.base.guice.uiscope.UIScoped;
 import uk.co.q3c.v7.base.navigate.V7Navigator;
+import uk.co.q3c.v7.base.push.BroadcastInbox;
+import uk.co.q3c.v7.base.push.BroadcastMessage;
 import uk.co.q3c.v7.base.push.Broadcaster;
-import uk.co.q3c.v7.base.push.Broadcaster.BroadcastListener;
+import uk.co.q3c.v7.base.push.Broadcaster.PayloadListener;
 import uk.co.q3c.v7.base.push.PushMessageRouter;
+import uk.co.q3c.v7.base.push.ReplayedSequences;
 import uk.co.q3c.v7.base.view.V7View;
 import uk.co.q3c.v7.base.view.V7ViewHolder;
 import uk.co.q3c.v7.i18n.Translate;
@@ -42,15 +45,33 @@ import com.vaadin.ui.UI;
 /**
  * The base class for all V7 UIs, it provides an essential part of the {@link UIScoped} mechanism. It also provides
  * support for Vaadin Server Push (but only if you annotate your sub-class with {@link Push}), by capturing broadcast
- * messages in {@link #processBroadcastMessage(String, String)} and passing them to the {@link PushMessageRouter}. For a
+ * messages in {@link #processBroadcast(BroadcastMessage)} and passing them to the {@link PushMessageRouter}. For a
  * full description of the V7 server push implementation see: https://sites.google.com/site/q3cjava/server-push
  * 
  * @author David Sowerby
  * @date modified 31 Mar 2014
  */
 
-public abstract class ScopedUI extends UI implements V7ViewHolder, BroadcastListener {
+public abstract class ScopedUI extends UI implements V7ViewHolder, PayloadListener {
 	private static Logger log = LoggerFactory.getLogger(ScopedUI.class);
+
+	/**
+	 * Whether a UI class overrides {@link #processBroadcastMessage(String, String)}, found once per class
+	 */
+	private static final ClassValue<Boolean> legacyHandlers = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			for (Class<?> c = type; (c != null) && (c != ScopedUI.class); c = c.getSuperclass()) {
+				try {
+					c.getDeclaredMethod("processBroadcastMessage", String.class, String.class);
+					return true;
+				} catch (NoSuchMethodException e) {
+					// not overridden at this level
+				}
+			}
+			return false;
+		}
+	};
 	private UIKey instanceKey;
 	private UIScope uiScope;
 	private final Panel viewDisplayPanel;
@@ -65,6 +86,12 @@ public abstract class ScopedUI extends UI implements V7ViewHolder, BroadcastList
 	private final V7Navigator navigator;
 	private final ApplicationTitle applicationTitle;
 	private final Translate translate;
+	private final Broadcaster broadcaster;
+	private final BroadcastInbox inbox;
+	/**
+	 * the messages replayed, which are skipped if they also arrive live
+	 */
+	private final ReplayedSequences replayed = new ReplayedSequences();
 
 	protected ScopedUI(V7Navigator navigator, ErrorHandler errorHandler, ConverterFactory converterFactory,
 			Broadcaster broadcaster, PushMessageRouter pushMessageRouter, ApplicationTitle applicationTitle,
@@ -76,6 +103,13 @@ public abstract class ScopedUI extends UI implements V7ViewHolder, BroadcastList
 		this.pushMessageRouter = pushMessageRouter;
 		this.applicationTitle = applicationTitle;
 		this.translate = translate;
+		this.broadcaster = broadcaster;
+		this.inbox = broadcaster.newInbox(new BroadcastInbox.Target() {
+			@Override
+			public void dispatch(BroadcastInbox inbox) {
+				deliverBroadcasts(inbox);
+			}
+		});
 
 		viewDisplayPanel = new Panel();
 		registerWithBroadcaster(broadcaster);
@@ -85,6 +119,16 @@ public abstract class ScopedUI extends UI implements V7ViewHolder, BroadcastList
 		broadcaster.register(Broadcaster.ALL_MESSAGES, this);
 	}
 
+	/**
+	 * Called when the UI is detached. If you override {@link #registerWithBroadcaster(Broadcaster)} to register for
+	 * other groups, override this to unregister from them too.
+	 * 
+	 * @param broadcaster
+	 */
+	protected void unregisterFromBroadcaster(Broadcaster broadcaster) {
+		broadcaster.unregister(Broadcaster.ALL_MESSAGES, this);
+	}
+
 	protected void setInstanceKey(UIKey instanceKey) {
 		this.instanceKey = instanceKey;
 	}
@@ -99,6 +143,7 @@ public abstract class ScopedUI extends UI implements V7ViewHolder, BroadcastList
 
 	@Override
 	public void detach() {
+		unregisterFromBroadcaster(broadcaster);
 		if (uiScope != null) {
 			uiScope.releaseScope(instanceKey);
 		}
@@ -168,7 +213,7 @@ public abstract class ScopedUI extends UI implements V7ViewHolder, BroadcastList
 	 * @return
 	 */
 	protected String pageTitle() {
-		return translate.from(applicationTitle.getTitleKey());
+		return translate.fromNoArgs(applicationTitle.getTitleKey());
 	}
 
 	/**
@@ -207,19 +252,95 @@ public abstract class ScopedUI extends UI implements V7ViewHolder, BroadcastList
 		return viewDisplayPanel;
 	}
 
+	/**
+	 * Messages are collected in an inbox, and delivered in batches by {@link #deliverBroadcasts(BroadcastInbox)}
+	 */
 	@Override
 	public void receiveBroadcast(final String group, final String message) {
+		inbox.offer(group, message);
+	}
+
+	@Override
+	public void receivePayload(BroadcastMessage message) {
+		inbox.offer(message);
+	}
+
+	/**
+	 * Delivers everything in the inbox in a single {@link #access(Runnable)}, so that a burst of messages takes the
+	 * session lock once and results in one push. Messages which have already been processed by
+	 * {@link #replayBroadcasts(String, long)} are skipped.
+	 * 
+	 * @param inbox
+	 */
+	protected void deliverBroadcasts(final BroadcastInbox inbox) {
 		access(new Runnable() {
 			@Override
 			public void run() {
-				// Show it somehow
-				log.debug("receiving message: {}", message);
-				processBroadcastMessage(group, message);
-
+				for (BroadcastMessage message : inbox.drain()) {
+					if (replayed.isRepeat(message)) {
+						continue;
+					}
+					log.debug("receiving message: {}", message.getPayload());
+					processBroadcast(message);
+				}
 			}
 		});
 	}
 
+	/**
+	 * Passes the recent messages held by the {@link Broadcaster} for {@code pattern}, with a sequence number greater
+	 * than {@code sequence}, to {@link #processBroadcast(BroadcastMessage)} - so that a UI which has just opened,
+	 * or reconnected, can catch up. Must be called with the session locked, for example from {@link #init}.
+	 * <p>
+	 * The UI is registered with the {@link Broadcaster} before it is replayed to, so no message is missed, and a
+	 * message which is both replayed and waiting in the inbox is processed only once.
+	 * 
+	 * @param pattern
+	 * @param sequence
+	 * @return the sequence number of the last message replayed, or {@code sequence} if there were none
+	 */
+	protected long replayBroadcasts(String pattern, long sequence) {
+		long last = sequence;
+		for (BroadcastMessage message : broadcaster.replay(pattern, sequence)) {
+			processBroadcast(message);
+			replayed.replayed(message);
+			last = message.getSequence();
+		}
+		return last;
+	}
+
+	public BroadcastInbox getInbox() {
+		return inbox;
+	}
+
+	/**
+	 * Passes the payload of {@code message} to the {@link PushMessageRouter}. Override to handle messages in the UI as
+	 * well; use {@link BroadcastMessage#getPayload()} to work with the value, or {@link BroadcastMessage#getMessage()}
+	 * for its text.
+	 * <p>
+	 * If a sub-class still overrides {@link #processBroadcastMessage(String, String)}, the group and text are passed to
+	 * that instead, so that an existing UI keeps working.
+	 * 
+	 * @param message
+	 */
+	protected void processBroadcast(BroadcastMessage message) {
+		if (legacyHandlers.get(getClass())) {
+			processBroadcastMessage(message.getGroup(), message.getMessage());
+		} else {
+			pushMessageRouter.messageIn(message);
+		}
+	}
+
+	/**
+	 * Passes {@code message} to the {@link PushMessageRouter} as text. It is called by the default
+	 * {@link #processBroadcast(BroadcastMessage)} only if a sub-class overrides it.
+	 * 
+	 * @param group
+	 * @param message
+	 * @deprecated override {@link #processBroadcast(BroadcastMessage)} instead, which also has the payload and its
+	 *             sequence number
+	 */
+	@Deprecated
 	protected void processBroadcastMessage(String group, String message) {
 		pushMessageRouter.messageIn(group, message);
 	}
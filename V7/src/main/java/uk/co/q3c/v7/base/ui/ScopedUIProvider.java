@@ -62,6 +62,7 @@ public abstract class ScopedUIProvider extends UIProvider implements Provider<Sc
 		ScopedUI ui = (ScopedUI) injector.getInstance(uiClass);
 		ui.setInstanceKey(uiKey);
 		ui.setScope(scope);
+		scope.registerUI(uiKey, ui);
 
 		log.debug("Returning instance of {} with key {}", uiClass.getName(), uiKey);
 		return ui;
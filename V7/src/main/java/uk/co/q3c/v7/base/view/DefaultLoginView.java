@@ -181,7 +181,7 @@ public class DefaultLoginView extends GridViewBase implements LoginView, ClickLi
 
 	@Override
 	public void setStatusMessage(I18NKey<?> messageKey) {
-		setStatusMessage(translate.from(messageKey));
+		setStatusMessage(translate.fromNoArgs(messageKey));
 	}
 
 }
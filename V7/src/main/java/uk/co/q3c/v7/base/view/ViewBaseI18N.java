@@ -38,7 +38,7 @@ public abstract class ViewBaseI18N extends ViewBase {
 
 	@Override
 	public String viewName() {
-		return translate.from(nameKey);
+		return translate.fromNoArgs(nameKey);
 	}
 
 }
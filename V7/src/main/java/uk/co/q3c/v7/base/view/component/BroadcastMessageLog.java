@@ -12,40 +12,118 @@
  */
 package uk.co.q3c.v7.base.view.component;
 
+import java.util.Date;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import uk.co.q3c.v7.base.guice.uiscope.UIScoped;
-import uk.co.q3c.v7.base.push.PushMessageListener;
+import uk.co.q3c.v7.base.push.BroadcastMessage;
+import uk.co.q3c.v7.base.push.Broadcaster;
 import uk.co.q3c.v7.base.push.PushMessageRouter;
+import uk.co.q3c.v7.base.push.PushPayloadListener;
+import uk.co.q3c.v7.base.push.ReplayedSequences;
+import uk.co.q3c.v7.base.user.opt.UserOption;
 import uk.co.q3c.v7.i18n.LabelKey;
 import uk.co.q3c.v7.i18n.Translate;
 
 import com.google.inject.Inject;
-import com.vaadin.ui.TextArea;
+import com.vaadin.data.Item;
+import com.vaadin.ui.Table;
 
-/** Displays all the messages received by the Broadcaster */
+/**
+ * Displays the messages received by the Broadcaster, newest first, starting with the recent messages it holds for
+ * replay. Each message is a row (group, message and the time it was broadcast) rather than a line of text, and only the
+ * most recent {@link #getMaxEntries()} are kept - the oldest row is removed as each new one arrives. The number kept
+ * is a {@link UserOption} ({@link #maxEntriesOpt}, default 100).
+ * <p>
+ * A new message therefore costs the same however long the session has run, and the client is sent the rows in view
+ * rather than the whole history.
+ * <p>
+ * The log registers with the router before replaying, so that no message is missed, and ignores a live message which
+ * has already been replayed.
+ */
 @UIScoped
-public class BroadcastMessageLog extends TextArea implements PushMessageListener {
+public class BroadcastMessageLog extends Table implements PushPayloadListener {
 	private static Logger log = LoggerFactory.getLogger(BroadcastMessageLog.class);
 
+	public static final String maxEntriesOpt = "maxEntries";
+	public static final String GROUP = "group";
+	public static final String MESSAGE = "message";
+	public static final String RECEIVED = "received";
+
+	private final UserOption userOption;
+	private int maxEntries;
+	private long lastId;
+	private final ReplayedSequences replayed = new ReplayedSequences();
+
 	@Inject
-	protected BroadcastMessageLog(Translate translate, PushMessageRouter router) {
+	protected BroadcastMessageLog(Translate translate, PushMessageRouter router, Broadcaster broadcaster,
+			UserOption userOption) {
 		super();
-		router.register("all", this);
-		setCaption(translate.from(LabelKey.Broadcast_Messages));
+		this.userOption = userOption;
+		maxEntries = Math.max(1, userOption.getOptionAsInt(this.getClass().getSimpleName(), maxEntriesOpt, 100));
+		addContainerProperty(GROUP, String.class, null);
+		addContainerProperty(MESSAGE, String.class, null);
+		addContainerProperty(RECEIVED, Date.class, null);
+		setColumnHeaders(translate.fromNoArgs(LabelKey.Group), translate.fromNoArgs(LabelKey.Message),
+				translate.fromNoArgs(LabelKey.Received));
+		setCaption(translate.fromNoArgs(LabelKey.Broadcast_Messages));
 		setImmediate(true);
+		router.register(PushMessageRouter.ALL_MESSAGES, this);
+		// only the most recent are kept, so there is no point adding the others
+		List<BroadcastMessage> recent = broadcaster.replay(Broadcaster.ALL_MESSAGES, 0);
+		for (BroadcastMessage message : recent.subList(Math.max(0, recent.size() - maxEntries), recent.size())) {
+			addRow(message.getGroup(), message.getMessage(), new Date(message.getTime()));
+			replayed.replayed(message);
+		}
+	}
+
+	@Override
+	public void receivePayload(BroadcastMessage message) {
+		if (replayed.isRepeat(message)) {
+			return;
+		}
+		addRow(message.getGroup(), message.getMessage(), new Date(message.getTime()));
 	}
 
 	@Override
 	public void receiveMessage(String group, String message) {
+		addRow(group, message, new Date());
+	}
+
+	@SuppressWarnings("unchecked")
+	private void addRow(String group, String message, Date time) {
 		log.debug("Receiving message: '{}' for group: '{}'", message, group);
-		StringBuilder buf = new StringBuilder(group);
-		buf.append(":");
-		buf.append(message);
-		buf.append("\n");
-		buf.append(this.getValue());
-		this.setValue(buf.toString());
+		Item item = addItemAfter(null, Long.valueOf(++lastId));
+		item.getItemProperty(GROUP).setValue(group);
+		item.getItemProperty(MESSAGE).setValue(message);
+		item.getItemProperty(RECEIVED).setValue(time);
+		removeExcess();
+	}
+
+	private void removeExcess() {
+		while (size() > maxEntries) {
+			removeItem(lastItemId());
+		}
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Sets the number of messages kept, and stores it as a {@link UserOption}. Values less than 1 are ignored.
+	 * 
+	 * @param maxEntries
+	 */
+	public void setMaxEntries(int maxEntries) {
+		if ((maxEntries > 0) && (maxEntries != this.maxEntries)) {
+			this.maxEntries = maxEntries;
+			removeExcess();
+			userOption.setOption(this.getClass().getSimpleName(), maxEntriesOpt, maxEntries);
+		}
 	}
 
 }
@@ -117,7 +117,8 @@ public class DefaultLoginStatusPanel extends Panel implements LoginStatusPanel,
 	public void userStatusChanged() {
 		log.debug("login status change");
 		boolean authenticated = subjectProvider.get().isAuthenticated();
-		String caption = (authenticated) ? translate.from(LabelKey.Log_Out) : translate.from(LabelKey.Log_In);
+		String caption = (authenticated) ? translate.fromNoArgs(LabelKey.Log_Out) : translate
+				.fromNoArgs(LabelKey.Log_In);
 		login_logout_Button.setCaption(caption.toLowerCase());
 		usernameLabel.setValue(subjectIdentifier.subjectName());
 
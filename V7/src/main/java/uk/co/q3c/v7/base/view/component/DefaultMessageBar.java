@@ -51,14 +51,14 @@ public class DefaultMessageBar extends Panel implements MessageBar {
 	@Override
 	public void errorMessage(String message) {
 		log.debug("Received error message '{}'", message);
-		String s = translate.from(LabelKey.Error).toUpperCase() + ": " + message;
+		String s = translate.fromNoArgs(LabelKey.Error).toUpperCase() + ": " + message;
 		label.setValue(s);
 	}
 
 	@Override
 	public void warningMessage(String message) {
 		log.debug("Received warning message '{}'", message);
-		String s = translate.from(LabelKey.Warning) + ": " + message;
+		String s = translate.fromNoArgs(LabelKey.Warning) + ": " + message;
 		label.setValue(s);
 	}
 
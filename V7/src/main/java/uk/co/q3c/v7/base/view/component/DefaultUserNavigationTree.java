@@ -35,8 +35,7 @@ import uk.co.q3c.v7.base.user.status.UserStatus;
 import uk.co.q3c.v7.base.user.status.UserStatusListener;
 import uk.co.q3c.v7.base.view.V7ViewChangeEvent;
 import uk.co.q3c.v7.base.view.V7ViewChangeListener;
-import uk.co.q3c.v7.i18n.I18NKey;
-import uk.co.q3c.v7.i18n.Translate;
+import uk.co.q3c.v7.i18n.CurrentLocale;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -61,7 +60,7 @@ public class DefaultUserNavigationTree extends Tree implements UserNavigationTre
 	private final Provider<Subject> subjectProvider;
 	private boolean sorted;
 	private final UserOption userOption;
-	private final Translate translate;
+	private final CurrentLocale currentLocale;
 	private final PageAccessController pageAccessController;
 	private boolean suppressValueChangeEvents;
 	public static final String sortedOpt = "sorted";
@@ -69,13 +68,13 @@ public class DefaultUserNavigationTree extends Tree implements UserNavigationTre
 
 	@Inject
 	protected DefaultUserNavigationTree(Sitemap sitemap, V7Navigator navigator, SubjectProvider subjectProvider,
-			UserOption userOption, Translate translate, PageAccessController pageAccessController, UserStatus userStatus) {
+			UserOption userOption, CurrentLocale currentLocale, PageAccessController pageAccessController, UserStatus userStatus) {
 		super();
 		this.sitemap = sitemap;
 		this.navigator = navigator;
 		this.subjectProvider = subjectProvider;
 		this.userOption = userOption;
-		this.translate = translate;
+		this.currentLocale = currentLocale;
 		this.pageAccessController = pageAccessController;
 		setImmediate(true);
 		setItemCaptionMode(ItemCaptionMode.EXPLICIT);
@@ -97,7 +96,7 @@ public class DefaultUserNavigationTree extends Tree implements UserNavigationTre
 		log.debug("The sitemap has {} roots", nodeList.size());
 
 		// which order, sorted or insertion?
-		new NodeSorter(nodeList, sorted).sort();
+		new NodeSorter(nodeList, sorted, currentLocale.getLocale()).sort();
 
 		for (SitemapNode node : nodeList) {
 			level = 1;
@@ -137,9 +136,7 @@ public class DefaultUserNavigationTree extends Tree implements UserNavigationTre
 		if (pageAccessController.isAuthorised(subject, childNode)) {
 			log.debug("user has permission to view URI {}", uri);
 			this.addItem(childNode);
-			I18NKey<?> key = childNode.getLabelKey();
-
-			String caption = translate.from(key);
+			String caption = childNode.getLabel(currentLocale.getLocale());
 			this.setItemCaption(childNode, caption);
 			setParent(childNode, parentNode);
 
@@ -154,7 +151,7 @@ public class DefaultUserNavigationTree extends Tree implements UserNavigationTre
 				} else {
 					// which order, sorted or insertion?
 					if (sorted) {
-						Collections.sort(children, new CollationKeyOrder());
+						Collections.sort(children, new CollationKeyOrder(currentLocale.getLocale()));
 					} else {
 						Collections.sort(children, new InsertionOrder());
 					}
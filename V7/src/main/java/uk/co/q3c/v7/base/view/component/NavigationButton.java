@@ -12,7 +12,10 @@
  */
 package uk.co.q3c.v7.base.view.component;
 
+import java.util.Locale;
+
 import uk.co.q3c.v7.base.navigate.sitemap.SitemapNode;
+import uk.co.q3c.v7.i18n.I18NUpdates;
 
 import com.vaadin.ui.Button;
 
@@ -40,6 +43,18 @@ public class NavigationButton extends Button {
 		this.setCaption(node.getLabel());
 	}
 
+	/**
+	 * Sets the node, with the caption taken from the node's label for {@code locale}
+	 * 
+	 * @param node
+	 * @param locale
+	 */
+	public void setNode(SitemapNode node, Locale locale) {
+		this.node = node;
+		// buttons are re-used on every navigation, and usually keep the same caption
+		I18NUpdates.caption(this, node.getLabel(locale));
+	}
+
 	public String getParams() {
 		return params;
 	}
@@ -14,6 +14,7 @@ package uk.co.q3c.v7.base.view.component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,9 +28,9 @@ import uk.co.q3c.v7.base.user.opt.UserOption;
 import uk.co.q3c.v7.base.view.V7ViewChangeEvent;
 import uk.co.q3c.v7.base.view.V7ViewChangeListener;
 import uk.co.q3c.v7.i18n.CurrentLocale;
-import uk.co.q3c.v7.i18n.I18NKey;
 import uk.co.q3c.v7.i18n.I18NListener;
 import uk.co.q3c.v7.i18n.I18NTranslator;
+import uk.co.q3c.v7.i18n.I18NUpdates;
 import uk.co.q3c.v7.i18n.Translate;
 
 import com.google.inject.Inject;
@@ -45,6 +46,7 @@ public abstract class NavigationButtonPanel extends HorizontalLayout implements
 	private final V7Navigator navigator;
 	private final Sitemap sitemap;
 	private final Translate translate;
+	private final CurrentLocale currentLocale;
 
 	public static final String sortedOpt = "sorted";
 	protected boolean usesSort = true;
@@ -57,6 +59,7 @@ public abstract class NavigationButtonPanel extends HorizontalLayout implements
 		navigator.addViewChangeListener(this);
 		this.sitemap = sitemap;
 		this.translate = translate;
+		this.currentLocale = currentLocale;
 		this.setSizeUndefined();
 		this.setSpacing(true);
 		this.userOption = userOption;
@@ -70,7 +73,7 @@ public abstract class NavigationButtonPanel extends HorizontalLayout implements
 		if (usesSort) {
 			boolean sorted = userOption.getOptionAsBoolean(this.getClass().getSimpleName(), sortedOpt, true);
 			// which order, sorted or insertion?
-			new NodeSorter(nodeList, sorted).sort();
+			new NodeSorter(nodeList, sorted, currentLocale.getLocale()).sort();
 
 		}
 		int maxIndex = (nodeList.size() > buttons.size() ? nodeList.size() : buttons.size());
@@ -109,16 +112,19 @@ public abstract class NavigationButtonPanel extends HorizontalLayout implements
 
 	private void setupButton(NavigationButton button, SitemapNode sitemapNode) {
 
-		button.setNode(sitemapNode);
+		button.setNode(sitemapNode, currentLocale.getLocale());
 		button.setVisible(true);
 
 	}
 
 	@Override
 	public void localeChange(I18NTranslator translator) {
+		Locale locale = translator.getLocale();
+		// hidden buttons are given a caption when they are next used
 		for (NavigationButton button : buttons) {
-			I18NKey<?> key = button.getNode().getLabelKey();
-			button.setCaption(translate.from(key, translator.getLocale()));
+			if (button.isVisible()) {
+				I18NUpdates.caption(button, button.getNode().getLabel(locale));
+			}
 		}
 	}
 
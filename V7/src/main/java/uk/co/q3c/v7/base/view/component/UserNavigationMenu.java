@@ -29,6 +29,7 @@ import uk.co.q3c.v7.base.shiro.SubjectProvider;
 import uk.co.q3c.v7.base.user.opt.UserOption;
 import uk.co.q3c.v7.base.user.status.UserStatus;
 import uk.co.q3c.v7.base.user.status.UserStatusListener;
+import uk.co.q3c.v7.i18n.CurrentLocale;
 
 import com.google.inject.Inject;
 import com.vaadin.ui.MenuBar;
@@ -41,11 +42,14 @@ public class UserNavigationMenu extends MenuBar implements ApplicationMenu, User
 	private final boolean sorted;
 	private final SubjectProvider subjectProvider;
 	private final PageAccessController pageAccessController;
+	private final CurrentLocale currentLocale;
 
 	@Inject
 	protected UserNavigationMenu(Sitemap sitemap, V7Navigator navigator, UserOption userOption,
-			SubjectProvider subjectProvider, PageAccessController pageAccessController, UserStatus userStatus) {
+			SubjectProvider subjectProvider, PageAccessController pageAccessController, UserStatus userStatus,
+			CurrentLocale currentLocale) {
 		super();
+		this.currentLocale = currentLocale;
 		this.sitemap = sitemap;
 		this.navigator = navigator;
 		this.subjectProvider = subjectProvider;
@@ -61,7 +65,7 @@ public class UserNavigationMenu extends MenuBar implements ApplicationMenu, User
 		List<SitemapNode> roots = sitemap.getRoots();
 
 		// which order, sorted or insertion?
-		new NodeSorter(roots, sorted).sort();
+		new NodeSorter(roots, sorted, currentLocale.getLocale()).sort();
 
 		Subject subject = subjectProvider.get();
 		for (SitemapNode node : roots) {
@@ -73,7 +77,7 @@ public class UserNavigationMenu extends MenuBar implements ApplicationMenu, User
 					if (sitemap.getChildCount(node) == 0) {
 						command = new NavigationCommand(navigator, node);
 					}
-					MenuItem item = this.addItem(node.getLabel(), command);
+					MenuItem item = this.addItem(node.getLabel(currentLocale.getLocale()), command);
 					addSubItems(item, node);
 				}
 			}
@@ -96,7 +100,7 @@ public class UserNavigationMenu extends MenuBar implements ApplicationMenu, User
 		List<SitemapNode> children = sitemap.getChildren(node);
 
 		// which order, sorted or insertion?
-		new NodeSorter(children, sorted).sort();
+		new NodeSorter(children, sorted, currentLocale.getLocale()).sort();
 
 		Subject subject = subjectProvider.get();
 
@@ -107,7 +111,7 @@ public class UserNavigationMenu extends MenuBar implements ApplicationMenu, User
 				if (sitemap.getChildCount(childNode) == 0) {
 					command = new NavigationCommand(navigator, childNode);
 				}
-				MenuItem subItem = item.addItem(childNode.getLabel(), command);
+				MenuItem subItem = item.addItem(childNode.getLabel(currentLocale.getLocale()), command);
 				addSubItems(subItem, childNode);
 			}
 		}
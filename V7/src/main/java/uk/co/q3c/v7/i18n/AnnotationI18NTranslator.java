@@ -14,11 +14,11 @@ package uk.co.q3c.v7.i18n;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
+
+import uk.co.q3c.v7.i18n.I18NBindingPlan.BoundField;
+import uk.co.q3c.v7.i18n.I18NBindingPlan.ResolvedKeys;
 
 import com.google.inject.Inject;
 
@@ -54,6 +54,12 @@ import com.vaadin.ui.Table;
  * The call is cascaded to any contained properties which implement the {@link I18NListener} interface. Any compound
  * components you wish to include within the scope of I18N should therefore implement the {@link I18NListener}
  * interface.
+ * <p>
+ * The fields to process for each class are held in an {@link I18NBindingPlan}, so reflection is only used the first
+ * time a class is translated.
+ * <p>
+ * Values are applied through {@link I18NUpdates}, so a component is only changed (and sent to the client) if its text
+ * or locale is actually different. {@link #getUpdateCount()} gives the number of changes made by this translator.
  * 
  * @author David Sowerby 8 Feb 2013
  * 
@@ -61,16 +67,14 @@ import com.vaadin.ui.Table;
 public class AnnotationI18NTranslator implements I18NTranslator {
 	private static Logger log = LoggerFactory.getLogger(AnnotationI18NTranslator.class);
 	private final CurrentLocale currentLocale;
-	private final Provider<I18NTranslator> translatorPro;
 	private final Map<Class<? extends Annotation>, Provider<? extends I18NAnnotationReader>> readers;
 	private final Translate translate;
+	private int updateCount;
 
 	@Inject
-	protected AnnotationI18NTranslator(CurrentLocale currentLocale, Provider<I18NTranslator> translatorPro,
-			Translate translate) {
+	protected AnnotationI18NTranslator(CurrentLocale currentLocale, Translate translate) {
 		super();
 		this.currentLocale = currentLocale;
-		this.translatorPro = translatorPro;
 		this.readers = currentLocale.getI18NReaders();
 		this.translate = translate;
 
@@ -81,110 +85,109 @@ public class AnnotationI18NTranslator implements I18NTranslator {
 	 */
 	@Override
 	public void translate(I18NListener listener) {
-		Class<?> clazz = listener.getClass();
-		Field[] fields = clazz.getDeclaredFields();
-		for (Field field : fields) {
+		// read once, rather than for every key of every component
+		Locale locale = currentLocale.getLocale();
+		I18NBindingPlan plan = I18NBindingPlan.forClass(listener.getClass());
+		for (BoundField field : plan.getFields()) {
 
 			// process any subitems which implement I18NListener
-			if (I18NListener.class.isAssignableFrom(field.getType())) {
+			if (field.isListener()) {
 				processSubI18NListener(listener, field);
 			}
 
-			if (AbstractComponent.class.isAssignableFrom(field.getType())) {
-				processComponent(listener, field);
+			if (field.isComponent()) {
+				processComponent(listener, field, locale);
 			}
 
 		}
 	}
 
-	private void processSubI18NListener(I18NListener listener, Field field) {
-		field.setAccessible(true);
+	private void processSubI18NListener(I18NListener listener, BoundField field) {
 		try {
 			I18NListener sub = (I18NListener) field.get(listener);
-			sub.localeChange(translatorPro.get());
-		} catch (IllegalArgumentException | IllegalAccessException e) {
+			// the same translator is used for the whole tree of listeners
+			sub.localeChange(this);
+		} catch (IllegalStateException e) {
 			log.error("Unable to process I18N sub-listener " + field.getName(), e);
 		}
 	}
 
-	private void processComponent(I18NListener listener, Field field) {
+	private void processComponent(I18NListener listener, BoundField field, Locale locale) {
 
-		for (Entry<Class<? extends Annotation>, Provider<? extends I18NAnnotationReader>> readerEntry : readers
-				.entrySet()) {
-			if (field.isAnnotationPresent(readerEntry.getKey())) {
-				decodeAnnotation(listener, field, field.getAnnotation(readerEntry.getKey()), readerEntry.getValue());
+		for (int i = 0; i < field.getAnnotationCount(); i++) {
+			Provider<? extends I18NAnnotationReader> readerProvider = readers.get(field.getAnnotation(i)
+					.annotationType());
+			if (readerProvider != null) {
+				decodeAnnotation(listener, field, field.keys(i, readerProvider), locale);
 			}
 		}
 		return;
 
 	}
 
-	private void decodeAnnotation(I18NListener listener, Field field, Annotation annotation,
-			Provider<? extends I18NAnnotationReader> provider) {
-
-		// get a reader
-		I18NAnnotationReader reader = provider.get();
+	private void decodeAnnotation(I18NListener listener, BoundField field, ResolvedKeys keys, Locale locale) {
 
-		// get the keys from the reader
-		I18NKey<?> captionKey = reader.caption(annotation);
-		I18NKey<?> descriptionKey = reader.description(annotation);
-		I18NKey<?> valueKey = reader.value(annotation);
+		// the keys have already been read from the annotation
+		I18NKey<?> captionKey = keys.getCaptionKey();
+		I18NKey<?> descriptionKey = keys.getDescriptionKey();
+		I18NKey<?> valueKey = keys.getValueKey();
 
 		// check for nulls. Nulls are used for caption and description so that content can be cleared.
 		// for value, this is not the case, as it may be a bad idea
-		String captionValue = captionKey.isNullKey() ? null : translate.from(captionKey);
-		String descriptionValue = descriptionKey.isNullKey() ? null : translate.from(descriptionKey);
+		String captionValue = captionKey.isNullKey() ? null : translate.fromNoArgs(captionKey, locale);
+		String descriptionValue = descriptionKey.isNullKey() ? null : translate.fromNoArgs(descriptionKey, locale);
 
 		// set caption and description
-		field.setAccessible(true);
+		AbstractComponent c;
 		try {
-			AbstractComponent c = (AbstractComponent) field.get(listener);
-			if (captionValue != null) {
-				c.setCaption(captionValue);
+			c = (AbstractComponent) field.get(listener);
+			if ((captionValue != null) && I18NUpdates.caption(c, captionValue)) {
+				updateCount++;
 			}
-			if (descriptionValue != null) {
-				c.setDescription(descriptionValue);
+			if ((descriptionValue != null) && I18NUpdates.description(c, descriptionValue)) {
+				updateCount++;
 			}
-			c.setLocale(currentLocale.getLocale());
-		} catch (IllegalArgumentException | IllegalAccessException e) {
+			if (I18NUpdates.locale(c, locale)) {
+				updateCount++;
+			}
+		} catch (IllegalStateException e) {
 			log.error("Unable to set I18N caption or description for " + field.getName(), e);
+			return;
 		}
 
 		// These components have a value. Usually I18N would only be used for Label values. If no key is provided
 		// the component value is left unchanged
-		if (valueKey != null) {
-			if (Property.class.isAssignableFrom(field.getType())) {
-				try {
-					@SuppressWarnings("unchecked")
-					Property<String> c = (Property<String>) field.get(listener);
-					String valueValue = valueKey.isNullKey() ? null : translate.from(valueKey);
-					if (valueValue != null) {
-						c.setValue(valueValue);
-					}
-				} catch (Exception e) {
-					log.error("Unable to set I18N value for " + field.getName(), e);
-
+		if ((valueKey != null) && field.isProperty()) {
+			try {
+				@SuppressWarnings("unchecked")
+				Property<String> p = (Property<String>) c;
+				String valueValue = valueKey.isNullKey() ? null : translate.fromNoArgs(valueKey, locale);
+				if ((valueValue != null) && I18NUpdates.value(p, valueValue)) {
+					updateCount++;
 				}
+			} catch (Exception e) {
+				log.error("Unable to set I18N value for " + field.getName(), e);
+
 			}
 		}
 
 		// Table columns need special treatment
-		if (Table.class.isAssignableFrom(field.getType())) {
+		if (field.isTable()) {
 			try {
-				Table table = (Table) field.get(listener);
+				Table table = (Table) c;
 				Object[] columns = table.getVisibleColumns();
-				List<String> headers = new ArrayList<>();
-				for (Object column : columns) {
+				String[] headers = new String[columns.length];
+				for (int i = 0; i < columns.length; i++) {
+					Object column = columns[i];
 					if (column instanceof LabelKey) {
-						LabelKey columnid = (LabelKey) column;
-						String header = translate.from(columnid);
-						headers.add(header);
+						headers[i] = translate.fromNoArgs((LabelKey) column, locale);
 					} else {
-						headers.add(column.toString());
+						headers[i] = column.toString();
 					}
 				}
-				String headerArray[] = headers.toArray(new String[] {});
-				table.setColumnHeaders(headerArray);
+				if (I18NUpdates.columnHeaders(table, headers)) {
+					updateCount++;
+				}
 
 			} catch (Exception e) {
 				log.error("Unable to set I18N table columns headers for " + field.getName(), e);
@@ -193,6 +196,16 @@ public class AnnotationI18NTranslator implements I18NTranslator {
 		}
 	}
 
+	/**
+	 * The number of caption, description, locale, value and column header changes made by this translator. A
+	 * translator is used for a single locale change, so this is the number of changes that locale change caused.
+	 * 
+	 * @return
+	 */
+	public int getUpdateCount() {
+		return updateCount;
+	}
+
 	@Override
 	public Locale getLocale() {
 		return currentLocale.getLocale();
@@ -13,19 +13,22 @@
 package uk.co.q3c.v7.i18n;
 
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
-
-import com.google.common.collect.Maps;
+import com.vaadin.server.VaadinSession;
 
 /**
  * Provides a singleton reference to the currently selected Locale. {@link I18NListener}s can be added to listen for
@@ -33,6 +36,14 @@ import com.google.common.collect.Maps;
  * translation. Annotations cannot be sub-classed, and in order to support the use of multiple annotations, they must be
  * registered with {@link CurrentLocale} so that the {@link I18NTranslator} implementation can check for their
  * existence. The {@link I18N} annotation is registered by default.
+ * <p>
+ * Although this class is a singleton (so that it can be injected anywhere), the locale and the listeners are held per
+ * {@link VaadinSession}, so a change of locale by one user affects only that user's components. Calls made where
+ * there is no current VaadinSession (during start up, or in a background thread which has not been given a session)
+ * use an application wide state, and a new session takes its initial locale from that.
+ * <p>
+ * Listeners are held weakly - a component which has been detached and is no longer referenced can be garbage
+ * collected without being removed. A listener which is referenced only by this class will therefore not be retained.
  * 
  * @see https://sites.google.com/site/q3cjava/internationalisation-i18n
  * @author David Sowerby 3 Mar 2013
@@ -41,10 +52,11 @@ import com.google.common.collect.Maps;
 @Singleton
 public class CurrentLocale {
 
-	private Locale locale = Locale.UK;
-	private final List<I18NListener> listeners = new ArrayList<>();
+	private final LocaleState defaultState = new LocaleState(Locale.UK);
+	private final ConcurrentMap<VaadinSession, LocaleState> sessionStates = new MapMaker().weakKeys().makeMap();
 	private final Provider<I18NTranslator> translatorPro;
-	private final Map<Class<? extends Annotation>, Provider<? extends I18NAnnotationReader>> readers = new HashMap<>();
+	private final ConcurrentMap<Class<? extends Annotation>, Provider<? extends I18NAnnotationReader>> readers = new MapMaker()
+			.makeMap();
 
 	@Inject
 	protected CurrentLocale(Provider<I18NTranslator> translatorPro, Provider<I18NReader> readerPro) {
@@ -54,31 +66,72 @@ public class CurrentLocale {
 	}
 
 	public Locale getLocale() {
-		return locale;
+		return state().locale;
 	}
 
 	public void setLocale(Locale locale) {
-		if (locale != this.locale) {
-			this.locale = locale;
-			fireListeners(locale);
+		LocaleState state = state();
+		if (locale != state.locale) {
+			state.locale = locale;
+			fireListeners(state);
 		}
 	}
 
+	/**
+	 * Adds a listener to the current session. The listener is held weakly.
+	 * 
+	 * @param listener
+	 */
 	public void addListener(I18NListener listener) {
-		listeners.add(listener);
+		state().add(listener);
 	}
 
 	public void removeListener(I18NListener listener) {
-		listeners.remove(listener);
+		state().remove(listener);
 	}
 
-	private void fireListeners(Locale locale) {
+	/**
+	 * The number of listeners for the current session which have not been garbage collected
+	 * 
+	 * @return
+	 */
+	public int listenerCount() {
+		return state().listeners().size();
+	}
+
+	/**
+	 * All listeners in the session share a single translator, rather than one being created for each listener
+	 */
+	private void fireListeners(LocaleState state) {
+		List<I18NListener> listeners = state.listeners();
+		if (listeners.isEmpty()) {
+			return;
+		}
+		I18NTranslator translator = translatorPro.get();
 		for (I18NListener listener : listeners) {
-			I18NTranslator translator = translatorPro.get();
 			listener.localeChange(translator);
 		}
 	}
 
+	/**
+	 * Returns the state for the current VaadinSession, or the application wide state if there is no session
+	 */
+	private LocaleState state() {
+		VaadinSession session = VaadinSession.getCurrent();
+		if (session == null) {
+			return defaultState;
+		}
+		LocaleState state = sessionStates.get(session);
+		if (state == null) {
+			LocaleState newState = new LocaleState(defaultState.locale);
+			state = sessionStates.putIfAbsent(session, newState);
+			if (state == null) {
+				state = newState;
+			}
+		}
+		return state;
+	}
+
 	public Map<Class<? extends Annotation>, Provider<? extends I18NAnnotationReader>> getI18NReaders() {
 		return Maps.newHashMap(readers);
 	}
@@ -109,4 +162,67 @@ public class CurrentLocale {
 		return readers.get(annotationClass);
 	}
 
+	/**
+	 * The locale and listeners for one session
+	 */
+	private static class LocaleState {
+		private static final int MIN_PRUNE_SIZE = 64;
+		private volatile Locale locale;
+		private final List<WeakReference<I18NListener>> listeners = new ArrayList<>();
+		private int pruneAt = MIN_PRUNE_SIZE;
+
+		LocaleState(Locale locale) {
+			this.locale = locale;
+		}
+
+		/**
+		 * Cleared references are removed whenever the list has doubled in size since it was last pruned, so the cost of
+		 * pruning stays proportional to the number of additions
+		 */
+		synchronized void add(I18NListener listener) {
+			if (listeners.size() >= pruneAt) {
+				prune();
+				pruneAt = Math.max(MIN_PRUNE_SIZE, listeners.size() * 2);
+			}
+			listeners.add(new WeakReference<>(listener));
+		}
+
+		synchronized void remove(I18NListener listener) {
+			Iterator<WeakReference<I18NListener>> iter = listeners.iterator();
+			while (iter.hasNext()) {
+				I18NListener l = iter.next().get();
+				if ((l == null) || l.equals(listener)) {
+					iter.remove();
+				}
+			}
+		}
+
+		/**
+		 * A snapshot of the live listeners, in the order they were added, so that dispatch takes place without holding
+		 * the lock
+		 */
+		synchronized List<I18NListener> listeners() {
+			List<I18NListener> live = new ArrayList<>(listeners.size());
+			Iterator<WeakReference<I18NListener>> iter = listeners.iterator();
+			while (iter.hasNext()) {
+				I18NListener l = iter.next().get();
+				if (l == null) {
+					iter.remove();
+				} else {
+					live.add(l);
+				}
+			}
+			return live;
+		}
+
+		private void prune() {
+			Iterator<WeakReference<I18NListener>> iter = listeners.iterator();
+			while (iter.hasNext()) {
+				if (iter.next().get() == null) {
+					iter.remove();
+				}
+			}
+		}
+	}
+
 }
@@ -22,12 +22,17 @@ public enum DescriptionKey implements I18NKey<Descriptions> {
 	Account_Expired,
 	Account_Locked,
 	Application_Configuration_Service,
+	Broadcast_Transport_Service,
 	Confirm_Ok,
+	External_Translation_Service,
+	I18N_Warmup_Service,
 	Invalid_Login,
 	Last_Name,
 	No_Permission,
+	Scope_Monitor_Service,
 	Sitemap_Service,
 	Too_Many_Login_Attempts,
+	Translation_Usage_Service,
 	Unknown_Account,
 	You_have_not_logged_in,
 
@@ -39,6 +39,16 @@ public class Descriptions extends EnumResourceBundle<DescriptionKey> {
 				"This service loads the application configuration from V7.ini");
 		map.put(DescriptionKey.Sitemap_Service,
 				"This service creates the Sitemap using options from the application configuration");
+		map.put(DescriptionKey.Scope_Monitor_Service,
+				"This service reports the objects held by the UI and VaadinSession scopes, and logs a periodic summary");
+		map.put(DescriptionKey.I18N_Warmup_Service,
+				"This service loads the translations for the supported locales at start up, and reports missing keys");
+		map.put(DescriptionKey.External_Translation_Service,
+				"This service loads translations from external files, and reloads them when the files change");
+		map.put(DescriptionKey.Translation_Usage_Service,
+				"This service reports how often each translation is used, missing, or fails to format");
+		map.put(DescriptionKey.Broadcast_Transport_Service,
+				"This service passes broadcast messages between the nodes of a cluster");
 		map.put(DescriptionKey.Invalid_Login, "That username or password was not recognised");
 		map.put(DescriptionKey.Account_Expired, "Your account has expired");
 		map.put(DescriptionKey.Account_Already_In_Use,
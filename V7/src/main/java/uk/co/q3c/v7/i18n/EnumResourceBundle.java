@@ -47,5 +47,15 @@ public abstract class EnumResourceBundle<E extends Enum<E>> extends ResourceBund
 
 	}
 
+	/**
+	 * The next bundle in the hierarchy, or null if this is the base bundle
+	 * 
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public EnumResourceBundle<E> getParentBundle() {
+		return (EnumResourceBundle<E>) parent;
+	}
+
 	public abstract EnumMap<E, String> getMap();
 }
\ No newline at end of file
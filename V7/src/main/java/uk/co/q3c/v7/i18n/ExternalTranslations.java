@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * An immutable snapshot of translations held outside the compiled {@link EnumResourceBundle}s, so that they can be
+ * corrected without a redeploy. Values are installed into {@link TranslationTables}, where they take precedence over
+ * the compiled value for the same locale.
+ * <p>
+ * {@link #load(File, Collection)} reads one properties file (UTF-8) per key class and locale, named after the key
+ * class, with the same suffix convention as a {@link java.util.ResourceBundle} - for example
+ * <code>LabelKey.properties</code>, <code>LabelKey_de.properties</code>, <code>LabelKey_de_CH.properties</code>. The
+ * property names are the enum constant names.
+ *
+ * @author David Sowerby
+ *
+ */
+public class ExternalTranslations {
+
+	private static Logger log = LoggerFactory.getLogger(ExternalTranslations.class);
+
+	public static final ExternalTranslations EMPTY = new ExternalTranslations(
+			ImmutableMap.<Class<?>, ImmutableMap<Locale, ImmutableMap<String, String>>> of());
+
+	private static final String EXTENSION = ".properties";
+
+	private final ImmutableMap<Class<?>, ImmutableMap<Locale, ImmutableMap<String, String>>> values;
+
+	public ExternalTranslations(ImmutableMap<Class<?>, ImmutableMap<Locale, ImmutableMap<String, String>>> values) {
+		super();
+		this.values = values;
+	}
+
+	/**
+	 * Loads every file in {@code directory} which matches one of {@code keyClasses}. Files which do not match are
+	 * ignored, as are entries which are not a constant of the key class (with a warning, as that is usually a typo).
+	 *
+	 * @param directory
+	 * @param keyClasses
+	 * @return
+	 * @throws IOException
+	 *             if a matching file cannot be read
+	 */
+	@SuppressWarnings("rawtypes")
+	public static ExternalTranslations load(File directory, Collection<Class<? extends I18NKey>> keyClasses)
+			throws IOException {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return EMPTY;
+		}
+		ImmutableMap.Builder<Class<?>, ImmutableMap<Locale, ImmutableMap<String, String>>> classes = ImmutableMap
+				.builder();
+		for (Class<? extends I18NKey> keyClass : keyClasses) {
+			ImmutableMap.Builder<Locale, ImmutableMap<String, String>> locales = ImmutableMap.builder();
+			boolean found = false;
+			for (File file : files) {
+				Locale locale = localeFor(keyClass, file.getName());
+				if (locale != null) {
+					locales.put(locale, read(keyClass, file));
+					found = true;
+				}
+			}
+			if (found) {
+				classes.put(keyClass, locales.build());
+			}
+		}
+		return new ExternalTranslations(classes.build());
+	}
+
+	/**
+	 * Returns the locale represented by {@code filename} if it is a translation file for {@code keyClass}, or null if
+	 * it is not
+	 */
+	private static Locale localeFor(Class<?> keyClass, String filename) {
+		if (!filename.endsWith(EXTENSION)) {
+			return null;
+		}
+		String name = filename.substring(0, filename.length() - EXTENSION.length());
+		String baseName = keyClass.getSimpleName();
+		if (name.equals(baseName)) {
+			return Locale.ROOT;
+		}
+		if (!name.startsWith(baseName + "_")) {
+			return null;
+		}
+		String[] parts = name.substring(baseName.length() + 1).split("_", 3);
+		switch (parts.length) {
+		case 1:
+			return new Locale(parts[0]);
+		case 2:
+			return new Locale(parts[0], parts[1]);
+		default:
+			return new Locale(parts[0], parts[1], parts[2]);
+		}
+	}
+
+	private static ImmutableMap<String, String> read(Class<?> keyClass, File file) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		Set<String> names = new HashSet<>();
+		for (Object constant : keyClass.getEnumConstants()) {
+			names.add(((Enum<?>) constant).name());
+		}
+		ImmutableMap.Builder<String, String> entries = ImmutableMap.builder();
+		for (String name : properties.stringPropertyNames()) {
+			if (names.contains(name)) {
+				entries.put(name, properties.getProperty(name));
+			} else {
+				log.warn("'{}' in {} is not a key of {}, ignored", new Object[] { name, file.getAbsolutePath(),
+						keyClass.getSimpleName() });
+			}
+		}
+		return entries.build();
+	}
+
+	/**
+	 * Returns the values held for {@code keyClass} in exactly {@code locale} (no fallback), indexed by key name. The
+	 * map is empty if there are none.
+	 *
+	 * @param keyClass
+	 * @param locale
+	 * @return
+	 */
+	public ImmutableMap<String, String> values(Class<?> keyClass, Locale locale) {
+		ImmutableMap<Locale, ImmutableMap<String, String>> locales = values.get(keyClass);
+		if (locales == null) {
+			return ImmutableMap.of();
+		}
+		ImmutableMap<String, String> entries = locales.get(locale);
+		return (entries == null) ? ImmutableMap.<String, String> of() : entries;
+	}
+
+	public boolean isEmpty() {
+		return values.isEmpty();
+	}
+
+	/**
+	 * Returns the keys which have a different value, in any locale, in {@code other}. A key is included whether its
+	 * value has been added, removed or changed.
+	 *
+	 * @param other
+	 * @return
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public ImmutableSet<I18NKey<?>> changedKeys(ExternalTranslations other) {
+		ImmutableSet.Builder<I18NKey<?>> changed = ImmutableSet.builder();
+		Set<Class<?>> keyClasses = new HashSet<>(values.keySet());
+		keyClasses.addAll(other.values.keySet());
+		for (Class<?> keyClass : keyClasses) {
+			Set<Locale> locales = new HashSet<>();
+			locales.addAll(localesOf(keyClass));
+			locales.addAll(other.localesOf(keyClass));
+			for (Locale locale : locales) {
+				Map<String, String> mine = values(keyClass, locale);
+				Map<String, String> theirs = other.values(keyClass, locale);
+				Set<String> names = new HashSet<>(mine.keySet());
+				names.addAll(theirs.keySet());
+				for (String name : names) {
+					if (!Objects.equal(mine.get(name), theirs.get(name))) {
+						changed.add((I18NKey<?>) Enum.valueOf((Class) keyClass, name));
+					}
+				}
+			}
+		}
+		return changed.build();
+	}
+
+	private Set<Locale> localesOf(Class<?> keyClass) {
+		ImmutableMap<Locale, ImmutableMap<String, String>> locales = values.get(keyClass);
+		return (locales == null) ? ImmutableSet.<Locale> of() : locales.keySet();
+	}
+
+}
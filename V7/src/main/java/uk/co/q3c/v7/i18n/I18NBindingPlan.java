@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Provider;
+import com.vaadin.data.Property;
+import com.vaadin.ui.AbstractComponent;
+import com.vaadin.ui.Table;
+
+/**
+ * The I18N fields of an {@link I18NListener} class, worked out once per class so that {@link AnnotationI18NTranslator}
+ * does not need to repeat the reflection on every locale change. Only the fields declared by the class itself are
+ * included (as has always been the case), and only those which are either an {@link I18NListener}, or an
+ * {@link AbstractComponent} with at least one annotation.
+ * <p>
+ * Plans are held in a {@link ClassValue}, and so are computed at most once per class, without locking on the read
+ * path. The plan does not depend on which annotations are registered with {@link CurrentLocale} - each field keeps all
+ * of its annotations, and the translator selects those which have a reader.
+ *
+ * @author David Sowerby
+ *
+ */
+public class I18NBindingPlan {
+
+	private static final ClassValue<I18NBindingPlan> plans = new ClassValue<I18NBindingPlan>() {
+		@Override
+		protected I18NBindingPlan computeValue(Class<?> type) {
+			return new I18NBindingPlan(type);
+		}
+	};
+
+	private static final MethodType getterType = MethodType.methodType(Object.class, Object.class);
+
+	private final ImmutableList<BoundField> fields;
+
+	/**
+	 * Returns the plan for {@code clazz}, computing it on first use
+	 *
+	 * @param clazz
+	 * @return
+	 */
+	public static I18NBindingPlan forClass(Class<?> clazz) {
+		return plans.get(clazz);
+	}
+
+	private I18NBindingPlan(Class<?> clazz) {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		List<BoundField> bound = new ArrayList<>();
+		for (Field field : clazz.getDeclaredFields()) {
+			Class<?> type = field.getType();
+			boolean listener = I18NListener.class.isAssignableFrom(type);
+			boolean component = AbstractComponent.class.isAssignableFrom(type);
+			Annotation[] annotations = field.getDeclaredAnnotations();
+			if (listener || (component && (annotations.length > 0))) {
+				field.setAccessible(true);
+				MethodHandle getter;
+				try {
+					getter = lookup.unreflectGetter(field).asType(getterType);
+				} catch (IllegalAccessException e) {
+					throw new IllegalStateException("Unable to access I18N field " + field.getName(), e);
+				}
+				bound.add(new BoundField(field.getName(), getter, listener, component,
+						Property.class.isAssignableFrom(type), Table.class.isAssignableFrom(type), annotations));
+			}
+		}
+		fields = ImmutableList.copyOf(bound);
+	}
+
+	public ImmutableList<BoundField> getFields() {
+		return fields;
+	}
+
+	/**
+	 * A single field of the plan, with a getter for its value and flags for the processing it needs
+	 */
+	public static class BoundField {
+		private final String name;
+		private final MethodHandle getter;
+		private final boolean listener;
+		private final boolean component;
+		private final boolean property;
+		private final boolean table;
+		private final Annotation[] annotations;
+		private volatile ResolvedKeys[] resolved;
+
+		BoundField(String name, MethodHandle getter, boolean listener, boolean component, boolean property,
+				boolean table, Annotation[] annotations) {
+			super();
+			this.name = name;
+			this.getter = getter;
+			this.listener = listener;
+			this.component = component;
+			this.property = property;
+			this.table = table;
+			this.annotations = annotations;
+			this.resolved = new ResolvedKeys[annotations.length];
+		}
+
+		/**
+		 * Returns the value of this field in {@code target}
+		 *
+		 * @param target
+		 * @return
+		 */
+		public Object get(Object target) {
+			try {
+				return getter.invokeExact(target);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new IllegalStateException("Unable to read I18N field " + name, e);
+			}
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public boolean isListener() {
+			return listener;
+		}
+
+		public boolean isComponent() {
+			return component;
+		}
+
+		public boolean isProperty() {
+			return property;
+		}
+
+		public boolean isTable() {
+			return table;
+		}
+
+		public int getAnnotationCount() {
+			return annotations.length;
+		}
+
+		public Annotation getAnnotation(int index) {
+			return annotations[index];
+		}
+
+		/**
+		 * Returns the keys read from the annotation at {@code index} by a reader from {@code readerProvider}. The keys
+		 * are read only once for each reader provider, so the reader is not even created after the first call.
+		 *
+		 * @param index
+		 * @param readerProvider
+		 * @return
+		 */
+		public ResolvedKeys keys(int index, Provider<? extends I18NAnnotationReader> readerProvider) {
+			ResolvedKeys keys = resolved[index];
+			if ((keys == null) || (keys.readerProvider != readerProvider)) {
+				I18NAnnotationReader reader = readerProvider.get();
+				Annotation annotation = annotations[index];
+				keys = new ResolvedKeys(readerProvider, reader.caption(annotation), reader.description(annotation),
+						reader.value(annotation));
+				// copy on write, so a concurrent reader never sees a partly updated array
+				ResolvedKeys[] updated = resolved.clone();
+				updated[index] = keys;
+				resolved = updated;
+			}
+			return keys;
+		}
+	}
+
+	/**
+	 * The keys read from one annotation
+	 */
+	public static class ResolvedKeys {
+		private final Provider<? extends I18NAnnotationReader> readerProvider;
+		private final I18NKey<?> captionKey;
+		private final I18NKey<?> descriptionKey;
+		private final I18NKey<?> valueKey;
+
+		ResolvedKeys(Provider<? extends I18NAnnotationReader> readerProvider, I18NKey<?> captionKey,
+				I18NKey<?> descriptionKey, I18NKey<?> valueKey) {
+			super();
+			this.readerProvider = readerProvider;
+			this.captionKey = captionKey;
+			this.descriptionKey = descriptionKey;
+			this.valueKey = valueKey;
+		}
+
+		public I18NKey<?> getCaptionKey() {
+			return captionKey;
+		}
+
+		public I18NKey<?> getDescriptionKey() {
+			return descriptionKey;
+		}
+
+		public I18NKey<?> getValueKey() {
+			return valueKey;
+		}
+	}
+}
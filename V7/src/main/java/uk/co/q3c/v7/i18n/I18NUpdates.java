@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2013 David Sowerby
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import com.google.common.base.Objects;
+import com.vaadin.data.Property;
+import com.vaadin.ui.AbstractComponent;
+import com.vaadin.ui.Table;
+
+/**
+ * Applies translated values to components only where they differ from the current value. Vaadin marks a component as
+ * dirty on every call to a setter such as {@link AbstractComponent#setCaption(String)}, even if the value is the same,
+ * and sends the whole state of every dirty component to the client. By comparing first (the getters do not mark the
+ * component dirty), a locale change only sends the components whose text has actually changed, and the cost of a
+ * language switch follows the number of changed strings rather than the number of components.
+ * <p>
+ * Each method returns true if the component was updated.
+ * 
+ * @author David Sowerby
+ * 
+ */
+public final class I18NUpdates {
+
+	private I18NUpdates() {
+	}
+
+	public static boolean caption(AbstractComponent component, String caption) {
+		if (Objects.equal(component.getCaption(), caption)) {
+			return false;
+		}
+		component.setCaption(caption);
+		return true;
+	}
+
+	public static boolean description(AbstractComponent component, String description) {
+		if (Objects.equal(component.getDescription(), description)) {
+			return false;
+		}
+		component.setDescription(description);
+		return true;
+	}
+
+	public static boolean locale(AbstractComponent component, Locale locale) {
+		if (Objects.equal(component.getLocale(), locale)) {
+			return false;
+		}
+		component.setLocale(locale);
+		return true;
+	}
+
+	public static boolean value(Property<String> property, String value) {
+		if (Objects.equal(property.getValue(), value)) {
+			return false;
+		}
+		property.setValue(value);
+		return true;
+	}
+
+	public static boolean columnHeaders(Table table, String[] headers) {
+		if (Arrays.equals(table.getColumnHeaders(), headers)) {
+			return false;
+		}
+		table.setColumnHeaders(headers);
+		return true;
+	}
+}
@@ -26,16 +26,21 @@ public enum LabelKey implements I18NKey<Labels> {
 	Authentication,
 	Authorisation,
 	Broadcast_Messages,
+	Broadcast_Transport_Service,
 	Cancel,
 	Enable_Account,
 	Error,
+	External_Translation_Service,
 	First_Name,
+	Group,
 	Guest,
 	Home,
+	I18N_Warmup_Service,
 	Invalid_Page,
 	Last_Name,
 	Log_In,
 	Log_Out,
+	Message,
 	Message_Bar,
 	Message_Box,
 	No,
@@ -45,13 +50,16 @@ public enum LabelKey implements I18NKey<Labels> {
 	Public,
 	Pull,
 	Push,
+	Received,
 	Refresh_Account,
 	Request_Account,
 	Reset_Account,
+	Scope_Monitor_Service,
 	Small,
 	Sitemap_Service,
 	Splash,
 	System_Account,
+	Translation_Usage_Service,
 	Unlock_Account,
 	Unnamed,
 	V7,
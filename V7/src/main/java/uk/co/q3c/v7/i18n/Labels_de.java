@@ -31,6 +31,9 @@ public class Labels_de extends Labels {
 		map.put(LabelKey.Small, "Klein");
 		map.put(LabelKey.First_Name, "Vorname");
 		map.put(LabelKey.Last_Name, "Nachname");
+		map.put(LabelKey.Group, "Gruppe");
+		map.put(LabelKey.Message, "Nachricht");
+		map.put(LabelKey.Received, "Empfangen");
 	}
 
 	@Override
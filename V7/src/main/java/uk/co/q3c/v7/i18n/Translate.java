@@ -12,9 +12,18 @@
  */
 package uk.co.q3c.v7.i18n;
 
-import java.text.MessageFormat;
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.util.Date;
 import java.util.Locale;
 
+import uk.co.q3c.util.MessageFormat;
+import uk.co.q3c.util.MessagePattern;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.inject.Inject;
 
 /**
@@ -22,24 +31,115 @@ import com.google.inject.Inject;
  * value for the key (but cannot use arguments) by using {@link I18NKey#getValue(Locale)}. This class simply provides a
  * slightly neater syntax, a method for expanding a pattern with parameters. Some methods also have a simpler signature
  * by defaulting to {@link CurrentLocale}
+ * <p>
+ * Values are read from {@link TranslationTables}, which flattens each bundle hierarchy once per locale. Each lookup is
+ * counted by {@link TranslationUsage}.
+ * <p>
+ * Most keys are used without arguments. For those, {@link #fromNoArgs(I18NKey)} and
+ * {@link #fromNoArgs(I18NKey, Locale)} avoid the varargs array, and return either the table entry itself or a cached
+ * default, so they allocate nothing.
  * 
  * @author David Sowerby 3 Aug 2013
  * 
  */
 public class Translate {
 
+	/**
+	 * The value used when a key has no translation - the enum name with underscores replaced by spaces - held per enum
+	 * class, indexed by ordinal
+	 */
+	private static final ClassValue<String[]> defaultValues = new ClassValue<String[]>() {
+		@Override
+		protected String[] computeValue(Class<?> type) {
+			Object[] constants = type.getEnumConstants();
+			String[] values = new String[constants.length];
+			for (int i = 0; i < constants.length; i++) {
+				values[i] = ((Enum<?>) constants[i]).name().replace("_", " ");
+			}
+			return values;
+		}
+	};
+
+	/**
+	 * The {@link java.text.MessageFormat} for each pattern which needs one, by pattern and locale, so that it is parsed
+	 * once. A java.text.MessageFormat is not thread safe, so each is used while synchronized on it.
+	 */
+	private static final LoadingCache<JavaTextKey, JavaTextFormat> javaTextFormats = CacheBuilder.newBuilder()
+			.maximumSize(MessageFormat.CACHE_SIZE).build(new CacheLoader<JavaTextKey, JavaTextFormat>() {
+				@Override
+				public JavaTextFormat load(JavaTextKey key) {
+					return new JavaTextFormat(key.pattern, key.locale);
+				}
+			});
+
+	private static final class JavaTextKey {
+		private final String pattern;
+		private final Locale locale;
+
+		JavaTextKey(String pattern, Locale locale) {
+			this.pattern = pattern;
+			this.locale = locale;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof JavaTextKey)) {
+				return false;
+			}
+			JavaTextKey other = (JavaTextKey) obj;
+			return pattern.equals(other.pattern) && Objects.equal(locale, other.locale);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(pattern, locale);
+		}
+	}
+
+	/**
+	 * A compiled java.text pattern, and the number of arguments it uses. {@code format} is null if the pattern is
+	 * invalid, so that an invalid pattern is not parsed again on every use.
+	 */
+	private static final class JavaTextFormat {
+		private final java.text.MessageFormat format;
+		private final int parameterCount;
+
+		JavaTextFormat(String pattern, Locale locale) {
+			java.text.MessageFormat compiled;
+			try {
+				compiled = new java.text.MessageFormat(pattern, locale);
+			} catch (IllegalArgumentException e) {
+				compiled = null;
+			}
+			this.format = compiled;
+			this.parameterCount = (compiled == null) ? 0 : compiled.getFormatsByArgumentIndex().length;
+		}
+	}
+
 	private final CurrentLocale currentLocale;
+	private final TranslationTables tables;
+	private final TranslationUsage usage;
 
 	@Inject
-	protected Translate(CurrentLocale currentLocale) {
+	protected Translate(CurrentLocale currentLocale, TranslationTables tables, TranslationUsage usage) {
 		super();
 		this.currentLocale = currentLocale;
+		this.tables = tables;
+		this.usage = usage;
 	}
 
 	/**
 	 * Looks up key pattern from its associated, locale specific, map. If the key is not present in the map, the
 	 * enum.name() is returned. Before returning the enum.name(), underscores are replaced with spaces. If arguments are
-	 * supplied, these are applied to the pattern.
+	 * supplied, these are applied to the pattern by {@link MessageFormat}, in which placeholders are simply "{n}" and an
+	 * apostrophe is an ordinary character. {@link Number} and {@link Date} arguments are formatted for {@code locale},
+	 * as {@link java.text.MessageFormat} formats them (so 1234 is "1,234" in English), and any other argument by its
+	 * toString().
+	 * <p>
+	 * A pattern which uses the syntax of {@link java.text.MessageFormat} beyond that - a placeholder with a format type,
+	 * such as "{0,number,#.##}" or "{1,date,long}", or a quoted apostrophe ("''") - is formatted by
+	 * {@link java.text.MessageFormat} for {@code locale} instead, so its quoting rules and locale specific number and
+	 * date formats apply to the whole of that pattern.
 	 * 
 	 * @param locale
 	 * @param key
@@ -50,15 +150,74 @@ public class Translate {
 		if (key == null) {
 			return "key is null";
 		}
-		String pattern = key.getValue(locale);
+		String pattern = tables.lookup(key, locale);
 		if (pattern == null) {
-			return key.name().replace("_", " ");
+			usage.miss(key, locale);
+			return defaultValue(key);
 		}
+		usage.hit(key, locale);
 		if ((arguments == null) || (arguments.length == 0)) {
 			return pattern;
 		}
-		String result = MessageFormat.format(pattern, arguments);
-		return result;
+		MessagePattern compiled = MessageFormat.compile(pattern);
+		if (compiled.isJavaTextSyntax()) {
+			return formatWithJavaText(key, locale, pattern, arguments);
+		}
+		if (!compiled.accepts(arguments)) {
+			usage.formatFailure(key, locale);
+		}
+		return MessageFormat.format(compiled, localise(arguments, locale));
+	}
+
+	private String formatWithJavaText(I18NKey<?> key, Locale locale, String pattern, Object[] arguments) {
+		JavaTextFormat javaText = javaTextFormats.getUnchecked(new JavaTextKey(pattern, locale));
+		if (javaText.format == null) {
+			usage.formatFailure(key, locale);
+			return pattern;
+		}
+		if (javaText.parameterCount > arguments.length) {
+			usage.formatFailure(key, locale);
+		}
+		try {
+			synchronized (javaText.format) {
+				return javaText.format.format(arguments);
+			}
+		} catch (IllegalArgumentException e) {
+			// an argument of the wrong type for its format
+			usage.formatFailure(key, locale);
+			return pattern;
+		}
+	}
+
+	/**
+	 * Returns {@code arguments}, or a copy of it if it contains any {@link Number} or {@link Date}, with those formatted
+	 * for {@code locale} as {@link java.text.MessageFormat} formats a plain "{n}" placeholder
+	 */
+	private static Object[] localise(Object[] arguments, Locale locale) {
+		Object[] localised = arguments;
+		NumberFormat numberFormat = null;
+		DateFormat dateFormat = null;
+		for (int i = 0; i < arguments.length; i++) {
+			Object argument = arguments[i];
+			if (argument instanceof Number) {
+				if (numberFormat == null) {
+					numberFormat = NumberFormat.getInstance(locale);
+				}
+				argument = numberFormat.format(argument);
+			} else if (argument instanceof Date) {
+				if (dateFormat == null) {
+					dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
+				}
+				argument = dateFormat.format(argument);
+			} else {
+				continue;
+			}
+			if (localised == arguments) {
+				localised = arguments.clone();
+			}
+			localised[i] = argument;
+		}
+		return localised;
 	}
 
 	/**
@@ -74,4 +233,43 @@ public class Translate {
 		return from(key, currentLocale.getLocale(), arguments);
 	}
 
+	/**
+	 * Returns the value for {@code key} in {@code locale}, for use where there are no arguments. If the key is not
+	 * present in the map, the enum.name() is returned, with underscores replaced with spaces.
+	 * 
+	 * @param key
+	 * @param locale
+	 * @return
+	 */
+	public String fromNoArgs(I18NKey<?> key, Locale locale) {
+		if (key == null) {
+			return "key is null";
+		}
+		String value = tables.lookup(key, locale);
+		if (value == null) {
+			usage.miss(key, locale);
+			return defaultValue(key);
+		}
+		usage.hit(key, locale);
+		return value;
+	}
+
+	/**
+	 * As {@link #fromNoArgs(I18NKey, Locale)}, using {@link CurrentLocale}
+	 * 
+	 * @param key
+	 * @return
+	 */
+	public String fromNoArgs(I18NKey<?> key) {
+		return fromNoArgs(key, currentLocale.getLocale());
+	}
+
+	private String defaultValue(I18NKey<?> key) {
+		if (key instanceof Enum) {
+			Enum<?> enumKey = (Enum<?>) key;
+			return defaultValues.get(enumKey.getDeclaringClass())[enumKey.ordinal()];
+		}
+		return key.name().replace("_", " ");
+	}
+
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Describes a new set of {@link ExternalTranslations} installed in {@link TranslationTables}: the version it was given
+ * and the keys whose value may have changed, so that only the components using those keys need to be refreshed.
+ *
+ * @author David Sowerby
+ *
+ */
+public class TranslationChange {
+
+	private final long version;
+	private final ImmutableSet<I18NKey<?>> changedKeys;
+
+	public TranslationChange(long version, ImmutableSet<I18NKey<?>> changedKeys) {
+		super();
+		this.version = version;
+		this.changedKeys = changedKeys;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public ImmutableSet<I18NKey<?>> getChangedKeys() {
+		return changedKeys;
+	}
+
+	public boolean affects(I18NKey<?> key) {
+		return changedKeys.contains(key);
+	}
+
+	public boolean isEmpty() {
+		return changedKeys.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "version=" + version + ", changed keys=" + changedKeys.size();
+	}
+
+}
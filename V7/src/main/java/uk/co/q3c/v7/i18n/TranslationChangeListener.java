@@ -0,0 +1,24 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n;
+
+public interface TranslationChangeListener {
+
+	/**
+	 * Called after new translations have been installed in {@link TranslationTables}. Called on the thread which
+	 * installed them, which is not a Vaadin request thread.
+	 *
+	 * @param change
+	 */
+	void translationsChanged(TranslationChange change);
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
+import com.google.inject.Singleton;
+
+/**
+ * Holds a flattened translation table for each combination of {@link I18NKey} enum class and {@link Locale}. A table is
+ * a dense String[] indexed by the key's ordinal, with the {@link EnumResourceBundle} parent chain already resolved, so
+ * once a table has been built a lookup is an array read, with no call to {@link java.util.ResourceBundle#getBundle} and
+ * no recursion through parent bundles.
+ * <p>
+ * Tables are built lazily, on first use of a key class in a locale, and are never modified once published. If two
+ * threads build the same table at the same time, both produce the same content and only one is kept. A null entry
+ * means the key has no value in any bundle of the hierarchy, and the caller should apply its own default.
+ * <p>
+ * {@link ExternalTranslations} can be installed at any time with {@link #install(ExternalTranslations)}. An external
+ * value takes precedence over a compiled value for the same locale, but not over a compiled value for a more specific
+ * locale. Installing replaces the tables and the translations they are built from in a single volatile write, so a
+ * lookup sees either the old version or the new one, never a mixture. Each install is given a new version number, and
+ * the keys it changes are passed to {@link TranslationChangeListener}s.
+ * <p>
+ * Keys which are not enums cannot be indexed, and are looked up through {@link I18NKey#getValue(Locale)} every time.
+ *
+ * @author David Sowerby
+ *
+ */
+@Singleton
+public class TranslationTables {
+
+	private static final ResourceBundle.Control control = ResourceBundle.Control
+			.getControl(ResourceBundle.Control.FORMAT_DEFAULT);
+
+	private volatile Generation generation = new Generation(0, ExternalTranslations.EMPTY);
+	private final List<TranslationChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * The tables built from one version of the {@link ExternalTranslations}
+	 */
+	private static class Generation {
+		private final long version;
+		private final ExternalTranslations external;
+		private final ConcurrentMap<Class<?>, ConcurrentMap<Locale, String[]>> tables = new MapMaker().makeMap();
+
+		Generation(long version, ExternalTranslations external) {
+			super();
+			this.version = version;
+			this.external = external;
+		}
+
+		/**
+		 * Returns the flattened table for the enum class of {@code key} in {@code locale}, building it if necessary
+		 */
+		String[] table(Enum<?> key, Locale locale) {
+			Class<?> keyClass = key.getDeclaringClass();
+			ConcurrentMap<Locale, String[]> localeTables = tables.get(keyClass);
+			if (localeTables == null) {
+				ConcurrentMap<Locale, String[]> newTables = new MapMaker().makeMap();
+				localeTables = tables.putIfAbsent(keyClass, newTables);
+				if (localeTables == null) {
+					localeTables = newTables;
+				}
+			}
+			String[] table = localeTables.get(locale);
+			if (table == null) {
+				String[] newTable = build(keyClass, (I18NKey<?>) key, locale);
+				table = localeTables.putIfAbsent(locale, newTable);
+				if (table == null) {
+					table = newTable;
+				}
+			}
+			return table;
+		}
+
+		/**
+		 * Resolves the bundle once, then reads every key through it, so that the parent chain is walked only once per
+		 * key for the life of the table. External values are then applied if they are at least as specific as the
+		 * compiled value.
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private String[] build(Class<?> keyClass, I18NKey<?> key, Locale locale) {
+			EnumResourceBundle bundle = key.getBundle(locale);
+			Object[] constants = keyClass.getEnumConstants();
+			String[] table = new String[constants.length];
+			for (int i = 0; i < constants.length; i++) {
+				table[i] = bundle.getValue((Enum) constants[i]);
+			}
+			if (external.isEmpty()) {
+				return table;
+			}
+			List<Locale> candidates = control.getCandidateLocales("", locale);
+			for (int i = 0; i < constants.length; i++) {
+				Enum<?> constant = (Enum<?>) constants[i];
+				for (int rank = 0; rank < candidates.size(); rank++) {
+					String value = external.values(keyClass, candidates.get(rank)).get(constant.name());
+					if (value != null) {
+						if (rank <= compiledRank(bundle, constant, candidates)) {
+							table[i] = value;
+						}
+						break;
+					}
+				}
+			}
+			return table;
+		}
+
+		/**
+		 * The position in {@code candidates} of the locale which supplies the compiled value of {@code key}. If there
+		 * is no compiled value, any external value should be used, so {@link Integer#MAX_VALUE} is returned.
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private int compiledRank(EnumResourceBundle bundle, Enum<?> key, List<Locale> candidates) {
+			EnumResourceBundle level = bundle;
+			while (level != null) {
+				if (level.getMap().containsKey(key)) {
+					int rank = candidates.indexOf(level.getLocale());
+					// a default locale fallback is less specific than anything requested
+					return (rank < 0) ? candidates.size() : rank;
+				}
+				level = level.getParentBundle();
+			}
+			return Integer.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * Returns the value for {@code key} in {@code locale}, or null if there is no value defined for it
+	 *
+	 * @param key
+	 * @param locale
+	 * @return
+	 */
+	public String lookup(I18NKey<?> key, Locale locale) {
+		if (!(key instanceof Enum)) {
+			return key.getValue(locale);
+		}
+		Enum<?> enumKey = (Enum<?>) key;
+		return generation.table(enumKey, locale)[enumKey.ordinal()];
+	}
+
+	/**
+	 * Replaces the current {@link ExternalTranslations} with {@code external}, and discards all tables so that they
+	 * are rebuilt on next use. Listeners are notified after the new version is visible to lookups.
+	 *
+	 * @param external
+	 * @return the change made, which is empty (but still has a new version) if no values are different
+	 */
+	public TranslationChange install(ExternalTranslations external) {
+		TranslationChange change;
+		synchronized (this) {
+			Generation previous = generation;
+			ImmutableSet<I18NKey<?>> changedKeys = previous.external.changedKeys(external);
+			generation = new Generation(previous.version + 1, external);
+			change = new TranslationChange(previous.version + 1, changedKeys);
+		}
+		for (TranslationChangeListener listener : listeners) {
+			listener.translationsChanged(change);
+		}
+		return change;
+	}
+
+	/**
+	 * The version of the {@link ExternalTranslations} currently installed, 0 if none has been
+	 *
+	 * @return
+	 */
+	public long getVersion() {
+		return generation.version;
+	}
+
+	public void addChangeListener(TranslationChangeListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeChangeListener(TranslationChangeListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Discards all tables, so that they are rebuilt from the bundles on next use. Only needed if bundle content is
+	 * changed after tables have been built.
+	 */
+	public synchronized void clear() {
+		Generation current = generation;
+		generation = new Generation(current.version, current.external);
+	}
+
+	/**
+	 * The number of tables currently built
+	 *
+	 * @return
+	 */
+	public int size() {
+		int count = 0;
+		for (ConcurrentMap<Locale, String[]> localeTables : generation.tables.values()) {
+			count += localeTables.size();
+		}
+		return count;
+	}
+}
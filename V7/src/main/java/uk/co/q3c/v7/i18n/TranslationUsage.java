@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.MapMaker;
+import com.google.inject.Singleton;
+
+/**
+ * Counts, for each key and locale, how often {@link Translate} finds a value (a hit), finds no value and falls back to
+ * the key name (a miss), and is given arguments which do not match the pattern (a format failure).
+ * <p>
+ * Recording is on the path of every translation, so it allocates nothing once the counters for a key class and locale
+ * exist: the counters are a single {@link AtomicLongArray} indexed by key ordinal. Threads are spread over a number of
+ * stripes (by thread id) so that a popular key does not become a point of contention - each stripe is a separate
+ * region of the array, and a count is the sum of its stripes. Counts read while translations are being recorded are
+ * therefore approximate, which is fine for the purpose.
+ * <p>
+ * Keys which are not enums cannot be indexed, and are not counted.
+ *
+ * @author David Sowerby
+ *
+ */
+@Singleton
+public class TranslationUsage {
+
+	private static final int HIT = 0;
+	private static final int MISS = 1;
+	private static final int FORMAT_FAILURE = 2;
+	private static final int KINDS = 3;
+
+	/**
+	 * A power of 2, so that the stripe can be selected with a mask
+	 */
+	private static final int STRIPES = Math.min(16,
+			Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+	private final ConcurrentMap<Class<?>, ConcurrentMap<Locale, Counters>> counters = new MapMaker().makeMap();
+	private volatile boolean enabled = true;
+
+	private static class Counters {
+		private final Object[] keys;
+		private final Locale locale;
+		private final int slotsPerStripe;
+		private final AtomicLongArray counts;
+
+		Counters(Class<?> keyClass, Locale locale) {
+			super();
+			this.keys = keyClass.getEnumConstants();
+			this.locale = locale;
+			this.slotsPerStripe = keys.length * KINDS;
+			this.counts = new AtomicLongArray(STRIPES * slotsPerStripe);
+		}
+
+		void increment(int ordinal, int kind) {
+			int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+			counts.incrementAndGet(stripe * slotsPerStripe + ordinal * KINDS + kind);
+		}
+
+		long sum(int ordinal, int kind) {
+			long total = 0;
+			for (int stripe = 0; stripe < STRIPES; stripe++) {
+				total += counts.get(stripe * slotsPerStripe + ordinal * KINDS + kind);
+			}
+			return total;
+		}
+	}
+
+	public void hit(I18NKey<?> key, Locale locale) {
+		record(key, locale, HIT);
+	}
+
+	public void miss(I18NKey<?> key, Locale locale) {
+		record(key, locale, MISS);
+	}
+
+	public void formatFailure(I18NKey<?> key, Locale locale) {
+		record(key, locale, FORMAT_FAILURE);
+	}
+
+	private void record(I18NKey<?> key, Locale locale, int kind) {
+		if (!enabled || !(key instanceof Enum)) {
+			return;
+		}
+		Enum<?> enumKey = (Enum<?>) key;
+		counters(enumKey.getDeclaringClass(), locale).increment(enumKey.ordinal(), kind);
+	}
+
+	private Counters counters(Class<?> keyClass, Locale locale) {
+		ConcurrentMap<Locale, Counters> localeCounters = counters.get(keyClass);
+		if (localeCounters == null) {
+			ConcurrentMap<Locale, Counters> newCounters = new MapMaker().makeMap();
+			localeCounters = counters.putIfAbsent(keyClass, newCounters);
+			if (localeCounters == null) {
+				localeCounters = newCounters;
+			}
+		}
+		Counters c = localeCounters.get(locale);
+		if (c == null) {
+			Counters newC = new Counters(keyClass, locale);
+			c = localeCounters.putIfAbsent(locale, newC);
+			if (c == null) {
+				c = newC;
+			}
+		}
+		return c;
+	}
+
+	/**
+	 * Returns the counts for every key and locale which has been used, ordered with the most missed first, then the
+	 * most used - which gives translators a priority list
+	 *
+	 * @return
+	 */
+	public ImmutableList<TranslationUsageCount> snapshot() {
+		List<TranslationUsageCount> results = new ArrayList<>();
+		for (ConcurrentMap<Locale, Counters> localeCounters : counters.values()) {
+			for (Counters c : localeCounters.values()) {
+				for (int i = 0; i < c.keys.length; i++) {
+					long hits = c.sum(i, HIT);
+					long misses = c.sum(i, MISS);
+					long formatFailures = c.sum(i, FORMAT_FAILURE);
+					if ((hits + misses + formatFailures) > 0) {
+						results.add(new TranslationUsageCount((I18NKey<?>) c.keys[i], c.locale, hits, misses,
+								formatFailures));
+					}
+				}
+			}
+		}
+		Collections.sort(results, new Comparator<TranslationUsageCount>() {
+			@Override
+			public int compare(TranslationUsageCount o1, TranslationUsageCount o2) {
+				int result = Long.compare(o2.getMisses(), o1.getMisses());
+				return (result != 0) ? result : Long.compare(o2.getHits(), o1.getHits());
+			}
+		});
+		return ImmutableList.copyOf(results);
+	}
+
+	/**
+	 * Discards all counts
+	 */
+	public void reset() {
+		counters.clear();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Recording can be switched off if even its small cost is not wanted. Counts already made are kept.
+	 *
+	 * @param enabled
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+}
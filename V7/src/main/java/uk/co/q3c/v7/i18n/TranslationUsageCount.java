@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n;
+
+import java.util.Locale;
+
+/**
+ * An immutable copy of the {@link TranslationUsage} counts for one key in one locale
+ *
+ * @author David Sowerby
+ *
+ */
+public class TranslationUsageCount {
+
+	private final I18NKey<?> key;
+	private final Locale locale;
+	private final long hits;
+	private final long misses;
+	private final long formatFailures;
+
+	public TranslationUsageCount(I18NKey<?> key, Locale locale, long hits, long misses, long formatFailures) {
+		super();
+		this.key = key;
+		this.locale = locale;
+		this.hits = hits;
+		this.misses = misses;
+		this.formatFailures = formatFailures;
+	}
+
+	public I18NKey<?> getKey() {
+		return key;
+	}
+
+	public Locale getLocale() {
+		return locale;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getFormatFailures() {
+		return formatFailures;
+	}
+
+	@Override
+	public String toString() {
+		return key.getClass().getSimpleName() + "." + key.name() + " [" + locale + "] hits=" + hits + ", misses="
+				+ misses + ", format failures=" + formatFailures;
+	}
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n.external;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.q3c.util.ResourceUtils;
+import uk.co.q3c.v7.base.config.ApplicationConfiguration;
+import uk.co.q3c.v7.base.config.ApplicationConfigurationService;
+import uk.co.q3c.v7.base.config.ConfigKeys;
+import uk.co.q3c.v7.base.navigate.sitemap.Sitemap;
+import uk.co.q3c.v7.base.navigate.sitemap.SitemapNode;
+import uk.co.q3c.v7.base.services.AbstractServiceI18N;
+import uk.co.q3c.v7.base.services.Dependency;
+import uk.co.q3c.v7.i18n.DescriptionKey;
+import uk.co.q3c.v7.i18n.ExternalTranslations;
+import uk.co.q3c.v7.i18n.I18NKey;
+import uk.co.q3c.v7.i18n.LabelKey;
+import uk.co.q3c.v7.i18n.Translate;
+import uk.co.q3c.v7.i18n.TranslationChange;
+import uk.co.q3c.v7.i18n.TranslationChangeListener;
+import uk.co.q3c.v7.i18n.TranslationTables;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Default implementation for {@link ExternalTranslationService}. The directory is taken from the application
+ * configuration ({@link ConfigKeys#I18N_EXTERNAL_DIRECTORY}), and defaults to "i18n". A relative path is resolved
+ * against {@link ResourceUtils#configurationDirectory()}. If the directory does not exist the service still starts,
+ * but there is nothing to load or watch.
+ * <p>
+ * The directory is watched by a daemon thread. Editors often write a file in several steps, so after a change is
+ * detected the thread waits for {@link #settleTime()} and then loads the whole directory once. If a file cannot be
+ * read, the previous translations are left in place.
+ * <p>
+ * When translations change, the localised labels of any {@link SitemapNode} using a changed key are discarded, so that
+ * navigation components show the new value. When the service is stopped, the external translations are removed.
+ *
+ * @author David Sowerby
+ *
+ */
+@Singleton
+public class DefaultExternalTranslationService extends AbstractServiceI18N implements ExternalTranslationService,
+		TranslationChangeListener {
+
+	private static Logger log = LoggerFactory.getLogger(DefaultExternalTranslationService.class);
+
+	@Dependency
+	private final ApplicationConfigurationService configurationService;
+	private final ApplicationConfiguration configuration;
+	private final TranslationTables tables;
+	private final Sitemap sitemap;
+	@SuppressWarnings("rawtypes")
+	private final Set<Class<? extends I18NKey>> keyClasses;
+	private volatile File directory;
+	private WatchService watcher;
+	private Thread watchThread;
+
+	@Inject
+	protected DefaultExternalTranslationService(Translate translate,
+			ApplicationConfigurationService configurationService, ApplicationConfiguration configuration,
+			TranslationTables tables, Sitemap sitemap, @SuppressWarnings("rawtypes") Set<Class<? extends I18NKey>> keyClasses) {
+		super(translate);
+		this.configurationService = configurationService;
+		this.configuration = configuration;
+		this.tables = tables;
+		this.sitemap = sitemap;
+		this.keyClasses = keyClasses;
+		configure();
+	}
+
+	/**
+	 * Override this method if you want to change the name or description keys.
+	 */
+	protected void configure() {
+		setNameKey(LabelKey.External_Translation_Service);
+		setDescriptionKey(DescriptionKey.External_Translation_Service);
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		directory = resolveDirectory();
+		tables.addChangeListener(this);
+		reload();
+		if (!directory.isDirectory()) {
+			log.info("External translation directory {} does not exist, only compiled translations will be used",
+					directory.getAbsolutePath());
+			return;
+		}
+		watcher = FileSystems.getDefault().newWatchService();
+		directory.toPath().register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+		watchThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				watch();
+			}
+		}, "V7 translation watcher");
+		watchThread.setDaemon(true);
+		watchThread.start();
+	}
+
+	private File resolveDirectory() {
+		File configured = new File(configuration.getString(ConfigKeys.I18N_EXTERNAL_DIRECTORY, "i18n"));
+		if (configured.isAbsolute()) {
+			return configured;
+		}
+		return new File(ResourceUtils.configurationDirectory(), configured.getPath());
+	}
+
+	private void watch() {
+		try {
+			while (true) {
+				WatchKey key = watcher.take();
+				Thread.sleep(settleTime());
+				// drain everything that arrived while settling, one reload covers it all
+				do {
+					key.pollEvents();
+					key.reset();
+					key = watcher.poll();
+				} while (key != null);
+				try {
+					reload();
+				} catch (IOException e) {
+					log.warn("Unable to reload translations from " + directory.getAbsolutePath()
+							+ ", previous translations remain in use", e);
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			log.debug("Translation watcher stopped");
+		}
+	}
+
+	/**
+	 * The time in milliseconds to wait after a change is detected before reloading. Override to change it.
+	 *
+	 * @return
+	 */
+	protected long settleTime() {
+		return 250;
+	}
+
+	/**
+	 * Loads the whole directory. If called before the service has been started, the directory is resolved from the
+	 * configuration first.
+	 */
+	@Override
+	public synchronized TranslationChange reload() throws IOException {
+		if (directory == null) {
+			directory = resolveDirectory();
+		}
+		ExternalTranslations external = directory.isDirectory() ? ExternalTranslations.load(directory, keyClasses)
+				: ExternalTranslations.EMPTY;
+		TranslationChange change = tables.install(external);
+		log.info("External translations loaded from {}: {}", directory.getAbsolutePath(), change);
+		return change;
+	}
+
+	@Override
+	public void translationsChanged(TranslationChange change) {
+		if (change.isEmpty()) {
+			return;
+		}
+		for (SitemapNode node : sitemap.getAllNodes()) {
+			if (change.affects(node.getLabelKey())) {
+				node.clearLocalisedLabels();
+			}
+		}
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		if (watcher != null) {
+			watcher.close();
+			watchThread.join(1000);
+			watcher = null;
+			watchThread = null;
+		}
+		tables.install(ExternalTranslations.EMPTY);
+		tables.removeChangeListener(this);
+	}
+
+	@Override
+	public File getDirectory() {
+		return directory;
+	}
+
+}
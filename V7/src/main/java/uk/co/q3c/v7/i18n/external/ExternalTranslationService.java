@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n.external;
+
+import java.io.File;
+import java.io.IOException;
+
+import uk.co.q3c.v7.base.services.ServiceI18N;
+import uk.co.q3c.v7.i18n.ExternalTranslations;
+import uk.co.q3c.v7.i18n.TranslationChange;
+import uk.co.q3c.v7.i18n.TranslationTables;
+
+/**
+ * Loads {@link ExternalTranslations} from a directory into {@link TranslationTables}, and reloads them whenever a file
+ * in the directory changes, so that translations can be corrected without a redeploy.
+ *
+ * @author David Sowerby
+ *
+ */
+public interface ExternalTranslationService extends ServiceI18N {
+
+	/**
+	 * The directory translations are loaded from. Null until the service has been started.
+	 *
+	 * @return
+	 */
+	File getDirectory();
+
+	/**
+	 * Loads the files again and installs them, without waiting for a file change to be detected
+	 *
+	 * @return the change made
+	 * @throws IOException
+	 *             if a file cannot be read, in which case the previous translations remain in use
+	 */
+	TranslationChange reload() throws IOException;
+}
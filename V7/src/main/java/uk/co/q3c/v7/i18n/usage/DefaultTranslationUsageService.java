@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2013 David Sowerby
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n.usage;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.q3c.v7.base.config.ApplicationConfiguration;
+import uk.co.q3c.v7.base.config.ConfigKeys;
+import uk.co.q3c.v7.base.services.AbstractServiceI18N;
+import uk.co.q3c.v7.i18n.DescriptionKey;
+import uk.co.q3c.v7.i18n.LabelKey;
+import uk.co.q3c.v7.i18n.Translate;
+import uk.co.q3c.v7.i18n.TranslationUsage;
+import uk.co.q3c.v7.i18n.TranslationUsageCount;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Default implementation for {@link TranslationUsageService}. The interval between reports is taken from the
+ * application configuration ({@link ConfigKeys#I18N_USAGE_LOG_INTERVAL}, in seconds, default 300). An interval of 0 or
+ * less disables the periodic log, but counts are still available from {@link #getCounts()}.
+ * <p>
+ * Each report logs the summary, then the most missed keys (up to {@link #reportLimit()}) and any keys which have
+ * failed to format.
+ * 
+ * @author David Sowerby
+ * 
+ */
+@Singleton
+public class DefaultTranslationUsageService extends AbstractServiceI18N implements TranslationUsageService {
+
+	private static Logger log = LoggerFactory.getLogger(DefaultTranslationUsageService.class);
+
+	private final TranslationUsage usage;
+	private final ApplicationConfiguration applicationConfiguration;
+	private ScheduledExecutorService executor;
+
+	@Inject
+	protected DefaultTranslationUsageService(Translate translate, TranslationUsage usage,
+			ApplicationConfiguration applicationConfiguration) {
+		super(translate);
+		this.usage = usage;
+		this.applicationConfiguration = applicationConfiguration;
+		configure();
+	}
+
+	/**
+	 * Override this method if you want to change the name or description keys.
+	 */
+	protected void configure() {
+		setNameKey(LabelKey.Translation_Usage_Service);
+		setDescriptionKey(DescriptionKey.Translation_Usage_Service);
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		int interval = applicationConfiguration.getInt(ConfigKeys.I18N_USAGE_LOG_INTERVAL, 300);
+		if (interval <= 0) {
+			log.info("Translation usage log is disabled");
+			return;
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "V7 translation usage");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				logReport();
+			}
+		}, interval, interval, TimeUnit.SECONDS);
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * The maximum number of missed keys listed in each report
+	 * 
+	 * @return
+	 */
+	protected int reportLimit() {
+		return 20;
+	}
+
+	protected void logReport() {
+		try {
+			ImmutableList<TranslationUsageCount> counts = getCounts();
+			log.info(summary(counts));
+			int listed = 0;
+			for (TranslationUsageCount count : counts) {
+				if ((count.getMisses() == 0) || (listed == reportLimit())) {
+					break;
+				}
+				log.info("Missing translation: {}", count);
+				listed++;
+			}
+			for (TranslationUsageCount count : counts) {
+				if (count.getFormatFailures() > 0) {
+					log.warn("Translation arguments do not match pattern: {}", count);
+				}
+			}
+		} catch (Exception e) {
+			// don't let an exception stop the schedule
+			log.error("Unable to produce translation usage report", e);
+		}
+	}
+
+	@Override
+	public ImmutableList<TranslationUsageCount> getCounts() {
+		return usage.snapshot();
+	}
+
+	@Override
+	public String summary() {
+		return summary(getCounts());
+	}
+
+	private String summary(ImmutableList<TranslationUsageCount> counts) {
+		long hits = 0;
+		long misses = 0;
+		long formatFailures = 0;
+		int missingKeys = 0;
+		for (TranslationUsageCount count : counts) {
+			hits += count.getHits();
+			misses += count.getMisses();
+			formatFailures += count.getFormatFailures();
+			if (count.getMisses() > 0) {
+				missingKeys++;
+			}
+		}
+		return "Translation usage: keys used=" + counts.size() + ", hits=" + hits + ", misses=" + misses
+				+ ", missing keys=" + missingKeys + ", format failures=" + formatFailures;
+	}
+
+}
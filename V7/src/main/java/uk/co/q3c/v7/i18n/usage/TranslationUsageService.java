@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2013 David Sowerby
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n.usage;
+
+import uk.co.q3c.v7.base.services.ServiceI18N;
+import uk.co.q3c.v7.i18n.TranslationUsage;
+import uk.co.q3c.v7.i18n.TranslationUsageCount;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Reports the counts held by {@link TranslationUsage}: which keys are used most, which are missing in which locale,
+ * and which fail to format. While the service is started, a report is also logged periodically.
+ * 
+ * @author David Sowerby
+ * 
+ */
+public interface TranslationUsageService extends ServiceI18N {
+
+	/**
+	 * Returns the current counts, most missed first
+	 * 
+	 * @return
+	 */
+	ImmutableList<TranslationUsageCount> getCounts();
+
+	/**
+	 * A short summary of the current counts, as used for the periodic log
+	 * 
+	 * @return
+	 */
+	String summary();
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n.warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.q3c.v7.base.config.ApplicationConfiguration;
+import uk.co.q3c.v7.base.config.ApplicationConfigurationService;
+import uk.co.q3c.v7.base.config.ConfigKeys;
+import uk.co.q3c.v7.base.navigate.sitemap.Sitemap;
+import uk.co.q3c.v7.base.navigate.sitemap.SitemapNode;
+import uk.co.q3c.v7.base.navigate.sitemap.SitemapService;
+import uk.co.q3c.v7.base.services.AbstractServiceI18N;
+import uk.co.q3c.v7.base.services.Dependency;
+import uk.co.q3c.v7.i18n.DescriptionKey;
+import uk.co.q3c.v7.i18n.I18NKey;
+import uk.co.q3c.v7.i18n.LabelKey;
+import uk.co.q3c.v7.i18n.Translate;
+import uk.co.q3c.v7.i18n.TranslationTables;
+import uk.co.q3c.v7.i18n.external.ExternalTranslationService;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Default implementation for {@link I18NWarmupService}. The supported locales are taken from the application
+ * configuration ({@link ConfigKeys#I18N_SUPPORTED_LOCALES}, a list of IETF language tags such as "en-GB, de, de-CH"),
+ * and default to en-GB. The sets of keys examined are those bound in {@link I18NWarmupModule}.
+ * <p>
+ * Each locale is warmed up in its own task, with the tasks run in parallel. For each locale the bundles are loaded,
+ * the {@link TranslationTables} built, and the label and collation key of every {@link SitemapNode} created. The
+ * Sitemap and the {@link ExternalTranslationService} are started first if they have not been already, but a failure of
+ * either does not stop the service starting.
+ *
+ * @author David Sowerby
+ *
+ */
+@Singleton
+public class DefaultI18NWarmupService extends AbstractServiceI18N implements I18NWarmupService {
+
+	private static Logger log = LoggerFactory.getLogger(DefaultI18NWarmupService.class);
+
+	@Dependency
+	private final ApplicationConfigurationService configurationService;
+	@Dependency(requiredAtStart = false, stopOnStop = false)
+	private final SitemapService sitemapService;
+	@Dependency(requiredAtStart = false, stopOnStop = false)
+	private final ExternalTranslationService externalTranslationService;
+	private final ApplicationConfiguration configuration;
+	private final TranslationTables tables;
+	private final Sitemap sitemap;
+	@SuppressWarnings("rawtypes")
+	private final Set<Class<? extends I18NKey>> keyClasses;
+	private volatile ImmutableList<Locale> supportedLocales = ImmutableList.of();
+	private volatile ImmutableList<TranslationCoverage> coverage = ImmutableList.of();
+
+	@Inject
+	protected DefaultI18NWarmupService(Translate translate, ApplicationConfigurationService configurationService,
+			SitemapService sitemapService, ExternalTranslationService externalTranslationService,
+			ApplicationConfiguration configuration, TranslationTables tables, Sitemap sitemap,
+			@SuppressWarnings("rawtypes") Set<Class<? extends I18NKey>> keyClasses) {
+		super(translate);
+		this.configurationService = configurationService;
+		this.sitemapService = sitemapService;
+		this.externalTranslationService = externalTranslationService;
+		this.configuration = configuration;
+		this.tables = tables;
+		this.sitemap = sitemap;
+		this.keyClasses = keyClasses;
+		configure();
+	}
+
+	/**
+	 * Override this method if you want to change the name or description keys.
+	 */
+	protected void configure() {
+		setNameKey(LabelKey.I18N_Warmup_Service);
+		setDescriptionKey(DescriptionKey.I18N_Warmup_Service);
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		supportedLocales = extractLocalesFromConfig();
+		if (supportedLocales.isEmpty()) {
+			coverage = ImmutableList.of();
+			log.info("I18N warm-up has no supported locales to warm up");
+			return;
+		}
+		final List<SitemapNode> nodes = sitemap.getAllNodes();
+		long startTime = System.currentTimeMillis();
+
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(supportedLocales.size(), Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "V7 i18n warm-up");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		List<Future<List<TranslationCoverage>>> futures = new ArrayList<>();
+		try {
+			for (final Locale locale : supportedLocales) {
+				futures.add(executor.submit(new Callable<List<TranslationCoverage>>() {
+					@Override
+					public List<TranslationCoverage> call() {
+						return warm(locale, nodes);
+					}
+				}));
+			}
+			ImmutableList.Builder<TranslationCoverage> results = ImmutableList.builder();
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					results.addAll(futures.get(i).get());
+				} catch (ExecutionException e) {
+					log.error("Unable to warm up locale " + supportedLocales.get(i), e.getCause());
+				}
+			}
+			coverage = results.build();
+		} finally {
+			executor.shutdownNow();
+		}
+		log.info("I18N warm-up of {} locales and {} sitemap nodes completed in {} ms", new Object[] {
+				supportedLocales.size(), nodes.size(), System.currentTimeMillis() - startTime });
+		logCoverage();
+	}
+
+	/**
+	 * Warms up a single locale, and returns the coverage of each set of keys for it
+	 *
+	 * @param locale
+	 * @param nodes
+	 * @return
+	 */
+	@SuppressWarnings("rawtypes")
+	protected List<TranslationCoverage> warm(Locale locale, List<SitemapNode> nodes) {
+		List<TranslationCoverage> results = new ArrayList<>();
+		for (Class<? extends I18NKey> keyClass : keyClasses) {
+			I18NKey<?>[] keys = keyClass.getEnumConstants();
+			if ((keys == null) || (keys.length == 0)) {
+				continue;
+			}
+			tables.lookup(keys[0], locale);
+			results.add(TranslationCoverage.create(keyClass, locale));
+		}
+		for (SitemapNode node : nodes) {
+			node.getCollationKey(locale);
+		}
+		return results;
+	}
+
+	protected void logCoverage() {
+		for (TranslationCoverage c : coverage) {
+			if (c.getUndefinedKeys().isEmpty() && c.getInheritedKeys().isEmpty()) {
+				log.debug("Translation coverage complete: {}", c);
+			} else {
+				log.info("Translation coverage incomplete: {}", c);
+				log.debug("Undefined keys for {} {}: {}", new Object[] { c.getLocale(),
+						c.getKeyClass().getSimpleName(), c.getUndefinedKeys() });
+				log.debug("Inherited keys for {} {}: {}", new Object[] { c.getLocale(),
+						c.getKeyClass().getSimpleName(), c.getInheritedKeys() });
+			}
+		}
+	}
+
+	private ImmutableList<Locale> extractLocalesFromConfig() {
+		List<String> defaultValues = new ArrayList<>();
+		defaultValues.add(Locale.UK.toLanguageTag());
+		List<Object> list = configuration.getList(ConfigKeys.I18N_SUPPORTED_LOCALES, defaultValues);
+		ImmutableList.Builder<Locale> locales = ImmutableList.builder();
+		for (Object o : list) {
+			String tag = o.toString().trim();
+			if (StringUtils.isEmpty(tag)) {
+				continue;
+			}
+			Locale locale = Locale.forLanguageTag(tag);
+			if (locale.getLanguage().isEmpty()) {
+				log.warn("'{}' is not a valid language tag in {}", tag, ConfigKeys.I18N_SUPPORTED_LOCALES);
+			} else {
+				locales.add(locale);
+			}
+		}
+		return locales.build();
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		coverage = ImmutableList.of();
+	}
+
+	@Override
+	public ImmutableList<Locale> getSupportedLocales() {
+		return supportedLocales;
+	}
+
+	@Override
+	public ImmutableList<TranslationCoverage> getCoverage() {
+		return coverage;
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n.warmup;
+
+import uk.co.q3c.v7.base.navigate.StandardPageKey;
+import uk.co.q3c.v7.i18n.DescriptionKey;
+import uk.co.q3c.v7.i18n.I18NKey;
+import uk.co.q3c.v7.i18n.LabelKey;
+import uk.co.q3c.v7.i18n.MessageKey;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.Multibinder;
+
+public class I18NWarmupModule extends AbstractModule {
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	protected void configure() {
+		bindWarmupService();
+		Multibinder<Class<? extends I18NKey>> keyClasses = Multibinder.newSetBinder(binder(),
+				new TypeLiteral<Class<? extends I18NKey>>() {
+				});
+		addKeyClasses(keyClasses);
+	}
+
+	protected void bindWarmupService() {
+		bind(I18NWarmupService.class).to(DefaultI18NWarmupService.class);
+	}
+
+	/**
+	 * Override this method to add the {@link I18NKey} classes used by your application, so that they are warmed up
+	 * and their coverage reported by {@link I18NWarmupService}. Call super to retain the V7 key classes.
+	 *
+	 * @param keyClasses
+	 */
+	@SuppressWarnings("rawtypes")
+	protected void addKeyClasses(Multibinder<Class<? extends I18NKey>> keyClasses) {
+		keyClasses.addBinding().toInstance(LabelKey.class);
+		keyClasses.addBinding().toInstance(DescriptionKey.class);
+		keyClasses.addBinding().toInstance(MessageKey.class);
+		keyClasses.addBinding().toInstance(StandardPageKey.class);
+	}
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n.warmup;
+
+import java.util.Locale;
+
+import uk.co.q3c.v7.base.services.ServiceI18N;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Loads the translations for each supported locale when the application starts, so that the first user of a locale
+ * does not pay for bundle loading, translation table building and collation key creation. While doing so it records
+ * the {@link TranslationCoverage} of each set of keys, so that missing translations can be found before a user sees
+ * them.
+ *
+ * @author David Sowerby
+ *
+ */
+public interface I18NWarmupService extends ServiceI18N {
+
+	/**
+	 * The locales warmed up when the service started
+	 *
+	 * @return
+	 */
+	ImmutableList<Locale> getSupportedLocales();
+
+	/**
+	 * The coverage of each set of keys for each supported locale, as found when the service started. Empty if the
+	 * service has not been started.
+	 *
+	 * @return
+	 */
+	ImmutableList<TranslationCoverage> getCoverage();
+}
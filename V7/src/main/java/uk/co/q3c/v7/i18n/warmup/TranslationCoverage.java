@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n.warmup;
+
+import java.util.Locale;
+
+import uk.co.q3c.v7.i18n.EnumResourceBundle;
+import uk.co.q3c.v7.i18n.I18NKey;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * An immutable record of how completely one set of keys (one {@link I18NKey} enum class) is translated for one
+ * locale, as reported by {@link I18NWarmupService}.
+ * <p>
+ * A key is <b>undefined</b> if there is no value for it in any bundle of the hierarchy - it will be displayed as its
+ * enum name. A key is <b>inherited</b> if it has a value, but only from a less specific bundle than the one resolved
+ * for the locale (for example, a German locale showing the English text from the base bundle).
+ *
+ * @author David Sowerby
+ *
+ */
+public class TranslationCoverage {
+
+	private final Locale locale;
+	private final Class<?> keyClass;
+	private final Locale bundleLocale;
+	private final int keyCount;
+	private final ImmutableList<String> undefinedKeys;
+	private final ImmutableList<String> inheritedKeys;
+
+	public TranslationCoverage(Locale locale, Class<?> keyClass, Locale bundleLocale, int keyCount,
+			ImmutableList<String> undefinedKeys, ImmutableList<String> inheritedKeys) {
+		super();
+		this.locale = locale;
+		this.keyClass = keyClass;
+		this.bundleLocale = bundleLocale;
+		this.keyCount = keyCount;
+		this.undefinedKeys = undefinedKeys;
+		this.inheritedKeys = inheritedKeys;
+	}
+
+	/**
+	 * Examines every key of {@code keyClass} (except the null key) in the bundle resolved for {@code locale}. A key
+	 * class with no keys has nothing to examine, and gives an empty coverage with a bundle locale of {@code locale}.
+	 *
+	 * @param keyClass
+	 * @param locale
+	 * @return
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static TranslationCoverage create(Class<? extends I18NKey> keyClass, Locale locale) {
+		I18NKey<?>[] keys = keyClass.getEnumConstants();
+		if ((keys == null) || (keys.length == 0)) {
+			return new TranslationCoverage(locale, keyClass, locale, 0, ImmutableList.<String> of(),
+					ImmutableList.<String> of());
+		}
+		EnumResourceBundle bundle = keys[0].getBundle(locale);
+		ImmutableList.Builder<String> undefined = ImmutableList.builder();
+		ImmutableList.Builder<String> inherited = ImmutableList.builder();
+		int count = 0;
+		for (I18NKey<?> key : keys) {
+			if (key.isNullKey()) {
+				continue;
+			}
+			count++;
+			if (bundle.getValue((Enum) key) == null) {
+				undefined.add(key.name());
+			} else if (!bundle.getMap().containsKey(key)) {
+				inherited.add(key.name());
+			}
+		}
+		return new TranslationCoverage(locale, keyClass, bundle.getLocale(), count, undefined.build(),
+				inherited.build());
+	}
+
+	public Locale getLocale() {
+		return locale;
+	}
+
+	public Class<?> getKeyClass() {
+		return keyClass;
+	}
+
+	/**
+	 * The locale of the most specific bundle found for {@link #getLocale()}. If this is not the same as
+	 * {@link #getLocale()}, there is no bundle specifically for that locale.
+	 *
+	 * @return
+	 */
+	public Locale getBundleLocale() {
+		return bundleLocale;
+	}
+
+	/**
+	 * The number of keys examined, excluding the null key
+	 *
+	 * @return
+	 */
+	public int getKeyCount() {
+		return keyCount;
+	}
+
+	public ImmutableList<String> getUndefinedKeys() {
+		return undefinedKeys;
+	}
+
+	public ImmutableList<String> getInheritedKeys() {
+		return inheritedKeys;
+	}
+
+	@Override
+	public String toString() {
+		return "locale=" + locale + ", keys=" + keyClass.getSimpleName() + ", bundle locale=" + bundleLocale
+				+ ", key count=" + keyCount + ", undefined=" + undefinedKeys.size() + ", inherited="
+				+ inheritedKeys.size();
+	}
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.helpers.MessageFormatter;
+
+/**
+ * Compares {@link MessageFormat} with the original scan-per-call implementation (reproduced in {@link Scanning}), and
+ * with {@link java.text.MessageFormat}. Not a unit test - run the main method from the IDE. Each case is warmed up
+ * before it is timed, and the results are summed into a sink so that the JIT cannot discard the work.
+ *
+ * @author David Sowerby
+ *
+ */
+public class MessageFormatBenchmark {
+
+	private static final String[] patterns = { "{0} is not a valid page",
+			"You cannot use service {0} until it has been started",
+			"This is a {1} pattern where the {0} can be in any {2}", "Redirecting {0} to {1} would cause a loop" };
+	private static final Object[][] arguments = { { "private/home" }, { "SitemapService" },
+			{ "parameters", "simple", "order" }, { "public/a", "public/b" } };
+
+	private static final int WARMUP = 200000;
+	private static final int ITERATIONS = 2000000;
+
+	private interface Formatter {
+		String format(String pattern, Object[] arguments);
+	}
+
+	public static void main(String[] args) {
+		Formatter compiled = new Formatter() {
+			@Override
+			public String format(String pattern, Object[] arguments) {
+				return MessageFormat.format(pattern, arguments);
+			}
+		};
+		Formatter scanning = new Formatter() {
+			@Override
+			public String format(String pattern, Object[] arguments) {
+				return Scanning.format(pattern, arguments);
+			}
+		};
+		Formatter jdk = new Formatter() {
+			@Override
+			public String format(String pattern, Object[] arguments) {
+				return java.text.MessageFormat.format(pattern, arguments);
+			}
+		};
+		for (int round = 0; round < 3; round++) {
+			run("compiled", compiled);
+			run("scanning", scanning);
+			run("java.text", jdk);
+		}
+	}
+
+	private static void run(String name, Formatter formatter) {
+		long sink = loop(formatter, WARMUP);
+		long start = System.nanoTime();
+		sink += loop(formatter, ITERATIONS);
+		long elapsed = System.nanoTime() - start;
+		System.out.printf("%-10s %8.1f ns/op (sink %d)%n", name, (double) elapsed / ITERATIONS, sink);
+	}
+
+	private static long loop(Formatter formatter, int iterations) {
+		long sink = 0;
+		for (int i = 0; i < iterations; i++) {
+			int p = i & 3;
+			sink += formatter.format(patterns[p], arguments[p]).length();
+		}
+		return sink;
+	}
+
+	/**
+	 * The implementation of {@link MessageFormat#format(String, Object...)} before patterns were compiled and cached
+	 */
+	static class Scanning {
+
+		static String format(String pattern, Object... arguments) {
+			List<Integer> parameters = new ArrayList<>();
+			try {
+				String strippedPattern = scanForParameters(pattern, parameters);
+				Object[] sortedArguments = sortArguments(parameters, arguments);
+				return MessageFormatter.arrayFormat(strippedPattern, sortedArguments).getMessage();
+			} catch (Exception e) {
+				return pattern;
+			}
+		}
+
+		private static String scanForParameters(String pattern, List<Integer> parameters) {
+			int i = 0;
+			StringBuilder strippedPattern = new StringBuilder();
+			while (i < pattern.length()) {
+				char c = pattern.charAt(i);
+				if (c == '\\') {
+					i++;
+					c = pattern.charAt(i);
+					if (c == '{') {
+						strippedPattern.append('{');
+						i++;
+						c = pattern.charAt(i);
+						strippedPattern.append(c);
+					}
+				} else {
+					strippedPattern.append(c);
+				}
+				if (c == '{') {
+					StringBuilder placeholder = new StringBuilder();
+					boolean done = false;
+					while (!done) {
+						i++;
+						c = pattern.charAt(i);
+						if (c == '}') {
+							parameters.add(Integer.valueOf(placeholder.toString()));
+							strippedPattern.append(c);
+							done = true;
+						} else {
+							placeholder.append(c);
+						}
+					}
+				}
+				i++;
+			}
+			return strippedPattern.toString();
+		}
+
+		private static Object[] sortArguments(List<Integer> parameters, Object[] arguments) {
+			if (parameters.size() != arguments.length) {
+				throw new RuntimeException();
+			}
+			List<Object> sortedArguments = new ArrayList<>();
+			for (Integer i : parameters) {
+				sortedArguments.add(arguments[i]);
+			}
+			return sortedArguments.toArray();
+		}
+	}
+}
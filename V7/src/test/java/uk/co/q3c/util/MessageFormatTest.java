@@ -108,4 +108,119 @@ public class MessageFormatTest {
 
 	}
 
+	@Test
+	public void formatRepeatedUsesCompiledPattern() {
+
+		// given
+		String pattern = "{0} is not a valid page";
+		// when
+		String first = MessageFormat.format(pattern, "a/b");
+		String second = MessageFormat.format(pattern, "c/d");
+		// then
+		assertThat(first).isEqualTo("a/b is not a valid page");
+		assertThat(second).isEqualTo("c/d is not a valid page");
+		assertThat(MessageFormat.compile(pattern)).isSameAs(MessageFormat.compile(pattern));
+
+	}
+
+	@Test
+	public void formatCompiled() {
+
+		// given
+		MessagePattern compiled = MessageFormat.compile("{1} is not {0}");
+		MessagePattern invalid = MessageFormat.compile("This is {0 broken");
+		// when
+		// then
+		assertThat(MessageFormat.format(compiled, "valid", "a/b")).isEqualTo("a/b is not valid");
+		assertThat(MessageFormat.format(compiled, "valid")).isEqualTo("{1} is not {0}");
+		assertThat(MessageFormat.format(invalid, "x")).isEqualTo("This is {0 broken");
+
+	}
+
+	@Test
+	public void javaTextSyntax() {
+
+		// given
+		// when
+		// then
+		assertThat(MessageFormat.compile("{0,number,integer} of {1}").isJavaTextSyntax()).isTrue();
+		assertThat(MessageFormat.compile("{1} on {0,date}").isJavaTextSyntax()).isTrue();
+		assertThat(MessageFormat.compile("it''s {0}").isJavaTextSyntax()).isTrue();
+		assertThat(MessageFormat.compile("it's {0}").isJavaTextSyntax()).isFalse();
+		assertThat(MessageFormat.compile("{1} and {0}").isJavaTextSyntax()).isFalse();
+		assertThat(MessageFormat.compile("{a,b} {0}").isJavaTextSyntax()).isFalse();
+		assertThat(MessageFormat.compile("{").isJavaTextSyntax()).isFalse();
+
+	}
+
+	@Test
+	public void formatInvalidPattern() {
+
+		// given
+		String unclosed = "This is {0 broken";
+		String notNumeric = "This is {a} broken";
+		String empty = "This is {} broken";
+		// when
+
+		// then
+		assertThat(MessageFormat.format(unclosed, "x")).isEqualTo(unclosed);
+		assertThat(MessageFormat.format(notNumeric, "x")).isEqualTo(notNumeric);
+		assertThat(MessageFormat.format(empty, "x")).isEqualTo(empty);
+
+	}
+
+	@Test
+	public void formatNoParameters() {
+
+		// given
+		String pattern = "plain text, escaped \\{0}";
+		// when
+		String result = MessageFormat.format(pattern);
+		// then
+		assertThat(result).isEqualTo("plain text, escaped {0}");
+
+	}
+
+	@Test
+	public void formatNullAndArrayArguments() {
+
+		// given
+		String pattern = "{0} and {1}";
+		// when
+		String result = MessageFormat.format(pattern, null, new int[] { 1, 2 });
+		// then
+		assertThat(result).isEqualTo("null and [1, 2]");
+
+	}
+
+	@Test
+	public void formatFromArgumentToString() {
+
+		// given
+		Object nested = new Object() {
+			@Override
+			public String toString() {
+				return MessageFormat.format("inner {0}", "value");
+			}
+		};
+		// when
+		String result = MessageFormat.format("outer {0} end", nested);
+		// then
+		assertThat(result).isEqualTo("outer inner value end");
+
+	}
+
+	@Test
+	public void formatTo() {
+
+		// given
+		StringBuilder target = new StringBuilder("start: ");
+		// when
+		MessageFormat.formatTo(target, "{1} {0}", "b", "a");
+		MessageFormat.formatTo(target, ", mismatch {0}");
+		// then
+		assertThat(target.toString()).isEqualTo("start: a b, mismatch {0}");
+
+	}
+
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.config;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfigValueTest {
+
+	InheritingConfiguration configuration;
+
+	@Before
+	public void setup() {
+		configuration = new InheritingConfiguration();
+	}
+
+	@Test
+	public void followsChanges() {
+
+		// given
+		ConfigValue<String> value = ConfigValue.forString(configuration, "a.k1", "none");
+		BaseConfiguration config1 = new BaseConfiguration();
+		config1.setProperty("a.k1", "1");
+		// when
+		configuration.addConfiguration(config1);
+		// then
+		assertThat(value.get()).isEqualTo("1");
+		// when
+		configuration.setProperty("a.k1", "memory");
+		// then
+		assertThat(value.get()).isEqualTo("memory");
+		// when
+		configuration.clearProperty("a.k1");
+		// then
+		assertThat(value.get()).isEqualTo("none");
+		// when a component configuration changes
+		config1.setProperty("a.k1", "2");
+		// then
+		assertThat(value.get()).isEqualTo("2");
+		// when
+		configuration.removeConfiguration(config1);
+		// then
+		assertThat(value.get()).isEqualTo("none");
+		// when removed, its changes are no longer followed
+		config1.setProperty("a.k1", "3");
+		configuration.addConfiguration(new BaseConfiguration());
+		// then
+		assertThat(value.get()).isEqualTo("none");
+	}
+
+	@Test
+	public void clear() {
+
+		// given
+		Configuration config1 = new BaseConfiguration();
+		config1.setProperty("push", "false");
+		configuration.addConfiguration(config1);
+		ConfigValue<Boolean> value = ConfigValue.forBoolean(configuration, "push", true);
+		assertThat(value.get()).isFalse();
+		// when
+		configuration.clear();
+		// then
+		assertThat(value.get()).isTrue();
+		assertThat(value.getKey()).isEqualTo("push");
+		assertThat(value.getDefaultValue()).isTrue();
+	}
+
+	@Test
+	public void invalidValueUsesDefault() {
+
+		// given
+		ConfigValue<Integer> intValue = ConfigValue.forInt(configuration, "n", 5);
+		ConfigValue<Long> longValue = ConfigValue.forLong(configuration, "n", 6);
+		// when
+		configuration.setProperty("n", "7");
+		// then
+		assertThat(intValue.get()).isEqualTo(7);
+		assertThat(longValue.get()).isEqualTo(7L);
+		// when
+		configuration.setProperty("n", "x");
+		// then
+		assertThat(intValue.get()).isEqualTo(5);
+		assertThat(longValue.get()).isEqualTo(6L);
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.guice;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.Test;
+
+import uk.co.q3c.v7.base.guice.uiscope.UIKey;
+import uk.co.q3c.v7.base.guice.uiscope.UIScope;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+
+public class ScopeStoreTest {
+
+	static class TestProvider implements Provider<Object> {
+		int calls;
+
+		@Override
+		public Object get() {
+			calls++;
+			return new Object();
+		}
+	}
+
+	@Test
+	public void createOnceThenReturnExisting() {
+		// given
+		ScopeStore store = new ScopeStore();
+		TestProvider provider = new TestProvider();
+		// when
+		Object first = store.get(3, provider);
+		Object second = store.get(3, provider);
+		// then
+		assertThat(first).isSameAs(second);
+		assertThat(provider.calls).isEqualTo(1);
+		assertThat(store.get(0)).isNull();
+		assertThat(store.get(10)).isNull();
+		assertThat(store.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void clear() {
+		// given
+		ScopeStore store = new ScopeStore();
+		TestProvider provider = new TestProvider();
+		Object first = store.get(1, provider);
+		// when
+		store.clear();
+		// then
+		assertThat(store.size()).isEqualTo(0);
+		assertThat(store.get(1, provider)).isNotSameAs(first);
+	}
+
+	@Test
+	public void slotAllocation() {
+		// given
+		ScopeSlots slots = new ScopeSlots();
+		Key<String> key1 = Key.get(String.class);
+		Key<Integer> key2 = Key.get(Integer.class);
+		// when
+		int slot1 = slots.slotFor(key1);
+		int slot2 = slots.slotFor(key2);
+		// then
+		assertThat(slot1).isNotEqualTo(slot2);
+		assertThat(slots.slotFor(key1)).isEqualTo(slot1);
+		assertThat(slots.getSlots()).hasSize(2);
+	}
+
+	@Test
+	public void releaseScope() {
+		// given
+		UIScope scope = new UIScope();
+		UIKey uiKey = new UIKey(1);
+		scope.startScope(uiKey);
+		assertThat(scope.cacheHasEntryFor(uiKey)).isTrue();
+		// when
+		scope.releaseScope(uiKey);
+		// then
+		assertThat(scope.cacheHasEntryFor(uiKey)).isFalse();
+	}
+}
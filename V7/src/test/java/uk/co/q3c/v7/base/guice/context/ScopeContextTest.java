@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.guice.context;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
+import org.junit.Test;
+
+import uk.co.q3c.v7.base.guice.threadscope.ThreadCache;
+import uk.co.q3c.v7.base.guice.uiscope.UIKey;
+
+import com.google.inject.Key;
+import com.vaadin.util.CurrentInstance;
+
+public class ScopeContextTest {
+
+	private final ThreadCache threadCache = new ThreadCache();
+
+	@After
+	public void teardown() {
+		CurrentInstance.clearAll();
+		ThreadContext.remove();
+		threadCache.reset();
+	}
+
+	@Test
+	public void propagatedToExecutorAndCleanedUp() throws Exception {
+		// given
+		// start the worker thread first, as Shiro's thread context would otherwise be inherited by it
+		ExecutorService delegate = Executors.newSingleThreadExecutor();
+		delegate.submit(new Runnable() {
+			@Override
+			public void run() {
+			}
+		}).get();
+		final UIKey uiKey = new UIKey(5);
+		final Subject subject = mock(Subject.class);
+		CurrentInstance.set(UIKey.class, uiKey);
+		CurrentInstance.set(Locale.class, Locale.GERMANY);
+		ThreadContext.bind(subject);
+		threadCache.getCache().add(Key.get(String.class), "scoped");
+		ExecutorService executor = new ScopeContextExecutorService(delegate);
+		Callable<Object[]> task = new Callable<Object[]>() {
+			@Override
+			public Object[] call() throws Exception {
+				return new Object[] { CurrentInstance.get(UIKey.class), ThreadContext.getSubject(),
+						CurrentInstance.get(Locale.class), threadCache.getCache().get(Key.get(String.class)) };
+			}
+		};
+		// when
+		Future<Object[]> result = executor.submit(task);
+		Object[] seen = result.get();
+		// then
+		assertThat(seen[0]).isSameAs(uiKey);
+		assertThat(seen[1]).isSameAs(subject);
+		assertThat(seen[2]).isEqualTo(Locale.GERMANY);
+		assertThat(seen[3]).isEqualTo("scoped");
+
+		// when the same thread then runs something outside the wrapper
+		Object[] after = delegate.submit(task).get();
+		// then nothing is left behind
+		assertThat(after[0]).isNull();
+		assertThat(after[1]).isNull();
+		assertThat(after[3]).isNull();
+		executor.shutdown();
+	}
+
+	@Test
+	public void restoredAfterRun() {
+		// given
+		UIKey outer = new UIKey(1);
+		UIKey inner = new UIKey(2);
+		CurrentInstance.set(UIKey.class, inner);
+		ScopeContext context = ScopeContext.capture();
+		CurrentInstance.set(UIKey.class, outer);
+		final UIKey[] seen = new UIKey[1];
+		// when
+		context.run(new Runnable() {
+			@Override
+			public void run() {
+				seen[0] = CurrentInstance.get(UIKey.class);
+			}
+		});
+		// then
+		assertThat(seen[0]).isSameAs(inner);
+		assertThat(CurrentInstance.get(UIKey.class)).isSameAs(outer);
+		assertThat(context.getUIKey()).isSameAs(inner);
+	}
+}
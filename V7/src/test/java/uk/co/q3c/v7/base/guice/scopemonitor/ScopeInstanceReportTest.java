@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.guice.scopemonitor;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.Test;
+
+import uk.co.q3c.v7.base.guice.ScopeSlots;
+import uk.co.q3c.v7.base.guice.ScopeStore;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+
+public class ScopeInstanceReportTest {
+
+	static class TwoInts {
+		int a;
+		int b;
+	}
+
+	static class TwoIntsProvider implements Provider<TwoInts> {
+
+		@Override
+		public TwoInts get() {
+			return new TwoInts();
+		}
+	}
+
+	@Test
+	public void shallowSize() {
+		// given
+		ShallowScopeInstanceSizer sizer = new ShallowScopeInstanceSizer();
+		// when
+		// then
+		assertThat(sizer.sizeOf(null)).isEqualTo(0);
+		assertThat(sizer.sizeOf(new TwoInts())).isEqualTo(24);
+		assertThat(sizer.sizeOf(new long[2])).isEqualTo(32);
+	}
+
+	@Test
+	public void create() {
+		// given
+		ScopeSlots slots = new ScopeSlots();
+		Key<TwoInts> key1 = Key.get(TwoInts.class);
+		Key<String> key2 = Key.get(String.class);
+		ScopeStore store = new ScopeStore();
+		store.get(slots.slotFor(key1), new TwoIntsProvider());
+		slots.slotFor(key2);
+		// when
+		ScopeInstanceReport report = ScopeInstanceReport.create("UIScope", "UIKey:1", store, slots.getSlots(),
+				new ShallowScopeInstanceSizer(), ScopeInstanceReport.UNKNOWN, false);
+		// then
+		assertThat(report.getInstanceCount()).isEqualTo(1);
+		assertThat(report.getInstanceCounts()).containsKey(key1);
+		assertThat(report.getInstanceCounts()).doesNotContainKey(key2);
+		assertThat(report.getApproximateSize()).isEqualTo(24);
+		assertThat(report.getIdleTime()).isEqualTo(ScopeInstanceReport.UNKNOWN);
+		assertThat(report.getAge()).isGreaterThanOrEqualTo(0);
+		assertThat(report.isStale()).isFalse();
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.guice.uiscope;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import uk.co.q3c.v7.base.config.ApplicationConfiguration;
+import uk.co.q3c.v7.base.config.ConfigKeys;
+import uk.co.q3c.v7.base.config.V7ConfigurationException;
+
+public class UIKeyProviderTest {
+
+	@Test
+	public void uniqueUnderConcurrentCreation() throws InterruptedException {
+		// given
+		final UIKeyProvider provider = new UIKeyProvider();
+		final Set<UIKey> keys = Collections.newSetFromMap(new ConcurrentHashMap<UIKey, Boolean>());
+		final int threads = 8;
+		final int perThread = 10000;
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		// when
+		for (int i = 0; i < threads; i++) {
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int j = 0; j < perThread; j++) {
+							keys.add(provider.get());
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+		start.countDown();
+		done.await();
+		// then
+		assertThat(keys).hasSize(threads * perThread);
+	}
+
+	@Test
+	public void instanceIdEmbedded() {
+		// given
+		UIKeyProvider provider = new UIKeyProvider();
+		// when
+		UIKey key = provider.get();
+		// then
+		assertThat(key.getCounter() >>> UIKeyProvider.SEQUENCE_BITS).isEqualTo(provider.getInstanceId());
+	}
+
+	@Test
+	public void configuredNodeIdEmbedded() {
+		// given
+		ApplicationConfiguration configuration = new ApplicationConfiguration() {
+		};
+		configuration.setProperty(ConfigKeys.UI_KEY_NODE_ID, (1 << 24) - 1);
+		UIKeyProvider provider = new UIKeyProvider(configuration);
+		// when
+		UIKey key = provider.get();
+		// then
+		assertThat(provider.getInstanceId()).isEqualTo((1 << 24) - 1);
+		assertThat(key.getCounter() >>> UIKeyProvider.SEQUENCE_BITS).isEqualTo((1 << 24) - 1);
+	}
+
+	@Test
+	public void randomNodeIdWhenNotConfigured() {
+		// given
+		ApplicationConfiguration configuration = new ApplicationConfiguration() {
+		};
+		// when
+		UIKeyProvider provider = new UIKeyProvider(configuration);
+		// then
+		assertThat(provider.getInstanceId()).isEqualTo(new UIKeyProvider().getInstanceId());
+	}
+
+	@Test(expected = V7ConfigurationException.class)
+	public void configuredNodeIdOutOfRange() {
+		// given
+		ApplicationConfiguration configuration = new ApplicationConfiguration() {
+		};
+		configuration.setProperty(ConfigKeys.UI_KEY_NODE_ID, 1 << 24);
+		// when
+		new UIKeyProvider(configuration);
+		// then
+	}
+
+	@Test
+	public void compareToDoesNotOverflow() {
+		// given
+		UIKey low = new UIKey(Long.MIN_VALUE + 1);
+		UIKey high = new UIKey(Long.MAX_VALUE);
+		// when
+		// then
+		assertThat(low.compareTo(high)).isLessThan(0);
+		assertThat(high.compareTo(low)).isGreaterThan(0);
+		assertThat(high.compareTo(new UIKey(Long.MAX_VALUE))).isEqualTo(0);
+		assertThat(high).isEqualTo(new UIKey(Long.MAX_VALUE));
+	}
+}
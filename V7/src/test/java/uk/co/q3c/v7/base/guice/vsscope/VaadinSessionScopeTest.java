@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.guice.vsscope;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Test;
+
+import uk.co.q3c.v7.base.guice.ScopeStore;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.vaadin.server.SessionDestroyEvent;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinSession;
+
+public class VaadinSessionScopeTest {
+
+	static class TestProvider implements Provider<Object> {
+
+		@Override
+		public Object get() {
+			return new Object();
+		}
+	}
+
+	@Test
+	public void sameInstanceWithinSession_releasedOnDestroy() {
+		// given
+		VaadinSessionScope scope = new VaadinSessionScope();
+		VaadinSession session = mock(VaadinSession.class);
+		when(session.hasLock()).thenReturn(true);
+		Key<Object> key = Key.get(Object.class);
+		int slot = scope.slotFor(key);
+		ScopeStore store = scope.getStore(session);
+		Object first = store.get(slot, new TestProvider());
+		// when
+		Object second = scope.getStore(session).get(slot, new TestProvider());
+		// then
+		assertThat(first).isSameAs(second);
+		assertThat(scope.liveInstanceCount(session)).isEqualTo(1);
+		assertThat(scope.sessionCount()).isEqualTo(1);
+		verify(session).setAttribute(ScopeStore.class, store);
+
+		// when
+		scope.sessionDestroy(new SessionDestroyEvent(mock(VaadinService.class), session));
+		// then
+		assertThat(scope.cacheHasEntryFor(session)).isFalse();
+		assertThat(scope.liveInstanceCount(session)).isEqualTo(0);
+		assertThat(store.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void noSession() {
+		// given
+		VaadinSessionScope scope = new VaadinSessionScope();
+		// when
+		ScopeStore store = scope.getStore(null);
+		// then
+		assertThat(store).isSameAs(scope.getStore(null));
+	}
+}
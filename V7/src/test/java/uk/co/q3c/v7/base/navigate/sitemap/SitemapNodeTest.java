@@ -15,6 +15,9 @@ package uk.co.q3c.v7.base.navigate.sitemap;
 import static org.assertj.core.api.Assertions.*;
 
 import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 
 import com.google.inject.Inject;
@@ -109,6 +112,47 @@ public class SitemapNodeTest {
 
 	}
 
+	@Test
+	public void labelForLocale() {
+
+		// given
+		Locale locale = Locale.UK;
+		Collator collator = Collator.getInstance(locale);
+		SitemapNode node = new SitemapNode("one", PublicHomeView.class, TestLabelKey.Yes, locale, collator, translate);
+		// when
+
+		// then
+		assertThat(node.getLabel(Locale.UK)).isEqualTo("Yes");
+		assertThat(node.getLabel(Locale.GERMAN)).isEqualTo("Ja");
+		assertThat(node.getCollationKey(Locale.GERMAN)).isEqualTo(
+				Collator.getInstance(Locale.GERMAN).getCollationKey("Ja"));
+		// held, not created again
+		assertThat(node.getCollationKey(Locale.GERMAN)).isSameAs(node.getCollationKey(Locale.GERMAN));
+		// loader locale is unchanged
+		assertThat(node.getLabel()).isEqualTo("Yes");
+	}
+
+	@Test
+	public void sortByLocale() {
+
+		// given
+		Locale locale = Locale.UK;
+		Collator collator = Collator.getInstance(locale);
+		SitemapNode home = new SitemapNode("a", PublicHomeView.class, TestLabelKey.Home, locale, collator, translate);
+		SitemapNode transfers = new SitemapNode("b", PublicHomeView.class, TestLabelKey.Transfers, locale, collator,
+				translate);
+		SitemapNode yes = new SitemapNode("c", PublicHomeView.class, TestLabelKey.Yes, locale, collator, translate);
+		List<SitemapNode> nodes = new ArrayList<>(Arrays.asList(yes, transfers, home));
+		// when
+		new NodeSorter(nodes, true, Locale.UK).sort();
+		// then
+		assertThat(nodes).containsExactly(home, transfers, yes);
+		// when
+		new NodeSorter(nodes, true, Locale.GERMAN).sort();
+		// then
+		assertThat(nodes).containsExactly(yes, transfers, home);
+	}
+
 	@ModuleProvider
 	protected AbstractModule moduleProvider() {
 		return new AbstractModule() {
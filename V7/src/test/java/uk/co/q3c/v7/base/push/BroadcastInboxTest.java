@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class BroadcastInboxTest {
+
+	ScheduledExecutorService scheduler;
+	Target target;
+
+	/**
+	 * Counts dispatches, and only drains when asked to - as a UI would while waiting for the session lock
+	 */
+	static class Target implements BroadcastInbox.Target {
+		private int dispatches;
+		final List<List<String>> batches = new ArrayList<>();
+
+		@Override
+		public synchronized void dispatch(BroadcastInbox inbox) {
+			dispatches++;
+		}
+
+		synchronized int dispatches() {
+			return dispatches;
+		}
+
+		synchronized void drain(BroadcastInbox inbox) {
+			List<String> batch = new ArrayList<>();
+			for (BroadcastMessage message : inbox.drain()) {
+				batch.add(message.toString());
+			}
+			batches.add(batch);
+		}
+	}
+
+	@Before
+	public void setup() {
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		target = new Target();
+	}
+
+	@After
+	public void teardown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void messagesWithinWindowDispatchedOnce() {
+
+		// given the window is timed by a scheduler which only runs when told to
+		ScheduledExecutorService timer = mock(ScheduledExecutorService.class);
+		ScheduledFuture<?> future = mock(ScheduledFuture.class);
+		doReturn(future).when(timer).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+		BroadcastInbox inbox = new BroadcastInbox(target, timer, 100, 50, 100, InboxOverflowPolicy.DROP_OLDEST);
+		// when
+		inbox.offer("a", "1");
+		inbox.offer("b", "2");
+		inbox.offer("a", "3");
+		// then the window is started once
+		ArgumentCaptor<Runnable> windowElapsed = ArgumentCaptor.forClass(Runnable.class);
+		verify(timer).schedule(windowElapsed.capture(), eq(100L), eq(TimeUnit.MILLISECONDS));
+		assertThat(target.dispatches()).isEqualTo(0);
+		// when
+		windowElapsed.getValue().run();
+		// then
+		assertThat(target.dispatches()).isEqualTo(1);
+		// when
+		inbox.offer("a", "4");
+		target.drain(inbox);
+		// then arrivals while waiting for the drain join the batch, without another dispatch
+		assertThat(target.dispatches()).isEqualTo(1);
+		assertThat(target.batches.get(0)).containsExactly("a:1", "b:2", "a:3", "a:4");
+		assertThat(inbox.getBatches()).isEqualTo(1);
+		assertThat(inbox.getReceived()).isEqualTo(4);
+		verifyNoMoreInteractions(timer);
+	}
+
+	@Test
+	public void batchSizeDispatchesImmediately() {
+
+		// given
+		BroadcastInbox inbox = new BroadcastInbox(target, scheduler, 60000, 3, 100, InboxOverflowPolicy.DROP_OLDEST);
+		// when
+		inbox.offer("a", "1");
+		inbox.offer("a", "2");
+		// then
+		assertThat(target.dispatches()).isEqualTo(0);
+		// when
+		inbox.offer("a", "3");
+		// then
+		assertThat(target.dispatches()).isEqualTo(1);
+	}
+
+	@Test
+	public void noWindow() {
+
+		// given
+		BroadcastInbox inbox = new BroadcastInbox(target, scheduler, 0, 50, 100, InboxOverflowPolicy.DROP_OLDEST);
+		// when
+		inbox.offer("a", "1");
+		target.drain(inbox);
+		inbox.offer("a", "2");
+		// then
+		assertThat(target.dispatches()).isEqualTo(2);
+	}
+
+	@Test
+	public void dropOldest() {
+
+		// given
+		BroadcastInbox inbox = new BroadcastInbox(target, scheduler, 0, 1, 2, InboxOverflowPolicy.DROP_OLDEST);
+		// when
+		inbox.offer("a", "1");
+		inbox.offer("a", "2");
+		inbox.offer("b", "3");
+		target.drain(inbox);
+		// then
+		assertThat(target.batches.get(0)).containsExactly("a:2", "b:3");
+		assertThat(inbox.getDropped()).isEqualTo(1);
+	}
+
+	@Test
+	public void dropNewest() {
+
+		// given
+		BroadcastInbox inbox = new BroadcastInbox(target, scheduler, 0, 1, 2, InboxOverflowPolicy.DROP_NEWEST);
+		// when
+		inbox.offer("a", "1");
+		inbox.offer("a", "2");
+		inbox.offer("b", "3");
+		target.drain(inbox);
+		// then
+		assertThat(target.batches.get(0)).containsExactly("a:1", "a:2");
+		assertThat(inbox.getDropped()).isEqualTo(1);
+	}
+
+	@Test
+	public void collapseGroup() {
+
+		// given
+		BroadcastInbox inbox = new BroadcastInbox(target, scheduler, 0, 1, 3, InboxOverflowPolicy.COLLAPSE_GROUP);
+		// when
+		inbox.offer("a", "1");
+		inbox.offer("b", "2");
+		inbox.offer("c", "3");
+		inbox.offer("b", "4");
+		inbox.offer("d", "5");
+		target.drain(inbox);
+		// then b:2 is replaced by the newer value for b, then with no other d waiting, the oldest goes
+		assertThat(target.batches.get(0)).containsExactly("c:3", "b:4", "d:5");
+		assertThat(inbox.getDropped()).isEqualTo(2);
+	}
+
+	@Test
+	public void failedDispatchDiscardsMessages() {
+
+		// given
+		BroadcastInbox inbox = new BroadcastInbox(new BroadcastInbox.Target() {
+			@Override
+			public void dispatch(BroadcastInbox inbox) {
+				throw new IllegalStateException("detached");
+			}
+		}, scheduler, 0, 1, 10, InboxOverflowPolicy.DROP_OLDEST);
+		// when
+		inbox.offer("a", "1");
+		inbox.offer("a", "2");
+		// then
+		assertThat(inbox.size()).isEqualTo(0);
+		assertThat(inbox.getDropped()).isEqualTo(2);
+	}
+
+	@Test
+	public void sharedCounters() {
+
+		// given
+		InboxCounters counters = new InboxCounters();
+		BroadcastInbox inbox1 = new BroadcastInbox(target, scheduler, 60000, 50, 2, InboxOverflowPolicy.DROP_OLDEST,
+				counters);
+		BroadcastInbox inbox2 = new BroadcastInbox(new BroadcastInbox.Target() {
+			@Override
+			public void dispatch(BroadcastInbox inbox) {
+				throw new IllegalStateException("detached");
+			}
+		}, scheduler, 0, 1, 10, InboxOverflowPolicy.DROP_OLDEST, counters);
+		// when
+		inbox1.offer("a", "1");
+		inbox1.offer("a", "2");
+		inbox1.offer("a", "3");
+		// then
+		assertThat(counters.held.get()).isEqualTo(2);
+		assertThat(counters.dropped.get()).isEqualTo(1);
+		// when
+		inbox2.offer("b", "1");
+		target.drain(inbox1);
+		// then
+		assertThat(counters.held.get()).isEqualTo(0);
+		assertThat(counters.dropped.get()).isEqualTo(2);
+		assertThat(counters.dispatchFailures.get()).isEqualTo(1);
+		assertThat(counters.latency.snapshot().getCount()).isEqualTo(2);
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class BroadcastPayloadTest {
+
+	@Test
+	public void formattedOnceWhenRequestedConcurrently() throws InterruptedException {
+
+		// given
+		final AtomicInteger formatted = new AtomicInteger();
+		final BroadcastPayload<Integer> payload = BroadcastPayload.of(42, new PayloadFormatter<Integer>() {
+			@Override
+			public String format(Integer value) {
+				formatted.incrementAndGet();
+				try {
+					// widen the window in which other threads could also format
+					Thread.sleep(20);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "#" + value;
+			}
+		});
+		int threads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		final AtomicInteger correct = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int i = 0; i < threads; i++) {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							start.await();
+							if ("#42".equals(payload.getText())) {
+								correct.incrementAndGet();
+							}
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						done.countDown();
+					}
+				});
+			}
+			// when
+			start.countDown();
+			// then
+			assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		} finally {
+			executor.shutdownNow();
+		}
+		assertThat(correct.get()).isEqualTo(threads);
+		assertThat(formatted.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void text() {
+
+		// given
+
+		// when
+		BroadcastPayload<String> text = BroadcastPayload.ofText("a");
+		BroadcastPayload<Integer> value = BroadcastPayload.of(3);
+		// then
+		assertThat(text.getText()).isEqualTo("a");
+		assertThat(text.getValue()).isEqualTo("a");
+		assertThat(value.getText()).isEqualTo("3");
+		assertThat(value.getValue(String.class)).isNull();
+		assertThat(value.getValue(Integer.class)).isEqualTo(3);
+	}
+}
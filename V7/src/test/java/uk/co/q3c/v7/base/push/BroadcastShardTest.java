@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.q3c.v7.base.push.Broadcaster.BroadcastListener;
+
+public class BroadcastShardTest {
+
+	BroadcastShard shard;
+
+	@Before
+	public void setup() {
+		shard = new BroadcastShard(0);
+	}
+
+	@After
+	public void teardown() {
+		shard.shutdown();
+	}
+
+	@Test
+	public void collectedSubscriptionsDiscardedByDelivery() throws InterruptedException {
+
+		// given a listener for a per-entity topic, which is never unregistered
+		BroadcastListener held = listener();
+		shard.register("orders", held);
+		WeakReference<BroadcastListener> ref = register("orders/123");
+		assertThat(shard.subscriptionCount()).isEqualTo(2);
+		// when it is collected, and a message for its topic is delivered
+		collect(ref);
+		shard.deliver(new BroadcastMessage(1, "orders/123", "x"), new FanOut(System.nanoTime(),
+				new LatencyHistogram()));
+		// then
+		for (int i = 0; (i < 100) && (shard.subscriptionCount() > 1); i++) {
+			Thread.sleep(10);
+		}
+		assertThat(shard.subscriptionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void collectedSubscriptionsDiscardedByStats() throws InterruptedException {
+
+		// given
+		WeakReference<BroadcastListener> ref1 = register("orders/1");
+		WeakReference<BroadcastListener> ref2 = register("orders/*/lines");
+		// when
+		collect(ref1);
+		collect(ref2);
+		BroadcastShardStats stats = shard.stats();
+		// then
+		assertThat(stats.getListenerCount()).isEqualTo(0);
+		assertThat(shard.subscriptionCount()).isEqualTo(0);
+	}
+
+	private WeakReference<BroadcastListener> register(String group) {
+		BroadcastListener listener = listener();
+		shard.register(group, listener);
+		return new WeakReference<>(listener);
+	}
+
+	private static void collect(WeakReference<?> ref) throws InterruptedException {
+		for (int i = 0; (i < 50) && (ref.get() != null); i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertThat(ref.get()).isNull();
+	}
+
+	private static BroadcastListener listener() {
+		return new BroadcastListener() {
+			@Override
+			public void receiveBroadcast(String group, String message) {
+			}
+		};
+	}
+}
@@ -0,0 +1,504 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.q3c.v7.base.config.ApplicationConfiguration;
+import uk.co.q3c.v7.base.config.ConfigKeys;
+import uk.co.q3c.v7.base.push.Broadcaster.BroadcastListener;
+import uk.co.q3c.v7.base.push.Broadcaster.PayloadListener;
+
+import com.vaadin.ui.UI;
+
+public class BroadcasterTest {
+
+	Broadcaster broadcaster;
+	ApplicationConfiguration configuration;
+	/**
+	 * registrations are weak, so anonymous listeners are held here
+	 */
+	List<BroadcastListener> held = new ArrayList<>();
+	/**
+	 * every Broadcaster created, so that their threads can be stopped
+	 */
+	List<Broadcaster> broadcasters = new ArrayList<>();
+
+	static class Listener implements BroadcastListener {
+		final List<String> received = new ArrayList<>();
+		CountDownLatch latch;
+
+		Listener(int expected) {
+			latch = new CountDownLatch(expected);
+		}
+
+		@Override
+		public void receiveBroadcast(String group, String message) {
+			received.add(group + ":" + message);
+			latch.countDown();
+		}
+	}
+
+	@Before
+	public void setup() {
+		configuration = mock(ApplicationConfiguration.class);
+		when(configuration.getBoolean(eq(ConfigKeys.SERVER_PUSH_ENABLED), anyBoolean())).thenReturn(true);
+		when(configuration.getInt(eq(ConfigKeys.PUSH_DELIVERY_SHARDS), anyInt())).thenReturn(4);
+		when(configuration.getInt(eq(ConfigKeys.PUSH_REPLAY_CAPACITY), anyInt())).thenReturn(16);
+		when(configuration.getInt(eq(ConfigKeys.PUSH_REPLAY_TOPICS), anyInt())).thenReturn(1000);
+		when(configuration.getLong(eq(ConfigKeys.PUSH_SATURATION_THRESHOLD), anyLong())).thenReturn(1000L);
+		broadcaster = newBroadcaster(configuration);
+	}
+
+	@After
+	public void teardown() {
+		for (Broadcaster b : broadcasters) {
+			b.shutdown();
+		}
+	}
+
+	@Test
+	public void deliverToGroupAndAll() throws InterruptedException {
+
+		// given
+		Listener all = new Listener(3);
+		Listener a = new Listener(2);
+		Listener b = new Listener(1);
+		broadcaster.register(Broadcaster.ALL_MESSAGES, all);
+		broadcaster.register("a", a);
+		broadcaster.register("b", b);
+		// when
+		broadcaster.broadcast("a", "1");
+		broadcaster.broadcast("b", "2");
+		broadcaster.broadcast("a", "3");
+		// then
+		assertThat(all.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(a.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(b.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		// order preserved for each listener
+		assertThat(all.received).containsExactly("a:1", "b:2", "a:3");
+		assertThat(a.received).containsExactly("a:1", "a:3");
+		assertThat(b.received).containsExactly("b:2");
+	}
+
+	@Test
+	public void oneTaskPerShardPerMessage() throws InterruptedException {
+
+		// given
+		int listenerCount = 1000;
+		final CountDownLatch latch = new CountDownLatch(listenerCount);
+		for (int i = 0; i < listenerCount; i++) {
+			broadcaster.register(Broadcaster.ALL_MESSAGES, hold(new BroadcastListener() {
+				@Override
+				public void receiveBroadcast(String group, String message) {
+					latch.countDown();
+				}
+			}));
+		}
+		// when
+		broadcaster.broadcast("x", "message");
+		// then
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(broadcaster.getShardCount()).isEqualTo(4);
+		long messages = 0;
+		int listeners = 0;
+		for (BroadcastShardStats stats : broadcaster.getShardStats()) {
+			messages += stats.getMessages();
+			listeners += stats.getListenerCount();
+			assertThat(stats.getMessages()).isLessThanOrEqualTo(1);
+		}
+		assertThat(messages).isEqualTo(4);
+		assertThat(listeners).isEqualTo(listenerCount);
+	}
+
+	@Test
+	public void failingListenerDoesNotStopDelivery() throws InterruptedException {
+
+		// given
+		when(configuration.getInt(eq(ConfigKeys.PUSH_DELIVERY_SHARDS), anyInt())).thenReturn(1);
+		broadcaster = newBroadcaster(configuration);
+		broadcaster.register(Broadcaster.ALL_MESSAGES, hold(new BroadcastListener() {
+			@Override
+			public void receiveBroadcast(String group, String message) {
+				throw new IllegalStateException("fails");
+			}
+		}));
+		Listener listener = new Listener(1);
+		broadcaster.register(Broadcaster.ALL_MESSAGES, listener);
+		// when
+		broadcaster.broadcast("a", "1");
+		// then
+		assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		// the latch is released inside the listener, before the delivery is counted
+		BroadcastShardStats stats = broadcaster.getShardStats().get(0);
+		for (int i = 0; (i < 100) && (stats.getPending() > 0); i++) {
+			Thread.sleep(10);
+			stats = broadcaster.getShardStats().get(0);
+		}
+		assertThat(stats.getFailures()).isEqualTo(1);
+		assertThat(stats.getDeliveries()).isEqualTo(1);
+	}
+
+	@Test
+	public void pushDisabled() {
+
+		// given
+		when(configuration.getBoolean(eq(ConfigKeys.SERVER_PUSH_ENABLED), anyBoolean())).thenReturn(false);
+		broadcaster = newBroadcaster(configuration);
+		broadcaster.register(Broadcaster.ALL_MESSAGES, new Listener(1));
+		// when
+		PublishResult result = broadcaster.broadcast("a", "1");
+		// then
+		assertThat(result).isEqualTo(PublishResult.DISABLED);
+		for (BroadcastShardStats stats : broadcaster.getShardStats()) {
+			assertThat(stats.getMessages()).isEqualTo(0);
+		}
+	}
+
+	@Test
+	public void pushEnabledFollowsConfiguration() throws InterruptedException {
+
+		// given
+		ApplicationConfiguration applicationConfiguration = new ApplicationConfiguration() {
+		};
+		broadcaster = newBroadcaster(applicationConfiguration);
+		Listener listener = new Listener(2);
+		broadcaster.register("a", listener);
+		// when
+		applicationConfiguration.setProperty(ConfigKeys.SERVER_PUSH_ENABLED, false);
+		PublishResult disabled = broadcaster.broadcast("a", "1");
+		applicationConfiguration.setProperty(ConfigKeys.SERVER_PUSH_ENABLED, true);
+		broadcaster.broadcast("a", "2");
+		applicationConfiguration.clear();
+		broadcaster.broadcast("a", "3");
+		// then
+		assertThat(disabled).isEqualTo(PublishResult.DISABLED);
+		assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(listener.received).containsExactly("a:2", "a:3");
+	}
+
+	@Test
+	public void saturation() throws InterruptedException {
+
+		// given
+		when(configuration.getInt(eq(ConfigKeys.PUSH_DELIVERY_SHARDS), anyInt())).thenReturn(1);
+		when(configuration.getLong(eq(ConfigKeys.PUSH_SATURATION_THRESHOLD), anyLong())).thenReturn(2L);
+		broadcaster = newBroadcaster(configuration);
+		final CountDownLatch blocked = new CountDownLatch(1);
+		Listener listener = new Listener(3) {
+			@Override
+			public void receiveBroadcast(String group, String message) {
+				try {
+					blocked.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.receiveBroadcast(group, message);
+			}
+		};
+		broadcaster.register("a", listener);
+		// when
+		PublishResult first = broadcaster.broadcast("a", "1");
+		PublishResult second = broadcaster.broadcast("a", "2");
+		PublishResult third = broadcaster.broadcast("b", "3");
+		// then
+		assertThat(first).isEqualTo(PublishResult.ACCEPTED);
+		assertThat(second).isEqualTo(PublishResult.SATURATED);
+		// no listener for b, but the shard is still saturated
+		assertThat(third).isEqualTo(PublishResult.SATURATED);
+		assertThat(broadcaster.getQueueDepth()).isEqualTo(2);
+		// when
+		blocked.countDown();
+		broadcaster.broadcast("a", "4");
+		// then
+		assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		for (int i = 0; (i < 100) && (broadcaster.getQueueDepth() > 0); i++) {
+			Thread.sleep(10);
+		}
+		assertThat(broadcaster.getQueueDepth()).isEqualTo(0);
+		assertThat(listener.received).containsExactly("a:1", "a:2", "a:4");
+		LatencyDistribution fanOut = broadcaster.getFanOutLatency();
+		for (int i = 0; (i < 100) && (fanOut.getCount() < 3); i++) {
+			Thread.sleep(10);
+			fanOut = broadcaster.getFanOutLatency();
+		}
+		// only messages with a listener are counted
+		assertThat(fanOut.getCount()).isEqualTo(3);
+		assertThat(fanOut.getMax()).isGreaterThan(0);
+	}
+
+	@Test
+	public void garbageCollectedListenerRemoved() throws InterruptedException {
+
+		// given
+		Listener listener = new Listener(1);
+		broadcaster.register(Broadcaster.ALL_MESSAGES, listener);
+		assertThat(listenerCount()).isEqualTo(1);
+		WeakReference<Listener> ref = new WeakReference<>(listener);
+		// when
+		listener = null;
+		for (int i = 0; (i < 50) && (ref.get() != null); i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		// then
+		assertThat(ref.get()).isNull();
+		assertThat(listenerCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void closingUIPruned() throws InterruptedException {
+
+		// given
+		when(configuration.getInt(eq(ConfigKeys.PUSH_DELIVERY_SHARDS), anyInt())).thenReturn(1);
+		broadcaster = newBroadcaster(configuration);
+		UI ui = mock(UI.class, withSettings().extraInterfaces(BroadcastListener.class));
+		when(ui.isClosing()).thenReturn(true);
+		broadcaster.register(Broadcaster.ALL_MESSAGES, (BroadcastListener) ui);
+		Listener listener = new Listener(1);
+		broadcaster.register(Broadcaster.ALL_MESSAGES, listener);
+		BroadcastShardStats stats = broadcaster.getShardStats().get(0);
+		assertThat(stats.getListenerCount()).isEqualTo(2);
+		assertThat(stats.getStaleCount()).isEqualTo(1);
+		assertThat(stats.getLiveCount()).isEqualTo(1);
+		// when
+		broadcaster.broadcast("a", "1");
+		// then
+		assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		verify((BroadcastListener) ui, never()).receiveBroadcast(anyString(), anyString());
+		stats = broadcaster.getShardStats().get(0);
+		for (int i = 0; (i < 100) && (stats.getPending() > 0); i++) {
+			Thread.sleep(10);
+			stats = broadcaster.getShardStats().get(0);
+		}
+		assertThat(stats.getListenerCount()).isEqualTo(1);
+		assertThat(stats.getStaleCount()).isEqualTo(0);
+		assertThat(stats.getPruned()).isEqualTo(1);
+	}
+
+	@Test
+	public void wildcardTopics() throws InterruptedException {
+
+		// given
+		Listener eu = new Listener(2);
+		Listener fr = new Listener(1);
+		broadcaster.register("orders/eu/*", eu);
+		broadcaster.register(new String("orders/eu/fr"), fr);
+		// when
+		broadcaster.broadcast("orders/eu/de", "1");
+		broadcaster.broadcast("orders/us/fr", "2");
+		broadcaster.broadcast(new String("orders/eu/fr"), "3");
+		// then
+		assertThat(eu.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(fr.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(eu.received).containsExactly("orders/eu/de:1", "orders/eu/fr:3");
+		assertThat(fr.received).containsExactly("orders/eu/fr:3");
+	}
+
+	@Test
+	public void typedPayload() throws InterruptedException {
+
+		// given
+		final AtomicInteger formatted = new AtomicInteger();
+		PayloadFormatter<Integer> formatter = new PayloadFormatter<Integer>() {
+			@Override
+			public String format(Integer value) {
+				formatted.incrementAndGet();
+				return "#" + value;
+			}
+		};
+		final List<BroadcastPayload<?>> payloads = new ArrayList<>();
+		final List<Long> sequences = new ArrayList<>();
+		final CountDownLatch latch = new CountDownLatch(1);
+		PayloadListener typed = new PayloadListener() {
+			@Override
+			public void receiveBroadcast(String group, String message) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void receivePayload(BroadcastMessage message) {
+				payloads.add(message.getPayload());
+				sequences.add(message.getSequence());
+				latch.countDown();
+			}
+		};
+		Listener text1 = new Listener(1);
+		Listener text2 = new Listener(1);
+		broadcaster.register("a", hold(typed));
+		broadcaster.register("a", text1);
+		broadcaster.register(Broadcaster.ALL_MESSAGES, text2);
+		BroadcastPayload<Integer> payload = BroadcastPayload.of(42, formatter);
+		// when
+		broadcaster.broadcast("a", payload);
+		// then the same instance is delivered, and the text is formatted only once
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(text1.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(text2.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(payloads).hasSize(1);
+		assertThat(payloads.get(0)).isSameAs(payload);
+		assertThat(payloads.get(0).getValue(Integer.class)).isEqualTo(42);
+		// the sequence number reaches live listeners, so they know where to replay from
+		assertThat(sequences).containsExactly(broadcaster.getSequence());
+		assertThat(text1.received).containsExactly("a:#42");
+		assertThat(text2.received).containsExactly("a:#42");
+		assertThat(formatted.get()).isEqualTo(1);
+		assertThat(broadcaster.replay("a", 0).get(0).getPayload()).isSameAs(payload);
+	}
+
+	@Test
+	public void concurrentBroadcastsDeliveredInSequence() throws InterruptedException {
+
+		// given
+		final int producers = 4;
+		final int perProducer = 500;
+		final List<Long> sequences = new ArrayList<>();
+		final CountDownLatch latch = new CountDownLatch(producers * perProducer);
+		broadcaster.register("a", hold(new PayloadListener() {
+			@Override
+			public void receiveBroadcast(String group, String message) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void receivePayload(BroadcastMessage message) {
+				sequences.add(message.getSequence());
+				latch.countDown();
+			}
+		}));
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 0; i < perProducer; i++) {
+						broadcaster.broadcast("a", Integer.toString(i));
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		// when
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		// then the listener, and the replay buffer, see every message in sequence order
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		for (int i = 0; i < sequences.size(); i++) {
+			assertThat(sequences.get(i)).isEqualTo(i + 1);
+		}
+		List<BroadcastMessage> replayed = broadcaster.replay("a", 0);
+		for (int i = 1; i < replayed.size(); i++) {
+			assertThat(replayed.get(i).getSequence()).isEqualTo(replayed.get(i - 1).getSequence() + 1);
+		}
+	}
+
+	@Test
+	public void replay() {
+
+		// given
+		when(configuration.getInt(eq(ConfigKeys.PUSH_REPLAY_CAPACITY), anyInt())).thenReturn(3);
+		broadcaster = newBroadcaster(configuration);
+		broadcaster.broadcast("orders/eu", "1");
+		broadcaster.broadcast("prices", "2");
+		long sequence = broadcaster.getSequence();
+		for (int i = 3; i <= 7; i++) {
+			broadcaster.broadcast("orders/eu", Integer.toString(i));
+		}
+		// when
+		List<BroadcastMessage> all = broadcaster.replay(Broadcaster.ALL_MESSAGES, 0);
+		List<BroadcastMessage> orders = broadcaster.replay("orders/*", sequence);
+		// then only the most recent 3 (rounded up to 4) for a topic are kept
+		assertThat(broadcaster.getSequence()).isEqualTo(7);
+		assertThat(messages(all)).containsExactly("prices:2", "orders/eu:4", "orders/eu:5", "orders/eu:6",
+				"orders/eu:7");
+		assertThat(all.get(0).getSequence()).isEqualTo(2);
+		assertThat(messages(orders)).containsExactly("orders/eu:4", "orders/eu:5", "orders/eu:6", "orders/eu:7");
+		assertThat(broadcaster.replay("orders/eu", 7)).isEmpty();
+	}
+
+	@Test
+	public void replayDisabled() {
+
+		// given
+		when(configuration.getInt(eq(ConfigKeys.PUSH_REPLAY_CAPACITY), anyInt())).thenReturn(0);
+		broadcaster = newBroadcaster(configuration);
+		// when
+		broadcaster.broadcast("a", "1");
+		// then
+		assertThat(broadcaster.replay(Broadcaster.ALL_MESSAGES, 0)).isEmpty();
+	}
+
+	private List<String> messages(List<BroadcastMessage> messages) {
+		List<String> result = new ArrayList<>();
+		for (BroadcastMessage message : messages) {
+			result.add(message.toString());
+		}
+		return result;
+	}
+
+	private BroadcastListener hold(BroadcastListener listener) {
+		held.add(listener);
+		return listener;
+	}
+
+	private int listenerCount() {
+		int count = 0;
+		for (BroadcastShardStats stats : broadcaster.getShardStats()) {
+			count += stats.getListenerCount();
+		}
+		return count;
+	}
+
+	private Broadcaster newBroadcaster(ApplicationConfiguration applicationConfiguration) {
+		Broadcaster b = new Broadcaster(applicationConfiguration);
+		broadcasters.add(b);
+		return b;
+	}
+
+	@Test
+	public void shutdown() throws InterruptedException {
+
+		// given
+		Listener listener = new Listener(1);
+		broadcaster.register("a", listener);
+		// when
+		broadcaster.shutdown();
+		PublishResult result = broadcaster.broadcast("a", "1");
+		// then
+		assertThat(broadcaster.isShutdown()).isTrue();
+		assertThat(result).isEqualTo(PublishResult.DISABLED);
+		assertThat(listener.latch.await(100, TimeUnit.MILLISECONDS)).isFalse();
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void buckets() {
+
+		// given
+
+		// when
+
+		// then
+		assertThat(LatencyHistogram.bucket(0)).isEqualTo(0);
+		assertThat(LatencyHistogram.bucket(1)).isEqualTo(1);
+		assertThat(LatencyHistogram.bucket(3)).isEqualTo(2);
+		assertThat(LatencyHistogram.bucket(4)).isEqualTo(3);
+		assertThat(LatencyHistogram.bucket(Long.MAX_VALUE)).isEqualTo(63);
+	}
+
+	@Test
+	public void percentiles() {
+
+		// given
+		LatencyHistogram histogram = new LatencyHistogram();
+		// when
+		for (int i = 1; i <= 90; i++) {
+			histogram.record(1000);
+		}
+		for (int i = 1; i <= 9; i++) {
+			histogram.record(100000);
+		}
+		histogram.record(5000000);
+		LatencyDistribution distribution = histogram.snapshot();
+		// then values are the upper bound of their power of 2 bucket, capped at the maximum
+		assertThat(distribution.getCount()).isEqualTo(100);
+		assertThat(distribution.getMax()).isEqualTo(5000000);
+		assertThat(distribution.getP50()).isEqualTo(1023);
+		assertThat(distribution.getP90()).isEqualTo(1023);
+		assertThat(distribution.getPercentile(91)).isEqualTo(131071);
+		assertThat(distribution.getP99()).isEqualTo(131071);
+		assertThat(distribution.getPercentile(100)).isEqualTo(5000000);
+		assertThat(distribution.getMean()).isEqualTo((90 * 1000 + 9 * 100000 + 5000000) / 100);
+	}
+
+	@Test
+	public void empty() {
+
+		// given
+		LatencyHistogram histogram = new LatencyHistogram();
+		// when
+		LatencyDistribution distribution = histogram.snapshot();
+		// then
+		assertThat(distribution.getCount()).isEqualTo(0);
+		assertThat(distribution.getMean()).isEqualTo(0);
+		assertThat(distribution.getP99()).isEqualTo(0);
+		// when
+		histogram.record(-1);
+		distribution = histogram.snapshot();
+		// then
+		assertThat(distribution.getCount()).isEqualTo(1);
+		assertThat(distribution.getMax()).isEqualTo(0);
+	}
+}
@@ -42,6 +42,9 @@ public class PushMessageRouterTest {
 	@Mock
 	PushMessageListener listener4;
 
+	@Mock
+	PushPayloadListener payloadListener;
+
 	@Before
 	public void setup() {
 		pmr = new PushMessageRouter();
@@ -91,4 +94,32 @@ public class PushMessageRouterTest {
 
 	}
 
+	@Test
+	public void registerTwice() {
+		// given
+		pmr.register("a", listener1);
+		pmr.register("a", listener1);
+		// when
+		pmr.messageIn("a", "a1");
+		pmr.unregister("a", listener1);
+		pmr.messageIn("a", "a2");
+		// then
+		verify(listener1).receiveMessage("a", "a1");
+		verify(listener1, never()).receiveMessage("a", "a2");
+	}
+
+	@Test
+	public void messageIn_payload() {
+		// given
+		pmr.register("a", listener1);
+		pmr.register("a", payloadListener);
+		BroadcastMessage message = new BroadcastMessage(5, "a", BroadcastPayload.of(3));
+		// when
+		pmr.messageIn(message);
+		// then
+		verify(payloadListener).receivePayload(message);
+		verify(payloadListener, never()).receiveMessage(anyString(), anyString());
+		verify(listener1).receiveMessage("a", "3");
+	}
+
 }
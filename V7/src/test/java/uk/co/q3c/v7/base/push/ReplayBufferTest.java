@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ReplayBufferTest {
+
+	@Test
+	public void capacityRoundedUp() {
+
+		// given
+
+		// when
+
+		// then
+		assertThat(ReplayBuffer.roundUp(-1)).isEqualTo(0);
+		assertThat(ReplayBuffer.roundUp(0)).isEqualTo(0);
+		assertThat(ReplayBuffer.roundUp(1)).isEqualTo(1);
+		assertThat(ReplayBuffer.roundUp(2)).isEqualTo(2);
+		assertThat(ReplayBuffer.roundUp(3)).isEqualTo(4);
+		assertThat(ReplayBuffer.roundUp(4)).isEqualTo(4);
+		assertThat(ReplayBuffer.roundUp(17)).isEqualTo(32);
+		assertThat(ReplayBuffer.roundUp(Integer.MAX_VALUE)).isEqualTo(1 << 30);
+	}
+
+	@Test
+	public void capacityOne() {
+
+		// given
+		ReplayBuffer buffer = new ReplayBuffer(1, 10);
+		// when
+		buffer.add(new BroadcastMessage(1, "a", BroadcastPayload.ofText("1"), 1000));
+		buffer.add(new BroadcastMessage(2, "a", BroadcastPayload.ofText("2"), 2000));
+		// then
+		assertThat(buffer.getCapacity()).isEqualTo(1);
+		assertThat(messages(buffer.since("a", 0))).containsExactly("a:2");
+		assertThat(buffer.since("a", 0).get(0).getTime()).isEqualTo(2000);
+	}
+
+	@Test
+	public void capacityThree() {
+
+		// given
+		ReplayBuffer buffer = new ReplayBuffer(3, 10);
+		// when
+		for (int i = 1; i <= 5; i++) {
+			buffer.add(new BroadcastMessage(i, "a", BroadcastPayload.ofText(Integer.toString(i))));
+		}
+		// then
+		assertThat(buffer.getCapacity()).isEqualTo(4);
+		assertThat(messages(buffer.since("a", 0))).containsExactly("a:2", "a:3", "a:4", "a:5");
+	}
+
+	private List<String> messages(List<BroadcastMessage> messages) {
+		List<String> result = new ArrayList<>();
+		for (BroadcastMessage message : messages) {
+			result.add(message.toString());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.Test;
+
+public class ReplayedSequencesTest {
+
+	@Test
+	public void repeatsSkippedOnce() {
+
+		// given
+		ReplayedSequences replayed = new ReplayedSequences();
+		replayed.replayed(new BroadcastMessage(3, "a", "3"));
+		replayed.replayed(new BroadcastMessage(6, "a", "6"));
+		// when
+		// then a live message which was not replayed is not a repeat, even though it is older than the last replayed
+		assertThat(replayed.getLast()).isEqualTo(6);
+		assertThat(replayed.isRepeat(new BroadcastMessage(2, "a", "2"))).isFalse();
+		assertThat(replayed.isRepeat(new BroadcastMessage(3, "a", "3"))).isTrue();
+		assertThat(replayed.isRepeat(new BroadcastMessage(5, "b", "5"))).isFalse();
+		assertThat(replayed.isRepeat(new BroadcastMessage(6, "a", "6"))).isTrue();
+		assertThat(replayed.isRepeat(new BroadcastMessage(6, "a", "6"))).isFalse();
+		assertThat(replayed.isRepeat(new BroadcastMessage("a", "no sequence"))).isFalse();
+	}
+
+	@Test
+	public void forgottenOnceNewerMessageArrives() {
+
+		// given
+		ReplayedSequences replayed = new ReplayedSequences();
+		replayed.replayed(new BroadcastMessage(3, "a", "3"));
+		replayed.replayed(new BroadcastMessage(6, "a", "6"));
+		// when
+		assertThat(replayed.isRepeat(new BroadcastMessage(7, "a", "7"))).isFalse();
+		// then
+		assertThat(replayed.size()).isEqualTo(0);
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TopicTrieTest {
+
+	TopicTrie<String> trie;
+
+	@Before
+	public void setup() {
+		trie = new TopicTrie<>(false);
+		trie.subscribe("orders/eu/fr", "exact");
+		trie.subscribe("orders/eu/*", "oneLevel");
+		trie.subscribe("orders/**", "anyLevel");
+		trie.subscribe("orders/*/fr", "midWildcard");
+		trie.subscribe(Broadcaster.ALL_MESSAGES, "all");
+		trie.subscribe("prices", "prices");
+	}
+
+	@Test
+	public void match() {
+
+		// given
+		// when
+		// then
+		assertThat(subscribers("orders/eu/fr")).containsOnly("exact", "oneLevel", "anyLevel", "midWildcard", "all");
+		assertThat(subscribers("orders/eu/de")).containsOnly("oneLevel", "anyLevel", "all");
+		assertThat(subscribers("orders/us/fr")).containsOnly("anyLevel", "midWildcard", "all");
+		assertThat(subscribers("orders/eu/fr/paris")).containsOnly("anyLevel", "all");
+		assertThat(subscribers("orders")).containsOnly("anyLevel", "all");
+		assertThat(subscribers("prices")).containsOnly("prices", "all");
+		assertThat(subscribers("other")).containsOnly("all");
+	}
+
+	@Test
+	public void equalNotSameGroup() {
+
+		// given
+		String group = new String("prices");
+		// when
+		// then
+		assertThat(subscribers(group)).containsOnly("prices", "all");
+		assertThat(subscribers(new String(Broadcaster.ALL_MESSAGES))).containsOnly("all");
+	}
+
+	@Test
+	public void cacheFollowsSubscriptions() {
+
+		// given
+		List<Set<String>> first = trie.resolve("orders/eu/it");
+		// when
+		// then same result until the subscriptions change
+		assertThat(trie.resolve("orders/eu/it")).isSameAs(first);
+		// when an existing subscription gains or loses a listener
+		trie.subscribe("orders/eu/*", "another");
+		trie.unsubscribe("orders/eu/*", "oneLevel");
+		// then the cached result sees it
+		assertThat(trie.resolve("orders/eu/it")).isSameAs(first);
+		assertThat(subscribers("orders/eu/it")).containsOnly("another", "anyLevel", "all");
+		// when a new subscription is added
+		trie.subscribe("orders/eu/it", "italy");
+		// then
+		assertThat(subscribers("orders/eu/it")).containsOnly("another", "anyLevel", "all", "italy");
+		// when a subscription loses its last listener
+		trie.unsubscribe("orders/**", "anyLevel");
+		// then
+		assertThat(subscribers("orders/eu/it")).containsOnly("another", "all", "italy");
+	}
+
+	@Test
+	public void emptySubscriptionsPruned() {
+
+		// given
+		int before = trie.allSubscribers().size();
+		trie.subscribe("sessions/a1/events", "x");
+		trie.subscribe("sessions/a1/events", "y");
+		trie.subscribe("sessions/a2/*", "z");
+		assertThat(trie.allSubscribers()).hasSize(before + 2);
+		// when
+		trie.unsubscribe("sessions/a1/events", "x");
+		// then the subscription still has a listener
+		assertThat(trie.allSubscribers()).hasSize(before + 2);
+		// when
+		trie.unsubscribe("sessions/a1/events", "y");
+		trie.unsubscribe("sessions/a2/*", "z");
+		trie.unsubscribe("sessions/a2/*", "z");
+		trie.unsubscribe("sessions/a3", "z");
+		// then
+		assertThat(trie.allSubscribers()).hasSize(before);
+		assertThat(subscribers("sessions/a1/events")).containsOnly("all");
+		assertThat(subscribers("sessions/a2/events")).containsOnly("all");
+		// when the same topic is subscribed again
+		trie.subscribe("sessions/a1/events", "x");
+		// then
+		assertThat(subscribers("sessions/a1/events")).containsOnly("x", "all");
+	}
+
+	@Test
+	public void pruneCollectedSubscribers() throws InterruptedException {
+
+		// given a weak trie, whose subscribers are never unsubscribed
+		TopicTrie<Object> weakTrie = new TopicTrie<>(true);
+		Object held = new Object();
+		weakTrie.subscribe("orders/1", held);
+		Object collected = new Object();
+		weakTrie.subscribe("orders/2/lines", collected);
+		weakTrie.subscribe("orders/*/lines", collected);
+		WeakReference<Object> ref = new WeakReference<>(collected);
+		assertThat(weakTrie.resolve("orders/2/lines")).hasSize(2);
+		// when
+		collected = null;
+		for (int i = 0; (i < 50) && (ref.get() != null); i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertThat(ref.get()).isNull();
+		// then
+		assertThat(weakTrie.prune()).isEqualTo(2);
+		assertThat(weakTrie.allSubscribers()).hasSize(1);
+		assertThat(weakTrie.resolve("orders/2/lines")).isEmpty();
+		assertThat(weakTrie.resolve("orders/1")).hasSize(1);
+		assertThat(weakTrie.prune()).isEqualTo(0);
+	}
+
+	@Test
+	public void matches() {
+
+		// given
+		// when
+		// then
+		assertThat(TopicTrie.matches("orders/eu/*", "orders/eu/fr")).isTrue();
+		assertThat(TopicTrie.matches("orders/eu/*", "orders/eu")).isFalse();
+		assertThat(TopicTrie.matches("orders/eu/*", "orders/eu/fr/paris")).isFalse();
+		assertThat(TopicTrie.matches("orders/**", "orders")).isTrue();
+		assertThat(TopicTrie.matches("orders/**", "orders/eu/fr/paris")).isTrue();
+		assertThat(TopicTrie.matches("orders/*/fr", "orders/us/fr")).isTrue();
+		assertThat(TopicTrie.matches("orders/*/fr", "orders/us/de")).isFalse();
+		assertThat(TopicTrie.matches(Broadcaster.ALL_MESSAGES, "anything/at/all")).isTrue();
+		assertThat(TopicTrie.matches("prices", "prices")).isTrue();
+		assertThat(TopicTrie.matches("prices", "orders")).isFalse();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void anySegmentsMustBeLast() {
+
+		// given
+		// when
+		trie.subscribe("orders/**/fr", "invalid");
+		// then
+	}
+
+	private List<String> subscribers(String topic) {
+		List<String> subscribers = new ArrayList<>();
+		for (Set<String> set : trie.resolve(topic)) {
+			subscribers.addAll(set);
+		}
+		return subscribers;
+	}
+}
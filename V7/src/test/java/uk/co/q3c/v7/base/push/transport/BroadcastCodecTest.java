@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push.transport;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class BroadcastCodecTest {
+
+	UUID origin = UUID.randomUUID();
+
+	@Test
+	public void roundTrip() throws IOException {
+
+		// given
+		List<BroadcastEnvelope> batch = ImmutableList.of(new BroadcastEnvelope(origin, 1, 100, "a", "a1"),
+				new BroadcastEnvelope(origin, 2, 200, "b/c", "\u00fcber"));
+		// when
+		List<BroadcastEnvelope> decoded = BroadcastCodec.decode(BroadcastCodec.encode(batch));
+		// then
+		assertThat(decoded).hasSize(2);
+		assertThat(decoded.get(1).getOrigin()).isEqualTo(origin);
+		assertThat(decoded.get(1).getSequence()).isEqualTo(2);
+		assertThat(decoded.get(1).getTimestamp()).isEqualTo(200);
+		assertThat(decoded.get(1).getGroup()).isEqualTo("b/c");
+		assertThat(decoded.get(1).getMessage()).isEqualTo("\u00fcber");
+	}
+
+	@Test
+	public void truncated() {
+
+		// given
+		byte[] data = BroadcastCodec.encode(ImmutableList.of(new BroadcastEnvelope(origin, 1, 100, "a", "message")));
+		// when
+		// then
+		assertRejected(Arrays.copyOf(data, data.length - 3));
+		assertRejected(Arrays.copyOf(data, 3));
+	}
+
+	@Test
+	public void corruptCount() {
+
+		// given
+		byte[] data = BroadcastCodec.encode(ImmutableList.of(new BroadcastEnvelope(origin, 1, 100, "a", "message")));
+		// when
+		// then
+		assertRejected(withInt(data, 1, -1));
+		assertRejected(withInt(data, 1, Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void corruptLength() {
+
+		// given
+		byte[] data = BroadcastCodec.encode(ImmutableList.of(new BroadcastEnvelope(origin, 1, 100, "a", "message")));
+		// the group length follows the version, count, origin, sequence and timestamp
+		int groupLength = 1 + 4 + 16 + 8 + 8;
+		// when
+		// then
+		assertRejected(withInt(data, groupLength, -1));
+		assertRejected(withInt(data, groupLength, Integer.MAX_VALUE));
+		assertRejected(withInt(data, groupLength, 1000));
+	}
+
+	private byte[] withInt(byte[] data, int offset, int value) {
+		byte[] copy = data.clone();
+		ByteBuffer.wrap(copy).putInt(offset, value);
+		return copy;
+	}
+
+	private void assertRejected(byte[] data) {
+		try {
+			BroadcastCodec.decode(data);
+			fail("IOException expected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push.transport;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.co.q3c.v7.base.config.ApplicationConfiguration;
+import uk.co.q3c.v7.base.push.Broadcaster;
+import uk.co.q3c.v7.base.push.Broadcaster.BroadcastListener;
+import uk.co.q3c.v7.i18n.I18NModule;
+import uk.co.q3c.v7.i18n.Translate;
+
+import com.google.inject.Guice;
+
+/**
+ * Measures broadcast throughput between nodes in separate JVMs, using {@link FileBroadcastTransport}. Not a unit test
+ * - run the main method from the IDE, optionally with the number of nodes and the number of messages each node
+ * broadcasts as arguments. Each node is started as a separate JVM with the same classpath; all nodes start
+ * broadcasting at the same time, and each reports how long it took to receive every message from every node
+ * (including its own, delivered locally).
+ *
+ * @author David Sowerby
+ *
+ */
+public class BroadcastTransportBenchmark {
+
+	private static final long START_DELAY = 3000;
+	private static final long TIMEOUT = 60000;
+
+	public static void main(String[] args) throws Exception {
+		if ((args.length > 0) && args[0].equals("node")) {
+			node(new File(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]), Long.parseLong(args[4]));
+			return;
+		}
+		int nodes = (args.length > 0) ? Integer.parseInt(args[0]) : 3;
+		int messages = (args.length > 1) ? Integer.parseInt(args[1]) : 20000;
+		File directory = Files.createTempDirectory("v7-broadcast-benchmark").toFile();
+		long startAt = System.currentTimeMillis() + START_DELAY;
+		String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath();
+		List<Process> processes = new ArrayList<>();
+		for (int i = 0; i < nodes; i++) {
+			// nodes run with the same JVM options as this process
+			List<String> command = new ArrayList<>();
+			command.add(java);
+			command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add(BroadcastTransportBenchmark.class.getName());
+			command.add("node");
+			command.add(directory.getAbsolutePath());
+			command.add(Integer.toString(messages));
+			command.add(Integer.toString(nodes));
+			command.add(Long.toString(startAt));
+			ProcessBuilder builder = new ProcessBuilder(command);
+			builder.redirectErrorStream(true);
+			processes.add(builder.start());
+		}
+		long slowest = 0;
+		int results = 0;
+		for (Process process : processes) {
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.startsWith("RESULT ")) {
+						slowest = Math.max(slowest, Long.parseLong(line.substring(7)));
+						results++;
+					} else if (!line.contains(" DEBUG ") && !line.contains(" INFO ")) {
+						System.out.println(line);
+					}
+				}
+			}
+			process.waitFor();
+		}
+		if (results < nodes) {
+			System.out.println("Only " + results + " of " + nodes + " nodes completed");
+			return;
+		}
+		long delivered = (long) nodes * nodes * messages;
+		System.out.printf("%d nodes, %d messages each: %d deliveries in %d ms, %.0f deliveries/s%n", nodes, messages,
+				delivered, slowest, delivered * 1000.0 / Math.max(1, slowest));
+	}
+
+	private static void node(File directory, int messages, int nodes, long startAt) throws Exception {
+		ApplicationConfiguration configuration = new ApplicationConfiguration() {
+		};
+		Translate translate = Guice.createInjector(new I18NModule()).getInstance(Translate.class);
+		Broadcaster broadcaster = new Broadcaster(configuration) {
+		};
+		// the configuration service is only a declared dependency, it is not used
+		DefaultBroadcastTransportService service = new DefaultBroadcastTransportService(translate,
+				null, configuration, broadcaster, new FileBroadcastTransport(directory)) {
+			@Override
+			protected int queueCapacity() {
+				return Integer.MAX_VALUE;
+			}
+		};
+		final AtomicLong received = new AtomicLong();
+		BroadcastListener listener = new BroadcastListener() {
+			@Override
+			public void receiveBroadcast(String group, String message) {
+				received.incrementAndGet();
+			}
+		};
+		broadcaster.register(Broadcaster.ALL_MESSAGES, listener);
+		service.start();
+		Thread.sleep(Math.max(0, startAt - System.currentTimeMillis()));
+
+		long start = System.nanoTime();
+		for (int i = 0; i < messages; i++) {
+			broadcaster.broadcast("benchmark/" + (i & 15), "message " + i);
+		}
+		long expected = (long) messages * nodes;
+		long deadline = System.currentTimeMillis() + TIMEOUT;
+		while ((received.get() < expected) && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(1);
+		}
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		System.out.println("node " + service.getNodeId() + ": received " + received.get() + " of " + expected
+				+ ", published " + service.getPublished() + " in " + service.getBatches() + " batches");
+		System.out.println("RESULT " + elapsed);
+		// leave the files in place until every node has had a chance to read them
+		Thread.sleep(2000);
+		service.stop();
+		broadcaster.shutdown();
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push.transport;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.q3c.v7.base.config.ApplicationConfiguration;
+import uk.co.q3c.v7.base.config.ApplicationConfigurationService;
+import uk.co.q3c.v7.base.config.ConfigKeys;
+import uk.co.q3c.v7.base.push.Broadcaster;
+import uk.co.q3c.v7.base.push.Broadcaster.BroadcastListener;
+import uk.co.q3c.v7.i18n.I18NModule;
+import uk.co.q3c.v7.i18n.Translate;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
+
+public class DefaultBroadcastTransportServiceTest {
+
+	ApplicationConfiguration configuration;
+	Translate translate;
+	LoopbackBroadcastTransport.Hub hub;
+	List<DefaultBroadcastTransportService> services = new ArrayList<>();
+	List<Broadcaster> broadcasters = new ArrayList<>();
+
+	static class Listener implements BroadcastListener {
+		final List<String> received = new ArrayList<>();
+		final CountDownLatch latch;
+
+		Listener(int expected) {
+			latch = new CountDownLatch(expected);
+		}
+
+		@Override
+		public synchronized void receiveBroadcast(String group, String message) {
+			received.add(group + ":" + message);
+			latch.countDown();
+		}
+
+		synchronized List<String> received() {
+			return new ArrayList<>(received);
+		}
+	}
+
+	@Before
+	public void setup() {
+		configuration = mock(ApplicationConfiguration.class);
+		when(configuration.getBoolean(eq(ConfigKeys.SERVER_PUSH_ENABLED), anyBoolean())).thenReturn(true);
+		when(configuration.getInt(eq(ConfigKeys.PUSH_DELIVERY_SHARDS), anyInt())).thenReturn(1);
+		when(configuration.getInt(eq(ConfigKeys.PUSH_TRANSPORT_BATCH_SIZE), anyInt())).thenReturn(100);
+		when(configuration.getLong(eq(ConfigKeys.PUSH_TRANSPORT_BATCH_WINDOW), anyLong())).thenReturn(5L);
+		translate = Guice.createInjector(new I18NModule()).getInstance(Translate.class);
+		hub = new LoopbackBroadcastTransport.Hub();
+	}
+
+	@After
+	public void teardown() throws Exception {
+		for (DefaultBroadcastTransportService service : services) {
+			service.stop();
+		}
+		for (Broadcaster broadcaster : broadcasters) {
+			broadcaster.shutdown();
+		}
+	}
+
+	@Test
+	public void messagesReachOtherNodes() throws Exception {
+
+		// given
+		Broadcaster broadcasterA = new TestBroadcaster(configuration);
+		Broadcaster broadcasterB = new TestBroadcaster(configuration);
+		DefaultBroadcastTransportService serviceA = service(broadcasterA);
+		DefaultBroadcastTransportService serviceB = service(broadcasterB);
+		serviceA.start();
+		serviceB.start();
+		Listener listenerA = new Listener(3);
+		Listener listenerB = new Listener(3);
+		broadcasterA.register(Broadcaster.ALL_MESSAGES, listenerA);
+		broadcasterB.register(Broadcaster.ALL_MESSAGES, listenerB);
+		// when
+		broadcasterA.broadcast("a", "1");
+		broadcasterA.broadcast("a", "2");
+		broadcasterB.broadcast("b", "3");
+		// then
+		assertThat(listenerA.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(listenerB.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(listenerA.received()).contains("a:1", "a:2", "b:3").hasSize(3);
+		assertThat(listenerB.received()).contains("a:1", "a:2", "b:3").hasSize(3);
+		// loopback delivers within publish, so the latches may be released before publishing is counted
+		for (int i = 0; (i < 100) && (serviceA.getPublished() < 2); i++) {
+			Thread.sleep(10);
+		}
+		assertThat(serviceA.getPublished()).isEqualTo(2);
+		assertThat(serviceB.getReceived()).isEqualTo(2);
+		assertThat(serviceA.getReceived()).isEqualTo(1);
+	}
+
+	@Test
+	public void duplicatesIgnored() throws Exception {
+
+		// given
+		Broadcaster broadcaster = new TestBroadcaster(configuration);
+		DefaultBroadcastTransportService service = service(broadcaster);
+		service.start();
+		Listener listener = new Listener(2);
+		broadcaster.register(Broadcaster.ALL_MESSAGES, listener);
+		UUID otherNode = UUID.randomUUID();
+		byte[] batch = BroadcastCodec.encode(ImmutableList.of(new BroadcastEnvelope(otherNode, 1, 0, "a", "1"),
+				new BroadcastEnvelope(otherNode, 2, 0, "a", "2")));
+		byte[] own = BroadcastCodec.encode(ImmutableList.of(new BroadcastEnvelope(service.getNodeId(), 1, 0, "a",
+				"own")));
+		// when
+		service.receive(batch);
+		service.receive(batch);
+		service.receive(own);
+		// then
+		assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(service.getReceived()).isEqualTo(2);
+		assertThat(service.getDuplicates()).isEqualTo(3);
+		Thread.sleep(50);
+		assertThat(listener.received()).containsExactly("a:1", "a:2");
+	}
+
+	@Test
+	public void codec() throws Exception {
+
+		// given
+		UUID node = UUID.randomUUID();
+		BroadcastEnvelope envelope = new BroadcastEnvelope(node, 7, 1234, "orders/eu", "café");
+		// when
+		List<BroadcastEnvelope> decoded = BroadcastCodec.decode(BroadcastCodec.encode(ImmutableList.of(envelope)));
+		// then
+		assertThat(decoded).hasSize(1);
+		assertThat(decoded.get(0).getId()).isEqualTo(envelope.getId());
+		assertThat(decoded.get(0).getTimestamp()).isEqualTo(1234);
+		assertThat(decoded.get(0).getGroup()).isEqualTo("orders/eu");
+		assertThat(decoded.get(0).getMessage()).isEqualTo("café");
+	}
+
+	private DefaultBroadcastTransportService service(Broadcaster broadcaster) {
+		DefaultBroadcastTransportService service = new DefaultBroadcastTransportService(translate,
+				mock(ApplicationConfigurationService.class), configuration, broadcaster,
+				new LoopbackBroadcastTransport(hub));
+		services.add(service);
+		broadcasters.add(broadcaster);
+		return service;
+	}
+
+	static class TestBroadcaster extends Broadcaster {
+		TestBroadcaster(ApplicationConfiguration configuration) {
+			super(configuration);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.push.transport;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileBroadcastTransportTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	List<FileBroadcastTransport> transports = new ArrayList<>();
+
+	static class Receiver implements BroadcastTransport.Receiver {
+		final List<String> received = new ArrayList<>();
+
+		@Override
+		public synchronized void receive(byte[] batch) {
+			received.add(new String(batch));
+		}
+
+		synchronized List<String> received() {
+			return new ArrayList<>(received);
+		}
+	}
+
+	@After
+	public void teardown() throws Exception {
+		for (FileBroadcastTransport transport : transports) {
+			transport.close();
+		}
+	}
+
+	@Test
+	public void exchange() throws Exception {
+
+		// given
+		FileBroadcastTransport a = transport();
+		FileBroadcastTransport b = transport();
+		Receiver receiverA = new Receiver();
+		Receiver receiverB = new Receiver();
+		a.publish("before".getBytes());
+		a.open(receiverA);
+		b.open(receiverB);
+		// when
+		a.publish("one".getBytes());
+		a.publish("two".getBytes());
+		for (int i = 0; (i < 100) && (receiverB.received().size() < 2); i++) {
+			Thread.sleep(20);
+		}
+		// then files present before opening are ignored, and a node does not receive its own
+		assertThat(receiverB.received()).containsOnly("one", "two");
+		assertThat(receiverA.received()).isEmpty();
+	}
+
+	private FileBroadcastTransport transport() {
+		FileBroadcastTransport transport = new FileBroadcastTransport(folder.getRoot()) {
+			@Override
+			protected long pollInterval() {
+				return 5;
+			}
+		};
+		transports.add(transport);
+		return transport;
+	}
+}
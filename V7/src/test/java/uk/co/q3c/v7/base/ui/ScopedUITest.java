@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.ui;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import uk.co.q3c.v7.base.navigate.V7Navigator;
+import uk.co.q3c.v7.base.push.BroadcastInbox;
+import uk.co.q3c.v7.base.push.BroadcastMessage;
+import uk.co.q3c.v7.base.push.Broadcaster;
+import uk.co.q3c.v7.base.push.InboxOverflowPolicy;
+import uk.co.q3c.v7.base.push.PushMessageListener;
+import uk.co.q3c.v7.base.push.PushMessageRouter;
+import uk.co.q3c.v7.base.push.PushPayloadListener;
+import uk.co.q3c.v7.i18n.Translate;
+
+import com.google.common.collect.ImmutableList;
+import com.vaadin.data.util.converter.ConverterFactory;
+import com.vaadin.server.ErrorHandler;
+import com.vaadin.ui.AbstractOrderedLayout;
+import com.vaadin.ui.VerticalLayout;
+
+public class ScopedUITest {
+
+	ScheduledExecutorService scheduler;
+	Broadcaster broadcaster;
+	BatchingUI ui;
+
+	/**
+	 * Holds the task passed to {@link #access(Runnable)} until it is run, as Vaadin would while waiting for the
+	 * session lock, and records what is processed
+	 */
+	static class BatchingUI extends ScopedUI {
+		final List<Runnable> pending = new ArrayList<>();
+		final List<String> processed = new ArrayList<>();
+		int accessCalls;
+
+		BatchingUI(Broadcaster broadcaster) {
+			super(mock(V7Navigator.class), mock(ErrorHandler.class), mock(ConverterFactory.class), broadcaster,
+					new PushMessageRouter(), null, mock(Translate.class));
+		}
+
+		@Override
+		public synchronized Future<Void> access(Runnable runnable) {
+			accessCalls++;
+			pending.add(runnable);
+			return null;
+		}
+
+		synchronized void runPending() {
+			for (Runnable runnable : pending) {
+				runnable.run();
+			}
+			pending.clear();
+		}
+
+		@Override
+		protected void processBroadcast(BroadcastMessage message) {
+			processed.add(message.toString());
+		}
+
+		@Override
+		protected AbstractOrderedLayout screenLayout() {
+			return new VerticalLayout(getViewDisplayPanel());
+		}
+
+		@Override
+		protected String pageTitle() {
+			return "BatchingUI";
+		}
+	}
+
+	/**
+	 * Keeps the default message handling, and runs each access immediately
+	 */
+	static class RoutingUI extends ScopedUI {
+
+		RoutingUI(Broadcaster broadcaster, PushMessageRouter router) {
+			super(mock(V7Navigator.class), mock(ErrorHandler.class), mock(ConverterFactory.class), broadcaster, router,
+					null, mock(Translate.class));
+		}
+
+		@Override
+		public Future<Void> access(Runnable runnable) {
+			runnable.run();
+			return null;
+		}
+
+		@Override
+		protected AbstractOrderedLayout screenLayout() {
+			return new VerticalLayout(getViewDisplayPanel());
+		}
+
+		@Override
+		protected String pageTitle() {
+			return "RoutingUI";
+		}
+	}
+
+	/**
+	 * A UI written before {@link ScopedUI#processBroadcast(BroadcastMessage)} existed
+	 */
+	static class LegacyUI extends RoutingUI {
+		final List<String> received = new ArrayList<>();
+
+		LegacyUI(Broadcaster broadcaster, PushMessageRouter router) {
+			super(broadcaster, router);
+		}
+
+		protected void processBroadcastMessage(String group, String message) {
+			received.add(group + ":" + message);
+		}
+	}
+
+	@Before
+	public void setup() {
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		broadcaster = mock(Broadcaster.class);
+		// a long window, so that only the batch size dispatches
+		when(broadcaster.newInbox(any(BroadcastInbox.Target.class))).thenAnswer(new Answer<BroadcastInbox>() {
+			@Override
+			public BroadcastInbox answer(InvocationOnMock invocation) throws Throwable {
+				return new BroadcastInbox((BroadcastInbox.Target) invocation.getArguments()[0], scheduler, 60000, 3,
+						100, InboxOverflowPolicy.DROP_OLDEST);
+			}
+		});
+		ui = new BatchingUI(broadcaster);
+	}
+
+	@After
+	public void teardown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void burstDeliveredInOneAccess() {
+
+		// given
+		ui.receiveBroadcast("a", "1");
+		ui.receiveBroadcast("b", "2");
+		// then
+		assertThat(ui.accessCalls).isEqualTo(0);
+		// when
+		ui.receiveBroadcast("a", "3");
+		ui.receiveBroadcast("a", "4");
+		// then one access, and the message arriving while it waits joins the batch
+		assertThat(ui.accessCalls).isEqualTo(1);
+		assertThat(ui.processed).isEmpty();
+		// when
+		ui.runPending();
+		// then
+		assertThat(ui.processed).containsExactly("a:1", "b:2", "a:3", "a:4");
+		assertThat(ui.getInbox().size()).isEqualTo(0);
+		assertThat(ui.getInbox().getBatches()).isEqualTo(1);
+	}
+
+	@Test
+	public void replayedMessagesNotDeliveredAgain() {
+
+		// given
+		when(broadcaster.replay("a", 0)).thenReturn(
+				ImmutableList.of(new BroadcastMessage(1, "a", "1"), new BroadcastMessage(2, "a", "2")));
+		ui.receivePayload(new BroadcastMessage(2, "a", "2"));
+		// when
+		long last = ui.replayBroadcasts("a", 0);
+		ui.receivePayload(new BroadcastMessage(3, "a", "3"));
+		ui.receivePayload(new BroadcastMessage(4, "a", "4"));
+		ui.runPending();
+		// then
+		assertThat(last).isEqualTo(2);
+		assertThat(ui.processed).containsExactly("a:1", "a:2", "a:3", "a:4");
+	}
+
+	@Test
+	public void messageRoutedWithPayload() {
+
+		// given
+		PushMessageRouter router = new PushMessageRouter();
+		PushPayloadListener listener = mock(PushPayloadListener.class);
+		router.register("a", listener);
+		RoutingUI routingUI = new RoutingUI(broadcaster, router);
+		BroadcastMessage message = new BroadcastMessage(5, "a", "1");
+		// when
+		routingUI.receivePayload(message);
+		routingUI.receivePayload(new BroadcastMessage(6, "a", "2"));
+		routingUI.receivePayload(new BroadcastMessage(7, "a", "3"));
+		// then the payload listener has the payload and sequence number, not just the text
+		ArgumentCaptor<BroadcastMessage> routed = ArgumentCaptor.forClass(BroadcastMessage.class);
+		verify(listener, times(3)).receivePayload(routed.capture());
+		assertThat(routed.getAllValues().get(0).getSequence()).isEqualTo(5);
+		assertThat(routed.getAllValues().get(0).getPayload()).isSameAs(message.getPayload());
+	}
+
+	@Test
+	public void legacyHandlerStillCalled() {
+
+		// given
+		PushMessageRouter router = new PushMessageRouter();
+		PushMessageListener listener = mock(PushMessageListener.class);
+		router.register("a", listener);
+		LegacyUI legacyUI = new LegacyUI(broadcaster, router);
+		// when
+		legacyUI.receiveBroadcast("a", "1");
+		legacyUI.receiveBroadcast("b", "2");
+		legacyUI.receiveBroadcast("a", "3");
+		// then the override replaces the routing, as it always has
+		assertThat(legacyUI.received).containsExactly("a:1", "b:2", "a:3");
+		verifyZeroInteractions(listener);
+	}
+
+	@Test
+	public void liveMessageNotReplayedIsDelivered() {
+
+		// given a message for another topic is broadcast between two which are replayed
+		when(broadcaster.replay("a", 0)).thenReturn(
+				ImmutableList.of(new BroadcastMessage(1, "a", "1"), new BroadcastMessage(3, "a", "3")));
+		ui.receivePayload(new BroadcastMessage(2, "b", "2"));
+		ui.receivePayload(new BroadcastMessage(3, "a", "3"));
+		// when
+		ui.replayBroadcasts("a", 0);
+		ui.receivePayload(new BroadcastMessage(4, "a", "4"));
+		ui.runPending();
+		// then
+		assertThat(ui.processed).containsExactly("a:1", "a:3", "b:2", "a:4");
+	}
+
+}
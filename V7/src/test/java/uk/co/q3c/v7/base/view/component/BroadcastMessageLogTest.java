@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.base.view.component;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import uk.co.q3c.v7.base.push.BroadcastMessage;
+import uk.co.q3c.v7.base.push.BroadcastPayload;
+import uk.co.q3c.v7.base.push.Broadcaster;
+import uk.co.q3c.v7.base.push.PushMessageRouter;
+import uk.co.q3c.v7.base.user.opt.UserOption;
+import uk.co.q3c.v7.i18n.I18NKey;
+import uk.co.q3c.v7.i18n.Translate;
+
+import com.google.common.collect.ImmutableList;
+
+public class BroadcastMessageLogTest {
+
+	Translate translate;
+	PushMessageRouter router;
+	Broadcaster broadcaster;
+	UserOption userOption;
+
+	@Before
+	public void setup() {
+		translate = mock(Translate.class);
+		when(translate.fromNoArgs(any(I18NKey.class))).thenReturn("caption");
+		router = new PushMessageRouter();
+		broadcaster = mock(Broadcaster.class);
+		when(broadcaster.replay(Broadcaster.ALL_MESSAGES, 0)).thenReturn(ImmutableList.<BroadcastMessage> of());
+		userOption = mock(UserOption.class);
+		when(userOption.getOptionAsInt(eq("BroadcastMessageLog"), eq(BroadcastMessageLog.maxEntriesOpt), anyInt()))
+				.thenReturn(3);
+	}
+
+	@Test
+	public void newestFirstAndBounded() {
+
+		// given
+		BroadcastMessageLog messageLog = new BroadcastMessageLog(translate, router, broadcaster, userOption);
+		// when
+		for (int i = 1; i <= 5; i++) {
+			router.messageIn("a", "a" + i);
+		}
+		// then
+		assertThat(messageLog.getMaxEntries()).isEqualTo(3);
+		assertThat(rows(messageLog)).containsExactly("a:a5", "a:a4", "a:a3");
+
+		// when
+		messageLog.setMaxEntries(2);
+		// then
+		assertThat(rows(messageLog)).containsExactly("a:a5", "a:a4");
+		verify(userOption).setOption("BroadcastMessageLog", BroadcastMessageLog.maxEntriesOpt, 2);
+	}
+
+	@Test
+	public void startsWithReplay() {
+
+		// given
+		when(broadcaster.replay(Broadcaster.ALL_MESSAGES, 0)).thenReturn(
+				ImmutableList.of(new BroadcastMessage(1, "a", "a1"), new BroadcastMessage(2, "b", "b1")));
+		router = spy(router);
+		// when
+		BroadcastMessageLog messageLog = new BroadcastMessageLog(translate, router, broadcaster, userOption);
+		// then registered first, so that nothing broadcast during the replay is missed
+		assertThat(rows(messageLog)).containsExactly("b:b1", "a:a1");
+		InOrder inOrder = inOrder(router, broadcaster);
+		inOrder.verify(router).register(PushMessageRouter.ALL_MESSAGES, messageLog);
+		inOrder.verify(broadcaster).replay(Broadcaster.ALL_MESSAGES, 0);
+	}
+
+	@Test
+	public void replayLimitedToMaxEntriesWithBroadcastTime() {
+
+		// given
+		List<BroadcastMessage> recent = new ArrayList<>();
+		for (int i = 1; i <= 5; i++) {
+			recent.add(new BroadcastMessage(i, "a", BroadcastPayload.ofText("a" + i), 1000L * i));
+		}
+		when(broadcaster.replay(Broadcaster.ALL_MESSAGES, 0)).thenReturn(ImmutableList.copyOf(recent));
+		// when
+		BroadcastMessageLog messageLog = new BroadcastMessageLog(translate, router, broadcaster, userOption);
+		// then only the most recent are shown, with the time they were broadcast
+		assertThat(rows(messageLog)).containsExactly("a:a5", "a:a4", "a:a3");
+		List<Object> times = new ArrayList<>();
+		for (Object itemId : messageLog.getItemIds()) {
+			times.add(messageLog.getContainerProperty(itemId, BroadcastMessageLog.RECEIVED).getValue());
+		}
+		assertThat(times).containsExactly(new Date(5000), new Date(4000), new Date(3000));
+		// and a live message has the time it was broadcast too
+		router.messageIn(new BroadcastMessage(6, "a", BroadcastPayload.ofText("a6"), 6000));
+		assertThat(messageLog.getContainerProperty(messageLog.firstItemId(), BroadcastMessageLog.RECEIVED).getValue())
+				.isEqualTo(new Date(6000));
+	}
+
+	@Test
+	public void replayedMessagesNotRepeated() {
+
+		// given
+		when(broadcaster.replay(Broadcaster.ALL_MESSAGES, 0)).thenReturn(
+				ImmutableList.of(new BroadcastMessage(1, "a", "a1"), new BroadcastMessage(2, "b", "b1")));
+		BroadcastMessageLog messageLog = new BroadcastMessageLog(translate, router, broadcaster, userOption);
+		// when messages which were waiting in the inbox arrive after the replay
+		router.messageIn(new BroadcastMessage(2, "b", "b1"));
+		router.messageIn(new BroadcastMessage(3, "a", "a2"));
+		// then
+		assertThat(rows(messageLog)).containsExactly("a:a2", "b:b1", "a:a1");
+	}
+
+	private List<String> rows(BroadcastMessageLog messageLog) {
+		List<String> rows = new ArrayList<>();
+		for (Object itemId : messageLog.getItemIds()) {
+			rows.add(messageLog.getContainerProperty(itemId, BroadcastMessageLog.GROUP).getValue() + ":"
+					+ messageLog.getContainerProperty(itemId, BroadcastMessageLog.MESSAGE).getValue());
+		}
+		return rows;
+	}
+}
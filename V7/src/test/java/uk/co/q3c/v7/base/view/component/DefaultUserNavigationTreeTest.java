@@ -119,7 +119,7 @@ public class DefaultUserNavigationTreeTest extends TestWithSitemap {
 		buildSitemap(0);
 		// when
 		DefaultUserNavigationTree unt = new DefaultUserNavigationTree(sitemap, navigator, subjectPro, userOption,
-				translate, pageAccessController, userStatus);
+				currentLocale, pageAccessController, userStatus);
 		// then
 		assertThat(unt.getItemIds().size()).isEqualTo(0);
 	}
@@ -133,7 +133,7 @@ public class DefaultUserNavigationTreeTest extends TestWithSitemap {
 
 		// when
 		DefaultUserNavigationTree unt = new DefaultUserNavigationTree(sitemap, navigator, subjectPro, userOption,
-				translate, pageAccessController, userStatus);
+				currentLocale, pageAccessController, userStatus);
 		// then
 		assertThat(unt.getItemIds().size()).isEqualTo(3);
 		@SuppressWarnings("unchecked")
@@ -157,7 +157,7 @@ public class DefaultUserNavigationTreeTest extends TestWithSitemap {
 
 		// when
 		DefaultUserNavigationTree unt = new DefaultUserNavigationTree(sitemap, navigator, subjectPro, userOption,
-				translate, pageAccessController, userStatus);
+				currentLocale, pageAccessController, userStatus);
 		// then
 		assertThat(unt.getItemIds().size()).isEqualTo(6);
 		@SuppressWarnings("unchecked")
@@ -187,7 +187,7 @@ public class DefaultUserNavigationTreeTest extends TestWithSitemap {
 
 		// when
 		DefaultUserNavigationTree unt = new DefaultUserNavigationTree(sitemap, navigator, subjectPro, userOption,
-				translate, pageAccessController, userStatus);
+				currentLocale, pageAccessController, userStatus);
 		// then
 		assertThat(unt.getItemIds().size()).isEqualTo(3);
 		@SuppressWarnings("unchecked")
@@ -210,7 +210,7 @@ public class DefaultUserNavigationTreeTest extends TestWithSitemap {
 
 		// when
 		DefaultUserNavigationTree unt = new DefaultUserNavigationTree(sitemap, navigator, subjectPro, userOption,
-				translate, pageAccessController, userStatus);
+				currentLocale, pageAccessController, userStatus);
 		// then
 		// assertThat(unt.getItemIds().size()).isEqualTo(5);
 		@SuppressWarnings("unchecked")
@@ -235,7 +235,7 @@ public class DefaultUserNavigationTreeTest extends TestWithSitemap {
 		buildSitemap(2);
 		// when
 		DefaultUserNavigationTree unt = new DefaultUserNavigationTree(sitemap, navigator, subjectPro, userOption,
-				translate, pageAccessController, userStatus);
+				currentLocale, pageAccessController, userStatus);
 		// then
 		assertThat(unt.getMaxLevel()).isEqualTo(-1);
 		// when
@@ -265,7 +265,7 @@ public class DefaultUserNavigationTreeTest extends TestWithSitemap {
 
 		// when
 		DefaultUserNavigationTree unt = new DefaultUserNavigationTree(sitemap, navigator, subjectPro, userOption,
-				translate, pageAccessController, userStatus);
+				currentLocale, pageAccessController, userStatus);
 
 		// then
 		assertThat(unt.getItemCaption(newNode1)).isEqualTo("home");
@@ -279,7 +279,7 @@ public class DefaultUserNavigationTreeTest extends TestWithSitemap {
 		buildSitemap(1);
 		// when
 		DefaultUserNavigationTree unt = new DefaultUserNavigationTree(sitemap, navigator, subjectPro, userOption,
-				translate, pageAccessController, userStatus);
+				currentLocale, pageAccessController, userStatus);
 		// then
 		assertThat(unt.isImmediate()).isTrue();
 
@@ -291,7 +291,7 @@ public class DefaultUserNavigationTreeTest extends TestWithSitemap {
 		// given
 		buildSitemap(2);
 		DefaultUserNavigationTree unt = new DefaultUserNavigationTree(sitemap, navigator, subjectPro, userOption,
-				translate, pageAccessController, userStatus);
+				currentLocale, pageAccessController, userStatus);
 		// when
 		unt.setValue(newNode2);
 		// then
@@ -307,7 +307,7 @@ public class DefaultUserNavigationTreeTest extends TestWithSitemap {
 
 		// when
 		DefaultUserNavigationTree unt = new DefaultUserNavigationTree(sitemap, navigator, subjectPro, userOption,
-				translate, pageAccessController, userStatus);
+				currentLocale, pageAccessController, userStatus);
 
 		// then
 		assertThat(unt.getItemCaption(newNode1)).isEqualTo("zu Hause");
@@ -341,7 +341,7 @@ public class DefaultUserNavigationTreeTest extends TestWithSitemap {
 
 		// when
 		DefaultUserNavigationTree unt = new DefaultUserNavigationTree(sitemap, navigator, subjectPro, userOption,
-				translate, pageAccessController, userStatus);
+				currentLocale, pageAccessController, userStatus);
 		// then
 		@SuppressWarnings("unchecked")
 		List<SitemapNode> nodes = (List<SitemapNode>) unt.getItemIds();
@@ -361,7 +361,7 @@ public class DefaultUserNavigationTreeTest extends TestWithSitemap {
 		buildSitemap(3);
 		// when
 		DefaultUserNavigationTree unt = new DefaultUserNavigationTree(sitemap, navigator, subjectPro, userOption,
-				translate, pageAccessController, userStatus);
+				currentLocale, pageAccessController, userStatus);
 		// then
 		assertThat(unt.getItemIds().size()).isEqualTo(1);
 
@@ -377,7 +377,7 @@ public class DefaultUserNavigationTreeTest extends TestWithSitemap {
 		// given
 		buildSitemap(4);
 		DefaultUserNavigationTree unt = new DefaultUserNavigationTree(sitemap, navigator, subjectPro, userOption,
-				translate, pageAccessController, userStatus);
+				currentLocale, pageAccessController, userStatus);
 		// when
 
 		// sorted is false by default, should be insertion order
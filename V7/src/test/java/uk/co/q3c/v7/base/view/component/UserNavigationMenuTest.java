@@ -101,7 +101,7 @@ public class UserNavigationMenuTest {
 	@Before
 	public void setup() {
 		menu = new UserNavigationMenu(sitemap, navigator, userOption, subjectProvider, pageAccessController,
-				userStatus);
+				userStatus, currentLocale);
 		locale = currentLocale.getLocale();
 		collator = Collator.getInstance();
 		buildSitemap();
@@ -124,7 +124,7 @@ public class UserNavigationMenuTest {
 						true)).thenReturn(true);
 		// when
 		menu = new UserNavigationMenu(sitemap, navigator, userOption, subjectProvider, pageAccessController,
-				userStatus);
+				userStatus, currentLocale);
 		// then
 		assertThat(menu.getItems()).hasSize(2);
 		MenuItem m0 = menu.getItems().get(0);
@@ -173,7 +173,7 @@ public class UserNavigationMenuTest {
 		sitemap.addChild(null, logoutNode);
 		// when
 		menu = new UserNavigationMenu(sitemap, navigator, userOption, subjectProvider, pageAccessController,
-				userStatus);
+				userStatus, currentLocale);
 		// then
 		assertThat(menu.getItems()).hasSize(2);
 	}
@@ -186,7 +186,7 @@ public class UserNavigationMenuTest {
 		when(pageAccessController.isAuthorised(subject, privateChildNode2)).thenReturn(false);
 		// when
 		menu = new UserNavigationMenu(sitemap, navigator, userOption, subjectProvider, pageAccessController,
-				userStatus);
+				userStatus, currentLocale);
 		// then
 		assertThat(menu.getItems()).hasSize(2);
 		MenuItem m0 = menu.getItems().get(0);
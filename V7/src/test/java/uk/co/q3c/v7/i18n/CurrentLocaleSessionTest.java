@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Provider;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.util.CurrentInstance;
+
+public class CurrentLocaleSessionTest {
+
+	CurrentLocale currentLocale;
+	Provider<I18NTranslator> translatorPro;
+	I18NTranslator translator;
+	VaadinSession session1;
+	VaadinSession session2;
+
+	static class Listener implements I18NListener {
+		int calls;
+
+		@Override
+		public void localeChange(I18NTranslator translator) {
+			calls++;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Before
+	public void setup() {
+		translatorPro = mock(Provider.class);
+		translator = mock(I18NTranslator.class);
+		when(translatorPro.get()).thenReturn(translator);
+		currentLocale = new CurrentLocale(translatorPro, mock(Provider.class));
+		session1 = mock(VaadinSession.class);
+		session2 = mock(VaadinSession.class);
+	}
+
+	@After
+	public void teardown() {
+		CurrentInstance.clearAll();
+	}
+
+	@Test
+	public void localeIsPerSession() {
+
+		// given
+		Listener listener1 = new Listener();
+		Listener listener2 = new Listener();
+		VaadinSession.setCurrent(session1);
+		currentLocale.addListener(listener1);
+		VaadinSession.setCurrent(session2);
+		currentLocale.addListener(listener2);
+		// when
+		VaadinSession.setCurrent(session1);
+		currentLocale.setLocale(Locale.GERMAN);
+		// then
+		assertThat(currentLocale.getLocale()).isEqualTo(Locale.GERMAN);
+		assertThat(listener1.calls).isEqualTo(1);
+		assertThat(listener2.calls).isEqualTo(0);
+		VaadinSession.setCurrent(session2);
+		assertThat(currentLocale.getLocale()).isEqualTo(Locale.UK);
+	}
+
+	@Test
+	public void newSessionStartsWithDefault() {
+
+		// given
+		currentLocale.setLocale(Locale.FRENCH);
+		// when
+		VaadinSession.setCurrent(session1);
+		// then
+		assertThat(currentLocale.getLocale()).isEqualTo(Locale.FRENCH);
+	}
+
+	@Test
+	public void oneTranslatorPerDispatch() {
+
+		// given
+		VaadinSession.setCurrent(session1);
+		Listener[] listeners = new Listener[10];
+		for (int i = 0; i < listeners.length; i++) {
+			listeners[i] = new Listener();
+			currentLocale.addListener(listeners[i]);
+		}
+		// when
+		currentLocale.setLocale(Locale.GERMAN);
+		// then
+		verify(translatorPro, times(1)).get();
+		for (Listener listener : listeners) {
+			assertThat(listener.calls).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void listenersHeldWeakly() throws InterruptedException {
+
+		// given
+		VaadinSession.setCurrent(session1);
+		Listener retained = new Listener();
+		currentLocale.addListener(retained);
+		currentLocale.addListener(new Listener());
+		// when
+		for (int i = 0; (i < 50) && (currentLocale.listenerCount() > 1); i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		// then
+		assertThat(currentLocale.listenerCount()).isEqualTo(1);
+		currentLocale.removeListener(retained);
+		assertThat(currentLocale.listenerCount()).isEqualTo(0);
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.q3c.v7.i18n.I18NBindingPlan.BoundField;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+public class I18NBindingPlanTest {
+
+	I18NTestClass testObject;
+	CurrentLocale currentLocale;
+	Injector injector;
+
+	@Before
+	public void setup() {
+		injector = Guice.createInjector(new I18NModule());
+		currentLocale = injector.getInstance(CurrentLocale.class);
+		testObject = new I18NTestClass();
+		// ensure switching to UK forces a change
+		currentLocale.setLocale(Locale.CANADA_FRENCH);
+		currentLocale.addListener(testObject);
+	}
+
+	@Test
+	public void planFields() {
+
+		// given
+
+		// when
+		I18NBindingPlan plan = I18NBindingPlan.forClass(I18NTestClass.class);
+		// then
+		Map<String, BoundField> fields = new HashMap<>();
+		for (BoundField field : plan.getFields()) {
+			fields.put(field.getName(), field);
+		}
+		assertThat(fields.keySet()).contains("buttonWithAnnotation", "label", "table", "demoLabel", "ccs", "cnc",
+				"ccsn", "cncn");
+		assertThat(fields.keySet()).doesNotContain("buttonWithoutAnnotation", "integer", "dubble");
+		assertThat(fields.get("label").isProperty()).isTrue();
+		assertThat(fields.get("table").isTable()).isTrue();
+		assertThat(fields.get("buttonWithAnnotation").isProperty()).isFalse();
+		assertThat(fields.get("cnc").isListener()).isTrue();
+		assertThat(fields.get("cnc").isComponent()).isFalse();
+		assertThat(fields.get("label").get(testObject)).isSameAs(testObject.getLabel());
+		assertThat(I18NBindingPlan.forClass(I18NTestClass.class)).isSameAs(plan);
+	}
+
+	@Test
+	public void translate() {
+
+		// given
+
+		// when
+		currentLocale.setLocale(Locale.UK);
+		// then
+		assertThat(testObject.getButtonWithAnnotation().getCaption()).isEqualTo("Ok");
+		assertThat(testObject.getButtonWithAnnotation().getDescription()).isEqualTo("Confirm this Value is Ok");
+		assertThat(testObject.getButtonWithAnnotation().getLocale()).isEqualTo(Locale.UK);
+		assertThat(testObject.getLabel().getValue()).isEqualTo("Confirm this Value is Ok");
+		assertThat(testObject.getTable().getColumnHeaders()).isEqualTo(new String[] { "Small", "Cancel", "not i18N" });
+		assertThat(testObject.getCcs().isLocaleChangeCalled()).isTrue();
+		assertThat(testObject.getCncn().isLocaleChangeCalled()).isTrue();
+
+		// when
+		currentLocale.setLocale(Locale.GERMAN);
+		// then
+		assertThat(testObject.getTable().getColumnHeaders()).isEqualTo(
+				new String[] { "Klein", "Stornieren", "not i18N" });
+	}
+
+	@Test
+	public void annotationRegisteredAfterPlanBuilt() {
+
+		// given
+		currentLocale.setLocale(Locale.UK);
+		assertThat(testObject.getDemoLabel().getCaption()).isNull();
+		// when
+		currentLocale.registerAnnotation(TestI18N.class, injector.getProvider(TestI18Nreader.class));
+		currentLocale.setLocale(Locale.GERMAN);
+		// then
+		assertThat(testObject.getDemoLabel().getCaption()).isEqualTo("Ja");
+		assertThat(testObject.getDemoLabel().getValue()).isEqualTo("Nein");
+	}
+}
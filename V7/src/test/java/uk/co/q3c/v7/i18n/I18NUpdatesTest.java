@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.vaadin.ui.Label;
+
+public class I18NUpdatesTest {
+
+	Injector injector;
+	CurrentLocale currentLocale;
+
+	@Before
+	public void setup() {
+		injector = Guice.createInjector(new I18NModule());
+		currentLocale = injector.getInstance(CurrentLocale.class);
+	}
+
+	@Test
+	public void onlyChangedValuesApplied() {
+
+		// given
+		Label label = new Label("a");
+		// when
+		boolean sameCaption = I18NUpdates.caption(label, null);
+		boolean newCaption = I18NUpdates.caption(label, "b");
+		boolean sameValue = I18NUpdates.value(label, "a");
+		boolean newValue = I18NUpdates.value(label, "c");
+		// then
+		assertThat(sameCaption).isFalse();
+		assertThat(newCaption).isTrue();
+		assertThat(sameValue).isFalse();
+		assertThat(newValue).isTrue();
+		assertThat(label.getCaption()).isEqualTo("b");
+		assertThat(label.getValue()).isEqualTo("c");
+	}
+
+	@Test
+	public void repeatedTranslationMakesNoUpdates() {
+
+		// given
+		currentLocale.setLocale(Locale.UK);
+		I18NTestClass testObject = new I18NTestClass();
+		AnnotationI18NTranslator first = injector.getInstance(AnnotationI18NTranslator.class);
+		first.translate(testObject);
+		// when
+		AnnotationI18NTranslator second = injector.getInstance(AnnotationI18NTranslator.class);
+		second.translate(testObject);
+		// then
+		assertThat(first.getUpdateCount()).isGreaterThan(0);
+		assertThat(second.getUpdateCount()).isEqualTo(0);
+		assertThat(testObject.getButtonWithAnnotation().getCaption()).isEqualTo("Ok");
+
+		// when
+		currentLocale.setLocale(Locale.GERMAN);
+		AnnotationI18NTranslator third = injector.getInstance(AnnotationI18NTranslator.class);
+		third.translate(testObject);
+		// then
+		assertThat(third.getUpdateCount()).isGreaterThan(0);
+		assertThat(testObject.getTable().getColumnHeaders()).isEqualTo(
+				new String[] { "Klein", "Stornieren", "not i18N" });
+	}
+}
@@ -13,7 +13,11 @@
 package uk.co.q3c.v7.i18n;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
 
+import java.text.DateFormat;
+import java.util.Date;
 import java.util.Locale;
 
 import com.google.inject.Inject;
@@ -50,6 +54,77 @@ public class TranslateTest {
 		assertThat(translate.from(LabelKey.Ok, germanSwitzerland)).isEqualTo("Ok");
 	}
 
+	@Test
+	public void fromNoArgs() {
+		Locale germanSwitzerland = new Locale("de", "CH");
+		// when
+		assertThat(translate.fromNoArgs(LabelKey.Cancel)).isEqualTo("Cancel");
+		assertThat(translate.fromNoArgs(LabelKey.Cancel, Locale.GERMAN)).isEqualTo("Stornieren");
+		assertThat(translate.fromNoArgs(LabelKey.Ok, germanSwitzerland)).isEqualTo("Ok");
+		// then
+		for (LabelKey key : LabelKey.values()) {
+			assertThat(translate.fromNoArgs(key, germanSwitzerland)).isEqualTo(translate.from(key, germanSwitzerland));
+		}
+		// missing keys default to the key name, and the same instance is returned every time
+		String missing = translate.fromNoArgs(TestLabelKey.My_Account, Locale.GERMAN);
+		assertThat(missing).isEqualTo("My Account");
+		assertThat(translate.fromNoArgs(TestLabelKey.My_Account, Locale.UK)).isSameAs(missing);
+	}
+
+	@Test
+	public void javaTextSyntax() {
+		// given
+		TranslationTables tables = mock(TranslationTables.class);
+		TranslationUsage usage = mock(TranslationUsage.class);
+		Translate translate = new Translate(mock(CurrentLocale.class), tables, usage);
+		when(tables.lookup(LabelKey.Ok, Locale.GERMANY)).thenReturn("{1} hat {0,number,#,##0.00} bezahlt");
+		when(tables.lookup(LabelKey.Cancel, Locale.UK)).thenReturn("It''s {0}, isn''t it");
+		when(tables.lookup(LabelKey.Authentication, Locale.UK)).thenReturn("{1} isn't {0}");
+		// when
+		// then format types are formatted for the locale, and a quoted apostrophe is output once
+		assertThat(translate.from(LabelKey.Ok, Locale.GERMANY, 1234.5, "Fred")).isEqualTo("Fred hat 1.234,50 bezahlt");
+		assertThat(translate.from(LabelKey.Cancel, Locale.UK, "late")).isEqualTo("It's late, isn't it");
+		// while a single apostrophe is literal, as it always has been
+		assertThat(translate.from(LabelKey.Authentication, Locale.UK, "one", "two")).isEqualTo("two isn't one");
+		verify(usage, never()).formatFailure(any(I18NKey.class), any(Locale.class));
+	}
+
+	@Test
+	public void javaTextSyntaxFailure() {
+		// given
+		TranslationTables tables = mock(TranslationTables.class);
+		TranslationUsage usage = mock(TranslationUsage.class);
+		Translate translate = new Translate(mock(CurrentLocale.class), tables, usage);
+		when(tables.lookup(LabelKey.Ok, Locale.UK)).thenReturn("{0,number} items");
+		// when
+		String result = translate.from(LabelKey.Ok, Locale.UK, "many");
+		// then
+		assertThat(result).isEqualTo("{0,number} items");
+		verify(usage).formatFailure(LabelKey.Ok, Locale.UK);
+	}
+
+	@Test
+	public void numbersAndDatesFormattedForLocale() {
+		// given
+		TranslationTables tables = mock(TranslationTables.class);
+		TranslationUsage usage = mock(TranslationUsage.class);
+		Translate translate = new Translate(mock(CurrentLocale.class), tables, usage);
+		when(tables.lookup(LabelKey.Ok, Locale.UK)).thenReturn("{1} paid {0} on {2}");
+		when(tables.lookup(LabelKey.Ok, Locale.GERMANY)).thenReturn("{1} hat {0} am {2} bezahlt");
+		Date date = new Date();
+		Object[] arguments = new Object[] { 1234.5, "Fred", date };
+		String ukDate = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, Locale.UK).format(date);
+		String deDate = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, Locale.GERMANY)
+				.format(date);
+		// when
+		// then as java.text.MessageFormat would format them
+		assertThat(translate.from(LabelKey.Ok, Locale.UK, arguments)).isEqualTo("Fred paid 1,234.5 on " + ukDate);
+		assertThat(translate.from(LabelKey.Ok, Locale.GERMANY, arguments)).isEqualTo(
+				"Fred hat 1.234,5 am " + deDate + " bezahlt");
+		// and the caller's arguments are unchanged
+		assertThat(arguments[0]).isEqualTo(1234.5);
+	}
+
 	@ModuleProvider
 	protected AbstractModule moduleProvider() {
 		return new AbstractModule() {
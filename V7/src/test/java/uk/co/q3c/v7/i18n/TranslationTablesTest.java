@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class TranslationTablesTest {
+
+	TranslationTables tables;
+
+	@Before
+	public void setup() {
+		tables = new TranslationTables();
+	}
+
+	@Test
+	public void lookup_matchesBundle() {
+
+		// given
+		Locale germanSwitzerland = new Locale("de", "CH");
+		// when
+
+		// then
+		for (TestLabelKey key : TestLabelKey.values()) {
+			assertThat(tables.lookup(key, Locale.UK)).isEqualTo(key.getValue(Locale.UK));
+			assertThat(tables.lookup(key, Locale.GERMAN)).isEqualTo(key.getValue(Locale.GERMAN));
+		}
+		for (LabelKey key : LabelKey.values()) {
+			assertThat(tables.lookup(key, germanSwitzerland)).isEqualTo(key.getValue(germanSwitzerland));
+		}
+	}
+
+	@Test
+	public void lookup_inheritsFromParent() {
+
+		// given
+
+		// when
+
+		// then
+		assertThat(tables.lookup(TestLabelKey.Home, Locale.GERMAN)).isEqualTo("zu Hause");
+		// not in _de, comes from parent
+		assertThat(tables.lookup(TestLabelKey.Transfers, Locale.GERMAN)).isEqualTo("transfers");
+		// not defined anywhere
+		assertThat(tables.lookup(TestLabelKey.Login, Locale.GERMAN)).isNull();
+	}
+
+	@Test
+	public void tablesBuiltOncePerClassAndLocale() {
+
+		// given
+
+		// when
+		tables.lookup(TestLabelKey.Home, Locale.GERMAN);
+		tables.lookup(TestLabelKey.Yes, Locale.GERMAN);
+		tables.lookup(TestLabelKey.Yes, Locale.UK);
+		tables.lookup(LabelKey.Cancel, Locale.UK);
+		// then
+		assertThat(tables.size()).isEqualTo(3);
+		// when
+		tables.clear();
+		// then
+		assertThat(tables.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void install_externalOverridesSameLocale() {
+
+		// given
+		tables.lookup(TestLabelKey.Home, Locale.GERMAN);
+		// when
+		TranslationChange change = tables.install(external(Locale.GERMAN, "Home", "Startseite"));
+		// then
+		assertThat(tables.lookup(TestLabelKey.Home, Locale.GERMAN)).isEqualTo("Startseite");
+		assertThat(tables.lookup(TestLabelKey.Home, Locale.UK)).isEqualTo("home");
+		assertThat(change.getVersion()).isEqualTo(1);
+		assertThat(change.getChangedKeys()).containsOnly(TestLabelKey.Home);
+		assertThat(tables.getVersion()).isEqualTo(1);
+	}
+
+	@Test
+	public void install_lessSpecificExternalDoesNotOverrideCompiled() {
+
+		// given
+
+		// when
+		tables.install(external(Locale.ROOT, "Home", "base home", "Login", "log in"));
+		// then
+		// compiled _de is more specific than external root
+		assertThat(tables.lookup(TestLabelKey.Home, Locale.GERMAN)).isEqualTo("zu Hause");
+		// compiled root is the same level, external wins
+		assertThat(tables.lookup(TestLabelKey.Home, Locale.UK)).isEqualTo("base home");
+		// not compiled anywhere
+		assertThat(tables.lookup(TestLabelKey.Login, Locale.GERMAN)).isEqualTo("log in");
+	}
+
+	@Test
+	public void install_changedKeysAndListeners() {
+
+		// given
+		final List<TranslationChange> changes = new ArrayList<>();
+		tables.addChangeListener(new TranslationChangeListener() {
+			@Override
+			public void translationsChanged(TranslationChange change) {
+				changes.add(change);
+			}
+		});
+		tables.install(external(Locale.GERMAN, "Home", "Startseite", "Login", "Anmelden"));
+		// when
+		tables.install(external(Locale.GERMAN, "Home", "Startseite", "Opt", "Wahl"));
+		tables.install(ExternalTranslations.EMPTY);
+		// then
+		assertThat(changes).hasSize(3);
+		assertThat(changes.get(1).getVersion()).isEqualTo(2);
+		assertThat(changes.get(1).getChangedKeys()).containsOnly(TestLabelKey.Login, TestLabelKey.Opt);
+		assertThat(changes.get(2).getChangedKeys()).containsOnly(TestLabelKey.Home, TestLabelKey.Opt);
+		assertThat(tables.lookup(TestLabelKey.Home, Locale.GERMAN)).isEqualTo("zu Hause");
+	}
+
+	private ExternalTranslations external(Locale locale, String... namesAndValues) {
+		ImmutableMap.Builder<String, String> values = ImmutableMap.builder();
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			values.put(namesAndValues[i], namesAndValues[i + 1]);
+		}
+		ImmutableMap<Locale, ImmutableMap<String, String>> locales = ImmutableMap.of(locale, values.build());
+		return new ExternalTranslations(ImmutableMap.<Class<?>, ImmutableMap<Locale, ImmutableMap<String, String>>> of(
+				TestLabelKey.class, locales));
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+public class TranslationUsageTest {
+
+	Translate translate;
+	TranslationUsage usage;
+
+	@Before
+	public void setup() {
+		Injector injector = Guice.createInjector(new I18NModule());
+		translate = injector.getInstance(Translate.class);
+		usage = injector.getInstance(TranslationUsage.class);
+	}
+
+	@Test
+	public void hitsMissesAndFormatFailures() {
+
+		// given
+
+		// when
+		translate.from(TestLabelKey.Home, Locale.GERMAN);
+		translate.from(TestLabelKey.Home, Locale.GERMAN);
+		translate.from(TestLabelKey.Home, Locale.UK);
+		translate.from(TestLabelKey.Login, Locale.GERMAN);
+		translate.from(MessageKey.invalidURI, Locale.UK, "a", "b");
+		// then
+		ImmutableList<TranslationUsageCount> counts = usage.snapshot();
+		assertThat(counts).hasSize(4);
+		// most missed first
+		assertThat(counts.get(0).getKey()).isEqualTo(TestLabelKey.Login);
+		assertThat(counts.get(0).getMisses()).isEqualTo(1);
+		// then most used
+		assertThat(counts.get(1).getKey()).isEqualTo(TestLabelKey.Home);
+		assertThat(counts.get(1).getLocale()).isEqualTo(Locale.GERMAN);
+		assertThat(counts.get(1).getHits()).isEqualTo(2);
+		assertThat(counts.get(1).getMisses()).isEqualTo(0);
+		TranslationUsageCount message = counts.get(2).getKey() == MessageKey.invalidURI ? counts.get(2) : counts
+				.get(3);
+		assertThat(message.getHits()).isEqualTo(1);
+		assertThat(message.getFormatFailures()).isEqualTo(1);
+	}
+
+	@Test
+	public void countsFromManyThreads() throws InterruptedException {
+
+		// given
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 10000; j++) {
+						translate.from(TestLabelKey.Yes, Locale.UK);
+					}
+				}
+			});
+		}
+		// when
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		// then
+		assertThat(usage.snapshot().get(0).getHits()).isEqualTo(80000);
+	}
+
+	@Test
+	public void disableAndReset() {
+
+		// given
+		translate.from(TestLabelKey.Yes, Locale.UK);
+		// when
+		usage.setEnabled(false);
+		translate.from(TestLabelKey.Yes, Locale.UK);
+		// then
+		assertThat(usage.snapshot().get(0).getHits()).isEqualTo(1);
+		// when
+		usage.reset();
+		// then
+		assertThat(usage.snapshot()).isEmpty();
+	}
+}
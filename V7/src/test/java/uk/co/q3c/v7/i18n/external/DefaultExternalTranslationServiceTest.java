@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n.external;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.co.q3c.v7.base.config.ApplicationConfiguration;
+import uk.co.q3c.v7.base.config.ApplicationConfigurationService;
+import uk.co.q3c.v7.base.config.ConfigKeys;
+import uk.co.q3c.v7.base.navigate.sitemap.Sitemap;
+import uk.co.q3c.v7.base.navigate.sitemap.SitemapNode;
+import uk.co.q3c.v7.i18n.I18NKey;
+import uk.co.q3c.v7.i18n.I18NModule;
+import uk.co.q3c.v7.i18n.TestLabelKey;
+import uk.co.q3c.v7.i18n.Translate;
+import uk.co.q3c.v7.i18n.TranslationChange;
+import uk.co.q3c.v7.i18n.TranslationTables;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+public class DefaultExternalTranslationServiceTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	DefaultExternalTranslationService service;
+	TranslationTables tables;
+	SitemapNode node;
+
+	@SuppressWarnings("rawtypes")
+	@Before
+	public void setup() {
+		Injector injector = Guice.createInjector(new I18NModule());
+		Translate translate = injector.getInstance(Translate.class);
+		tables = injector.getInstance(TranslationTables.class);
+		ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+		when(configuration.getString(eq(ConfigKeys.I18N_EXTERNAL_DIRECTORY), anyString())).thenReturn(
+				folder.getRoot().getAbsolutePath());
+		Sitemap sitemap = mock(Sitemap.class);
+		node = new SitemapNode("home", null, TestLabelKey.Home, Locale.UK, Collator.getInstance(Locale.UK), translate);
+		List<SitemapNode> nodes = new ArrayList<>();
+		nodes.add(node);
+		when(sitemap.getAllNodes()).thenReturn(nodes);
+		Set<Class<? extends I18NKey>> keyClasses = new HashSet<>();
+		keyClasses.add(TestLabelKey.class);
+		service = new DefaultExternalTranslationService(translate, mock(ApplicationConfigurationService.class),
+				configuration, tables, sitemap, keyClasses) {
+			@Override
+			protected long settleTime() {
+				return 10;
+			}
+		};
+	}
+
+	@After
+	public void teardown() throws Exception {
+		service.stop();
+	}
+
+	@Test
+	public void loadOnStart() throws Exception {
+
+		// given
+		write("TestLabelKey_de.properties", "Home=Startseite\nNotAKey=ignored\n");
+		write("Unrelated.properties", "Home=ignored\n");
+		assertThat(node.getLabel(Locale.GERMAN)).isEqualTo("zu Hause");
+		// when
+		service.start();
+		// then
+		assertThat(service.getDirectory()).isEqualTo(folder.getRoot());
+		assertThat(tables.lookup(TestLabelKey.Home, Locale.GERMAN)).isEqualTo("Startseite");
+		assertThat(node.getLabel(Locale.GERMAN)).isEqualTo("Startseite");
+
+		// when
+		service.stop();
+		// then
+		assertThat(tables.lookup(TestLabelKey.Home, Locale.GERMAN)).isEqualTo("zu Hause");
+	}
+
+	@Test
+	public void reload() throws Exception {
+
+		// given
+		write("TestLabelKey_de.properties", "Home=Startseite\n");
+		service.start();
+		long version = tables.getVersion();
+		// when
+		write("TestLabelKey_de.properties", "Home=Startseite\nLogin=Anmelden\n");
+		TranslationChange change = service.reload();
+		// then
+		assertThat(change.getVersion()).isEqualTo(version + 1);
+		assertThat(change.getChangedKeys()).containsOnly(TestLabelKey.Login);
+		assertThat(tables.lookup(TestLabelKey.Login, Locale.GERMAN)).isEqualTo("Anmelden");
+	}
+
+	@Test
+	public void reloadBeforeStart() throws Exception {
+
+		// given
+		write("TestLabelKey_de.properties", "Home=Startseite\n");
+		// when
+		service.reload();
+		// then
+		assertThat(service.getDirectory()).isEqualTo(folder.getRoot());
+		assertThat(tables.lookup(TestLabelKey.Home, Locale.GERMAN)).isEqualTo("Startseite");
+	}
+
+	@Test
+	public void fileChangeDetected() throws Exception {
+
+		// given
+		service.start();
+		long version = tables.getVersion();
+		// when
+		write("TestLabelKey_de.properties", "Yes=Jawohl\n");
+		for (int i = 0; (i < 100) && (tables.getVersion() == version); i++) {
+			Thread.sleep(100);
+		}
+		// then
+		assertThat(tables.getVersion()).isGreaterThan(version);
+		assertThat(tables.lookup(TestLabelKey.Yes, Locale.GERMAN)).isEqualTo("Jawohl");
+	}
+
+	private void write(String filename, String content) throws IOException {
+		File file = new File(folder.getRoot(), filename);
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+			writer.write(content);
+		}
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2014 David Sowerby
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.co.q3c.v7.i18n.warmup;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.q3c.v7.base.config.ApplicationConfiguration;
+import uk.co.q3c.v7.base.config.ApplicationConfigurationService;
+import uk.co.q3c.v7.base.config.ConfigKeys;
+import uk.co.q3c.v7.base.navigate.sitemap.Sitemap;
+import uk.co.q3c.v7.base.navigate.sitemap.SitemapNode;
+import uk.co.q3c.v7.base.navigate.sitemap.SitemapService;
+import uk.co.q3c.v7.base.services.Service.Status;
+import uk.co.q3c.v7.i18n.I18NKey;
+import uk.co.q3c.v7.i18n.I18NModule;
+import uk.co.q3c.v7.i18n.TestLabelKey;
+import uk.co.q3c.v7.i18n.TestLabels;
+import uk.co.q3c.v7.i18n.Translate;
+import uk.co.q3c.v7.i18n.TranslationTables;
+import uk.co.q3c.v7.i18n.external.ExternalTranslationService;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+public class DefaultI18NWarmupServiceTest {
+
+	DefaultI18NWarmupService service;
+	ApplicationConfiguration configuration;
+	Sitemap sitemap;
+	SitemapNode node;
+	TranslationTables tables;
+	Translate translate;
+
+	@SuppressWarnings("rawtypes")
+	@Before
+	public void setup() {
+		Injector injector = Guice.createInjector(new I18NModule());
+		translate = injector.getInstance(Translate.class);
+		tables = injector.getInstance(TranslationTables.class);
+		tables.clear();
+		configuration = mock(ApplicationConfiguration.class);
+		sitemap = mock(Sitemap.class);
+		node = new SitemapNode("home", null, TestLabelKey.Home, Locale.UK, Collator.getInstance(Locale.UK), translate);
+		List<SitemapNode> nodes = new ArrayList<>();
+		nodes.add(node);
+		when(sitemap.getAllNodes()).thenReturn(nodes);
+		Set<Class<? extends I18NKey>> keyClasses = new HashSet<>();
+		keyClasses.add(TestLabelKey.class);
+		service = new DefaultI18NWarmupService(translate, mock(ApplicationConfigurationService.class),
+				mock(SitemapService.class), mock(ExternalTranslationService.class), configuration, tables, sitemap, keyClasses);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void warmup() throws Exception {
+
+		// given
+		List<Object> tags = new ArrayList<>();
+		tags.add("en-GB");
+		tags.add(" de ");
+		tags.add("");
+		when(configuration.getList(eq(ConfigKeys.I18N_SUPPORTED_LOCALES), anyList())).thenReturn(tags);
+		// when
+		Status status = service.start();
+		// then
+		assertThat(status).isEqualTo(Status.STARTED);
+		assertThat(service.getSupportedLocales()).containsExactly(Locale.UK, Locale.GERMAN);
+		assertThat(service.getCoverage()).hasSize(2);
+		assertThat(node.getLabel(Locale.GERMAN)).isEqualTo("zu Hause");
+
+		TranslationCoverage german = service.getCoverage().get(1);
+		assertThat(german.getLocale()).isEqualTo(Locale.GERMAN);
+		assertThat(german.getBundleLocale()).isEqualTo(Locale.GERMAN);
+		assertThat(german.getKeyCount()).isEqualTo(12);
+		assertThat(german.getInheritedKeys()).containsOnly("Transfers", "Opt");
+		assertThat(german.getUndefinedKeys()).contains("My_Account", "Login", "View2");
+		assertThat(german.getUndefinedKeys()).doesNotContain("Home", "Yes", "No", "Transfers");
+
+		// when
+		service.stop();
+		// then
+		assertThat(service.getCoverage()).isEmpty();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void defaultLocale() throws Exception {
+
+		// given
+		List<Object> defaults = new ArrayList<>();
+		defaults.add("en-GB");
+		when(configuration.getList(eq(ConfigKeys.I18N_SUPPORTED_LOCALES), anyList())).thenReturn(defaults);
+		// when
+		service.start();
+		// then
+		assertThat(service.getSupportedLocales()).containsExactly(Locale.UK);
+		TranslationCoverage uk = service.getCoverage().get(0);
+		assertThat(uk.getInheritedKeys()).isEmpty();
+		assertThat(uk.getUndefinedKeys()).hasSize(7);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void noLocales() throws Exception {
+
+		// given
+		when(configuration.getList(eq(ConfigKeys.I18N_SUPPORTED_LOCALES), anyList())).thenReturn(new ArrayList<>());
+		// when
+		Status status = service.start();
+		// then
+		assertThat(status).isEqualTo(Status.STARTED);
+		assertThat(service.getSupportedLocales()).isEmpty();
+		assertThat(service.getCoverage()).isEmpty();
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	public void keyClassWhichIsNotAnEnum() throws Exception {
+
+		// given
+		Set<Class<? extends I18NKey>> keyClasses = new HashSet<>();
+		keyClasses.add(TestLabelKey.class);
+		keyClasses.add(NotAnEnumKey.class);
+		service = new DefaultI18NWarmupService(translate, mock(ApplicationConfigurationService.class),
+				mock(SitemapService.class), mock(ExternalTranslationService.class), configuration, tables, sitemap,
+				keyClasses);
+		List<Object> tags = new ArrayList<>();
+		tags.add("de");
+		when(configuration.getList(eq(ConfigKeys.I18N_SUPPORTED_LOCALES), anyList())).thenReturn(tags);
+		// when
+		Status status = service.start();
+		// then the class without constants is skipped, and the locale is still warmed
+		assertThat(status).isEqualTo(Status.STARTED);
+		assertThat(service.getCoverage()).hasSize(1);
+		assertThat(service.getCoverage().get(0).getKeyClass()).isEqualTo(TestLabelKey.class);
+		assertThat(node.getLabel(Locale.GERMAN)).isEqualTo("zu Hause");
+	}
+
+	@Test
+	public void coverageOfEmptyKeyClass() {
+
+		// given
+
+		// when
+		TranslationCoverage coverage = TranslationCoverage.create(EmptyKey.class, Locale.GERMAN);
+		// then
+		assertThat(coverage.getKeyCount()).isEqualTo(0);
+		assertThat(coverage.getBundleLocale()).isEqualTo(Locale.GERMAN);
+		assertThat(coverage.getUndefinedKeys()).isEmpty();
+		assertThat(coverage.getInheritedKeys()).isEmpty();
+	}
+
+	static class NotAnEnumKey implements I18NKey<TestLabels> {
+
+		@Override
+		public TestLabels getBundle(Locale locale) {
+			return (TestLabels) ResourceBundle.getBundle(TestLabels.class.getName(), locale);
+		}
+
+		@Override
+		public String getValue(Locale locale) {
+			return null;
+		}
+
+		@Override
+		public boolean isNullKey() {
+			return false;
+		}
+
+		@Override
+		public String name() {
+			return "NotAnEnumKey";
+		}
+	}
+
+	enum EmptyKey implements I18NKey<TestLabels> {
+		;
+
+		@Override
+		public TestLabels getBundle(Locale locale) {
+			return (TestLabels) ResourceBundle.getBundle(TestLabels.class.getName(), locale);
+		}
+
+		@Override
+		public String getValue(Locale locale) {
+			// there are no keys to look up
+			return null;
+		}
+
+		@Override
+		public boolean isNullKey() {
+			return false;
+		}
+	}
+}
@@ -14,6 +14,7 @@ package uk.co.q3c.v7.demo;
 
 import uk.co.q3c.v7.base.guice.BaseServlet;
 import uk.co.q3c.v7.base.ui.ScopedUIProvider;
+import uk.co.q3c.v7.i18n.warmup.I18NWarmupService;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -22,8 +23,8 @@ import com.google.inject.Singleton;
 public class DemoServlet extends BaseServlet {
 
 	@Inject
-	public DemoServlet(ScopedUIProvider uiProvider) {
-		super(uiProvider);
+	public DemoServlet(ScopedUIProvider uiProvider, I18NWarmupService warmupService) {
+		super(uiProvider, warmupService);
 	}
 
 	@Override
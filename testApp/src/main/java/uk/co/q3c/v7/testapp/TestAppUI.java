@@ -1,6 +1,7 @@
 package uk.co.q3c.v7.testapp;
 
 import uk.co.q3c.v7.base.navigate.V7Navigator;
+import uk.co.q3c.v7.base.push.BroadcastMessage;
 import uk.co.q3c.v7.base.push.Broadcaster;
 import uk.co.q3c.v7.base.push.PushMessageRouter;
 import uk.co.q3c.v7.base.ui.ApplicationTitle;
@@ -44,9 +45,9 @@ public class TestAppUI extends DefaultApplicationUI {
 	}
 
 	@Override
-	protected void processBroadcastMessage(String group, String message) {
-		super.processBroadcastMessage(group, message);
-		getMessageBar().informationMessage(group + ":" + message);
+	protected void processBroadcast(BroadcastMessage message) {
+		super.processBroadcast(message);
+		getMessageBar().informationMessage(message.getGroup() + ":" + message.getMessage());
 	}
 
 }
\ No newline at end of file
@@ -58,8 +58,8 @@ public class Push_Functional extends V7TestBenchTestCase {
 		setTextField("a1", "message", PushView.class, TextField.class);
 		clickButton("send", PushView.class, Button.class);
 		// then
-		assertThat(readTextArea(PushView.class, BroadcastMessageLog.class)).isEqualTo("a:a1\n");
-		assertThat(readTextArea(driver2, PushView.class, BroadcastMessageLog.class)).isEqualTo("a:a1\n");
+		assertThat(readTableRows(2, PushView.class, BroadcastMessageLog.class)).containsExactly("a:a1");
+		assertThat(readTableRows(driver2, 2, PushView.class, BroadcastMessageLog.class)).containsExactly("a:a1");
 		assertThat(readLabel(DefaultMessageBar.class, Label.class)).isEqualTo("a:a1");
 
 		// when
@@ -68,8 +68,9 @@ public class Push_Functional extends V7TestBenchTestCase {
 		clickButton(driver2, "send", PushView.class, Button.class);
 
 		// then
-		assertThat(readTextArea(PushView.class, BroadcastMessageLog.class)).isEqualTo("b:b1\na:a1\n");
-		assertThat(readTextArea(driver2, PushView.class, BroadcastMessageLog.class)).isEqualTo("b:b1\na:a1\n");
+		assertThat(readTableRows(2, PushView.class, BroadcastMessageLog.class)).containsExactly("b:b1", "a:a1");
+		assertThat(readTableRows(driver2, 2, PushView.class, BroadcastMessageLog.class))
+				.containsExactly("b:b1", "a:a1");
 		assertThat(readLabel(DefaultMessageBar.class, Label.class)).isEqualTo("b:b1");
 
 	}
@@ -14,6 +14,9 @@ package uk.co.q3c.v7.testbench;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Before;
 import org.openqa.selenium.Dimension;
 import org.openqa.selenium.Point;
@@ -292,6 +295,34 @@ public class V7TestBenchTestCase extends TestBenchTestCase {
 		return readTextArea(driver, null, classes);
 	}
 
+	/**
+	 * Reads the rows of a Table, each as the text of its first {@code columns} cells separated by ":"
+	 */
+	protected List<String> readTableRows(WebDriver driver, int columns, String qualifier, Class<?>... classes) {
+		WebElement table = element(driver, qualifier, classes);
+		List<String> rows = new ArrayList<>();
+		for (WebElement row : table.findElements(By.cssSelector(".v-table-table tr"))) {
+			List<WebElement> cells = row.findElements(By.className("v-table-cell-content"));
+			StringBuilder buf = new StringBuilder();
+			for (int i = 0; (i < columns) && (i < cells.size()); i++) {
+				if (i > 0) {
+					buf.append(":");
+				}
+				buf.append(cells.get(i).getText());
+			}
+			rows.add(buf.toString());
+		}
+		return rows;
+	}
+
+	protected List<String> readTableRows(int columns, Class<?>... classes) {
+		return readTableRows(driver, columns, null, classes);
+	}
+
+	protected List<String> readTableRows(WebDriver driver, int columns, Class<?>... classes) {
+		return readTableRows(driver, columns, null, classes);
+	}
+
 	protected String readLabel(WebDriver driver, String qualifier, Class<?>... classes) {
 		WebElement webElement = element(driver, qualifier, classes);
 		return webElement.getText();